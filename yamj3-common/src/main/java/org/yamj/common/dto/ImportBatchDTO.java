@@ -0,0 +1,163 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.common.dto;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * Object for importing several directories of a library into the core server.
+ *
+ * The stage directories are not serialized as object graph but written in a
+ * compact binary form which is compressed with GZIP.
+ */
+public class ImportBatchDTO implements Serializable {
+
+    private static final long serialVersionUID = -1826436087591349711L;
+    private String client;
+    private String playerPath;
+    private String baseDirectory;
+    private transient List<StageDirectoryDTO> stageDirectories = new ArrayList<>();
+
+    public String getClient() {
+        return client;
+    }
+
+    public void setClient(String client) {
+        this.client = client;
+    }
+
+    public String getPlayerPath() {
+        return playerPath;
+    }
+
+    public void setPlayerPath(String playerPath) {
+        this.playerPath = playerPath;
+    }
+
+    public String getBaseDirectory() {
+        return baseDirectory;
+    }
+
+    public void setBaseDirectory(String baseDirectory) {
+        this.baseDirectory = baseDirectory;
+    }
+
+    public List<StageDirectoryDTO> getStageDirectories() {
+        return stageDirectories;
+    }
+
+    public void setStageDirectories(List<StageDirectoryDTO> stageDirectories) {
+        this.stageDirectories = stageDirectories;
+    }
+
+    public void addStageDirectory(StageDirectoryDTO stageDirectory) {
+        this.stageDirectories.add(stageDirectory);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream data = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            data.writeInt(stageDirectories.size());
+            for (StageDirectoryDTO stageDirectory : stageDirectories) {
+                data.writeUTF(stageDirectory.getPath());
+                data.writeLong(stageDirectory.getDate());
+                data.writeInt(stageDirectory.getStageFiles().size());
+                for (StageFileDTO stageFile : stageDirectory.getStageFiles()) {
+                    data.writeUTF(stageFile.getFileName());
+                    data.writeLong(stageFile.getFileSize());
+                    data.writeLong(stageFile.getFileDate());
+                    writeContent(data, stageFile.getContent());
+                }
+            }
+        }
+
+        byte[] payload = bytes.toByteArray();
+        out.writeInt(payload.length);
+        out.write(payload);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+
+        byte[] payload = new byte[in.readInt()];
+        in.readFully(payload);
+
+        try (DataInputStream data = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(payload)))) {
+            final int directoryCount = data.readInt();
+            stageDirectories = new ArrayList<>(directoryCount);
+            for (int d = 0; d < directoryCount; d++) {
+                StageDirectoryDTO stageDirectory = new StageDirectoryDTO();
+                stageDirectory.setPath(data.readUTF());
+                stageDirectory.setDate(data.readLong());
+
+                final int fileCount = data.readInt();
+                List<StageFileDTO> stageFiles = new ArrayList<>(fileCount);
+                for (int f = 0; f < fileCount; f++) {
+                    StageFileDTO stageFile = new StageFileDTO();
+                    stageFile.setFileName(data.readUTF());
+                    stageFile.setFileSize(data.readLong());
+                    stageFile.setFileDate(data.readLong());
+                    stageFile.setContent(readContent(data));
+                    stageFiles.add(stageFile);
+                }
+                stageDirectory.setStageFiles(stageFiles);
+                stageDirectories.add(stageDirectory);
+            }
+        }
+    }
+
+    private static void writeContent(DataOutputStream data, String content) throws IOException {
+        // content may exceed the length limit of writeUTF
+        if (content == null) {
+            data.writeInt(-1);
+        } else {
+            byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+            data.writeInt(bytes.length);
+            data.write(bytes);
+        }
+    }
+
+    private static String readContent(DataInputStream data) throws IOException {
+        final int length = data.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        data.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+    }
+}
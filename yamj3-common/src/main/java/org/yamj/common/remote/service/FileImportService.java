@@ -22,9 +22,12 @@
  */
 package org.yamj.common.remote.service;
 
+import org.yamj.common.dto.ImportBatchDTO;
 import org.yamj.common.dto.ImportDTO;
 
 public interface FileImportService {
 
     void importScanned(ImportDTO importDTO);
+
+    void importScannedBatch(ImportBatchDTO importBatch);
 }
@@ -84,6 +84,7 @@ public class CachingConfiguration implements CachingConfigurer {
                 .cache(cacheConfig(API_BOXEDSETS, 5000, TTL_ONE_WEEK))
                 .cache(cacheConfig(API_TRAILERS, 5000, TTL_ONE_WEEK))
                 .cache(cacheConfig(API_VIDEOSOURCE, 5000, TTL_ONE_WEEK))
+                .cache(cacheConfig(API_RESPONSES, 500, TTL_10_MINUTES))
             );
     }
 
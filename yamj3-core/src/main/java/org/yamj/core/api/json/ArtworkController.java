@@ -22,14 +22,16 @@
  */
 package org.yamj.core.api.json;
 
-import java.io.FileInputStream;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
-import org.apache.commons.io.IOUtils;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -173,7 +175,7 @@ public class ArtworkController {
     }
     
     @RequestMapping(value = "/get/{profile}/{id}", method=RequestMethod.GET, produces = {MediaType.IMAGE_PNG_VALUE, MediaType.IMAGE_JPEG_VALUE})
-    public ResponseEntity<byte[]> getImage(@PathVariable("profile") String profile, @PathVariable("id") Long id) {
+    public ResponseEntity<Resource> getImage(@PathVariable("profile") String profile, @PathVariable("id") Long id) {
         final long start = System.currentTimeMillis();
         try {
             ImageDTO image = this.artworkLocatedProcessorService.getImage(id, profile);
@@ -181,11 +183,22 @@ public class ArtworkController {
                 return new ResponseEntity<>(HttpStatus.NOT_FOUND);
             }
             
-            try (FileInputStream fos = new FileInputStream(image.getResource())) {
-                HttpHeaders headers = new HttpHeaders();
-                headers.setContentType(image.getMediaType());
-                return new ResponseEntity<>(IOUtils.toByteArray(fos), headers, HttpStatus.OK);
+            final File file = new File(image.getResource());
+            if (!file.isFile()) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
             }
+            
+            // strong validator of the cache file; a regenerated image gets a new tag
+            final long lastModified = file.lastModified();
+            final String eTag = "\"" + file.getName() + "-" + Long.toHexString(lastModified) + "-" + Long.toHexString(file.length()) + "\"";
+
+            // the file is streamed; conditional requests are answered with 304 and range requests with 206
+            return ResponseEntity.ok()
+                    .contentType(image.getMediaType())
+                    .eTag(eTag)
+                    .lastModified(lastModified)
+                    .cacheControl(CacheControl.maxAge(1, TimeUnit.HOURS))
+                    .body((Resource) new FileSystemResource(file));
         } catch (Exception ex) {
             LOG.warn("Failed to get image for ID {} and profile '{}': {}", id, profile, ex.getMessage());
             LOG.trace("Image retrieval error", ex);
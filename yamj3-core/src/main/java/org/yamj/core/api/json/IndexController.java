@@ -34,8 +34,10 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import org.yamj.common.type.MetaDataType;
+import org.yamj.core.api.model.ApiStatus;
 import org.yamj.core.api.model.CountGeneric;
 import org.yamj.core.api.model.CountTimestamp;
+import org.yamj.core.api.model.builder.IndexParams;
 import org.yamj.core.api.model.dto.ApiPersonDTO;
 import org.yamj.core.api.model.dto.ApiVideoDTO;
 import org.yamj.core.api.options.OptionsId;
@@ -56,7 +58,13 @@ public class IndexController {
         LOG.debug("Video index: {}", options);
 
         ApiWrapperList<ApiVideoDTO> wrapper = new ApiWrapperList<>(options);
-        wrapper.setResults(jsonApiStorageService.getVideoList(wrapper, options));
+        IndexParams params = new IndexParams(options);
+        if (params.isInvalidCursor()) {
+            wrapper.setStatusCheck(ApiStatus.badRequest("Invalid cursor '" + options.getCursor() + "' or sort order not supported for cursor paging"));
+            return wrapper;
+        }
+        
+        wrapper.setResults(jsonApiStorageService.getVideoList(wrapper, params));
         LOG.debug("Got video index with {} entries: {}", wrapper.getCount(), wrapper.getQueryDuration());
         return wrapper;
     }
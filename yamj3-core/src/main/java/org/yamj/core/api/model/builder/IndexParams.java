@@ -57,11 +57,17 @@ public class IndexParams {
     private int ratingValue;
     private String newestSource;
     private Date newestDate;
+    private final SeekCursor seekCursor;
     
     public IndexParams(OptionsIndexVideo options) {
         this.options = options;
         this.includes = options.splitIncludes();
         this.excludes = options.splitExcludes();
+        if (options.getCursor() == null) {
+            this.seekCursor = null;
+        } else {
+            this.seekCursor = SeekCursor.decode(options.getCursor(), options.getSortby(), options.getSortdir());
+        }
     }
 
     public Set<MetaDataType> getMetaDataTypes() {
@@ -85,9 +91,25 @@ public class IndexParams {
     }
 
     public String getSortString() {
+        if (seekCursor != null) {
+            return seekCursor.getSortString();
+        }
         return options.getSortString();
     }
 
+    public OptionsIndexVideo getOptions() {
+        return options;
+    }
+
+    // keyset paging
+    public boolean isInvalidCursor() {
+        return options.getCursor() != null && seekCursor == null;
+    }
+
+    public SeekCursor getSeekCursor() {
+        return seekCursor;
+    }
+
     public List<DataItem> getDataItems() {
         return options.splitDataItems();
     }
@@ -0,0 +1,260 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.api.model.builder;
+
+import static org.yamj.common.type.MetaDataType.*;
+
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.yamj.common.type.MetaDataType;
+import org.yamj.core.api.model.dto.ApiVideoDTO;
+
+/**
+ * Continuation token for keyset (seek) paging of the video index.
+ *
+ * The token holds the sort key, the video type and the id of the last
+ * delivered row, so the next page can be selected with a seek predicate
+ * instead of skipping all previous rows with an offset.
+ *
+ * @author modmax
+ */
+public final class SeekCursor {
+
+    /**
+     * Marker for the first page of a cursor based paging
+     */
+    public static final String FIRST_PAGE = "*";
+    /**
+     * Alias of the seek key column in the video index SQL
+     */
+    public static final String SEEK_KEY = "seek_key";
+
+    private static final String SEPARATOR = "|";
+    private static final String ID = "id";
+    private static final String TITLE = "title";
+    private static final String SORT_TITLE = "sortTitle";
+    private static final String ORIGINAL_TITLE = "originalTitle";
+    private static final String VIDEO_YEAR = "videoYear";
+    
+    private final String sortField;
+    private final boolean descending;
+    private final MetaDataType videoType;
+    private final long id;
+    private final String value;
+
+    private SeekCursor(String sortField, boolean descending, MetaDataType videoType, long id, String value) {
+        this.sortField = sortField;
+        this.descending = descending;
+        this.videoType = videoType;
+        this.id = id;
+        this.value = value;
+    }
+
+    private static String resolveSortField(String sortBy) {
+        if (StringUtils.isBlank(sortBy)) {
+            return ID;
+        }
+        for (String field : new String[]{ID, TITLE, SORT_TITLE, ORIGINAL_TITLE, VIDEO_YEAR}) {
+            if (field.equalsIgnoreCase(sortBy.trim())) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Create the start cursor, i.e. the cursor without a last row.
+     *
+     * @param sortBy
+     * @param sortDir
+     * @return the cursor or null if the sort field is not supported
+     */
+    public static SeekCursor start(String sortBy, String sortDir) {
+        final String field = resolveSortField(sortBy);
+        if (field == null) {
+            return null;
+        }
+        return new SeekCursor(field, "DESC".equalsIgnoreCase(sortDir), null, -1L, null);
+    }
+
+    /**
+     * Decode a continuation token.
+     *
+     * @param token the token
+     * @param sortBy the requested sort field
+     * @param sortDir the requested sort direction
+     * @return the cursor or null if the token is invalid or doesn't match the requested sort order
+     */
+    public static SeekCursor decode(String token, String sortBy, String sortDir) {
+        final SeekCursor start = start(sortBy, sortDir);
+        if (start == null || StringUtils.isBlank(token)) {
+            return null;
+        }
+        if (FIRST_PAGE.equals(token.trim())) {
+            return start;
+        }
+        
+        final String decoded;
+        try {
+            decoded = new String(Base64.decodeBase64(token.trim()), StandardCharsets.UTF_8);
+        } catch (Exception ex) { //NOSONAR
+            return null;
+        }
+
+        // format: field|direction|type|id|value
+        String[] parts = StringUtils.splitPreserveAllTokens(decoded, SEPARATOR, 5);
+        if (parts.length < 4 || !start.sortField.equals(parts[0]) || start.descending != "D".equals(parts[1])) {
+            return null;
+        }
+        final MetaDataType type = MetaDataType.fromString(parts[2]);
+        if (!type.isRealMetaData() || !NumberUtils.isDigits(parts[3])) {
+            return null;
+        }
+        final String value = (parts.length < 5 ? null : parts[4]);
+        if (start.isNumeric() && !NumberUtils.isNumber(value)) {
+            return null;
+        }
+        return new SeekCursor(start.sortField, start.descending, type, NumberUtils.toLong(parts[3]), value);
+    }
+
+    /**
+     * Create the cursor pointing to the given video.
+     *
+     * @param video the last delivered row
+     * @return the encoded continuation token
+     */
+    public String encodeNext(ApiVideoDTO video) {
+        // the value must be normalized like the seek expression does
+        final String lastValue;
+        switch (sortField) {
+            case TITLE:
+                lastValue = StringUtils.defaultString(video.getTitle());
+                break;
+            case SORT_TITLE:
+                lastValue = StringUtils.defaultString(video.getSortTitle());
+                break;
+            case ORIGINAL_TITLE:
+                lastValue = StringUtils.defaultString(video.getOriginalTitle());
+                break;
+            case VIDEO_YEAR:
+                lastValue = String.valueOf(video.getVideoYear() == null ? -1 : video.getVideoYear().intValue());
+                break;
+            default:
+                lastValue = String.valueOf(video.getId());
+                break;
+        }
+        
+        StringBuilder sb = new StringBuilder();
+        sb.append(sortField).append(SEPARATOR);
+        sb.append(descending ? "D" : "A").append(SEPARATOR);
+        sb.append(video.getVideoType().name()).append(SEPARATOR);
+        sb.append(video.getId()).append(SEPARATOR);
+        sb.append(lastValue);
+        return Base64.encodeBase64URLSafeString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean isFirstPage() {
+        return videoType == null;
+    }
+
+    private boolean isNumeric() {
+        return ID.equals(sortField) || VIDEO_YEAR.equals(sortField);
+    }
+
+    /**
+     * Get the seek key expression for the given type; NULL values are
+     * mapped so that the ordering is the same for all databases.
+     *
+     * @param type the meta data type of the SQL fragment
+     * @param tablePrefix the table alias
+     * @return the SQL expression
+     */
+    public String getSeekExpression(MetaDataType type, String tablePrefix) {
+        switch (sortField) {
+            case TITLE:
+                return "COALESCE(" + tablePrefix + ".title,'')";
+            case SORT_TITLE:
+                return "COALESCE(" + tablePrefix + ".title_sort,'')";
+            case ORIGINAL_TITLE:
+                return "COALESCE(" + tablePrefix + ".title_original,'')";
+            case VIDEO_YEAR:
+                return "COALESCE(" + tablePrefix + (type == SERIES ? ".start_year" : ".publication_year") + ",-1)";
+            default:
+                return tablePrefix + ".id";
+        }
+    }
+
+    /**
+     * Create the seek predicate for a SQL fragment of the given type.
+     *
+     * The video index is ordered by seek key, video type and id. Because the
+     * video type is constant for a SQL fragment, the type comparison can be
+     * resolved here and only the seek key and id must be compared by the database.
+     *
+     * @param type the meta data type of the SQL fragment
+     * @param tablePrefix the table alias
+     * @param params the parameters to add the seek values to
+     * @return the SQL predicate to append or an empty string for the first page
+     */
+    public String getSeekPredicate(MetaDataType type, String tablePrefix, IndexParams params) {
+        if (isFirstPage()) {
+            return "";
+        }
+        
+        if (isNumeric()) {
+            params.addParameter("seekValue", Long.valueOf(NumberUtils.toLong(value)));
+        } else {
+            params.addParameter("seekValue", StringUtils.defaultString(value));
+        }
+        
+        final String expr = getSeekExpression(type, tablePrefix);
+        final String after = (descending ? "<" : ">");
+        final int typeCompare = type.name().compareTo(videoType.name());
+        
+        StringBuilder sb = new StringBuilder(" AND ");
+        if (typeCompare == 0) {
+            params.addParameter("seekId", Long.valueOf(id));
+            sb.append("(").append(expr).append(after).append(":seekValue");
+            sb.append(" OR (").append(expr).append("=:seekValue AND ");
+            sb.append(tablePrefix).append(".id").append(after).append(":seekId))");
+        } else if ((typeCompare > 0) != descending) {
+            // type is sorted after the type of the last row
+            sb.append(expr).append(after).append("=:seekValue");
+        } else {
+            sb.append(expr).append(after).append(":seekValue");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Get the sort string for the keyset paging
+     *
+     * @return the ORDER BY clause
+     */
+    public String getSortString() {
+        final String dir = (descending ? " DESC" : " ASC");
+        return " ORDER BY " + SEEK_KEY + dir + ", videoType" + dir + ", id" + dir;
+    }
+}
@@ -69,6 +69,53 @@ public final class SqlScalars {
         return StringUtils.normalizeSpace(sql.toString());
     }
 
+    /**
+     * Get the SQL to count the rows of the statement.
+     *
+     * A trailing ORDER BY of the outer statement is removed, because it
+     * is useless for counting and just forces the database to sort.
+     *
+     * @return
+     */
+    public String getCountSql() {
+        String countSql = getSql();
+        int orderPos = findOuterOrderBy(countSql);
+        if (orderPos > 0) {
+            countSql = countSql.substring(0, orderPos);
+        }
+        return "SELECT COUNT(*) FROM (" + countSql + ") cnt";
+    }
+
+    /**
+     * Find the position of the last ORDER BY which is not part of a sub-query
+     * or a string literal.
+     *
+     * @param stmt
+     * @return the position or -1 if not found
+     */
+    private static int findOuterOrderBy(String stmt) {
+        int depth = 0;
+        boolean quoted = false;
+        int result = -1;
+        for (int i = 0; i < stmt.length(); i++) {
+            char c = stmt.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+            } else if (quoted) {
+                // skip string literals
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (depth == 0 && (c == 'O' || c == 'o') && stmt.regionMatches(true, i, "ORDER BY ", 0, 9)
+                       && (i == 0 || Character.isWhitespace(stmt.charAt(i - 1))))
+            {
+                result = i;
+            }
+        }
+        return result;
+    }
+
     /**
      * Get the parameters for the query
      *
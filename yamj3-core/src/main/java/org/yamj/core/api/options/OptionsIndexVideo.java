@@ -42,6 +42,7 @@ public class OptionsIndexVideo extends OptionsIdArtwork {
     private String type;
     private Integer yearStart;
     private Integer yearEnd;
+    private String cursor;
     
     public String getInclude() {
         return include;
@@ -95,6 +96,22 @@ public class OptionsIndexVideo extends OptionsIdArtwork {
         this.yearEnd = yearEnd;
     }
 
+    /**
+     * Get the continuation token for keyset paging.
+     *
+     * "*" requests the first page; subsequent pages use the token
+     * returned with the previous page.
+     *
+     * @return
+     */
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
     /**
      * Split the include list into a map of values
      *
@@ -22,6 +22,8 @@
  */
 package org.yamj.core.api.wrapper;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import java.util.Collection;
 import java.util.Collections;
 import org.apache.commons.collections.CollectionUtils;
@@ -37,6 +39,7 @@ import org.yamj.core.api.options.IOptions;
 public final class ApiWrapperList<T> extends ApiWrapperAbstract {
 
     private Collection<T> results = Collections.emptyList();
+    private String nextCursor;
 
     public ApiWrapperList() {
         super(null);
@@ -46,6 +49,20 @@ public final class ApiWrapperList<T> extends ApiWrapperAbstract {
         super(options);
     }
 
+    /**
+     * Get the continuation token for the next page if keyset paging is used.
+     *
+     * @return the token or null if there is no next page
+     */
+    @JsonInclude(Include.NON_NULL)
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
     public Collection<T> getResults() {
         return results;
     }
@@ -28,6 +28,7 @@ import org.hibernate.SessionFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.core.io.ClassPathResource;
@@ -37,12 +38,17 @@ import org.springframework.orm.hibernate5.HibernateTransactionManager;
 import org.springframework.orm.hibernate5.LocalSessionFactoryBean;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.yamj.core.hibernate.AuditInterceptor;
+import org.yamj.core.hibernate.DataChangeInspector;
+import org.yamj.core.service.various.ApiResponseCacheService;
 
 public abstract class AbstractDatabaseConfiguration implements DatabaseConfiguration {
     
     private static final Logger LOG = LoggerFactory.getLogger(AbstractDatabaseConfiguration.class);
     protected static final String YAMJ3 = "yamj3";
     
+    @Autowired
+    private ApiResponseCacheService apiResponseCacheService;
+    
     @Value("${yamj3.database.showSql:false}")
     protected boolean showSql;
 
@@ -52,6 +58,9 @@ public abstract class AbstractDatabaseConfiguration implements DatabaseConfigura
     @Value("${yamj3.database.poolPreparedStatements:true}")
     protected boolean poolPreparedStatements;
 
+    @Value("${yamj3.database.jdbc.batchSize:50}")
+    protected int jdbcBatchSize;
+
     @Value("${yamj3.database.connections.initialSize:5}")
     protected int initialSize;
 
@@ -100,7 +109,15 @@ public abstract class AbstractDatabaseConfiguration implements DatabaseConfigura
         sessionFactoryBean.setDataSource(dataSource());
         sessionFactoryBean.setEntityInterceptor(new AuditInterceptor());
         sessionFactoryBean.setPackagesToScan("org.yamj.core.database.model");
-        sessionFactoryBean.setHibernateProperties(hibernateProperties());
+        
+        Properties props = hibernateProperties();
+        // group inserts and updates into JDBC batches
+        props.put("hibernate.jdbc.batch_size", Integer.valueOf(jdbcBatchSize));
+        props.put("hibernate.order_inserts", Boolean.TRUE);
+        props.put("hibernate.order_updates", Boolean.TRUE);
+        // committed changes invalidate the cached API responses
+        props.put("hibernate.session_factory.statement_inspector", new DataChangeInspector(apiResponseCacheService));
+        sessionFactoryBean.setHibernateProperties(props);
         return sessionFactoryBean;
     }
         
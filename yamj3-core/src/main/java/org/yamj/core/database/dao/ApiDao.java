@@ -36,6 +36,10 @@ import org.hibernate.transform.Transformers;
 import org.hibernate.type.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.Cache.ValueWrapper;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Repository;
 import org.yamj.common.type.MetaDataType;
@@ -55,15 +59,21 @@ import org.yamj.plugin.api.model.type.ArtworkType;
 public class ApiDao extends HibernateDao {
 
     private static final Logger LOG = LoggerFactory.getLogger(ApiDao.class);
+    private static final String SQL_GENRE_TARGET = "CASE WHEN target_api is not null THEN target_api WHEN target_xml is not null THEN target_xml ELSE name END";
+    private static final String LITERAL_IDS = "ids";
+
+    @Autowired
+    private CacheManager cacheManager;
 
     /**
      * Generate the query and load the results into the wrapper
      *
      * @param wrapper
+     * @param params the decoded index options
      */
     @SuppressWarnings({"unchecked", "rawtypes"})
-    public List<ApiVideoDTO> getVideoList(ApiWrapperList<ApiVideoDTO> wrapper, OptionsIndexVideo options) {
-        IndexParams params = new IndexParams(options);
+    public List<ApiVideoDTO> getVideoList(ApiWrapperList<ApiVideoDTO> wrapper, IndexParams params) {
+        final OptionsIndexVideo options = params.getOptions();
 
         SqlScalars sqlScalars = new SqlScalars(generateSqlForVideoList(params));
         sqlScalars.addScalar(LITERAL_ID, LongType.INSTANCE);
@@ -89,7 +99,12 @@ public class ApiDao extends HibernateDao {
         // add additional parameters
         params.addScalarParameters(sqlScalars);
 
-        List<ApiVideoDTO> queryResults = executeQueryWithTransform(ApiVideoDTO.class, sqlScalars, wrapper);
+        final List<ApiVideoDTO> queryResults;
+        if (params.getSeekCursor() == null) {
+            queryResults = executeQueryWithTransform(ApiVideoDTO.class, sqlScalars, wrapper);
+        } else {
+            queryResults = executeSeekQuery(sqlScalars, wrapper, params.getSeekCursor());
+        }
 
         if (!queryResults.isEmpty() && CollectionUtils.isNotEmpty(options.getArtworkTypes())) {
             LOG.trace("Adding artwork to index videos");
@@ -119,6 +134,42 @@ public class ApiDao extends HibernateDao {
         return queryResults;
     }
 
+    /**
+     * Fetch a page of the video list using keyset paging.
+     *
+     * One row more than requested is fetched to determine if there is a next page.
+     * The total count is only evaluated for the first page.
+     *
+     * @param sqlScalars
+     * @param wrapper
+     * @param seekCursor
+     * @return
+     */
+    private List<ApiVideoDTO> executeSeekQuery(SqlScalars sqlScalars, ApiWrapperList<ApiVideoDTO> wrapper, SeekCursor seekCursor) {
+        final int max = wrapper.getOptions().getMax();
+        if (max <= 0) {
+            // no page size, so all remaining rows are returned
+            List<ApiVideoDTO> queryResults = executeQueryWithTransform(ApiVideoDTO.class, sqlScalars, 0, -1);
+            wrapper.setTotalCount(queryResults.size());
+            return queryResults;
+        }
+        
+        List<ApiVideoDTO> queryResults = executeQueryWithTransform(ApiVideoDTO.class, sqlScalars, 0, max + 1);
+        if (queryResults.size() > max) {
+            queryResults = new ArrayList<>(queryResults.subList(0, max));
+            wrapper.setNextCursor(seekCursor.encodeNext(queryResults.get(max - 1)));
+        }
+        
+        if (seekCursor.isFirstPage()) {
+            if (wrapper.getNextCursor() == null) {
+                wrapper.setTotalCount(queryResults.size());
+            } else {
+                wrapper.setTotalCount(executeCountQuery(sqlScalars));
+            }
+        }
+        return queryResults;
+    }
+
     /**
      * Generate the SQL for the video list
      *
@@ -172,6 +223,26 @@ public class ApiDao extends HibernateDao {
         return sbSQL;
     }
 
+    /**
+     * Add the seek key column if keyset paging is requested
+     */
+    private static void appendSeekKey(MetaDataType type, String tablePrefix, IndexParams params, StringBuilder sbSQL) {
+        if (params.getSeekCursor() != null) {
+            sbSQL.append(", ").append(params.getSeekCursor().getSeekExpression(type, tablePrefix));
+            sbSQL.append(" AS ").append(SeekCursor.SEEK_KEY).append(" ");
+        }
+    }
+
+    /**
+     * Get the seek predicate if keyset paging is requested
+     */
+    private static String getSeekPredicate(MetaDataType type, String tablePrefix, IndexParams params) {
+        if (params.getSeekCursor() == null) {
+            return "";
+        }
+        return params.getSeekCursor().getSeekPredicate(type, tablePrefix, params);
+    }
+
     /**
      * Create the SQL fragment for the selection of movies
      */
@@ -184,6 +255,7 @@ public class ApiDao extends HibernateDao {
         sbSQL.append(", null AS seriesId, vd.season_id AS seasonId, null AS season, vd.episode AS episode ");
 		if (!params.getLibrary_item()) { sbSQL.append(", null AS library_base ");}
         sbSQL.append(", vd.watched AS watched, vd.create_timestamp as createTimestamp ");
+        appendSeekKey(type, "vd", params, sbSQL);
         
         sbSQL.append(DataItemTools.addSqlDataItems(params.getDataItems(), "vd"));
 
@@ -293,6 +365,9 @@ public class ApiDao extends HibernateDao {
             }
         }
 
+        // add the seek predicate, this will be empty if there is no keyset paging
+        sbSQL.append(getSeekPredicate(type, "vd", params));
+
         // add the search string, this will be empty if there is no search required
         return sbSQL.append(params.getSearchString(false));
     }
@@ -310,6 +385,7 @@ public class ApiDao extends HibernateDao {
 		if (!params.getLibrary_item()) { sbSQL.append(", null AS library_base ");}
         sbSQL.append(", (SELECT min(vid.watched) from videodata vid,season sea where vid.season_id=sea.id and sea.series_id=ser.id) as watched");
         sbSQL.append(", ser.create_timestamp as createTimestamp ");
+        appendSeekKey(SERIES, "ser", params, sbSQL);
         sbSQL.append(DataItemTools.addSqlDataItems(params.getDataItems(), "ser"));
 
         if (params.checkNewest()) {
@@ -424,6 +500,9 @@ public class ApiDao extends HibernateDao {
             }
         }
 
+        // add the seek predicate, this will be empty if there is no keyset paging
+        sbSQL.append(getSeekPredicate(SERIES, "ser", params));
+
         // add the search string, this will be empty if there is no search required
         return sbSQL.append(params.getSearchString(false));
     }
@@ -446,6 +525,7 @@ public class ApiDao extends HibernateDao {
 		if (!params.getLibrary_item()) { sbSQL.append(", null AS library_base ");}
         sbSQL.append(", (SELECT min(vid.watched) from videodata vid where vid.season_id=sea.id) as watched");
         sbSQL.append(", sea.create_timestamp as createTimestamp ");
+        appendSeekKey(SEASON, "sea", params, sbSQL);
         sbSQL.append(DataItemTools.addSqlDataItems(params.getDataItems(), "sea"));
 
         if (params.checkNewest()) {
@@ -557,6 +637,9 @@ public class ApiDao extends HibernateDao {
             }
         }
 
+        // add the seek predicate, this will be empty if there is no keyset paging
+        sbSQL.append(getSeekPredicate(SEASON, "sea", params));
+
         // add the search string, this will be empty if there is no search required
         return sbSQL.append(params.getSearchString(false));
     }
@@ -1793,6 +1876,296 @@ public class ApiDao extends HibernateDao {
         return currentSession().getNamedQuery("metadata.award."+type.name().toLowerCase()).setParameter(LITERAL_ID, id).list();
     }
 
+    //<editor-fold defaultstate="collapsed" desc="Batch metadata methods">
+    /**
+     * Get the genres for a list of metadata objects.
+     *
+     * Cached entries are reused and the missing entries are loaded with one query
+     * and stored into the cache per metadata object.
+     *
+     * @param type the metadata type
+     * @param ids the ids of the metadata objects
+     * @return map of the metadata object id to the genres
+     */
+    public Map<Long, List<ApiGenreDTO>> getGenresForMetadata(MetaDataType type, Collection<Long> ids) {
+        Map<Long, List<ApiGenreDTO>> result = new HashMap<>();
+        Set<Long> missing = lookupApiCache(API_GENRES, type, ids, result);
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        StringBuilder sql = new StringBuilder();
+        if (type == SERIES) {
+            sql.append("SELECT DISTINCT sg.series_id AS owner_id, ").append(SQL_GENRE_TARGET).append(" AS target ");
+            sql.append("FROM series_genres sg, genre g WHERE sg.series_id IN (:ids) AND sg.genre_id=g.id ");
+        } else if (type == SEASON) {
+            sql.append("SELECT DISTINCT sea.id AS owner_id, ").append(SQL_GENRE_TARGET).append(" AS target ");
+            sql.append("FROM season sea, series_genres sg, genre g WHERE sea.id IN (:ids) AND sg.series_id=sea.series_id AND sg.genre_id=g.id ");
+        } else {
+            sql.append("SELECT DISTINCT vg.data_id AS owner_id, ").append(SQL_GENRE_TARGET).append(" AS target ");
+            sql.append("FROM videodata_genres vg, genre g WHERE vg.data_id IN (:ids) AND vg.genre_id=g.id ");
+        }
+        sql.append("ORDER BY target");
+
+        Map<Long, List<ApiGenreDTO>> loaded = createBatchMap(missing);
+        for (Object[] row : listRowsForIds(sql, missing)) {
+            loaded.get(convertRowElementToLong(row[0])).add(new ApiGenreDTO(convertRowElementToString(row[1])));
+        }
+        storeApiCache(API_GENRES, type, loaded, result);
+        return result;
+    }
+
+    /**
+     * Get the studios for a list of metadata objects.
+     *
+     * @param type the metadata type
+     * @param ids the ids of the metadata objects
+     * @return map of the metadata object id to the studios
+     */
+    @SuppressWarnings("unchecked")
+    public Map<Long, List<Studio>> getStudiosForMetadata(MetaDataType type, Collection<Long> ids) {
+        Map<Long, List<Studio>> result = new HashMap<>();
+        Set<Long> missing = lookupApiCache(API_STUDIOS, type, ids, result);
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        StringBuilder sql = new StringBuilder();
+        if (type == SERIES) {
+            sql.append("SELECT s.id, s.name, ss.series_id AS owner_id FROM studio s ");
+            sql.append("JOIN series_studios ss ON s.id=ss.studio_id and ss.series_id IN (:ids) ");
+        } else if (type == SEASON) {
+            sql.append("SELECT s.id, s.name, sea.id AS owner_id FROM studio s ");
+            sql.append("JOIN series_studios ss ON s.id=ss.studio_id JOIN season sea ON sea.series_id=ss.series_id AND sea.id IN (:ids) ");
+        } else {
+            sql.append("SELECT s.id, s.name, vs.data_id AS owner_id FROM studio s ");
+            sql.append("JOIN videodata_studios vs ON s.id=vs.studio_id and vs.data_id IN (:ids) ");
+        }
+        sql.append("ORDER BY name");
+
+        SQLQuery query = currentSession().createSQLQuery(sql.toString());
+        query.addEntity(Studio.class);
+        query.addScalar("owner_id", LongType.INSTANCE);
+        query.setParameterList(LITERAL_IDS, missing);
+        
+        Map<Long, List<Studio>> loaded = createBatchMap(missing);
+        for (Object[] row : (List<Object[]>) query.list()) {
+            loaded.get((Long) row[1]).add((Studio) row[0]);
+        }
+        storeApiCache(API_STUDIOS, type, loaded, result);
+        return result;
+    }
+
+    /**
+     * Get the countries for a list of metadata objects.
+     *
+     * @param type the metadata type
+     * @param ids the ids of the metadata objects
+     * @return map of the metadata object id to the countries
+     */
+    public Map<Long, List<ApiCountryDTO>> getCountriesForMetadata(MetaDataType type, Collection<Long> ids) {
+        Map<Long, List<ApiCountryDTO>> result = new HashMap<>();
+        Set<Long> missing = lookupApiCache(API_COUNTRIES, type, ids, result);
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        StringBuilder sql = new StringBuilder();
+        if (type == SERIES) {
+            sql.append("SELECT sc.series_id AS owner_id, c.id, c.country_code FROM country c ");
+            sql.append("JOIN series_countries sc ON c.id=sc.country_id and sc.series_id IN (:ids)");
+        } else if (type == SEASON) {
+            sql.append("SELECT sea.id AS owner_id, c.id, c.country_code FROM country c ");
+            sql.append("JOIN series_countries sc ON c.id=sc.country_id JOIN season sea ON sea.series_id=sc.series_id AND sea.id IN (:ids)");
+        } else {
+            sql.append("SELECT vc.data_id AS owner_id, c.id, c.country_code FROM country c ");
+            sql.append("JOIN videodata_countries vc ON c.id=vc.country_id and vc.data_id IN (:ids)");
+        }
+
+        Map<Long, List<ApiCountryDTO>> loaded = createBatchMap(missing);
+        for (Object[] row : listRowsForIds(sql, missing)) {
+            loaded.get(convertRowElementToLong(row[0])).add(new ApiCountryDTO(convertRowElementToLong(row[1]), convertRowElementToString(row[2])));
+        }
+        storeApiCache(API_COUNTRIES, type, loaded, result);
+        return result;
+    }
+
+    /**
+     * Get the certifications for a list of metadata objects.
+     *
+     * @param type the metadata type
+     * @param ids the ids of the metadata objects
+     * @return map of the metadata object id to the certifications
+     */
+    public Map<Long, List<ApiCertificationDTO>> getCertificationsForMetadata(MetaDataType type, Collection<Long> ids) {
+        Map<Long, List<ApiCertificationDTO>> result = new HashMap<>();
+        Set<Long> missing = lookupApiCache(API_CERTIFICATIONS, type, ids, result);
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        StringBuilder sql = new StringBuilder();
+        if (type == SERIES) {
+            sql.append("SELECT sc.series_id AS owner_id, c.id, c.country_code, c.certificate FROM certification c ");
+            sql.append("JOIN series_certifications sc ON c.id=sc.cert_id and sc.series_id IN (:ids) ");
+        } else if (type == SEASON) {
+            sql.append("SELECT sea.id AS owner_id, c.id, c.country_code, c.certificate FROM certification c ");
+            sql.append("JOIN series_certifications sc ON c.id=sc.cert_id JOIN season sea ON sea.series_id=sc.series_id AND sea.id IN (:ids) ");
+        } else {
+            sql.append("SELECT vc.data_id AS owner_id, c.id, c.country_code, c.certificate FROM certification c ");
+            sql.append("JOIN videodata_certifications vc ON c.id=vc.cert_id and vc.data_id IN (:ids) ");
+        }
+        sql.append("ORDER BY country_code, certificate");
+
+        Map<Long, List<ApiCertificationDTO>> loaded = createBatchMap(missing);
+        for (Object[] row : listRowsForIds(sql, missing)) {
+            loaded.get(convertRowElementToLong(row[0])).add(new ApiCertificationDTO(convertRowElementToLong(row[1]),
+                            convertRowElementToString(row[2]), convertRowElementToString(row[3])));
+        }
+        storeApiCache(API_CERTIFICATIONS, type, loaded, result);
+        return result;
+    }
+
+    /**
+     * Get the ratings for a list of metadata objects.
+     *
+     * The combined rating is calculated as average of the source ratings like
+     * it is done for a single metadata object.
+     *
+     * @param type the metadata type
+     * @param ids the ids of the metadata objects
+     * @return map of the metadata object id to the ratings
+     */
+    public Map<Long, List<ApiRatingDTO>> getRatingsForMetadata(MetaDataType type, Collection<Long> ids) {
+        Map<Long, List<ApiRatingDTO>> result = new HashMap<>();
+        Set<Long> missing = lookupApiCache(API_RATINGS, type, ids, result);
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        StringBuilder sql = new StringBuilder();
+        if (type == SERIES) {
+            sql.append("SELECT r.series_id AS owner_id, r.rating, r.sourcedb AS source ");
+            sql.append("FROM series_ratings r WHERE r.series_id IN (:ids) ");
+        } else if (type == SEASON) {
+            sql.append("SELECT sea.id AS owner_id, r.rating, r.sourcedb AS source ");
+            sql.append("FROM series_ratings r, season sea WHERE sea.id IN (:ids) AND sea.series_id=r.series_id ");
+        } else {
+            sql.append("SELECT r.videodata_id AS owner_id, r.rating, r.sourcedb AS source ");
+            sql.append("FROM videodata_ratings r WHERE r.videodata_id IN (:ids) ");
+        }
+        sql.append("ORDER BY source");
+
+        Map<Long, List<ApiRatingDTO>> loaded = createBatchMap(missing);
+        for (Object[] row : listRowsForIds(sql, missing)) {
+            loaded.get(convertRowElementToLong(row[0])).add(new ApiRatingDTO(convertRowElementToString(row[2]), convertRowElementToInteger(row[1])));
+        }
+        for (List<ApiRatingDTO> ratings : loaded.values()) {
+            if (!ratings.isEmpty()) {
+                double sum = 0;
+                for (ApiRatingDTO rating : ratings) {
+                    sum += rating.getRating().intValue();
+                }
+                ratings.add(0, new ApiRatingDTO("combined", Integer.valueOf((int) Math.round(sum / ratings.size()))));
+            }
+        }
+        storeApiCache(API_RATINGS, type, loaded, result);
+        return result;
+    }
+
+    /**
+     * Get the awards for a list of metadata objects.
+     *
+     * @param type the metadata type
+     * @param ids the ids of the metadata objects
+     * @return map of the metadata object id to the awards
+     */
+    public Map<Long, List<ApiAwardDTO>> getAwardsForMetadata(MetaDataType type, Collection<Long> ids) {
+        Map<Long, List<ApiAwardDTO>> result = new HashMap<>();
+        Set<Long> missing = lookupApiCache(API_AWARDS, type, ids, result);
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        StringBuilder sql = new StringBuilder();
+        if (type == SERIES) {
+            sql.append("SELECT c.series_id AS owner_id, a.event, a.category, a.sourcedb, c.year, c.won, c.nominated ");
+            sql.append("FROM series_awards c JOIN award a ON c.award_id=a.id WHERE c.series_id IN (:ids) ");
+        } else if (type == SEASON) {
+            sql.append("SELECT sea.id AS owner_id, a.event, a.category, a.sourcedb, c.year, c.won, c.nominated ");
+            sql.append("FROM series_awards c JOIN season sea ON c.series_id=sea.series_id JOIN award a ON c.award_id=a.id WHERE sea.id IN (:ids) ");
+        } else {
+            sql.append("SELECT c.videodata_id AS owner_id, a.event, a.category, a.sourcedb, c.year, c.won, c.nominated ");
+            sql.append("FROM videodata_awards c JOIN award a ON c.award_id=a.id WHERE c.videodata_id IN (:ids) ");
+        }
+        sql.append("ORDER BY year, event");
+
+        Map<Long, List<ApiAwardDTO>> loaded = createBatchMap(missing);
+        for (Object[] row : listRowsForIds(sql, missing)) {
+            loaded.get(convertRowElementToLong(row[0])).add(new ApiAwardDTO(convertRowElementToString(row[1]), convertRowElementToString(row[2]),
+                            convertRowElementToString(row[3]), convertRowElementToInteger(row[4]), convertRowElementToBoolean(row[5]),
+                            convertRowElementToBoolean(row[6])));
+        }
+        storeApiCache(API_AWARDS, type, loaded, result);
+        return result;
+    }
+
+    /**
+     * Get the cached entries of the API cache.
+     *
+     * @param cacheName the name of the cache
+     * @param type the metadata type
+     * @param ids the ids to look up
+     * @param result the map to put the cached entries into
+     * @return the ids which are not cached
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Set<Long> lookupApiCache(String cacheName, MetaDataType type, Collection<Long> ids, Map<Long, List<T>> result) {
+        final Cache cache = cacheManager.getCache(cacheName);
+        Set<Long> missing = new HashSet<>();
+        for (Long id : ids) {
+            // same key as generated by @Cacheable with key="{#type, #id}"
+            ValueWrapper wrapper = (cache == null ? null : cache.get(Arrays.asList(type, id)));
+            if (wrapper == null || wrapper.get() == null) {
+                missing.add(id);
+            } else {
+                result.put(id, (List<T>) wrapper.get());
+            }
+        }
+        LOG.trace("Cache {} for {}: {} hits, {} misses", cacheName, type, ids.size() - missing.size(), missing.size());
+        return missing;
+    }
+
+    /**
+     * Store the loaded entries in the API cache.
+     */
+    private <T> void storeApiCache(String cacheName, MetaDataType type, Map<Long, List<T>> loaded, Map<Long, List<T>> result) {
+        final Cache cache = cacheManager.getCache(cacheName);
+        for (Map.Entry<Long, List<T>> entry : loaded.entrySet()) {
+            if (cache != null) {
+                cache.put(Arrays.asList(type, entry.getKey()), entry.getValue());
+            }
+            result.put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private static <T> Map<Long, List<T>> createBatchMap(Collection<Long> ids) {
+        Map<Long, List<T>> map = new HashMap<>(ids.size());
+        for (Long id : ids) {
+            map.put(id, new ArrayList<T>());
+        }
+        return map;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> listRowsForIds(CharSequence sql, Collection<Long> ids) {
+        return currentSession().createSQLQuery(sql.toString())
+                        .setParameterList(LITERAL_IDS, ids)
+                        .setReadOnly(true)
+                        .list();
+    }
+    //</editor-fold>
+
     /**
      * Get list of external IDs for a metadata object.
      * 
@@ -29,14 +29,17 @@ import static org.yamj.common.type.StatusType.DONE;
 import static org.yamj.core.database.Literals.*;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import org.hibernate.Criteria;
 import org.hibernate.ScrollableResults;
 import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
 import org.springframework.stereotype.Repository;
 import org.yamj.common.type.MetaDataType;
 import org.yamj.core.database.model.*;
+import org.yamj.core.database.model.dto.ArtworkCacheDTO;
 import org.yamj.core.database.model.dto.QueueDTO;
 import org.yamj.core.hibernate.HibernateDao;
 import org.yamj.plugin.api.model.type.ArtworkType;
@@ -92,6 +95,13 @@ public class ArtworkDao extends HibernateDao {
                 .uniqueResult();
     }
     
+    @SuppressWarnings("unchecked")
+    public List<ArtworkGenerated> getStoredArtworkGenerated(ArtworkLocated located) {
+        return currentSession().createCriteria(ArtworkGenerated.class)
+                .add(Restrictions.eq("artworkLocated", located))
+                .list();
+    }
+
     @SuppressWarnings("unchecked")
 	public List<QueueDTO> getArtworkQueueForScanning(final int maxResults,boolean scanPhoto) {
         return currentSession().getNamedQuery(Artwork.QUERY_SCANNING_QUEUE)
@@ -161,6 +171,39 @@ public class ArtworkDao extends HibernateDao {
                 .list();
     }
     
+    @SuppressWarnings("unchecked")
+    public List<ArtworkCacheDTO> getArtworkCacheFiles(long lastId, int maxResults) {
+        final List<Long> ids = currentSession().createCriteria(ArtworkLocated.class)
+                .setProjection(Projections.id())
+                .add(Restrictions.isNotNull(LITERAL_CACHE_FILENAME))
+                .add(Restrictions.ne(LITERAL_STATUS, DELETED))
+                .add(Restrictions.gt(LITERAL_ID, lastId))
+                .addOrder(Order.asc(LITERAL_ID))
+                .setMaxResults(maxResults)
+                .list();
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        List<ArtworkCacheDTO> result = new ArrayList<>(ids.size());
+        ArtworkCacheDTO located = null;
+        List<Object[]> rows = currentSession().getNamedQuery(ArtworkLocated.QUERY_CACHE_FILES)
+                .setParameterList("ids", ids)
+                .setReadOnly(true)
+                .list();
+        for (Object[] row : rows) {
+            final Long locatedId = (Long) row[0];
+            if (located == null || !located.getId().equals(locatedId)) {
+                located = new ArtworkCacheDTO(locatedId, (ArtworkType) row[1], (String) row[2], (String) row[3]);
+                result.add(located);
+            }
+            if (row[4] != null) {
+                located.addGenerated((Long) row[4], (String) row[5], (String) row[6]);
+            }
+        }
+        return result;
+    }
+    
     public ArtworkLocated getArtworkLocated(Artwork artwork, String source, String hashCode) {
         return currentSession().byNaturalId(ArtworkLocated.class)
                 .using("artwork", artwork)
@@ -38,6 +38,8 @@ import org.slf4j.LoggerFactory;
 import java.util.List;
 import java.util.Set;
 import org.apache.commons.lang3.StringUtils;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Restrictions;
 import org.hibernate.type.IntegerType;
 import org.hibernate.type.LongType;
 import org.hibernate.type.StringType;
@@ -291,6 +293,11 @@ public class CommonDao extends HibernateDao {
                 .list();
     }
 
+    @Cacheable(value=DB_CERTIFICATION, key="#id", unless="#result==null")
+    public Certification getCertification(Long id) {
+        return getById(Certification.class, id);
+    }
+
     @Cacheable(value=DB_CERTIFICATION, key="{#countryCode.toLowerCase(), #certificate.toLowerCase()}", unless="#result==null")
     public Certification getCertification(String countryCode, String certificate) {
         return (Certification) currentSession().getNamedQuery(Certification.QUERY_GET)
@@ -489,6 +496,11 @@ public class CommonDao extends HibernateDao {
         return executeQueryWithTransform(ApiRatingDTO.class, sqlScalars, wrapper);
     }
 
+    @Cacheable(value=DB_AWARD, key="#id", unless="#result==null")
+    public Award getAward(Long id) {
+        return getById(Award.class, id);
+    }
+
     @Cacheable(value=DB_AWARD, key="{#event, #category, #source}", unless="#result==null")
     public Award getAward(String event, String category, String source) {
         return currentSession()
@@ -525,6 +537,17 @@ public class CommonDao extends HibernateDao {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    public List<Trailer> getTrailerWithCacheFilename(long lastId) {
+        return currentSession().createCriteria(Trailer.class)
+                .add(Restrictions.isNotNull(LITERAL_CACHE_FILENAME))
+                .add(Restrictions.ne(LITERAL_STATUS, DELETED))
+                .add(Restrictions.gt(LITERAL_ID, lastId))
+                .addOrder(Order.asc(LITERAL_ID))
+                .setMaxResults(100)
+                .list();
+    }
+
     public void markAsDeleted(List<Trailer> trailers) {
         for (Trailer trailer : trailers) {
             if (!trailer.isDeleted()) {
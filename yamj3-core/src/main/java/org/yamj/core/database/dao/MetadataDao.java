@@ -34,12 +34,16 @@ import static org.yamj.plugin.api.model.type.ArtworkType.PHOTO;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import org.apache.commons.collections.CollectionUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.yamj.core.database.model.*;
 import org.yamj.core.database.model.dto.CreditDTO;
@@ -128,8 +132,57 @@ public class MetadataDao extends HibernateDao {
         this.updateEntity(doubletPerson);
     }
     
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void storeMovieCredit(CreditDTO dto) {
         Person person = getByNaturalIdCaseInsensitive(Person.class, LITERAL_IDENTIFIER, dto.getIdentifier());
+        storeMovieCredit(dto, person);
+    }
+
+    /**
+     * Store the persons of the given credits set-wise.
+     * 
+     * The persons are resolved with one query per chunk of identifiers
+     * instead of one select for each credit. Runs in its own transaction,
+     * so that a constraint violation caused by a concurrent insert does
+     * not mark the transaction of the caller as rollback-only.
+     * 
+     * @param dtos the credits to store
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void storeMovieCredits(Collection<CreditDTO> dtos) {
+        final Map<String, Person> persons = getPersons(dtos);
+        for (CreditDTO dto : dtos) {
+            final String key = dto.getIdentifier().toLowerCase(Locale.ROOT);
+            Person person = storeMovieCredit(dto, persons.get(key));
+            persons.put(key, person);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Person> getPersons(Collection<CreditDTO> dtos) {
+        final List<String> identifiers = new ArrayList<>();
+        for (CreditDTO dto : dtos) {
+            final String identifier = dto.getIdentifier().toLowerCase(Locale.ROOT);
+            if (!identifiers.contains(identifier)) {
+                identifiers.add(identifier);
+            }
+        }
+
+        final Map<String, Person> persons = new HashMap<>(identifiers.size());
+        final int chunkSize = 500;
+        for (int start = 0; start < identifiers.size(); start += chunkSize) {
+            List<Person> chunk = currentSession().getNamedQuery(Person.QUERY_BY_IDENTIFIERS)
+                    .setParameterList("identifiers", identifiers.subList(start, Math.min(identifiers.size(), start + chunkSize)))
+                    .list();
+            for (Person person : chunk) {
+                persons.put(person.getIdentifier().toLowerCase(Locale.ROOT), person);
+            }
+        }
+        return persons;
+    }
+
+    private Person storeMovieCredit(CreditDTO dto, Person existing) {
+        Person person = existing;
         if (person == null) {
             // create new person
             person = new Person(dto.getIdentifier());
@@ -176,6 +229,7 @@ public class MetadataDao extends HibernateDao {
 
         // set person id for later use
         dto.setPersonId(person.getId());
+        return person;
     }
 
     public void updateLocatedArtwork(Artwork artwork, Collection<ArtworkDTO> dtos) {
@@ -30,6 +30,7 @@ import java.util.*;
 import org.apache.commons.lang.StringEscapeUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.hibernate.Query;
+import org.hibernate.criterion.Order;
 import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
 import org.springframework.cache.annotation.Cacheable;
@@ -76,16 +77,51 @@ public class StagingDao extends HibernateDao {
                 .load();
     }
 
-    public Long getNextStageFileId(FileType... fileTypes) {
-        return (Long) currentSession().createCriteria(StageFile.class)
+    /**
+     * Get all stage files of a stage directory with one query.
+     * 
+     * @param stageDirectory the stage directory
+     * @return the stage files of the directory
+     */
+    @SuppressWarnings("unchecked")
+    public List<StageFile> getStageFiles(StageDirectory stageDirectory) {
+        return currentSession().createCriteria(StageFile.class)
+                .add(Restrictions.eq(LITERAL_STAGE_DIRECTORY, stageDirectory))
+                .list();
+    }
+
+    /**
+     * Get the next stage files to process.
+     * 
+     * @param maxResults the maximum number of stage files
+     * @param fileTypes the file types
+     * @return the stage file ids in processing order grouped by stage directory id
+     */
+    @SuppressWarnings("unchecked")
+    public Map<Long, List<Long>> getNextStageFileIds(int maxResults, FileType... fileTypes) {
+        List<Object[]> rows = currentSession().createCriteria(StageFile.class)
                 .add(Restrictions.in(LITERAL_FILE_TYPE, Arrays.asList(fileTypes)))    
                 .add(Restrictions.or(
                         Restrictions.eq(LITERAL_STATUS, StatusType.NEW),
                         Restrictions.eq(LITERAL_STATUS, StatusType.UPDATED)))
-                .setProjection(Projections.min(LITERAL_ID))
-                .setCacheable(true)
-                .setCacheMode(NORMAL)
-                .uniqueResult();
+                .setProjection(Projections.projectionList()
+                        .add(Projections.property(LITERAL_ID))
+                        .add(Projections.property(LITERAL_STAGE_DIRECTORY + ".id")))
+                .addOrder(Order.asc(LITERAL_ID))
+                .setMaxResults(maxResults)
+                .list();
+        
+        Map<Long, List<Long>> result = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            final Long directoryId = (Long) row[1];
+            List<Long> ids = result.get(directoryId);
+            if (ids == null) {
+                ids = new ArrayList<>();
+                result.put(directoryId, ids);
+            }
+            ids.add((Long) row[0]);
+        }
+        return result;
     }
 
     @SuppressWarnings("unchecked")
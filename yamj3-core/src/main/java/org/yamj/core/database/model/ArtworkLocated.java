@@ -50,6 +50,13 @@ import org.yamj.plugin.api.model.type.ImageType;
     ),
     @NamedQuery(name = ArtworkLocated.UPDATE_STATUS,
         query = "UPDATE ArtworkLocated SET status=:status WHERE id=:id"
+    ),
+    @NamedQuery(name = ArtworkLocated.QUERY_CACHE_FILES,
+        query = "SELECT loc.id, art.artworkType, loc.cacheDirectory, loc.cacheFilename, gen.id, gen.cacheDirectory, gen.cacheFilename "+
+                "FROM ArtworkLocated loc JOIN loc.artwork art LEFT OUTER JOIN loc.generatedArtworks gen WHERE loc.id IN (:ids) ORDER BY loc.id"
+    ),
+    @NamedQuery(name = ArtworkLocated.UPDATE_CACHE_MISSING,
+        query = "UPDATE ArtworkLocated SET status='UPDATED', previousStatus=null, cacheDirectory=null, cacheFilename=null WHERE id IN (:ids)"
     )
 })
 
@@ -64,6 +71,8 @@ public class ArtworkLocated extends AbstractCacheable {
     public static final String QUERY_REQUIRED = "artworkLocated.required";
     public static final String QUERY_FOR_DELETION = "artworkLocated.forDeletion";
     public static final String UPDATE_STATUS = "artworkLocated.updateStatus";
+    public static final String QUERY_CACHE_FILES = "artworkLocated.cacheFiles";
+    public static final String UPDATE_CACHE_MISSING = "artworkLocated.updateCacheMissing";
 
     @NaturalId(mutable = true)
     @ManyToOne(fetch = FetchType.LAZY)
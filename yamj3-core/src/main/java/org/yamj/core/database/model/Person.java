@@ -63,6 +63,9 @@ import org.yamj.core.tools.PersonName;
     ),
     @NamedQuery(name = Person.UPDATE_FILMOGRAPHY_STATUS,
         query = "UPDATE Person SET filmographyStatus=:status WHERE id=:id"
+    ),
+    @NamedQuery(name = Person.QUERY_BY_IDENTIFIERS,
+        query = "FROM Person p LEFT OUTER JOIN FETCH p.photo WHERE lower(p.identifier) IN (:identifiers)"
     )
 })
 
@@ -102,6 +105,7 @@ public class Person extends AbstractScannable {
     public static final String UPDATE_FILMOGRAPHY_STATUS = "person.updateFilmographyStatus";
     public static final String QUERY_SCANNING_QUEUE = "person.scanning.queue";
     public static final String QUERY_FILMOGRAPHY_QUEUE = "person.filmography.queue";
+    public static final String QUERY_BY_IDENTIFIERS = "person.byIdentifiers";
     
     @Column(name = "name", nullable = false, length = 255)
     private String name;
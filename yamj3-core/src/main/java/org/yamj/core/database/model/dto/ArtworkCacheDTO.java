@@ -0,0 +1,74 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.database.model.dto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.yamj.plugin.api.model.type.ArtworkType;
+
+/**
+ * Cache file of a located artwork together with the cache files of its generated images.
+ */
+public final class ArtworkCacheDTO {
+
+    private final Long id;
+    private final ArtworkType artworkType;
+    private final String cacheDirectory;
+    private final String cacheFilename;
+    private List<ArtworkCacheDTO> generated;
+
+    public ArtworkCacheDTO(Long id, ArtworkType artworkType, String cacheDirectory, String cacheFilename) {
+        this.id = id;
+        this.artworkType = artworkType;
+        this.cacheDirectory = cacheDirectory;
+        this.cacheFilename = cacheFilename;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public ArtworkType getArtworkType() {
+        return artworkType;
+    }
+
+    public String getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    public String getCacheFilename() {
+        return cacheFilename;
+    }
+
+    public List<ArtworkCacheDTO> getGenerated() {
+        return generated == null ? Collections.<ArtworkCacheDTO>emptyList() : generated;
+    }
+
+    public void addGenerated(Long generatedId, String generatedDirectory, String generatedFilename) {
+        if (generated == null) {
+            generated = new ArrayList<>();
+        }
+        generated.add(new ArtworkCacheDTO(generatedId, artworkType, generatedDirectory, generatedFilename));
+    }
+}
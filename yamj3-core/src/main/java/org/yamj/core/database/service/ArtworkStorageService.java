@@ -35,6 +35,8 @@ import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.support.DataAccessUtils;
@@ -43,7 +45,10 @@ import org.springframework.transaction.annotation.Transactional;
 import org.yamj.common.type.MetaDataType;
 import org.yamj.core.database.dao.ArtworkDao;
 import org.yamj.core.database.model.*;
+import org.yamj.core.database.model.dto.ArtworkCacheDTO;
 import org.yamj.core.database.model.dto.QueueDTO;
+import org.yamj.core.scheduling.WorkDispatcher;
+import org.yamj.core.scheduling.WorkType;
 import org.yamj.core.service.artwork.ArtworkStorageTools;
 import org.yamj.core.service.file.FileStorageService;
 import org.yamj.core.service.file.StorageType;
@@ -58,6 +63,10 @@ public class ArtworkStorageService {
     private ArtworkDao artworkDao;
     @Autowired
     private FileStorageService fileStorageService;
+    @Autowired
+    private WorkDispatcher workDispatcher;
+    @Autowired
+    private CacheManager cacheManager;
 
     @Transactional
     @CachePut(value=DB_ARTWORK_PROFILE, key="{#artworkProfile.profileName, #artworkProfile.metaDataType, #artworkProfile.artworkType}")
@@ -108,14 +117,25 @@ public class ArtworkStorageService {
         }
 
         // update not found stage files to DONE
+        List<QueueDTO> processElements = new ArrayList<>();
         for (ArtworkLocated located : locatedArtworks) {
             StageFile stageFile = located.getStageFile();
             if (stageFile != null && stageFile.isNotFound()) {
                 stageFile.setStatus(DONE);
                 this.artworkDao.updateEntity(stageFile);
             }
+            
+            if (located.getId() > 0 && located.isUpdated()) {
+                // stored located artwork must be processed
+                QueueDTO queueElement = new QueueDTO(located.getId());
+                queueElement.setLocatedArtwork(Boolean.TRUE);
+                processElements.add(queueElement);
+            }
         }
         
+        // hand over to artwork processing after commit
+        workDispatcher.publish(WorkType.ARTWORK_PROCESS, processElements);
+        
         // set status of artwork
         if (CollectionUtils.isEmpty(artwork.getArtworkLocated())) {
             artwork.setStatus(NOTFOUND);
@@ -229,6 +249,40 @@ public class ArtworkStorageService {
         return generated;
     }
 
+    /**
+     * Store all generated images of a located artwork in one transaction.
+     *
+     * @param located the located artwork
+     * @param generatedList the generated images with profile and cache file
+     */
+    @Transactional
+    public void storeArtworkGenerated(ArtworkLocated located, List<ArtworkGenerated> generatedList) {
+        Map<Long, ArtworkGenerated> stored = new HashMap<>();
+        for (ArtworkGenerated generated : this.artworkDao.getStoredArtworkGenerated(located)) {
+            stored.put(generated.getArtworkProfile().getId(), generated);
+        }
+
+        final Cache cache = cacheManager.getCache(DB_ARTWORK_IMAGE);
+        for (ArtworkGenerated generated : generatedList) {
+            ArtworkGenerated existing = stored.get(generated.getArtworkProfile().getId());
+            if (existing == null) {
+                existing = generated;
+                existing.setStatus(DONE);
+                this.artworkDao.saveEntity(existing);
+            } else {
+                existing.setCacheDirectory(generated.getCacheDirectory());
+                existing.setCacheFilename(generated.getCacheFilename());
+                existing.setStatus(DONE);
+                this.artworkDao.updateEntity(existing);
+            }
+            
+            if (cache != null) {
+                // same key as generated by @CachePut with key="{#located.id, #profile.profileName}"
+                cache.put(Arrays.asList(located.getId(), existing.getArtworkProfile().getProfileName()), existing);
+            }
+        }
+    }
+
     @Transactional
     public void updateArtworkGenerated(ArtworkGenerated generated) {
         this.artworkDao.updateEntity(generated);
@@ -271,30 +325,53 @@ public class ArtworkStorageService {
         return this.artworkDao.findUniqueByNamedParameters(Artwork.class, sb, params);
     }
 
+    @Transactional(readOnly=true)
+    public List<ArtworkCacheDTO> getArtworkCacheFiles(long lastId, int maxResults) {
+        return this.artworkDao.getArtworkCacheFiles(lastId, maxResults);
+    }
+
+    /**
+     * Mark located and generated artwork for UPDATE due to missing cache files.
+     *
+     * @param locatedIds located artwork with missing original image
+     * @param generatedIds generated artwork with missing image
+     */
     @Transactional
-    public long checkArtworkSanity(long lastId) {
+    public void updateArtworkCacheMissing(Collection<Long> locatedIds, Collection<Long> generatedIds) {
+        executeUpdateInChunks(ArtworkLocated.UPDATE_CACHE_MISSING, new ArrayList<>(locatedIds));
+        executeUpdateInChunks(ArtworkGenerated.UPDATE_CACHE_MISSING, new ArrayList<>(generatedIds));
+    }
+
+    private void executeUpdateInChunks(String queryName, List<Long> ids) {
+        final int chunkSize = 500;
+        for (int start = 0; start < ids.size(); start += chunkSize) {
+            Map<String, Object> params = new HashMap<>(1);
+            params.put("ids", ids.subList(start, Math.min(ids.size(), start + chunkSize)));
+            this.artworkDao.executeUpdate(queryName, params);
+        }
+    }
+
+    @Transactional
+    public long migrateArtworkStorage(long lastId) {
+        final Cache cache = cacheManager.getCache(DB_ARTWORK_IMAGE);
         long newLastId = -1;
         
         for (ArtworkLocated located : this.artworkDao.getArtworkLocatedWithCacheFilename(lastId)) {
             newLastId = Math.max(newLastId, located.getId());
 
-            // if original file does not exists, then also all generated artwork can be deleted
             final StorageType storageType = ArtworkStorageTools.getStorageType(located);
+            String cacheDir = fileStorageService.migrateFile(storageType, located.getCacheDirectory(), located.getCacheFilename());
+            if (cacheDir != null) {
+                located.setCacheDirectory(cacheDir);
+            }
             
-            if (!fileStorageService.existsFile(storageType, located.getCacheDirectory(), located.getCacheFilename())) {
-                LOG.trace("Mark located artwork {} for UPDATE due missing original image", located.getId());
-                
-                // reset status and cache file name
-                located.setStatus(UPDATED);
-                located.setCacheDirectory(null);
-                located.setCacheFilename(null);
-            } else {
-                // check if one of the generated images is missing
-                for (ArtworkGenerated generated : located.getGeneratedArtworks()) {
-                    if (!fileStorageService.existsFile(storageType, generated.getCacheDirectory(), generated.getCacheFilename())) {
-                        LOG.trace("Mark generated artwork {} for UPDATE due missing generated image", generated.getId());
-                        // set status of generated to UPDATED
-                        generated.setStatus(UPDATED);
+            for (ArtworkGenerated generated : located.getGeneratedArtworks()) {
+                cacheDir = fileStorageService.migrateFile(storageType, generated.getCacheDirectory(), generated.getCacheFilename());
+                if (cacheDir != null) {
+                    generated.setCacheDirectory(cacheDir);
+                    if (cache != null) {
+                        // cached image holds the old directory
+                        cache.evict(Arrays.asList(located.getId(), generated.getArtworkProfile().getProfileName()));
                     }
                 }
             }
@@ -59,6 +59,8 @@ public class CommonStorageService {
     private FileStorageService fileStorageService;
     @Autowired
     private StagingService stagingService;
+    @Autowired
+    private LookupDictionaryService lookupDictionaryService;
 
     @SuppressWarnings("unchecked")
 	@Transactional(readOnly = true)
@@ -485,25 +487,33 @@ public class CommonStorageService {
     @Transactional
     @CacheEvict(value=DB_GENRE, allEntries=true)
     public int deleteOrphanGenres() {
-        return this.stagingDao.executeUpdate(Genre.DELETE_ORPHANS);
+        int deleted = this.stagingDao.executeUpdate(Genre.DELETE_ORPHANS);
+        this.lookupDictionaryService.clearGenres();
+        return deleted;
     }
 
     @Transactional
     @CacheEvict(value=DB_STUDIO, allEntries=true)
     public int deleteOrphanStudios() {
-        return this.stagingDao.executeUpdate(Studio.DELETE_ORPHANS);
+        int deleted = this.stagingDao.executeUpdate(Studio.DELETE_ORPHANS);
+        this.lookupDictionaryService.clearStudios();
+        return deleted;
     }
 	
     @Transactional
     @CacheEvict(value=DB_COUNTRY, allEntries=true)
     public int deleteOrphanCountries() {
-        return this.stagingDao.executeUpdate(Country.DELETE_ORPHANS);
+        int deleted = this.stagingDao.executeUpdate(Country.DELETE_ORPHANS);
+        this.lookupDictionaryService.clearCountries();
+        return deleted;
     }
 
     @Transactional
     @CacheEvict(value=DB_CERTIFICATION, allEntries=true)
     public int deleteOrphanCertifications() {
-        return this.stagingDao.executeUpdate(Certification.DELETE_ORPHANS);
+        int deleted = this.stagingDao.executeUpdate(Certification.DELETE_ORPHANS);
+        this.lookupDictionaryService.clearCertifications();
+        return deleted;
     }
 
     @SuppressWarnings("unchecked")
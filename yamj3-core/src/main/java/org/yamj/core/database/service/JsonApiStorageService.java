@@ -29,11 +29,13 @@ import static org.yamj.core.database.Literals.LITERAL_NAME;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
@@ -50,6 +52,7 @@ import org.yamj.core.api.model.ApiStatus;
 import org.yamj.core.api.model.CountGeneric;
 import org.yamj.core.api.model.CountTimestamp;
 import org.yamj.core.api.model.builder.DataItem;
+import org.yamj.core.api.model.builder.IndexParams;
 import org.yamj.core.api.model.dto.ApiArtworkDTO;
 import org.yamj.core.api.model.dto.ApiAudioCodecDTO;
 import org.yamj.core.api.model.dto.ApiAwardDTO;
@@ -128,72 +131,124 @@ public class JsonApiStorageService {
 
     
     //<editor-fold defaultstate="collapsed" desc="Index Methods">
-    public List<ApiVideoDTO> getVideoList(ApiWrapperList<ApiVideoDTO> wrapper, OptionsIndexVideo options) {
-        List<ApiVideoDTO> results = apiDao.getVideoList(wrapper, options);
+    public List<ApiVideoDTO> getVideoList(ApiWrapperList<ApiVideoDTO> wrapper, IndexParams params) {
+        final OptionsIndexVideo options = params.getOptions();
+        List<ApiVideoDTO> results = apiDao.getVideoList(wrapper, params);
+        if (results.isEmpty()) {
+            return results;
+        }
         
+        // group the videos by type for batch loading of the data items
+        Map<MetaDataType, Map<Long, ApiVideoDTO>> videosByType = new EnumMap<>(MetaDataType.class);
         for (ApiVideoDTO video : results) {
-            for (DataItem dataItem : options.splitDataItems()) {
-                switch (dataItem) {
-                    case GENRE:
-                        if (MetaDataType.EPISODE != video.getVideoType()) {
-                            video.setGenres(apiDao.getGenresForMetadata(video.getVideoType(), video.getId()));
-                        }
-                        break;
-                    case STUDIO:
-                        if (MetaDataType.EPISODE != video.getVideoType()) {
-                            video.setStudios(apiDao.getStudiosForMetadata(video.getVideoType(), video.getId()));
+            Map<Long, ApiVideoDTO> videos = videosByType.get(video.getVideoType());
+            if (videos == null) {
+                videos = new HashMap<>();
+                videosByType.put(video.getVideoType(), videos);
+            }
+            videos.put(video.getId(), video);
+        }
+        
+        for (DataItem dataItem : options.splitDataItems()) {
+            switch (dataItem) {
+                case GENRE:
+                    for (Entry<MetaDataType, Map<Long, ApiVideoDTO>> entry : videosByType.entrySet()) {
+                        if (MetaDataType.EPISODE != entry.getKey()) {
+                            Map<Long, List<ApiGenreDTO>> genres = apiDao.getGenresForMetadata(entry.getKey(), entry.getValue().keySet());
+                            for (ApiVideoDTO video : entry.getValue().values()) {
+                                video.setGenres(genres.get(video.getId()));
+                            }
                         }
-                        break;
-					// case LIBRARY
-					case LIBRARY:
-                        if (MetaDataType.EPISODE != video.getVideoType()) {
-                            video.setLibraries(apiDao.getLibrariesForMetadata(video.getVideoType(), video.getId()));
+                    }
+                    break;
+                case STUDIO:
+                    for (Entry<MetaDataType, Map<Long, ApiVideoDTO>> entry : videosByType.entrySet()) {
+                        if (MetaDataType.EPISODE != entry.getKey()) {
+                            Map<Long, List<Studio>> studios = apiDao.getStudiosForMetadata(entry.getKey(), entry.getValue().keySet());
+                            for (ApiVideoDTO video : entry.getValue().values()) {
+                                video.setStudios(studios.get(video.getId()));
+                            }
                         }
-                        break;
-					// end library
-                    case COUNTRY:
-                        if (MetaDataType.EPISODE != video.getVideoType()) {
-                            video.setCountries(apiDao.getCountriesForMetadata(video.getVideoType(), video.getId()));
-                            localizeCountries(video.getCountries(), options.getLanguage());
+                    }
+                    break;
+                case COUNTRY:
+                    for (Entry<MetaDataType, Map<Long, ApiVideoDTO>> entry : videosByType.entrySet()) {
+                        if (MetaDataType.EPISODE != entry.getKey()) {
+                            Map<Long, List<ApiCountryDTO>> countries = apiDao.getCountriesForMetadata(entry.getKey(), entry.getValue().keySet());
+                            for (ApiVideoDTO video : entry.getValue().values()) {
+                                video.setCountries(countries.get(video.getId()));
+                                localizeCountries(video.getCountries(), options.getLanguage());
+                            }
                         }
-                        break;
-                    case CERTIFICATION:
-                        if (MetaDataType.EPISODE != video.getVideoType()) {
-                            video.setCertifications(apiDao.getCertificationsForMetadata(video.getVideoType(), video.getId()));
-                            localizeCertifications(video.getCertifications(), options.getLanguage());
+                    }
+                    break;
+                case CERTIFICATION:
+                    for (Entry<MetaDataType, Map<Long, ApiVideoDTO>> entry : videosByType.entrySet()) {
+                        if (MetaDataType.EPISODE != entry.getKey()) {
+                            Map<Long, List<ApiCertificationDTO>> certifications = apiDao.getCertificationsForMetadata(entry.getKey(), entry.getValue().keySet());
+                            for (ApiVideoDTO video : entry.getValue().values()) {
+                                video.setCertifications(certifications.get(video.getId()));
+                                localizeCertifications(video.getCertifications(), options.getLanguage());
+                            }
                         }
-                        break;
-                    case AWARD:
-                        if (MetaDataType.EPISODE != video.getVideoType()) {
-                            video.setAwards(apiDao.getAwardsForMetadata(video.getVideoType(), video.getId()));
+                    }
+                    break;
+                case AWARD:
+                    for (Entry<MetaDataType, Map<Long, ApiVideoDTO>> entry : videosByType.entrySet()) {
+                        if (MetaDataType.EPISODE != entry.getKey()) {
+                            Map<Long, List<ApiAwardDTO>> awards = apiDao.getAwardsForMetadata(entry.getKey(), entry.getValue().keySet());
+                            for (ApiVideoDTO video : entry.getValue().values()) {
+                                video.setAwards(awards.get(video.getId()));
+                            }
                         }
-                        break;
-                    case RATING:
-                        video.setRatings(apiDao.getRatingsForMetadata(video.getVideoType(), video.getId()));
-                        break;
-                    case EXTERNALID:
-                        video.setExternalIds(apiDao.getExternalIdsForMetadata(video.getVideoType(), video.getId()));
-                        break;
-                    case BOXSET:
-                        video.setBoxedSets(apiDao.getBoxedSetsForMetadata(video.getVideoType(), video.getId()));
-                        break;
-                    case TRAILER:
-                        if (MetaDataType.SERIES == video.getVideoType() || MetaDataType.MOVIE.equals(video.getVideoType())) {
-                            video.setTrailers(apiDao.getTrailersForMetadata(video.getVideoType(), video.getId()));
+                    }
+                    break;
+                case RATING:
+                    for (Entry<MetaDataType, Map<Long, ApiVideoDTO>> entry : videosByType.entrySet()) {
+                        Map<Long, List<ApiRatingDTO>> ratings = apiDao.getRatingsForMetadata(entry.getKey(), entry.getValue().keySet());
+                        for (ApiVideoDTO video : entry.getValue().values()) {
+                            video.setRatings(ratings.get(video.getId()));
                         }
-                        break;
-                    case VIDEOSOURCE:
-                        video.setVideoSource(apiDao.getVideoSourceForMetadata(video.getVideoType(), video.getId()));
-                        break;
-                    default:
-                        break;
-                }
+                    }
+                    break;
+                default:
+                    // data items which are loaded per video
+                    for (ApiVideoDTO video : results) {
+                        addVideoDataItem(video, dataItem);
+                    }
+                    break;
             }
         }
         
         return results;
     }
 
+    private void addVideoDataItem(ApiVideoDTO video, DataItem dataItem) {
+        switch (dataItem) {
+            case LIBRARY:
+                if (MetaDataType.EPISODE != video.getVideoType()) {
+                    video.setLibraries(apiDao.getLibrariesForMetadata(video.getVideoType(), video.getId()));
+                }
+                break;
+            case EXTERNALID:
+                video.setExternalIds(apiDao.getExternalIdsForMetadata(video.getVideoType(), video.getId()));
+                break;
+            case BOXSET:
+                video.setBoxedSets(apiDao.getBoxedSetsForMetadata(video.getVideoType(), video.getId()));
+                break;
+            case TRAILER:
+                if (MetaDataType.SERIES == video.getVideoType() || MetaDataType.MOVIE.equals(video.getVideoType())) {
+                    video.setTrailers(apiDao.getTrailersForMetadata(video.getVideoType(), video.getId()));
+                }
+                break;
+            case VIDEOSOURCE:
+                video.setVideoSource(apiDao.getVideoSourceForMetadata(video.getVideoType(), video.getId()));
+                break;
+            default:
+                break;
+        }
+    }
+
     public CountTimestamp getCountTimestamp(MetaDataType type) {
         CountTimestamp ct;
         switch(type) {
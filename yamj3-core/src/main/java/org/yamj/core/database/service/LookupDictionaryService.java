@@ -0,0 +1,315 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.database.service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.yamj.core.database.dao.CommonDao;
+import org.yamj.core.database.model.Certification;
+import org.yamj.core.database.model.Country;
+import org.yamj.core.database.model.Genre;
+import org.yamj.core.database.model.Studio;
+import org.yamj.core.database.model.award.Award;
+
+/**
+ * In-memory dictionary of the small lookup entities.
+ * 
+ * Genres, studios, countries, certifications and awards are resolved
+ * by their case-insensitive natural key to their id without a query;
+ * the entity itself is then taken from the entity cache of the DAO,
+ * so only the first lookup of an id hits the database.
+ * 
+ * Only committed rows are published: entries found or stored inside a
+ * running transaction become visible after its commit, so a rollback
+ * never leaves ids of rows which do not exist. Unknown keys are looked
+ * up in the database, so that entities stored elsewhere are found too.
+ */
+@Service("lookupDictionaryService")
+public class LookupDictionaryService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LookupDictionaryService.class);
+    private static final String KEY_SEPARATOR = "|";
+    
+    private final ConcurrentMap<String, Long> genres = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> studios = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> countries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> certifications = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> awards = new ConcurrentHashMap<>();
+
+    @Autowired
+    private CommonDao commonDao;
+
+    @PostConstruct
+    public void init() {
+        LOG.trace("Initialize lookup dictionary service");
+        
+        for (Genre genre : commonDao.getAll(Genre.class, "name")) {
+            genres.put(key(genre.getName()), genre.getId());
+        }
+        for (Studio studio : commonDao.getAll(Studio.class, "name")) {
+            studios.put(key(studio.getName()), studio.getId());
+        }
+        for (Country country : commonDao.getAll(Country.class, "countryCode")) {
+            countries.put(key(country.getCountryCode()), country.getId());
+        }
+        for (Certification certification : commonDao.getAll(Certification.class, "countryCode")) {
+            certifications.put(key(certification.getCountryCode(), certification.getCertificate()), certification.getId());
+        }
+        for (Award award : commonDao.getAll(Award.class, "event")) {
+            awards.put(key(award.getEvent(), award.getCategory(), award.getSourceDb()), award.getId());
+        }
+        
+        LOG.debug("Loaded lookup dictionary: {} genres, {} studios, {} countries, {} certifications, {} awards",
+                        genres.size(), studios.size(), countries.size(), certifications.size(), awards.size());
+    }
+
+    private static String key(String... values) {
+        StringBuilder sb = new StringBuilder();
+        for (String value : values) {
+            if (sb.length() > 0) {
+                sb.append(KEY_SEPARATOR);
+            }
+            if (value != null) {
+                sb.append(value.toLowerCase(Locale.ROOT));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Put the id into the dictionary once the current transaction has committed,
+     * or immediately if there is no transaction.
+     */
+    private static void publish(final ConcurrentMap<String, Long> dictionary, final String key, final Long id) {
+        if (id == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    dictionary.put(key, id);
+                }
+            });
+        } else {
+            dictionary.put(key, id);
+        }
+    }
+
+    /**
+     * Clear the dictionary once the current transaction has committed,
+     * or immediately if there is no transaction.
+     */
+    private static void clear(final ConcurrentMap<String, Long> dictionary) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    dictionary.clear();
+                }
+            });
+        } else {
+            dictionary.clear();
+        }
+    }
+
+    // GENRES
+    
+    public Long getGenreId(String name) {
+        final String key = key(name);
+        Long id = genres.get(key);
+        if (id == null) {
+            Genre genre = commonDao.getGenre(name);
+            if (genre != null) {
+                id = genre.getId();
+                publish(genres, key, id);
+            }
+        }
+        return id;
+    }
+
+    public Genre getGenre(String name) {
+        final Long id = getGenreId(name);
+        if (id == null) {
+            return null;
+        }
+        Genre genre = commonDao.getGenre(id);
+        if (genre == null) {
+            genres.remove(key(name), id);
+        }
+        return genre;
+    }
+
+    public void putGenre(Genre genre) {
+        publish(genres, key(genre.getName()), genre.getId());
+    }
+    
+    public void clearGenres() {
+        clear(genres);
+    }
+
+    // STUDIOS
+    
+    public Long getStudioId(String name) {
+        final String key = key(name);
+        Long id = studios.get(key);
+        if (id == null) {
+            Studio studio = commonDao.getStudio(name);
+            if (studio != null) {
+                id = studio.getId();
+                publish(studios, key, id);
+            }
+        }
+        return id;
+    }
+
+    public Studio getStudio(String name) {
+        final Long id = getStudioId(name);
+        if (id == null) {
+            return null;
+        }
+        Studio studio = commonDao.getStudio(id);
+        if (studio == null) {
+            studios.remove(key(name), id);
+        }
+        return studio;
+    }
+
+    public void putStudio(Studio studio) {
+        publish(studios, key(studio.getName()), studio.getId());
+    }
+
+    public void clearStudios() {
+        clear(studios);
+    }
+
+    // COUNTRIES
+    
+    public Long getCountryId(String countryCode) {
+        final String key = key(countryCode);
+        Long id = countries.get(key);
+        if (id == null) {
+            Country country = commonDao.getCountry(countryCode);
+            if (country != null) {
+                id = country.getId();
+                publish(countries, key, id);
+            }
+        }
+        return id;
+    }
+
+    public Country getCountry(String countryCode) {
+        final Long id = getCountryId(countryCode);
+        if (id == null) {
+            return null;
+        }
+        Country country = commonDao.getCountry(id);
+        if (country == null) {
+            countries.remove(key(countryCode), id);
+        }
+        return country;
+    }
+
+    public void putCountry(Country country) {
+        publish(countries, key(country.getCountryCode()), country.getId());
+    }
+
+    public void clearCountries() {
+        clear(countries);
+    }
+
+    // CERTIFICATIONS
+    
+    public Long getCertificationId(String countryCode, String certificate) {
+        final String key = key(countryCode, certificate);
+        Long id = certifications.get(key);
+        if (id == null) {
+            Certification certification = commonDao.getCertification(countryCode, certificate);
+            if (certification != null) {
+                id = certification.getId();
+                publish(certifications, key, id);
+            }
+        }
+        return id;
+    }
+
+    public Certification getCertification(String countryCode, String certificate) {
+        final Long id = getCertificationId(countryCode, certificate);
+        if (id == null) {
+            return null;
+        }
+        Certification certification = commonDao.getCertification(id);
+        if (certification == null) {
+            certifications.remove(key(countryCode, certificate), id);
+        }
+        return certification;
+    }
+
+    public void putCertification(Certification certification) {
+        publish(certifications, key(certification.getCountryCode(), certification.getCertificate()), certification.getId());
+    }
+
+    public void clearCertifications() {
+        clear(certifications);
+    }
+
+    // AWARDS
+    
+    public Long getAwardId(String event, String category, String source) {
+        final String key = key(event, category, source);
+        Long id = awards.get(key);
+        if (id == null) {
+            Award award = commonDao.getAward(event, category, source);
+            if (award != null) {
+                id = award.getId();
+                publish(awards, key, id);
+            }
+        }
+        return id;
+    }
+
+    public Award getAward(String event, String category, String source) {
+        final Long id = getAwardId(event, category, source);
+        if (id == null) {
+            return null;
+        }
+        Award award = commonDao.getAward(id);
+        if (award == null) {
+            awards.remove(key(event, category, source), id);
+        }
+        return award;
+    }
+
+    public void putAward(Award award) {
+        publish(awards, key(award.getEvent(), award.getCategory(), award.getSourceDb()), award.getId());
+    }
+}
@@ -52,6 +52,10 @@ import org.yamj.core.database.model.award.MovieAward;
 import org.yamj.core.database.model.award.SeriesAward;
 import org.yamj.core.database.model.dto.*;
 import org.yamj.core.database.model.type.OverrideFlag;
+import org.yamj.core.scheduling.WorkDispatcher;
+import org.yamj.core.scheduling.WorkType;
+import org.yamj.core.service.various.ApiResponseCacheService;
+import org.yamj.core.tools.ExceptionTools;
 import org.yamj.core.tools.GenreXmlTools;
 import org.yamj.plugin.api.model.type.ArtworkType;
 
@@ -59,20 +63,27 @@ import org.yamj.plugin.api.model.type.ArtworkType;
 public class MetadataStorageService {
 
     private static final Logger LOG = LoggerFactory.getLogger(MetadataStorageService.class);
-    private static final ReentrantLock COUNTRY_STORAGE_LOCK = new ReentrantLock(true);
-    private static final ReentrantLock STUDIO_STORAGE_LOCK = new ReentrantLock(true);
-    private static final ReentrantLock CERTIFICATION_STORAGE_LOCK = new ReentrantLock(true);
-    private static final ReentrantLock AWARD_STORAGE_LOCK = new ReentrantLock(true);
-    private static final ReentrantLock GENRE_STORAGE_LOCK = new ReentrantLock(true);
-    private static final ReentrantLock PERSON_STORAGE_LOCK = new ReentrantLock(true);
-    private static final ReentrantLock BOXSET_STORAGE_LOCK = new ReentrantLock(true);
+    private static final ReentrantLock[] STORAGE_LOCKS = new ReentrantLock[64];
+    private static final int CREDIT_STORAGE_RETRIES = 3;
     private static final String COMPARE_DATE = "compareDate";
     private static final String ID_LIST = "idList";
     
+    static {
+        for (int i = 0; i < STORAGE_LOCKS.length; i++) {
+            STORAGE_LOCKS[i] = new ReentrantLock(true);
+        }
+    }
+    
     @Autowired
     private CommonDao commonDao;
     @Autowired
     private MetadataDao metadataDao;
+    @Autowired
+    private LookupDictionaryService lookupDictionaryService;
+    @Autowired
+    private WorkDispatcher workDispatcher;
+    @Autowired
+    private ApiResponseCacheService apiResponseCacheService;
 
     @Transactional(readOnly = true)
     public List<QueueDTO> getMetaDataQueueForScanning(final int maxResults) {
@@ -128,18 +139,7 @@ public class MetadataStorageService {
         this.storeAwards(videoData.getAwardDTOS());
         this.storeBoxedSets(videoData.getBoxedSetDTOS());
         
-        // store persons
-        for (CreditDTO creditDTO : videoData.getCreditDTOS()) {
-            PERSON_STORAGE_LOCK.lock();
-            try {
-                this.metadataDao.storeMovieCredit(creditDTO);
-            } catch (Exception ex) {
-                LOG.error("Failed to store person '{}', error: {}", creditDTO.getName(), ex.getMessage());
-                LOG.trace(STORAGE_ERROR, ex);
-            } finally {
-                PERSON_STORAGE_LOCK.unlock();
-            }
-        }
+        this.storeCredits(videoData.getCreditDTOS());
     }
     
     /**
@@ -162,6 +162,57 @@ public class MetadataStorageService {
         }
     }
 
+    /**
+     * Get the storage lock for an entity with the given natural key.
+     * 
+     * Entities are locked by stripes, so that different entities
+     * can be stored concurrently by different threads.
+     * 
+     * @param type the entity type
+     * @param keys the natural key of the entity
+     * @return the lock
+     */
+    private static ReentrantLock getStorageLock(String type, String... keys) {
+        int hash = type.hashCode();
+        for (String key : keys) {
+            hash = 31 * hash + (key == null ? 0 : key.toLowerCase(Locale.ROOT).hashCode());
+        }
+        return STORAGE_LOCKS[(hash & Integer.MAX_VALUE) % STORAGE_LOCKS.length];
+    }
+
+    private void storeCredits(Collection<CreditDTO> creditDTOS) {
+        if (CollectionUtils.isEmpty(creditDTOS)) {
+            return;
+        }
+
+        // store all persons at once; no lock is held, so a person inserted
+        // concurrently by another thread leads to a constraint violation
+        // and will just be found by the next attempt; each attempt runs
+        // in its own transaction, see MetadataDao
+        for (int attempt = 1; attempt <= CREDIT_STORAGE_RETRIES; attempt++) {
+            try {
+                this.metadataDao.storeMovieCredits(creditDTOS);
+                return;
+            } catch (Exception ex) {
+                if (!ExceptionTools.isConstraintViolation(ex) && !ExceptionTools.isLockingError(ex)) {
+                    LOG.debug("Failed to store credits at once, error: {}", ex.getMessage());
+                    break;
+                }
+                LOG.trace("Concurrent storage of credits detected, attempt {}", attempt);
+            }
+        }
+        
+        // fall back to storing each person separately
+        for (CreditDTO creditDTO : creditDTOS) {
+            try {
+                this.metadataDao.storeMovieCredit(creditDTO);
+            } catch (Exception ex) {
+                LOG.error("Failed to store person '{}', error: {}", creditDTO.getName(), ex.getMessage());
+                LOG.trace(STORAGE_ERROR, ex);
+            }
+        }
+    }
+
     private void storeCountries(Collection<String> countryCodes) {
         if (CollectionUtils.isEmpty(countryCodes)) {
             return;
@@ -169,16 +220,17 @@ public class MetadataStorageService {
 
         // store new countries
         for (String countryCode: countryCodes) {
-            COUNTRY_STORAGE_LOCK.lock();
+            final ReentrantLock lock = getStorageLock("country", countryCode);
+            lock.lock();
             try {
-                if (this.commonDao.getCountry(countryCode) == null) {
-                    this.commonDao.saveCountry(countryCode);
+                if (this.lookupDictionaryService.getCountryId(countryCode) == null) {
+                    this.lookupDictionaryService.putCountry(this.commonDao.saveCountry(countryCode));
                 }
             } catch (Exception ex) {
                 LOG.error("Failed to store country '{}', error: {}", countryCode, ex.getMessage());
                 LOG.trace(STORAGE_ERROR, ex);
             } finally {
-                COUNTRY_STORAGE_LOCK.unlock();
+                lock.unlock();
             }
         }
     }
@@ -190,16 +242,17 @@ public class MetadataStorageService {
         
         // store new studios
         for (String studioName : studioNames) {
-            STUDIO_STORAGE_LOCK.lock();
+            final ReentrantLock lock = getStorageLock("studio", studioName);
+            lock.lock();
             try {
-                if (this.commonDao.getStudio(studioName) == null) {
-                    this.commonDao.saveStudio(studioName);
+                if (this.lookupDictionaryService.getStudioId(studioName) == null) {
+                    this.lookupDictionaryService.putStudio(this.commonDao.saveStudio(studioName));
                 }
             } catch (Exception ex) {
                 LOG.error("Failed to store studio '{}', error: {}", studioName, ex.getMessage());
                 LOG.trace(STORAGE_ERROR, ex);
             } finally {
-                STUDIO_STORAGE_LOCK.unlock();
+                lock.unlock();
             }
         }
     }
@@ -211,63 +264,67 @@ public class MetadataStorageService {
 
         // store new genres
         for (String genreName : genreNames) {
-            GENRE_STORAGE_LOCK.lock();
+            final ReentrantLock lock = getStorageLock("genre", genreName);
+            lock.lock();
             try {
-                if (this.commonDao.getGenre(genreName) == null) {
+                if (this.lookupDictionaryService.getGenreId(genreName) == null) {
                     final String targetXml = GenreXmlTools.getMasterGenre(genreName);
-                    this.commonDao.saveGenre(genreName, targetXml);
+                    this.lookupDictionaryService.putGenre(this.commonDao.saveGenre(genreName, targetXml));
                 }
             } catch (Exception ex) {
                 LOG.error("Failed to store genre '{}', error: {}", genreName, ex.getMessage());
                 LOG.trace(STORAGE_ERROR, ex);
             } finally {
-                GENRE_STORAGE_LOCK.unlock();
+                lock.unlock();
             }
         }
     }
 
     private void storeCertifications(Map<String,String> certificationInfos) {
         for (Entry<String,String> entry : certificationInfos.entrySet()) {
-            CERTIFICATION_STORAGE_LOCK.lock();
+            final ReentrantLock lock = getStorageLock("certification", entry.getKey(), entry.getValue());
+            lock.lock();
             try {
-                if (this.commonDao.getCertification(entry.getKey(), entry.getValue()) == null) {
-                    this.commonDao.saveCertification(entry.getKey(), entry.getValue());
+                if (this.lookupDictionaryService.getCertificationId(entry.getKey(), entry.getValue()) == null) {
+                    this.lookupDictionaryService.putCertification(this.commonDao.saveCertification(entry.getKey(), entry.getValue()));
                 }
             } catch (Exception ex) {
                 LOG.error("Failed to store certification '{}'-'{}', error: {}", entry.getKey(), entry.getValue(), ex.getMessage());
                 LOG.trace(STORAGE_ERROR, ex);
             } finally {
-                CERTIFICATION_STORAGE_LOCK.unlock();
+                lock.unlock();
             }
         }
     }
 
     private void storeAwards(Collection<AwardDTO> awards) {
         for (AwardDTO award : awards) {
-            AWARD_STORAGE_LOCK.lock();
+            final ReentrantLock lock = getStorageLock("award", award.getEvent(), award.getCategory(), award.getSource());
+            lock.lock();
             try {
-                if (this.commonDao.getAward(award.getEvent(), award.getCategory(), award.getSource()) == null) {
-                    this.commonDao.saveAward(award.getEvent(), award.getCategory(), award.getSource());
+                if (this.lookupDictionaryService.getAwardId(award.getEvent(), award.getCategory(), award.getSource()) == null) {
+                    this.lookupDictionaryService.putAward(this.commonDao.saveAward(award.getEvent(), award.getCategory(), award.getSource()));
                 }
             } catch (Exception ex) {
                 LOG.error("Failed to store award '{}'-'{}', error: {}", award.getEvent(), award.getCategory(), ex.getMessage());
                 LOG.trace(STORAGE_ERROR, ex);
             } finally {
-                AWARD_STORAGE_LOCK.unlock();
+                lock.unlock();
             }
         }
     }
 
     private void storeBoxedSets(Collection<BoxedSetDTO> boxedSets) {
         for (BoxedSetDTO boxedSet : boxedSets) {
-            BOXSET_STORAGE_LOCK.lock();
+            final ReentrantLock lock = getStorageLock("boxedset", boxedSet.getName());
+            lock.lock();
             try {
                 this.commonDao.storeNewBoxedSet(boxedSet);
             } catch (Exception ex) {
                 LOG.error("Failed to store boxed set '{}', error: {}", boxedSet.getName(), ex.getMessage());
                 LOG.trace(STORAGE_ERROR, ex);
             } finally {
-                BOXSET_STORAGE_LOCK.unlock();
+                lock.unlock();
             }
         }
     }
@@ -345,6 +402,11 @@ public class MetadataStorageService {
 
         // update artwork
         updateLocatedArtwork(videoData);
+
+        // publish artwork and trailer scan
+        if (videoData.isMovie()) {
+            publishScannedMetaData(videoData.getId(), MetaDataType.MOVIE, videoData.getStatus(), videoData.getTrailerStatus(), videoData.getArtworks());
+        }
     }
 
     @Transactional(timeout=300)
@@ -374,6 +436,9 @@ public class MetadataStorageService {
         // update artwork
         updateLocatedArtwork(series);
 
+        // publish artwork and trailer scan
+        publishScannedMetaData(series.getId(), MetaDataType.SERIES, series.getStatus(), series.getTrailerStatus(), series.getArtworks());
+
         // update underlying seasons and episodes
         for (Season season : series.getSeasons()) {
             // replace temporary done
@@ -406,7 +471,7 @@ public class MetadataStorageService {
 
         Set<Genre> genres = new LinkedHashSet<>();
         for (String genreName : videoData.getGenreNames()) {
-            Genre genre = commonDao.getGenre(genreName);
+            Genre genre = lookupDictionaryService.getGenre(genreName);
             if (genre != null) {
                 genres.add(genre);
             }
@@ -426,7 +491,7 @@ public class MetadataStorageService {
 
         Set<Genre> genres = new LinkedHashSet<>();
         for (String genreName : series.getGenreNames()) {
-            Genre genre = commonDao.getGenre(genreName);
+            Genre genre = lookupDictionaryService.getGenre(genreName);
             if (genre != null) {
                 genres.add(genre);
             }
@@ -446,7 +511,7 @@ public class MetadataStorageService {
 
         Set<Studio> studios = new LinkedHashSet<>();
         for (String studioName : videoData.getStudioNames()) {
-            Studio studio = commonDao.getStudio(studioName);
+            Studio studio = lookupDictionaryService.getStudio(studioName);
             if (studio != null) {
                 studios.add(studio);
             }
@@ -466,7 +531,7 @@ public class MetadataStorageService {
 
         Set<Studio> studios = new LinkedHashSet<>();
         for (String studioName : series.getStudioNames()) {
-            Studio studio = commonDao.getStudio(studioName);
+            Studio studio = lookupDictionaryService.getStudio(studioName);
             if (studio != null) {
                 studios.add(studio);
             }
@@ -486,7 +551,7 @@ public class MetadataStorageService {
 
         Set<Country> countries = new LinkedHashSet<>();
         for (String countryCode : videoData.getCountryCodes()) {
-            Country country = commonDao.getCountry(countryCode);
+            Country country = lookupDictionaryService.getCountry(countryCode);
             if (country != null) {
                 countries.add(country);
             }
@@ -506,7 +571,7 @@ public class MetadataStorageService {
 
         Set<Country> countries = new LinkedHashSet<>();
         for (String countryCode : series.getCountryCodes()) {
-            Country country = commonDao.getCountry(countryCode);
+            Country country = lookupDictionaryService.getCountry(countryCode);
             if (country != null) {
                 countries.add(country);
             }
@@ -526,7 +591,7 @@ public class MetadataStorageService {
 
         Set<Certification> certifications = new LinkedHashSet<>();
         for (Entry<String,String> entry : videoData.getCertificationInfos().entrySet()) {
-            Certification certification = commonDao.getCertification(entry.getKey(), entry.getValue());
+            Certification certification = lookupDictionaryService.getCertification(entry.getKey(), entry.getValue());
             if (certification != null) {
                 certifications.add(certification);
             }
@@ -546,7 +611,7 @@ public class MetadataStorageService {
 
         Set<Certification> certifications = new LinkedHashSet<>();
         for (Entry<String,String> entry : series.getCertificationInfos().entrySet()) {
-            Certification certification = commonDao.getCertification(entry.getKey(), entry.getValue());
+            Certification certification = lookupDictionaryService.getCertification(entry.getKey(), entry.getValue());
             if (certification != null) {
                 certifications.add(certification);
             }
@@ -567,7 +632,7 @@ public class MetadataStorageService {
         List<MovieAward> orphanAwards = new ArrayList<>(videoData.getMovieAwards());
 
         for (AwardDTO dto : videoData.getAwardDTOS()) {
-            Award award = this.commonDao.getAward(dto.getEvent(), dto.getCategory(), dto.getSource());
+            Award award = this.lookupDictionaryService.getAward(dto.getEvent(), dto.getCategory(), dto.getSource());
             if (award != null) {
                 MovieAward movieAward = new MovieAward(videoData, award, dto.getYear());
 
@@ -606,7 +671,7 @@ public class MetadataStorageService {
         List<SeriesAward> orphanAwards = new ArrayList<>(series.getSeriesAwards());
 
         for (AwardDTO dto : series.getAwardDTOS()) {
-            Award award = this.commonDao.getAward(dto.getEvent(), dto.getCategory(), dto.getSource());
+            Award award = this.lookupDictionaryService.getAward(dto.getEvent(), dto.getCategory(), dto.getSource());
             if (award != null) {
                 SeriesAward seriesAward = new SeriesAward(series, award, dto.getYear());
                 
@@ -822,6 +887,32 @@ public class MetadataStorageService {
         }
     }
 
+    /**
+     * Publish the artwork and trailer scan of a scanned movie or series.
+     * 
+     * Artwork of seasons and episodes is left to the database queue, cause
+     * the series, season and episode must be done before scanning them.
+     */
+    private void publishScannedMetaData(long id, MetaDataType metaDataType, StatusType status, StatusType trailerStatus, List<Artwork> artworks) {
+        if (!StatusType.DONE.equals(status)) {
+            // scan has not been finished
+            return;
+        }
+        
+        List<QueueDTO> artworkElements = new ArrayList<>();
+        for (Artwork artwork : artworks) {
+            if (artwork.isUpdated()) {
+                artworkElements.add(new QueueDTO(artwork.getId()));
+            }
+        }
+        workDispatcher.publish(WorkType.ARTWORK_SCAN, artworkElements);
+        
+        if (StatusType.NEW.equals(trailerStatus) || StatusType.UPDATED.equals(trailerStatus)) {
+            QueueDTO trailerElement = new QueueDTO(id, metaDataType.name());
+            workDispatcher.publish(WorkType.TRAILER_SCAN, Collections.singletonList(trailerElement));
+        }
+    }
+
     private void updateLocatedArtwork(Person person) {
         if (person.hasModifiedSource()) {
             this.commonDao.markAsDeleted(person.getPhoto(), person.getModifiedSources());
@@ -1137,6 +1228,7 @@ public class MetadataStorageService {
     
     @CacheEvict(value={API_GENRES,API_STUDIOS,API_COUNTRIES,API_CERTIFICATIONS,API_EXTERNAL_IDS,API_RATINGS,API_AWARDS,API_BOXEDSETS,API_TRAILERS,API_VIDEOSOURCE}, key="{#type, #id}")
     public void evictApiCaches(MetaDataType type, Long id) {
-        // just for evicting caches
+        // cached API responses may contain the changed object
+        apiResponseCacheService.libraryChanged();
     }    
 }
@@ -36,6 +36,8 @@ import org.yamj.core.database.dao.CommonDao;
 import org.yamj.core.database.dao.MetadataDao;
 import org.yamj.core.database.model.*;
 import org.yamj.core.database.model.dto.QueueDTO;
+import org.yamj.core.service.file.FileStorageService;
+import org.yamj.core.service.file.StorageType;
 
 @Service("trailerStorageService")
 public class TrailerStorageService {
@@ -44,6 +46,8 @@ public class TrailerStorageService {
     private CommonDao commonDao;
     @Autowired
     private MetadataDao metadataDao;
+    @Autowired
+    private FileStorageService fileStorageService;
     
     @Transactional(readOnly = true)
     public List<QueueDTO> getTrailerQueueForScanning(final int maxResults) {
@@ -105,6 +109,22 @@ public class TrailerStorageService {
         this.commonDao.updateEntity(trailer);
     }
 
+    @Transactional
+    public long migrateTrailerStorage(long lastId) {
+        long newLastId = -1;
+        
+        for (Trailer trailer : this.commonDao.getTrailerWithCacheFilename(lastId)) {
+            newLastId = Math.max(newLastId, trailer.getId());
+            
+            final String cacheDir = fileStorageService.migrateFile(StorageType.TRAILER, trailer.getCacheDirectory(), trailer.getCacheFilename());
+            if (cacheDir != null) {
+                trailer.setCacheDirectory(cacheDir);
+            }
+        }
+        
+        return newLastId;
+    }
+
     @Transactional
     public void updateTrailer(VideoData videoData, List<Trailer> trailers) {
         if (CollectionUtils.isEmpty(videoData.getTrailers())) {
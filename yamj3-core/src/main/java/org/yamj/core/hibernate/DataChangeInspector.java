@@ -0,0 +1,83 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.hibernate;
+
+import java.util.Locale;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Statement inspector which notifies a listener about data changes.
+ * 
+ * Every insert, update or delete statement marks the current transaction
+ * as changing; the listener is called once after its commit. Statements
+ * outside of a transaction notify the listener immediately.
+ */
+public class DataChangeInspector implements StatementInspector {
+
+    private static final long serialVersionUID = -2695484392526862381L;
+
+    private final transient DataChangeListener listener;
+
+    public DataChangeInspector(DataChangeListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if (isChange(sql)) {
+            registerChange();
+        }
+        return sql;
+    }
+
+    private static boolean isChange(String sql) {
+        final String statement = sql.trim().toLowerCase(Locale.ROOT);
+        return statement.startsWith("insert") || statement.startsWith("update") || statement.startsWith("delete");
+    }
+
+    private void registerChange() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            listener.dataChanged();
+            return;
+        }
+
+        // one notification per transaction
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof ChangeSynchronization) {
+                return;
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new ChangeSynchronization());
+    }
+
+    private final class ChangeSynchronization extends TransactionSynchronizationAdapter {
+
+        @Override
+        public void afterCommit() {
+            listener.dataChanged();
+        }
+    }
+}
@@ -466,22 +466,57 @@ public abstract class HibernateDao {
      * @param wrapper
      * @return
      */
-    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @SuppressWarnings("unchecked")
     public <T> List<T> executeQueryWithTransform(Class<T> entityClass, SqlScalars sqlScalars, IApiWrapper wrapper) { //NOSONAR
+        SQLQuery query = createSQLQuery(entityClass, sqlScalars);
+
+        final IOptions options = (wrapper == null ? null : wrapper.getOptions());
+        if (options == null || (options.getStart() <= 0 && options.getMax() <= 0)) {
+            // no paging; total count is the size of the result
+            List<T> queryResults = query.list();
+            if (wrapper != null) {
+                wrapper.setTotalCount(queryResults.size());
+            }
+            return queryResults;
+        }
+        
+        // only fetch the requested page from the database
+        final int start = Math.max(0, options.getStart());
+        if (start > 0) {
+            query.setFirstResult(start);
+        }
+        if (options.getMax() > 0) {
+            query.setMaxResults(options.getMax());
+        }
+        List<T> queryResults = query.list();
+
+        if (options.getMax() > 0 && queryResults.size() >= options.getMax()) {
+            // page is full, so there may be more rows
+            wrapper.setTotalCount(executeCountQuery(sqlScalars));
+        } else if (queryResults.isEmpty() && start > 0) {
+            // start is beyond the last row, so count is unknown
+            wrapper.setTotalCount(executeCountQuery(sqlScalars));
+        } else {
+            // the page reached the end of the result
+            wrapper.setTotalCount(start + queryResults.size());
+        }
         
+        return queryResults;
+    }
+
+    /**
+     * Create the SQL query with parameters, scalars and result transformer.
+     *
+     * @param entityClass
+     * @param sqlScalars
+     * @return
+     */
+    private <T> SQLQuery createSQLQuery(Class<T> entityClass, SqlScalars sqlScalars) {
         SQLQuery query = currentSession().createSQLQuery(sqlScalars.getSql());
         query.setReadOnly(true).setCacheable(true);
         
         // add parameters
-        for (Map.Entry<String, Object> entry : sqlScalars.getParameters().entrySet()) {
-            if (entry.getValue() instanceof Collection) {
-                query.setParameterList(entry.getKey(), (Collection) entry.getValue());
-            } else if (entry.getValue() instanceof Object[]) {
-                query.setParameterList(entry.getKey(), (Object[]) entry.getValue());
-            } else {
-                query.setParameter(entry.getKey(), entry.getValue());
-            }
-        }
+        applySqlParameters(query, sqlScalars);
 
         // populate scalars
         for (Map.Entry<String, BasicType> entry : sqlScalars.getScalars().entrySet()) {
@@ -502,29 +537,53 @@ public abstract class HibernateDao {
             query.setResultTransformer(Transformers.aliasToBean(entityClass));
         }
 
-        // run query
-		List<T> queryResults = query.list();
-
-        // if the wrapper is populated, then run the query to get the maximum results
-        if (wrapper != null) {
-            wrapper.setTotalCount(queryResults.size());
-
-            // if there is a start or max set, we will need to re-run the query after setting the options
-            IOptions options = wrapper.getOptions();
-            if (options != null && (options.getStart() > 0 || options.getMax() > 0)) {
-                if (options.getStart() > 0) {
-                    query.setFirstResult(options.getStart());
-                }
-
-                if (options.getMax() > 0) {
-                    query.setMaxResults(options.getMax());
-                }
-                
-                // this will get the trimmed list
-                queryResults = query.list();
-            }
+        return query;
+    }
+
+    /**
+     * Execute a query to return a range of the results without counting the total rows.
+     *
+     * @param entityClass
+     * @param sqlScalars
+     * @param firstResult the first row to fetch
+     * @param maxResults the maximal amount of rows to fetch, or a negative value for all rows
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> executeQueryWithTransform(Class<T> entityClass, SqlScalars sqlScalars, int firstResult, int maxResults) { //NOSONAR
+        SQLQuery query = createSQLQuery(entityClass, sqlScalars);
+        if (firstResult > 0) {
+            query.setFirstResult(firstResult);
+        }
+        if (maxResults > 0) {
+            query.setMaxResults(maxResults);
         }
+        return query.list();
+    }
 
-        return queryResults;
+    /**
+     * Count the rows of the query without materializing them.
+     *
+     * @param sqlScalars
+     * @return the row count
+     */
+    protected int executeCountQuery(SqlScalars sqlScalars) {
+        SQLQuery countQuery = currentSession().createSQLQuery(sqlScalars.getCountSql());
+        countQuery.setReadOnly(true).setCacheable(true);
+        applySqlParameters(countQuery, sqlScalars);
+        return convertRowElementToInteger(countQuery.uniqueResult()).intValue();
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static void applySqlParameters(SQLQuery query, SqlScalars sqlScalars) {
+        for (Map.Entry<String, Object> entry : sqlScalars.getParameters().entrySet()) {
+            if (entry.getValue() instanceof Collection) {
+                query.setParameterList(entry.getKey(), (Collection) entry.getValue());
+            } else if (entry.getValue() instanceof Object[]) {
+                query.setParameterList(entry.getKey(), (Object[]) entry.getValue());
+            } else {
+                query.setParameter(entry.getKey(), entry.getValue());
+            }
+        }
     }
 }
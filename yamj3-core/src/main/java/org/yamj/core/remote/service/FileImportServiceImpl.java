@@ -26,10 +26,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.yamj.common.dto.ImportBatchDTO;
 import org.yamj.common.dto.ImportDTO;
 import org.yamj.common.remote.service.FileImportService;
 import org.yamj.core.database.model.Library;
-import org.yamj.core.scheduling.ImportScheduler;
 import org.yamj.core.service.various.StagingService;
 
 @Service("fileImportService")
@@ -38,8 +38,6 @@ public class FileImportServiceImpl implements FileImportService {
     private static final Logger LOG = LoggerFactory.getLogger(FileImportServiceImpl.class);
     @Autowired
     private StagingService stagingService;
-    @Autowired
-    private ImportScheduler importScheduler;
     
     @Override
     public void importScanned(ImportDTO importDTO) {
@@ -48,10 +46,22 @@ public class FileImportServiceImpl implements FileImportService {
 			LOG.trace("Imported scanned library: {}", library);
             stagingService.storeStageDirectory(importDTO.getStageDirectory(), library);
             LOG.trace("Imported scanned directory: {}", importDTO.getStageDirectory().getPath());
-            importScheduler.trigger();
         } catch (Exception error) {
             LOG.error("Failed to import scanned directory: {}", importDTO.getStageDirectory().getPath(), error);
             throw new RuntimeException("Failed to import scanned directory: "+importDTO.getStageDirectory().getPath()); //NOSONAR
         }
     }
+
+    @Override
+    public void importScannedBatch(ImportBatchDTO importBatch) {
+        final int size = importBatch.getStageDirectories().size();
+        try {
+            long startTime = System.currentTimeMillis();
+            Library library = stagingService.storeStageDirectories(importBatch);
+            LOG.debug("Imported {} scanned directories of library {} in {} ms", size, library.getBaseDirectory(), System.currentTimeMillis()-startTime);
+        } catch (Exception error) {
+            LOG.error("Failed to import {} scanned directories of library: {}", size, importBatch.getBaseDirectory(), error);
+            throw new RuntimeException("Failed to import scanned directories of library: "+importBatch.getBaseDirectory()); //NOSONAR
+        }
+    }
 }
@@ -24,11 +24,25 @@ package org.yamj.core.scheduling;
 
 import java.util.Collection;
 import java.util.concurrent.*;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.yamj.core.database.model.dto.QueueDTO;
+import org.yamj.core.service.various.ApiResponseCacheService;
 
 public abstract class AbstractQueueScheduler {
 
+    @Autowired
+    private ApiResponseCacheService apiResponseCacheService;
+    
     protected void threadedProcessing(Collection<QueueDTO> queueElements, int maxThreads, IQueueProcessService service) {
+        try {
+            doThreadedProcessing(queueElements, maxThreads, service);
+        } finally {
+            // processed elements changed the library
+            apiResponseCacheService.libraryChanged();
+        }
+    }
+    
+    private static void doThreadedProcessing(Collection<QueueDTO> queueElements, int maxThreads, IQueueProcessService service) {
         final BlockingQueue<QueueDTO> queue = new LinkedBlockingQueue<>(queueElements);
 
         if (maxThreads > 1) {
@@ -22,9 +22,11 @@
  */
 package org.yamj.core.scheduling;
 
+import static org.yamj.core.scheduling.WorkType.ARTWORK_PROCESS;
+
 import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.PostConstruct;
 import org.apache.commons.collections.CollectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,7 +39,7 @@ import org.yamj.core.database.service.ArtworkStorageService;
 import org.yamj.core.service.artwork.ArtworkProcessorService;
 
 @Component
-public class ArtworkProcessScheduler extends AbstractQueueScheduler {
+public class ArtworkProcessScheduler extends AbstractQueueScheduler implements Runnable {
 
     private static final Logger LOG = LoggerFactory.getLogger(ArtworkProcessScheduler.class);
     private static final ReentrantLock PROCESS_LOCK = new ReentrantLock();
@@ -48,35 +50,42 @@ public class ArtworkProcessScheduler extends AbstractQueueScheduler {
     private ArtworkStorageService artworkStorageService;
     @Autowired
     private ArtworkProcessorService artworkProcessorService;
+    @Autowired
+    private WorkDispatcher workDispatcher;
 
     private boolean messageDisabled = false; // Have we already printed the disabled message
-    private final AtomicBoolean watchProcess = new AtomicBoolean(false);
     
+    @PostConstruct
+    public void init() {
+        workDispatcher.register(ARTWORK_PROCESS, this);
+    }
+
     @Scheduled(initialDelay = 5000, fixedDelay = 300000)
     public void trigger() {
         LOG.trace("Trigger artwork process");
-        watchProcess.set(true);
+        workDispatcher.signal(ARTWORK_PROCESS);
     }
 
-    @Scheduled(initialDelay = 6000, fixedDelay = 1000)
+    @Override
     public void run() {
-        if (watchProcess.get() && PROCESS_LOCK.tryLock()) {
+        final WorkQueue workQueue = workDispatcher.wokenUp(ARTWORK_PROCESS);
+        while (workQueue.hasWork() && PROCESS_LOCK.tryLock()) {
             try {
-                processArtwork();
+                processArtwork(workQueue);
             } finally {
                 PROCESS_LOCK.unlock();
             }
         }
     }
     
-    private void processArtwork() {
+    private void processArtwork(WorkQueue workQueue) {
         int maxThreads = configService.getIntProperty("yamj3.scheduler.artworkprocess.maxThreads", 1);
         if (maxThreads <= 0) {
             if (!messageDisabled) {
                 messageDisabled = true;
                 LOG.info("Artwork processing is disabled");
             }
-            watchProcess.set(false);
+            workQueue.clear();
             return;
         }
         
@@ -87,10 +96,15 @@ public class ArtworkProcessScheduler extends AbstractQueueScheduler {
 
         // process located or generated artwork
         int maxResults = Math.max(1,configService.getIntProperty("yamj3.scheduler.artworkprocess.maxResults", 100));
-        List<QueueDTO> queueElements = artworkStorageService.getArtworkQueueForProcessing(maxResults);
+        List<QueueDTO> queueElements = workQueue.poll(maxResults);
+        if (queueElements.isEmpty()) {
+            final long checkId = workQueue.startDatabaseCheck();
+            queueElements = artworkStorageService.getArtworkQueueForProcessing(maxResults);
+            workQueue.finishDatabaseCheck(checkId, queueElements);
+        }
+        
         if (CollectionUtils.isEmpty(queueElements)) {
             LOG.trace("No artwork found to process");
-            watchProcess.set(false);
         } else {
             LOG.info("Found {} artwork objects to process; process with {} threads", queueElements.size(), maxThreads);
             this.threadedProcessing(queueElements, maxThreads, artworkProcessorService);
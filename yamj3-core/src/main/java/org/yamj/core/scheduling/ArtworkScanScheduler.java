@@ -22,9 +22,11 @@
  */
 package org.yamj.core.scheduling;
 
+import static org.yamj.core.scheduling.WorkType.ARTWORK_SCAN;
+
 import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.PostConstruct;
 import org.apache.commons.collections.CollectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,7 +39,7 @@ import org.yamj.core.database.service.ArtworkStorageService;
 import org.yamj.core.service.artwork.ArtworkScannerService;
 
 @Component
-public class ArtworkScanScheduler extends AbstractQueueScheduler {
+public class ArtworkScanScheduler extends AbstractQueueScheduler implements Runnable {
 
     private static final Logger LOG = LoggerFactory.getLogger(ArtworkScanScheduler.class);
     private static final ReentrantLock PROCESS_LOCK = new ReentrantLock();
@@ -50,35 +52,42 @@ public class ArtworkScanScheduler extends AbstractQueueScheduler {
     private ArtworkScannerService artworkScannerService;
     @Autowired
     private ArtworkProcessScheduler artworkProcessScheduler;
+    @Autowired
+    private WorkDispatcher workDispatcher;
     
     private boolean messageDisabled = false; // Have we already printed the disabled message
-    private final AtomicBoolean watchProcess = new AtomicBoolean(false);
+
+    @PostConstruct
+    public void init() {
+        workDispatcher.register(ARTWORK_SCAN, this);
+    }
     
     @Scheduled(initialDelay = 5000, fixedDelay = 300000)
     public void trigger() {
         LOG.trace("Trigger artwork scan");
-        watchProcess.set(true);
+        workDispatcher.signal(ARTWORK_SCAN);
     }
 
-    @Scheduled(initialDelay = 6000, fixedDelay = 1000)
+    @Override
     public void run() {
-        if (watchProcess.get() && PROCESS_LOCK.tryLock()) {
+        final WorkQueue workQueue = workDispatcher.wokenUp(ARTWORK_SCAN);
+        while (workQueue.hasWork() && PROCESS_LOCK.tryLock()) {
             try {
-                scanArtwork();
+                scanArtwork(workQueue);
             } finally {
                 PROCESS_LOCK.unlock();
             }
         }
     }
     
-    private void scanArtwork() {
+    private void scanArtwork(WorkQueue workQueue) {
         int maxThreads = configService.getIntProperty("yamj3.scheduler.artworkscan.maxThreads", 1);
         if (maxThreads <= 0) {
             if (!messageDisabled) {
                 messageDisabled = true;
                 LOG.info("Artwork scanning is disabled");
             }
-            watchProcess.set(false);
+            workQueue.clear();
         } else {
             if (messageDisabled) {
                 LOG.info("Artwork processing is enabled");
@@ -92,10 +101,15 @@ public class ArtworkScanScheduler extends AbstractQueueScheduler {
 
             // process located or generated artwork
             int maxResults = Math.max(1,configService.getIntProperty("yamj3.scheduler.artworkscan.maxResults", 60));
-            List<QueueDTO> queueElements = artworkStorageService.getArtworkQueueForScanning(maxResults, scanPhoto);
+            List<QueueDTO> queueElements = workQueue.poll(maxResults);
+            if (queueElements.isEmpty()) {
+                final long checkId = workQueue.startDatabaseCheck();
+                queueElements = artworkStorageService.getArtworkQueueForScanning(maxResults, scanPhoto);
+                workQueue.finishDatabaseCheck(checkId, queueElements);
+            }
+            
             if (CollectionUtils.isEmpty(queueElements)) {
                 LOG.trace("No artwork found to scan");
-                watchProcess.set(false);
             } else {
                 LOG.info("Found {} artwork objects to scan; process with {} threads", queueElements.size(), maxThreads);
                 this.threadedProcessing(queueElements, maxThreads, artworkScannerService);
@@ -22,29 +22,59 @@
  */
 package org.yamj.core.scheduling;
 
-import static org.yamj.core.database.model.type.FileType.*;
+import static org.yamj.core.scheduling.WorkType.IMPORT;
+import static org.yamj.core.tools.ExceptionTools.isConstraintViolation;
 import static org.yamj.core.tools.ExceptionTools.isLockingError;
 
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.yamj.core.config.ConfigService;
+import org.yamj.core.database.model.dto.QueueDTO;
+import org.yamj.core.database.model.type.FileType;
 import org.yamj.core.service.mediaimport.MediaImportService;
+import org.yamj.core.service.various.ApiResponseCacheService;
 
 @Component
-public class ImportScheduler {
+public class ImportScheduler implements Runnable {
 
     private static final Logger LOG = LoggerFactory.getLogger(ImportScheduler.class);
     private static final ReentrantLock IMPORT_LOCK = new ReentrantLock();
     private static final String STAGING_ERROR = "Staging Error";
     private static final String DATABASE_ERROR = "Database Error";
 
-    // start with an initial media import
-    private final AtomicBoolean watchProcess = new AtomicBoolean(true);
-
+    /**
+     * The import steps in processing order; NFOs, images, watched and subtitle
+     * files are attached to videos, so videos must be imported first.
+     */
+    private enum ImportStep {
+        VIDEO(FileType.VIDEO, FileType.BLURAY, FileType.HDDVD, FileType.DVD),
+        NFO(FileType.NFO),
+        IMAGE(FileType.IMAGE),
+        WATCHED(FileType.WATCHED),
+        SUBTITLE(FileType.SUBTITLE);
+        
+        private final FileType[] fileTypes;
+        
+        private ImportStep(FileType... fileTypes) {
+            this.fileTypes = fileTypes;
+        }
+        
+        @Override
+        public String toString() {
+            return name().toLowerCase();
+        }
+    }
+    
+    @Autowired
+    private ConfigService configService;
     @Autowired
     private MediaImportService mediaImportService;
     @Autowired
@@ -53,205 +83,217 @@ public class ImportScheduler {
     private MediaFileScanScheduler mediaFileScanScheduler;
     @Autowired
     private ArtworkProcessScheduler artworkProcessScheduler;
+    @Autowired
+    private WorkDispatcher workDispatcher;
+    @Autowired
+    private ApiResponseCacheService apiResponseCacheService;
     
+    @PostConstruct
+    public void init() {
+        workDispatcher.register(IMPORT, this);
+    }
+
+    // starts with an initial media import
+    @Scheduled(initialDelay = 2000, fixedDelay = 300000)
     public void trigger() {
         LOG.trace("Trigger media import");
-        watchProcess.set(true);
+        workDispatcher.signal(IMPORT);
     }
 
-    @Scheduled(initialDelay = 2000, fixedDelay = 1000)
+    @Override
     public void run() {
-        if (watchProcess.get() && IMPORT_LOCK.tryLock()) {
+        final WorkQueue workQueue = workDispatcher.wokenUp(IMPORT);
+        while (workQueue.hasWork() && IMPORT_LOCK.tryLock()) {
             try {
+                // stage files are always taken from the database
+                final long checkId = workQueue.startDatabaseCheck();
                 processStageFiles();
+                workQueue.finishDatabaseCheck(checkId, Collections.<QueueDTO>emptyList());
             } finally {
                 IMPORT_LOCK.unlock();
             }
-            watchProcess.set(false);
         }
     }
 
-    private void processStageFiles() { //NOSONAR
-        Long id = null;
-        int counter = 0;
+    private void processStageFiles() {
+        final int maxThreads = Math.max(1, configService.getIntProperty("yamj3.scheduler.mediaimport.maxThreads", 1));
+        final int maxResults = Math.max(1, configService.getIntProperty("yamj3.scheduler.mediaimport.maxResults", 100));
         
         // PROCESS VIDEOS
-        do {
-            id = null;
-            try {
-                // find next stage file to process
-                id = mediaImportService.getNextStageFileId(VIDEO, BLURAY, HDDVD, DVD);
-                if (id != null) {
-                    LOG.trace("Process video stage file: {}", id);
-                    mediaImportService.processVideo(id);
-                    LOG.info("Processed video stage file: {}", id);
-                    counter++;
-
-                    // trigger media file scan after 20 processed videos
-                    if ((counter % 20) == 0) { 
-                        mediaFileScanScheduler.trigger();
-                    }
-                }
-            } catch (Exception error) {
-                if (isLockingError(error)) {
-                    LOG.warn("Locking error during import of video stage file {}", id);
-                } else if (id == null) {
-                    LOG.error("Failed to get next video stage file", error);
-                } else {
-                    LOG.error("Failed to process video stage file {}", id);
-                    LOG.error(STAGING_ERROR, error);
-                    
-                    try {
-                        mediaImportService.processingError(id);
-                    } catch (Exception ex) {
-                        // leave status as it is in any error case
-                        LOG.trace(DATABASE_ERROR, ex);
-                    }
-                }
-            }
-        } while (id != null);
-        if (counter > 0) {
+        if (processStep(ImportStep.VIDEO, maxThreads, maxResults) > 0) {
             // trigger scan of media files and meta data if video files has been processed
             mediaFileScanScheduler.trigger();
             metadataScanScheduler.triggerScanVideo();
-            counter = 0;
         }
         
         // PROCESS NFOS
-        do {
-            id = null;
-            try {
-                // find next stage file to process
-                id = mediaImportService.getNextStageFileId(NFO);
-                if (id != null) {
-                    LOG.trace("Process nfo stage file: {}", id);
-                    mediaImportService.processNfo(id);
-                    LOG.info("Processed nfo stage file: {}", id);
-                    counter++;
-                }
-            } catch (Exception error) {
-                if (isLockingError(error)) {
-                    LOG.warn("Locking error during import of nfo stage file {}", id);
-                } else if (id == null) {
-                    LOG.error("Failed to get next nfo stage file", error);
-                } else {
-                    LOG.error("Failed to process nfo stage file {}", id);
-                    LOG.warn(STAGING_ERROR, error);
-                    
-                    try {
-                        mediaImportService.processingError(id);
-                    } catch (Exception ex) {
-                        // leave status as it is in any error case
-                        LOG.trace(DATABASE_ERROR, ex);
-                    }
-                }
-            }
-        } while (id != null);
-        if (counter > 0) {
+        if (processStep(ImportStep.NFO, maxThreads, maxResults) > 0) {
             // trigger scan of meta data when NFOs has been processed
             metadataScanScheduler.triggerScanVideo();
-            counter = 0;
         }
 
         // PROCESS IMAGES
-        do {
-            id = null;
-            try {
-                // find next stage file to process
-                id = mediaImportService.getNextStageFileId(IMAGE);
-                if (id != null) {
-                    LOG.trace("Process image stage file: {}", id);
-                    mediaImportService.processImage(id);
-                    LOG.info("Processed image stage file: {}", id);
-                    counter++;
-                    
-                    // trigger artwork process after 20 processed images
-                    if ((counter % 20) == 0) { 
-                        artworkProcessScheduler.trigger();
-                    }
-                }
-            } catch (Exception error) {
-                if (isLockingError(error)) {
-                    LOG.warn("Locking error during import of image stage file {}", id);
-                } else if (id == null) {
-                    LOG.error("Failed to get next image stage file", error);
-                } else {
-                    LOG.error("Failed to process image stage file {}", id);
-                    LOG.warn(STAGING_ERROR, error);
-                    
-                    try {
-                        mediaImportService.processingError(id);
-                    } catch (Exception ex) {
-                        // leave status as it is in any error case
-                        LOG.trace(DATABASE_ERROR, ex);
-                    }
-                }
-            }
-        } while (id != null);
-        if (counter > 0) {
+        if (processStep(ImportStep.IMAGE, maxThreads, maxResults) > 0) {
             // trigger artwork process if images has been processed
             artworkProcessScheduler.trigger();
-            counter = 0;
         }
 
         // PROCESS WATCHED
+        processStep(ImportStep.WATCHED, maxThreads, maxResults);
+
+        // PROCESS SUBTITLE
+        processStep(ImportStep.SUBTITLE, maxThreads, maxResults);
+    }
+
+    private int processStep(ImportStep step, int maxThreads, int maxResults) {
+        final long start = System.currentTimeMillis();
+        int processed = 0;
+        
+        // stage files which will be retried after a constraint violation; this may happen
+        // if the same video or series is imported concurrently from different directories
+        final Set<Long> retries = (maxThreads > 1) ? Collections.newSetFromMap(new ConcurrentHashMap<Long,Boolean>()) : null;
+        
+        Map<Long, List<Long>> stageFileIds;
         do {
-            id = null;
             try {
-                // find next stage file to process
-                id = mediaImportService.getNextStageFileId(WATCHED);
-                if (id != null) {
-                    LOG.trace("Process watched stage file: {}", id);
-                    mediaImportService.processWatched(id);
-                    LOG.info("Processed watched stage file: {}", id);
-                }
+                // stage file ids grouped by stage directory
+                stageFileIds = mediaImportService.getNextStageFileIds(maxResults, step.fileTypes);
             } catch (Exception error) {
-                if (isLockingError(error)) {
-                    LOG.warn("Locking error during import of watched stage file {}", id);
-                } else if (id == null) {
-                    LOG.error("Failed to get next watched stage file", error);
-                } else {
-                    LOG.error("Failed to process watched stage file {}", id);
-                    LOG.warn(STAGING_ERROR, error);
-                    
-                    try {
-                        mediaImportService.processingError(id);
-                    } catch (Exception ex) {
-                        // leave status as it is in any error case
-                        LOG.trace(DATABASE_ERROR, ex);
+                LOG.error("Failed to get next {} stage files", step, error);
+                break;
+            }
+            
+            if (stageFileIds.isEmpty()) {
+                break;
+            }
+            
+            int batchProcessed = processBatch(step, stageFileIds, maxThreads, retries);
+            if (batchProcessed == 0) {
+                // nothing could be processed, so try again in a later run
+                LOG.warn("Failed to process any of the next {} stage files", step);
+                break;
+            }
+            processed += batchProcessed;
+            apiResponseCacheService.libraryChanged();
+            
+            // trigger following processing for each finished batch
+            if (step == ImportStep.VIDEO) {
+                mediaFileScanScheduler.trigger();
+            } else if (step == ImportStep.IMAGE) {
+                artworkProcessScheduler.trigger();
+            }
+        } while (true);
+        
+        if (processed > 0) {
+            final long duration = Math.max(1, System.currentTimeMillis() - start);
+            LOG.info("Processed {} {} stage files in {} ms ({} files/second) with {} threads",
+                    processed, step, duration, String.format("%.2f", processed * 1000d / duration), maxThreads);
+        }
+        return processed;
+    }
+    
+    private int processBatch(final ImportStep step, Map<Long, List<Long>> stageFileIds, int maxThreads, final Set<Long> retries) {
+        final AtomicInteger processed = new AtomicInteger(0);
+        
+        if (maxThreads <= 1 || stageFileIds.size() == 1) {
+            // single threaded processing
+            for (List<Long> directoryIds : stageFileIds.values()) {
+                processDirectory(step, directoryIds, processed, retries);
+            }
+            return processed.get();
+        }
+
+        // the stage files of one directory are processed in order by the same
+        // thread; so two threads never process the same stage file or directory
+        final BlockingQueue<List<Long>> queue = new LinkedBlockingQueue<>(stageFileIds.values());
+        final int threads = Math.min(maxThreads, stageFileIds.size());
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    List<Long> directoryIds;
+                    while ((directoryIds = queue.poll()) != null) {
+                        processDirectory(step, directoryIds, processed, retries);
                     }
                 }
+            });
+        }
+        
+        executor.shutdown();
+
+        // run until all workers have finished
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                LOG.trace("Waiting for {} import workers", step);
             }
-        } while (id != null);
+        } catch (InterruptedException ex) {
+            LOG.warn("Interrupted while waiting for {} import workers", step);
+            Thread.currentThread().interrupt();
+        }
+        
+        return processed.get();
+    }
 
-        // PROCESS SUBTITLE
-        do {
-            id = null;
-            try {
-                // find next stage file to process
-                id = mediaImportService.getNextStageFileId(SUBTITLE);
-                if (id != null) {
-                    LOG.trace("Process subtitle stage file: {}", id);
+    private void processDirectory(ImportStep step, List<Long> directoryIds, AtomicInteger processed, Set<Long> retries) {
+        for (Long id : directoryIds) {
+            if (processStageFile(step, id, retries)) {
+                processed.incrementAndGet();
+            }
+        }
+    }
+    
+    /**
+     * Process a stage file.
+     * 
+     * @param step the import step
+     * @param id the stage file id
+     * @param retries the stage files to retry once after a constraint violation; may be null
+     * @return true, if the status of the stage file has been changed
+     */
+    private boolean processStageFile(ImportStep step, Long id, Set<Long> retries) {
+        try {
+            LOG.trace("Process {} stage file: {}", step, id);
+            switch (step) {
+                case VIDEO:
+                    mediaImportService.processVideo(id);
+                    break;
+                case NFO:
+                    mediaImportService.processNfo(id);
+                    break;
+                case IMAGE:
+                    mediaImportService.processImage(id);
+                    break;
+                case WATCHED:
+                    mediaImportService.processWatched(id);
+                    break;
+                default:
                     mediaImportService.processSubtitle(id);
-                    LOG.info("Processed subtitle stage file: {}", id);
-                }
-            } catch (Exception error) {
-                if (isLockingError(error)) {
-                    LOG.warn("Locking error during import of subtitle stage file {}", id);
-                } else if (id == null) {
-                    LOG.error("Failed to get next subtitle stage file", error);
-                } else {
-                    LOG.error("Failed to process subtitle stage file {}", id);
-                    LOG.warn(STAGING_ERROR, error);
-                    
-                    try {
-                        mediaImportService.processingError(id);
-                    } catch (Exception ex) {
-                        // leave status as it is in any error case
-                        LOG.trace(DATABASE_ERROR, ex);
-                    }
-                }
+                    break;
             }
-        } while (id != null);
+            LOG.info("Processed {} stage file: {}", step, id);
+            return true;
+        } catch (Exception error) {
+            if (isLockingError(error)) {
+                LOG.warn("Locking error during import of {} stage file {}", step, id);
+                return false;
+            }
+            if (retries != null && isConstraintViolation(error) && retries.add(id)) {
+                LOG.debug("Constraint violation during import of {} stage file {}; will be retried", step, id);
+                return false;
+            }
+            
+            LOG.error("Failed to process {} stage file {}", step, id);
+            LOG.warn(STAGING_ERROR, error);
+            
+            try {
+                mediaImportService.processingError(id);
+                return true;
+            } catch (Exception ex) {
+                // leave status as it is in any error case
+                LOG.trace(DATABASE_ERROR, ex);
+                return false;
+            }
+        }
     }
 }
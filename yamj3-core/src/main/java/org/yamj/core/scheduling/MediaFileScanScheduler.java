@@ -22,9 +22,11 @@
  */
 package org.yamj.core.scheduling;
 
+import static org.yamj.core.scheduling.WorkType.MEDIAFILE_SCAN;
+
 import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.PostConstruct;
 import org.apache.commons.collections.CollectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,7 +39,7 @@ import org.yamj.core.database.service.MediaStorageService;
 import org.yamj.core.service.mediainfo.MediaInfoService;
 
 @Component
-public class MediaFileScanScheduler extends AbstractQueueScheduler {
+public class MediaFileScanScheduler extends AbstractQueueScheduler implements Runnable {
 
     private static final Logger LOG = LoggerFactory.getLogger(MediaFileScanScheduler.class);
     private static final ReentrantLock PROCESS_LOCK = new ReentrantLock();
@@ -48,35 +50,42 @@ public class MediaFileScanScheduler extends AbstractQueueScheduler {
     private MediaStorageService mediaStorageService;
     @Autowired
     private MediaInfoService mediaInfoService;
+    @Autowired
+    private WorkDispatcher workDispatcher;
     
     private boolean messageDisabled = false; // Have we already printed the disabled message
-    private final AtomicBoolean watchProcess = new AtomicBoolean(false);
+
+    @PostConstruct
+    public void init() {
+        workDispatcher.register(MEDIAFILE_SCAN, this);
+    }
 
     @Scheduled(initialDelay = 5000, fixedDelay = 300000)
     public void trigger() {
         LOG.trace("Trigger media file scan");
-        watchProcess.set(true);
+        workDispatcher.signal(MEDIAFILE_SCAN);
     }
 
-    @Scheduled(initialDelay = 6000, fixedDelay = 1000)
+    @Override
     public void run() {
-        if (watchProcess.get() && PROCESS_LOCK.tryLock()) {
+        final WorkQueue workQueue = workDispatcher.wokenUp(MEDIAFILE_SCAN);
+        while (workQueue.hasWork() && PROCESS_LOCK.tryLock()) {
             try {
-                scanMediaFiles();
+                scanMediaFiles(workQueue);
             } finally {
                 PROCESS_LOCK.unlock();
             }
         }
     }
     
-    private void scanMediaFiles() {
+    private void scanMediaFiles(WorkQueue workQueue) {
         int maxThreads = configService.getIntProperty("yamj3.scheduler.mediafilescan.maxThreads", 1);
         if (maxThreads <= 0) {
             if (!messageDisabled) {
                 messageDisabled = true;
                 LOG.info("Media file scanning is disabled");
             }
-            watchProcess.set(false);
+            workQueue.clear();
             return;
         }
         
@@ -86,10 +95,15 @@ public class MediaFileScanScheduler extends AbstractQueueScheduler {
         }
 
         int maxResults = Math.max(1,configService.getIntProperty("yamj3.scheduler.mediafilescan.maxResults", 50));
-        List<QueueDTO> queueElements = mediaStorageService.getMediaFileQueue(maxResults);
+        List<QueueDTO> queueElements = workQueue.poll(maxResults);
+        if (queueElements.isEmpty()) {
+            final long checkId = workQueue.startDatabaseCheck();
+            queueElements = mediaStorageService.getMediaFileQueue(maxResults);
+            workQueue.finishDatabaseCheck(checkId, queueElements);
+        }
+        
         if (CollectionUtils.isEmpty(queueElements)) {
             LOG.trace("No media files found to scan");
-            watchProcess.set(false);
         } else {
             LOG.info("Found {} media files to process; scan with {} threads", queueElements.size(), maxThreads);
             threadedProcessing(queueElements, maxThreads, mediaInfoService);
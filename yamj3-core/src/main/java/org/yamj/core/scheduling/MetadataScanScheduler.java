@@ -22,9 +22,11 @@
  */
 package org.yamj.core.scheduling;
 
+import static org.yamj.core.scheduling.WorkType.*;
+
 import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.PostConstruct;
 import org.apache.commons.collections.CollectionUtils;
 import org.joda.time.LocalDateTime;
 import org.slf4j.Logger;
@@ -40,7 +42,7 @@ import org.yamj.core.database.service.MetadataStorageService;
 import org.yamj.core.service.metadata.MetadataScannerService;
 
 @Component
-public class MetadataScanScheduler extends AbstractQueueScheduler {
+public class MetadataScanScheduler extends AbstractQueueScheduler implements Runnable {
 
     private static final Logger LOG = LoggerFactory.getLogger(MetadataScanScheduler.class);
     private static final ReentrantLock SCANNING_LOCK = new ReentrantLock();
@@ -57,51 +59,61 @@ public class MetadataScanScheduler extends AbstractQueueScheduler {
     private TrailerScanScheduler trailerScanScheduler;
     @Autowired
     private ExecutionTaskStorageService executionTaskStorageService;
+    @Autowired
+    private WorkDispatcher workDispatcher;
     
     private boolean messageDisabledVideo = false;       // Have we already printed the disabled message
     private boolean messageDisabledPeople = false;       // Have we already printed the disabled message
     private boolean messageDisabledFilmography = false;  // Have we already printed the disabled message
     private boolean videosHasBeenScanned = false;
     
-    private final AtomicBoolean watchScanVideo = new AtomicBoolean(false);
-    private final AtomicBoolean watchScanPeople = new AtomicBoolean(false);
-    private final AtomicBoolean watchScanFilmography = new AtomicBoolean(false);
+    @PostConstruct
+    public void init() {
+        // all scans share the same worker
+        workDispatcher.register(METADATA_SCAN, this);
+        workDispatcher.register(PEOPLE_SCAN, this);
+        workDispatcher.register(FILMOGRAPHY_SCAN, this);
+    }
 
     @Scheduled(initialDelay = 1000, fixedDelay = 300000)
     public void trigger() {
         LOG.trace("Trigger metadata scan");
-        watchScanVideo.set(true);
-        watchScanPeople.set(true);
-        watchScanFilmography.set(true);
+        workDispatcher.signal(METADATA_SCAN);
+        workDispatcher.signal(PEOPLE_SCAN);
+        workDispatcher.signal(FILMOGRAPHY_SCAN);
     }
     
     public void triggerScanVideo() {
         LOG.trace("Trigger video scan");
-        watchScanVideo.set(true);
+        workDispatcher.signal(METADATA_SCAN);
     }
     
     public void triggerScanPeople() {
         LOG.trace("Trigger people scan");
-        watchScanPeople.set(true);
+        workDispatcher.signal(PEOPLE_SCAN);
     }
 
     public void triggerScanFilmography() {
         LOG.trace("Trigger filmogprahy scan");
-        watchScanFilmography.set(true);
+        workDispatcher.signal(FILMOGRAPHY_SCAN);
     }
 
-    @Scheduled(initialDelay = 2000, fixedDelay = 1000)
-    public void runAllScans() {
-        if (SCANNING_LOCK.tryLock()) {
+    @Override
+    public void run() {
+        final WorkQueue videoQueue = workDispatcher.wokenUp(METADATA_SCAN);
+        final WorkQueue peopleQueue = workDispatcher.wokenUp(PEOPLE_SCAN);
+        final WorkQueue filmographyQueue = workDispatcher.wokenUp(FILMOGRAPHY_SCAN);
+
+        while ((videoQueue.hasWork() || peopleQueue.hasWork() || filmographyQueue.hasWork()) && SCANNING_LOCK.tryLock()) {
             try {
-                if (watchScanVideo.get()) {
-                    scanVideo();
+                if (videoQueue.hasWork()) {
+                    scanVideo(videoQueue);
                 }
-                if (watchScanPeople.get()) {
-                    scanPeople();
+                if (peopleQueue.hasWork()) {
+                    scanPeople(peopleQueue);
                 }
-                if (watchScanFilmography.get()) {
-                    scanFilmography();
+                if (filmographyQueue.hasWork()) {
+                    scanFilmography(filmographyQueue);
                 }
             } finally {
                 SCANNING_LOCK.unlock();
@@ -109,14 +121,14 @@ public class MetadataScanScheduler extends AbstractQueueScheduler {
         }
     }
 
-    private void scanVideo() {
+    private void scanVideo(WorkQueue workQueue) {
         int maxThreads = configService.getIntProperty("yamj3.scheduler.metadatascan.maxThreads", 1);
         if (maxThreads <= 0) {
             if (!messageDisabledVideo) {
                 messageDisabledVideo = true;
                 LOG.info("Metadata scanning is disabled");
             }
-            watchScanVideo.set(false);
+            workQueue.clear();
             videosHasBeenScanned = false;
         } else {
             
@@ -126,10 +138,15 @@ public class MetadataScanScheduler extends AbstractQueueScheduler {
             }
     
             int maxResults = Math.max(1,configService.getIntProperty("yamj3.scheduler.metadatascan.maxResults", 30));
-            List<QueueDTO> queueElements = metadataStorageService.getMetaDataQueueForScanning(maxResults);
+            List<QueueDTO> queueElements = workQueue.poll(maxResults);
+            if (queueElements.isEmpty()) {
+                final long checkId = workQueue.startDatabaseCheck();
+                queueElements = metadataStorageService.getMetaDataQueueForScanning(maxResults);
+                workQueue.finishDatabaseCheck(checkId, queueElements);
+            }
+            
             if (CollectionUtils.isEmpty(queueElements)) {
                 LOG.trace("No metadata found to scan");
-                watchScanVideo.set(false);
                 
                 if (videosHasBeenScanned) {
                     // this indicated that in previous runs videos has been scanned
@@ -157,21 +174,21 @@ public class MetadataScanScheduler extends AbstractQueueScheduler {
         }
         
         // trigger people scan
-        watchScanPeople.set(true);
+        workDispatcher.signal(PEOPLE_SCAN);
         // trigger artwork scan
         artworkScanScheduler.trigger();
         // trigger trailer scan
         trailerScanScheduler.trigger();
     }
 
-    private void scanPeople() {
+    private void scanPeople(WorkQueue workQueue) {
         int maxThreads = configService.getIntProperty("yamj3.scheduler.peoplescan.maxThreads", 1);
         if (maxThreads <= 0) {
             if (!messageDisabledPeople) {
                 messageDisabledPeople = true;
                 LOG.info("People scanning is disabled");
             }
-            watchScanPeople.set(false);
+            workQueue.clear();
         } else {
             
             if (messageDisabledPeople) {
@@ -180,11 +197,15 @@ public class MetadataScanScheduler extends AbstractQueueScheduler {
             }
     
             int maxResults = Math.max(1,configService.getIntProperty("yamj3.scheduler.peoplescan.maxResults", 50));
-            List<QueueDTO> queueElements = metadataStorageService.getPersonQueueForScanning(maxResults);
+            List<QueueDTO> queueElements = workQueue.poll(maxResults);
+            if (queueElements.isEmpty()) {
+                final long checkId = workQueue.startDatabaseCheck();
+                queueElements = metadataStorageService.getPersonQueueForScanning(maxResults);
+                workQueue.finishDatabaseCheck(checkId, queueElements);
+            }
+            
             if (CollectionUtils.isEmpty(queueElements)) {
                 LOG.trace("No people data found to scan");
-                watchScanPeople.set(false);
-                watchScanFilmography.set(true);
             } else {
                 LOG.info("Found {} people objects to process; scan with {} threads", queueElements.size(), maxThreads);
                 threadedProcessing(queueElements, maxThreads, metadataScannerService);
@@ -193,19 +214,19 @@ public class MetadataScanScheduler extends AbstractQueueScheduler {
         }
         
         // trigger filmography scan
-        watchScanFilmography.set(true);
+        workDispatcher.signal(FILMOGRAPHY_SCAN);
         // trigger artwork scan
         artworkScanScheduler.trigger();
     }
 
-    private void scanFilmography() {
+    private void scanFilmography(WorkQueue workQueue) {
         int maxThreads = configService.getIntProperty("yamj3.scheduler.filmographyscan.maxThreads", 1);
         if (maxThreads <= 0) { 
             if (!messageDisabledFilmography) {
                 messageDisabledFilmography = true;
                 LOG.info("Filmography scanning is disabled");
             }
-            watchScanFilmography.set(false);
+            workQueue.clear();
             return;
         }
         
@@ -215,10 +236,15 @@ public class MetadataScanScheduler extends AbstractQueueScheduler {
         }
 
         int maxResults = Math.max(1,configService.getIntProperty("yamj3.scheduler.filmographyscan.maxResults", 50));
-        List<QueueDTO> queueElements = metadataStorageService.getFilmographyQueueForScanning(maxResults);
+        List<QueueDTO> queueElements = workQueue.poll(maxResults);
+        if (queueElements.isEmpty()) {
+            final long checkId = workQueue.startDatabaseCheck();
+            queueElements = metadataStorageService.getFilmographyQueueForScanning(maxResults);
+            workQueue.finishDatabaseCheck(checkId, queueElements);
+        }
+        
         if (CollectionUtils.isEmpty(queueElements)) {
             LOG.trace("No filmography data found to scan");
-            watchScanFilmography.set(false);
             return;
         }
 
@@ -22,9 +22,11 @@
  */
 package org.yamj.core.scheduling;
 
+import static org.yamj.core.scheduling.WorkType.TRAILER_PROCESS;
+
 import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.PostConstruct;
 import org.apache.commons.collections.CollectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,7 +39,7 @@ import org.yamj.core.database.service.TrailerStorageService;
 import org.yamj.core.service.trailer.TrailerProcessorService;
 
 @Component
-public class TrailerProcessScheduler extends AbstractQueueScheduler {
+public class TrailerProcessScheduler extends AbstractQueueScheduler implements Runnable {
 
     private static final Logger LOG = LoggerFactory.getLogger(TrailerProcessScheduler.class);
     private static final ReentrantLock PROCESS_LOCK = new ReentrantLock();
@@ -48,35 +50,42 @@ public class TrailerProcessScheduler extends AbstractQueueScheduler {
     private TrailerStorageService trailerStorageService;
     @Autowired
     private TrailerProcessorService trailerProcessorService;
+    @Autowired
+    private WorkDispatcher workDispatcher;
     
     private boolean messageDisabled = false; // Have we already printed the disabled message
-    private final AtomicBoolean watchProcess = new AtomicBoolean(false);
+
+    @PostConstruct
+    public void init() {
+        workDispatcher.register(TRAILER_PROCESS, this);
+    }
 
     @Scheduled(initialDelay = 5000, fixedDelay = 300000)
     public void trigger() {
         LOG.trace("Trigger trailer processing");
-        watchProcess.set(true);
+        workDispatcher.signal(TRAILER_PROCESS);
     }
 
-    @Scheduled(initialDelay = 6000, fixedDelay = 1000)
+    @Override
     public void run() {
-        if (watchProcess.get() && PROCESS_LOCK.tryLock()) {
+        final WorkQueue workQueue = workDispatcher.wokenUp(TRAILER_PROCESS);
+        while (workQueue.hasWork() && PROCESS_LOCK.tryLock()) {
             try {
-                processTrailer();
+                processTrailer(workQueue);
             } finally {
                 PROCESS_LOCK.unlock();
             }
         }
     }
     
-    private void processTrailer() {
+    private void processTrailer(WorkQueue workQueue) {
         int maxThreads = configService.getIntProperty("yamj3.scheduler.trailerprocess.maxThreads", 0);
         if (maxThreads <= 0) {
             if (!messageDisabled) {
                 messageDisabled = true;
                 LOG.info("Trailer processing is disabled");
             }
-            watchProcess.set(false);
+            workQueue.clear();
             return;
         }
         
@@ -86,10 +95,15 @@ public class TrailerProcessScheduler extends AbstractQueueScheduler {
         }
 
         int maxResults = Math.max(1,configService.getIntProperty("yamj3.scheduler.trailerprocess.maxResults", 50));
-        List<QueueDTO> queueElements = trailerStorageService.getTrailerQueueForProcessing(maxResults);
+        List<QueueDTO> queueElements = workQueue.poll(maxResults);
+        if (queueElements.isEmpty()) {
+            final long checkId = workQueue.startDatabaseCheck();
+            queueElements = trailerStorageService.getTrailerQueueForProcessing(maxResults);
+            workQueue.finishDatabaseCheck(checkId, queueElements);
+        }
+        
         if (CollectionUtils.isEmpty(queueElements)) {
             LOG.trace("No trailer found to process");
-            watchProcess.set(false);
         } else {
             LOG.info("Found {} trailer objects to process; process with {} threads", queueElements.size(), maxThreads);
             this.threadedProcessing(queueElements, maxThreads, trailerProcessorService);
@@ -22,9 +22,11 @@
  */
 package org.yamj.core.scheduling;
 
+import static org.yamj.core.scheduling.WorkType.TRAILER_SCAN;
+
 import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.PostConstruct;
 import org.apache.commons.collections.CollectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,7 +39,7 @@ import org.yamj.core.database.service.TrailerStorageService;
 import org.yamj.core.service.trailer.TrailerScannerService;
 
 @Component
-public class TrailerScanScheduler extends AbstractQueueScheduler {
+public class TrailerScanScheduler extends AbstractQueueScheduler implements Runnable {
 
     private static final Logger LOG = LoggerFactory.getLogger(TrailerScanScheduler.class);
     private static final ReentrantLock PROCESS_LOCK = new ReentrantLock();
@@ -50,35 +52,42 @@ public class TrailerScanScheduler extends AbstractQueueScheduler {
     private TrailerStorageService trailerStorageService;
     @Autowired
     private TrailerProcessScheduler trailerProcessScheduler;
+    @Autowired
+    private WorkDispatcher workDispatcher;
     
     private boolean messageDisabled = false; // Have we already printed the disabled message
-    private final AtomicBoolean watchProcess = new AtomicBoolean(false);
+
+    @PostConstruct
+    public void init() {
+        workDispatcher.register(TRAILER_SCAN, this);
+    }
     
     @Scheduled(initialDelay = 10000, fixedDelay = 300000)
     public void trigger() {
         LOG.trace("Trigger trailer scan");
-        watchProcess.set(true);
+        workDispatcher.signal(TRAILER_SCAN);
     }
 
-    @Scheduled(initialDelay = 20000, fixedDelay = 1000)
+    @Override
     public void run() {
-        if (watchProcess.get() && PROCESS_LOCK.tryLock()) {
+        final WorkQueue workQueue = workDispatcher.wokenUp(TRAILER_SCAN);
+        while (workQueue.hasWork() && PROCESS_LOCK.tryLock()) {
             try {
-                scanTrailer();
+                scanTrailer(workQueue);
             } finally {
                 PROCESS_LOCK.unlock();
             }
         }
     }
     
-    private void scanTrailer() {
+    private void scanTrailer(WorkQueue workQueue) {
         int maxThreads = configService.getIntProperty("yamj3.scheduler.trailerscan.maxThreads", 0);
         if (maxThreads <= 0) {
             if (!messageDisabled) {
                 messageDisabled = true;
                 LOG.info("Trailer scanning is disabled");
             }
-            watchProcess.set(false);
+            workQueue.clear();
         } else {
             if (messageDisabled) {
                 LOG.info("Trailer scanning is enabled");
@@ -87,10 +96,15 @@ public class TrailerScanScheduler extends AbstractQueueScheduler {
     
             // process located or generated artwork
             int maxResults = Math.max(1, configService.getIntProperty("yamj3.scheduler.trailerscan.maxResults", 30));
-            List<QueueDTO> queueElements = trailerStorageService.getTrailerQueueForScanning(maxResults);
+            List<QueueDTO> queueElements = workQueue.poll(maxResults);
+            if (queueElements.isEmpty()) {
+                final long checkId = workQueue.startDatabaseCheck();
+                queueElements = trailerStorageService.getTrailerQueueForScanning(maxResults);
+                workQueue.finishDatabaseCheck(checkId, queueElements);
+            }
+            
             if (CollectionUtils.isEmpty(queueElements)) {
                 LOG.trace("No trailer found to scan");
-                watchProcess.set(false);
             } else {
                 LOG.info("Found {} trailer objects to process; scan with {} threads", queueElements.size(), maxThreads);
                 threadedProcessing(queueElements, maxThreads, trailerScannerService);
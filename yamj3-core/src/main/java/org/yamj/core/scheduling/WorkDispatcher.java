@@ -0,0 +1,155 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.scheduling;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import org.apache.commons.collections.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.yamj.core.database.model.dto.QueueDTO;
+
+/**
+ * Dispatches work to the schedulers.
+ * 
+ * Storage services publish queue elements or signal new work; inside a transaction
+ * this happens after the commit, so that the worker will find the committed data.
+ * The registered worker of a work type is woken up at once instead of polling the
+ * database status queues.
+ */
+@Component
+public class WorkDispatcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WorkDispatcher.class);
+
+    private final Map<WorkType, WorkQueue> workQueues = new EnumMap<>(WorkType.class);
+    private final Map<WorkType, Runnable> workers = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ScheduledExecutorService scheduledExecutorService;
+
+    public WorkDispatcher() {
+        for (WorkType workType : WorkType.values()) {
+            workQueues.put(workType, new WorkQueue());
+        }
+    }
+
+    public void register(WorkType workType, Runnable worker) {
+        LOG.trace("Register worker for {}", workType);
+        workers.put(workType, worker);
+    }
+
+    public WorkQueue getWorkQueue(WorkType workType) {
+        return workQueues.get(workType);
+    }
+
+    /**
+     * Signal that new work may be present in the database status queue.
+     * 
+     * @param workType
+     */
+    public void signal(final WorkType workType) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    doSignal(workType);
+                }
+            });
+        } else {
+            doSignal(workType);
+        }
+    }
+
+    /**
+     * Publish queue elements which are ready to be processed.
+     * 
+     * @param workType
+     * @param queueElements
+     */
+    public void publish(final WorkType workType, Collection<QueueDTO> queueElements) {
+        if (CollectionUtils.isEmpty(queueElements)) {
+            return;
+        }
+
+        final List<QueueDTO> published = new ArrayList<>(queueElements);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    doPublish(workType, published);
+                }
+            });
+        } else {
+            doPublish(workType, published);
+        }
+    }
+
+    /**
+     * Must be called by the worker when it starts to look for work.
+     * 
+     * @param workType
+     * @return the work queue
+     */
+    public WorkQueue wokenUp(WorkType workType) {
+        final WorkQueue workQueue = getWorkQueue(workType);
+        workQueue.wokenUp();
+        return workQueue;
+    }
+
+    private void doSignal(WorkType workType) {
+        LOG.trace("Signal work for {}", workType);
+        final WorkQueue workQueue = getWorkQueue(workType);
+        workQueue.requestDatabaseCheck();
+        wakeup(workType, workQueue);
+    }
+
+    private void doPublish(WorkType workType, List<QueueDTO> queueElements) {
+        LOG.trace("Publish {} queue elements for {}", queueElements.size(), workType);
+        final WorkQueue workQueue = getWorkQueue(workType);
+        workQueue.add(queueElements);
+        wakeup(workType, workQueue);
+    }
+
+    private void wakeup(WorkType workType, WorkQueue workQueue) {
+        final Runnable worker = workers.get(workType);
+        if (worker == null || !workQueue.scheduleWakeup()) {
+            // no worker present or wake up already scheduled
+            return;
+        }
+
+        try {
+            scheduledExecutorService.execute(worker);
+        } catch (RejectedExecutionException ex) {
+            // executor has been shut down; work will be found in database on next start
+            LOG.trace("Failed to wake up worker for {}", workType, ex);
+            workQueue.wokenUp();
+        }
+    }
+}
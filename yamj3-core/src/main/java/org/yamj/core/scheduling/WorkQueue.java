@@ -0,0 +1,113 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.scheduling;
+
+import java.util.*;
+import org.yamj.core.database.model.dto.QueueDTO;
+
+/**
+ * In-memory queue for one type of work.
+ * 
+ * Holds the queue elements which have been published after a commit and the
+ * requests to look into the database status queue. The status queue in the
+ * database stays the durable source of work; this queue just avoids polling it.
+ */
+public final class WorkQueue {
+
+    private final Set<QueueDTO> pending = new LinkedHashSet<>();
+    private long checkRequests = 0;
+    private long checkedRequests = 0;
+    private boolean wakeupScheduled = false;
+
+    public synchronized void add(Collection<QueueDTO> queueElements) {
+        pending.addAll(queueElements);
+    }
+
+    public synchronized void requestDatabaseCheck() {
+        checkRequests++;
+    }
+
+    public synchronized boolean hasWork() {
+        return !pending.isEmpty() || checkRequests != checkedRequests;
+    }
+
+    /**
+     * Get and remove the next published queue elements.
+     * 
+     * @param maxResults
+     * @return the queue elements; never null
+     */
+    public synchronized List<QueueDTO> poll(int maxResults) {
+        final List<QueueDTO> queueElements = new ArrayList<>(Math.min(maxResults, pending.size()));
+        final Iterator<QueueDTO> iter = pending.iterator();
+        while (iter.hasNext() && queueElements.size() < maxResults) {
+            queueElements.add(iter.next());
+            iter.remove();
+        }
+        return queueElements;
+    }
+
+    /**
+     * Mark the start of a database check.
+     * 
+     * @return the check id to use for {@link #finishDatabaseCheck(long, Collection)}
+     */
+    public synchronized long startDatabaseCheck() {
+        return checkRequests;
+    }
+
+    /**
+     * Mark the end of a database check.
+     * 
+     * The requests are just satisfied if the database returned no more work,
+     * so requests arriving during the check will lead to another check.
+     * 
+     * @param checkId the id returned by {@link #startDatabaseCheck()}
+     * @param queueElements the queue elements found in the database
+     */
+    public synchronized void finishDatabaseCheck(long checkId, Collection<QueueDTO> queueElements) {
+        if (queueElements == null || queueElements.isEmpty()) {
+            checkedRequests = checkId;
+        } else {
+            // will be processed right now
+            pending.removeAll(queueElements);
+        }
+    }
+
+    public synchronized void clear() {
+        pending.clear();
+        checkedRequests = checkRequests;
+    }
+
+    synchronized boolean scheduleWakeup() {
+        if (wakeupScheduled) {
+            return false;
+        }
+        wakeupScheduled = true;
+        return true;
+    }
+
+    synchronized void wokenUp() {
+        wakeupScheduled = false;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.service.artwork;
+
+import java.util.concurrent.Semaphore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.yamj.common.tools.PropertyTools;
+
+/**
+ * Memory budget for decoding and scaling artwork.
+ *
+ * Each decode reserves its estimated memory before the image is loaded, so
+ * only as many images are processed concurrently as fit into the budget.
+ * The budget is counted in kilobytes.
+ */
+@Service("artworkMemoryBudget")
+public class ArtworkMemoryBudget {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ArtworkMemoryBudget.class);
+    private static final long KB = 1024L;
+    
+    private final int totalKb;
+    private final Semaphore available;
+
+    public ArtworkMemoryBudget() {
+        long budget = PropertyTools.getLongProperty("yamj3.artwork.memoryBudget", 0) * KB * KB;
+        if (budget <= 0) {
+            // use the half of the heap by default
+            budget = Runtime.getRuntime().maxMemory() / 2;
+        }
+        this.totalKb = (int) Math.max(1, Math.min(Integer.MAX_VALUE, budget / KB));
+        this.available = new Semaphore(totalKb, true);
+        LOG.debug("Memory budget for artwork processing: {} MB", totalKb / KB);
+    }
+
+    /**
+     * Reserve memory from the budget and wait until it's available.
+     *
+     * A reservation larger than the whole budget is reduced to the budget, so
+     * that the image is processed when no other image is processed.
+     *
+     * @param bytes the estimated memory in bytes
+     * @return the reserved kilobytes which must be released afterwards
+     */
+    public int reserve(long bytes) {
+        final int kb = (int) Math.max(1, Math.min(totalKb, (bytes + KB - 1) / KB));
+        if (!available.tryAcquire(kb)) {
+            LOG.debug("Waiting for {} KB of artwork memory budget", kb);
+            available.acquireUninterruptibly(kb);
+        }
+        return kb;
+    }
+
+    /**
+     * Release reserved memory to the budget.
+     *
+     * @param kb the kilobytes returned by reserve
+     */
+    public void release(int kb) {
+        available.release(kb);
+    }
+}
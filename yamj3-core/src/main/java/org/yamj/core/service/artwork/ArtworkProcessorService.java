@@ -31,6 +31,9 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.sanselan.ImageReadException;
@@ -55,6 +58,7 @@ import org.yamj.core.service.file.FileTools;
 import org.yamj.core.service.file.StorageType;
 import org.yamj.core.tools.image.GraphicTools;
 import org.yamj.plugin.api.model.type.ArtworkType;
+import org.yamj.plugin.api.model.type.ImageType;
 
 @Service("artworkProcessorService")
 @DependsOn("artworkInitialization")
@@ -66,6 +70,8 @@ public class ArtworkProcessorService implements IQueueProcessService {
     private ArtworkStorageService artworkStorageService;
     @Autowired
     private FileStorageService fileStorageService;
+    @Autowired
+    private ArtworkMemoryBudget artworkMemoryBudget;
 
     @Override
     public void processQueueElement(QueueDTO queueElement) {
@@ -137,8 +143,7 @@ public class ArtworkProcessorService implements IQueueProcessService {
             }
 
             // set values in located artwork
-            String cacheDirectory = FileTools.createDirHash(cacheFilename);
-            located.setCacheDirectory(StringUtils.removeEnd(cacheDirectory, File.separator + cacheFilename));
+            located.setCacheDirectory(FileTools.createCacheDir(cacheFilename));
             located.setCacheFilename(cacheFilename);
         }
         
@@ -147,10 +152,10 @@ public class ArtworkProcessorService implements IQueueProcessService {
 
         // after that: try preProcessing of images
         List<ArtworkProfile> profiles = artworkStorageService.getPreProcessArtworkProfiles(located);
-        for (ArtworkProfile profile : profiles) {
+        if (!profiles.isEmpty()) {
             try {
-                // generate image for a profiles
-                generateImage(located, profile);
+                // generate images for all profiles from one decoded original
+                generateImages(located, profiles);
             } catch (IOException ex)  {
                 LOG.warn("Original image is not found: {}/{}", located.getCacheDirectory(), located.getCacheFilename());
                 LOG.trace(IMAGE_GENERATION_ERROR, ex);
@@ -159,29 +164,20 @@ public class ArtworkProcessorService implements IQueueProcessService {
                 located.setCacheDirectory(null);
                 located.setCacheFilename(null);
                 located.setStatus(StatusType.UPDATED);
-
-                // no further processing for that located image
-                break;
             } catch (OutOfMemoryError ex) {
                 LOG.error("Failed to load/transform image due to memory constraints: {}", located);
                 LOG.trace("Out of memory", ex);
 
                 // mark located artwork as error
                 located.setStatus(StatusType.ERROR);
-
-                // no further processing for that located image
-                break;
-             } catch (ImageReadException ex) {
+            } catch (ImageReadException ex) {
                 LOG.warn("Original image is invalid: {}", located);
                 LOG.trace("Invalid image error", ex);
 
                 // mark located artwork as invalid
                 located.setStatus(StatusType.INVALID);
-
-                // no further processing for that located image
-                break;
             } catch (Exception ex) {
-                LOG.error("Failed to generate image for {} with profile {}", located, profile.getProfileName());
+                LOG.error("Failed to generate images for {}", located);
                 LOG.warn(IMAGE_GENERATION_ERROR, ex);
             }
         }
@@ -197,7 +193,7 @@ public class ArtworkProcessorService implements IQueueProcessService {
 
         try {
             // generate image
-            createAndStoreImage(generated.getArtworkLocated(), generated.getArtworkProfile(), generated.getCacheFilename());
+            createAndStoreImage(generated.getArtworkLocated(), generated.getArtworkProfile(), generated.getFullCacheFilename());
 
             // mark generated image as done
             generated.setStatus(StatusType.DONE);
@@ -244,8 +240,7 @@ public class ArtworkProcessorService implements IQueueProcessService {
         createAndStoreImage(located, profile, cacheFilename);
         
         try {
-            final String cacheDir = StringUtils.removeEnd(FileTools.createDirHash(cacheFilename), File.separator + cacheFilename);
-            return artworkStorageService.storeArtworkGenerated(located, profile, cacheDir, cacheFilename);
+            return artworkStorageService.storeArtworkGenerated(located, profile, FileTools.createCacheDir(cacheFilename), cacheFilename);
         } catch (Exception ex) {
             // delete generated file storage element also
             LOG.trace("Failed to generate file storage for {}, error: {}", cacheFilename, ex.getMessage());
@@ -255,6 +250,77 @@ public class ArtworkProcessorService implements IQueueProcessService {
         }
     }
 
+    private void generateImages(ArtworkLocated located, List<ArtworkProfile> profiles) throws IOException, ImageReadException { //NOSONAR
+        final StorageType storageType = ArtworkStorageTools.getStorageType(located);
+        final File originalFile = this.fileStorageService.getFile(storageType, located.getFullCacheFilename());
+        final Dimension original = GraphicTools.getDimension(originalFile);
+        
+        // the profile with the largest scale needs the most pixels of the original, so it comes first
+        List<ArtworkProfile> sorted = new ArrayList<>(profiles);
+        if (original.width > 0 && original.height > 0) {
+            Collections.sort(sorted, new Comparator<ArtworkProfile>() {
+                @Override
+                public int compare(ArtworkProfile p1, ArtworkProfile p2) {
+                    return Float.compare(getScale(original, p2), getScale(original, p1));
+                }
+            });
+        }
+        
+        // reserve the memory before decoding; released after all profiles are generated
+        final int reserved = artworkMemoryBudget.reserve(estimateMemory(located, original, sorted.get(0)));
+        List<ArtworkGenerated> generatedList = new ArrayList<>(sorted.size());
+        try {
+            // decode the original only once with the subsampling of the largest profile
+            BufferedImage source = loadImage(located, originalFile, original, sorted.get(0));
+            drawAndStoreImages(located, sorted, source, original, generatedList);
+        } finally {
+            artworkMemoryBudget.release(reserved);
+        }
+
+        try {
+            artworkStorageService.storeArtworkGenerated(located, generatedList);
+        } catch (Exception ex) {
+            // delete generated file storage elements also
+            for (ArtworkGenerated generated : generatedList) {
+                LOG.trace("Failed to generate file storage for {}, error: {}", generated.getCacheFilename(), ex.getMessage());
+                fileStorageService.deleteFile(ArtworkStorageTools.getStorageType(generated.getArtworkProfile()), generated.getCacheFilename());
+            }
+            throw ex;
+        }
+    }
+
+    private void drawAndStoreImages(ArtworkLocated located, List<ArtworkProfile> sorted, BufferedImage decoded, Dimension original, List<ArtworkGenerated> generatedList) {
+        BufferedImage source = decoded;
+        for (ArtworkProfile profile : sorted) {
+            LOG.trace("Generate image for {} with profile {}", located, profile.getProfileName());
+            final String cacheFilename = ArtworkStorageTools.buildCacheFilename(located, profile);
+            try {
+                // reduce the source step by step; smaller profiles reuse the reduced image
+                final Dimension target = getTargetSize(original.width, original.height, profile);
+                source = GraphicTools.reduceToSize(source, 2 * target.width, 2 * target.height);
+                
+                // draw and store the image
+                BufferedImage image = drawImage(source, original, profile);
+                fileStorageService.storeImage(cacheFilename, ArtworkStorageTools.getStorageType(profile), image, profile.getImageType(), profile.getQuality());
+                
+                ArtworkGenerated generated = new ArtworkGenerated();
+                generated.setArtworkLocated(located);
+                generated.setArtworkProfile(profile);
+                generated.setCacheDirectory(FileTools.createCacheDir(cacheFilename));
+                generated.setCacheFilename(cacheFilename);
+                generatedList.add(generated);
+            } catch (Exception ex) {
+                LOG.error("Failed to generate image for {} with profile {}", located, profile.getProfileName());
+                LOG.warn(IMAGE_GENERATION_ERROR, ex);
+            }
+        }
+    }
+
+    private static float getScale(Dimension original, ArtworkProfile profile) {
+        final Dimension target = getTargetSize(original.width, original.height, profile);
+        return Math.max((float) target.width / original.width, (float) target.height / original.height);
+    }
+    
     private static boolean checkArtworkQuality(ArtworkLocated located) {
         if (StringUtils.isNotBlank(located.getUrl())) {
 
@@ -333,48 +399,103 @@ public class ArtworkProcessorService implements IQueueProcessService {
         final StorageType storageType = ArtworkStorageTools.getStorageType(profile);
         
         LOG.trace("Generate image for {} with profile {}", located, profile.getProfileName());
-        BufferedImage imageGraphic = GraphicTools.loadJPEGImage(this.fileStorageService.getFile(storageType, located.getCacheFilename()));
+        final File originalFile = this.fileStorageService.getFile(storageType, located.getFullCacheFilename());
+        final Dimension original = GraphicTools.getDimension(originalFile);
+
+        // reserve the memory before decoding
+        final int reserved = artworkMemoryBudget.reserve(estimateMemory(located, original, profile));
+        try {
+            BufferedImage imageGraphic = loadImage(located, originalFile, original, profile);
+        
+            // draw the image
+            BufferedImage image = drawImage(imageGraphic, original, profile);
+        
+            // store image on stage system
+            fileStorageService.storeImage(cacheFilename, storageType, image, profile.getImageType(), profile.getQuality());
+        } finally {
+            artworkMemoryBudget.release(reserved);
+        }
+    }
+
+    /**
+     * Decode the original image with the subsampling allowed by the profile.
+     *
+     * The dimension is read from the image header, so the decoder can skip pixels
+     * not needed for the profile. If the header has no dimension, the dimension
+     * is set from the decoded image.
+     */
+    private static BufferedImage loadImage(ArtworkLocated located, File originalFile, Dimension original, ArtworkProfile profile) throws IOException, ImageReadException { //NOSONAR
+        final int subsampling;
+        if (original.width > 0 && original.height > 0) {
+            Dimension target = getTargetSize(original.width, original.height, profile);
+            subsampling = GraphicTools.getSubsampling(original.width, original.height, target.width, target.height);
+        } else {
+            subsampling = 1;
+        }
+        BufferedImage imageGraphic = GraphicTools.loadJPEGImage(originalFile, subsampling);
+        if (original.width <= 0 || original.height <= 0) {
+            original.setSize(imageGraphic.getWidth(), imageGraphic.getHeight());
+        }
+        LOG.trace("Decoded image {}x{} with subsampling {}", original.width, original.height, subsampling);
     
         // set dimension of original image if not done before
         if (located.getWidth() <= 0 || located.getHeight() <= 0) {
-            located.setWidth(imageGraphic.getWidth());
-            located.setHeight(imageGraphic.getHeight());
+            located.setWidth(original.width);
+            located.setHeight(original.height);
         }
-    
-        // draw the image
-        BufferedImage image = drawImage(imageGraphic, profile);
-    
-        // store image on stage system
-        fileStorageService.storeImage(cacheFilename, storageType, image, profile.getImageType(), profile.getQuality());
+        return imageGraphic;
+    }
+
+    /**
+     * Estimate the memory in bytes needed to decode and scale the image.
+     *
+     * The decoded image is counted twice for the reader raster and the reduction
+     * steps, the target image once; each pixel needs four bytes.
+     */
+    private static long estimateMemory(ArtworkLocated located, Dimension original, ArtworkProfile profile) {
+        final int width = original.width > 0 ? original.width : located.getWidth();
+        final int height = original.height > 0 ? original.height : located.getHeight();
+        if (width <= 0 || height <= 0) {
+            // unknown dimension, so reserve the whole budget
+            return Long.MAX_VALUE;
+        }
+        
+        final Dimension target = getTargetSize(width, height, profile);
+        final int subsampling = GraphicTools.getSubsampling(width, height, target.width, target.height);
+        final long decoded = (long) ((width + subsampling - 1) / subsampling) * ((height + subsampling - 1) / subsampling);
+        return 4L * (2L * decoded + (long) target.width * target.height);
+    }
+
+    private static Dimension getTargetSize(int origWidth, int origHeight, ArtworkProfile profile) {
+        final float rcqFactor = profile.getRounderCornerQuality();
+        if (ScalingType.NORMALIZE == profile.getScalingType() && origWidth < profile.getWidth() && origHeight < profile.getWidth()) {
+            // normalize image if below profile settings
+            return new Dimension((int) (origHeight * rcqFactor * profile.getRatio()), (int) (origHeight * rcqFactor));
+        }
+        return new Dimension((int) (profile.getWidth() * rcqFactor), (int) (profile.getHeight() * rcqFactor));
     }
     
-    private static BufferedImage drawImage(BufferedImage imageGraphic, ArtworkProfile profile) {
+    private static BufferedImage drawImage(BufferedImage imageGraphic, Dimension original, ArtworkProfile profile) {
         BufferedImage bi = imageGraphic;
 
         // TODO more graphic options
         
-        int origWidth = imageGraphic.getWidth();
-        int origHeight = imageGraphic.getHeight();
-        float ratio = profile.getRatio();
-        float rcqFactor = profile.getRounderCornerQuality();
+        // JPEG images have no alpha channel, so they are scaled directly into RGB images
+        final int imageType = (ImageType.PNG == profile.getImageType()) ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        final Dimension target = getTargetSize(original.width, original.height, profile);
 
         if (ScalingType.NORMALIZE == profile.getScalingType()) {
-            if (origWidth < profile.getWidth() && origHeight < profile.getWidth()) {
-                // normalize image if below profile settings
-                bi = GraphicTools.scaleToSizeNormalized((int) (origHeight * rcqFactor * ratio), (int) (origHeight * rcqFactor), bi);
-            } else {
-                // normalize image
-                bi = GraphicTools.scaleToSizeNormalized((int) (profile.getWidth() * rcqFactor), (int) (profile.getHeight() * rcqFactor), bi);
-            }
+            // normalize image
+            bi = GraphicTools.scaleToSizeNormalized(target.width, target.height, bi, imageType);
         } else if (ScalingType.STRETCH == profile.getScalingType()) {
             // stretch image
-            bi = GraphicTools.scaleToSizeStretch((int) (profile.getWidth() * rcqFactor), (int) (profile.getHeight() * rcqFactor), bi);
-        } else if ((origWidth != profile.getWidth()) || (origHeight != profile.getHeight())) {
+            bi = GraphicTools.scaleToSizeStretch(target.width, target.height, bi, imageType);
+        } else if ((original.width != profile.getWidth()) || (original.height != profile.getHeight())) {
             // scale image to given size
-            bi = GraphicTools.scaleToSize((int) (profile.getWidth() * rcqFactor), (int) (profile.getHeight() * rcqFactor), bi);
+            bi = GraphicTools.scaleToSize(target.width, target.height, bi, imageType);
         }
 
         // return image
         return bi;
     }
-}
\ No newline at end of file
+}
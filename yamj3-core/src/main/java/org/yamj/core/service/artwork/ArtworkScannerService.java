@@ -25,11 +25,17 @@ package org.yamj.core.service.artwork;
 import static org.yamj.core.ServiceConstants.STORAGE_ERROR;
 
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.PreDestroy;
 import org.apache.commons.collections.CollectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.yamj.common.tools.PropertyTools;
 import org.yamj.common.type.StatusType;
 import org.yamj.core.config.ConfigServiceWrapper;
 import org.yamj.core.database.model.*;
@@ -45,6 +51,7 @@ import org.yamj.plugin.api.model.*;
 import org.yamj.plugin.api.model.mock.*;
 import org.yamj.plugin.api.model.type.ArtworkType;
 import org.yamj.plugin.api.model.type.ImageType;
+import org.yamj.plugin.api.tools.AsyncScannerTools;
 
 @Service("artworkScannerService")
 public class ArtworkScannerService implements IQueueProcessService {
@@ -60,6 +67,7 @@ public class ArtworkScannerService implements IQueueProcessService {
     private final HashMap<String, SeriesArtworkScanner> registeredSeriesArtworkScanner = new HashMap<>();
     private final HashMap<String, PersonArtworkScanner> registeredPersonArtworkScanner = new HashMap<>();
     private final HashMap<String, BoxedSetArtworkScanner> registeredBoxedSetArtworkScanner = new HashMap<>();
+    private final ExecutorService scanExecutor = Executors.newFixedThreadPool(Math.max(1, PropertyTools.getIntProperty("yamj3.artwork.scanner.maxThreads", 4)));
     
     @Autowired
     private ArtworkLocatorService artworkLocatorService;
@@ -70,6 +78,11 @@ public class ArtworkScannerService implements IQueueProcessService {
     @Autowired
     private ConfigServiceWrapper configServiceWrapper;
     
+    @PreDestroy
+    public void destroy() {
+        scanExecutor.shutdownNow();
+    }
+
     public void registerArtworkScanner(ArtworkScanner artworkScanner) {
         final String scannerName = artworkScanner.getScannerName().toLowerCase();
         if (artworkScanner instanceof MovieArtworkScanner) {
@@ -210,20 +223,7 @@ public class ArtworkScannerService implements IQueueProcessService {
         } else if (artwork.getVideoData() != null && artwork.getVideoData().isMovie()) {
             // CASE: movie poster
             maxResults = this.configServiceWrapper.getIntProperty("yamj3.artwork.scanner.poster.movie.maxResults", 5);
-            IMovie iMovie = buildMovie(artwork.getVideoData());
-
-            for (String prio : determinePriorities("yamj3.artwork.scanner.poster.movie.priorities", registeredMovieArtworkScanner.keySet())) {
-                MovieArtworkScanner scanner = registeredMovieArtworkScanner.get(prio);
-                if (scanner == null) {
-                    LOG.warn(SCANNER_NOT_REG_MOVIE, prio);
-                } else {
-                    LOG.debug(USE_SCANNER_FOR, scanner.getScannerName(), artwork);
-                    posters = scanner.getPosters(iMovie);
-                    if (CollectionUtils.isNotEmpty(posters)) {
-                        break;
-                    }
-                }
-            }
+            posters = this.scanMovieArtworkOnline(artwork, "yamj3.artwork.scanner.poster.movie.priorities", ArtworkType.POSTER);
         } else if (artwork.getSeason() != null || artwork.getSeries() != null) {
             // CASE: TV show poster scan
             maxResults = this.configServiceWrapper.getIntProperty("yamj3.artwork.scanner.poster.tvshow.maxResults", 5);
@@ -326,20 +326,7 @@ public class ArtworkScannerService implements IQueueProcessService {
         } else if (artwork.getVideoData() != null && artwork.getVideoData().isMovie()) {
             // CASE: movie fanart
             maxResults = this.configServiceWrapper.getIntProperty("yamj3.artwork.scanner.fanart.movie.maxResults", 5);
-            IMovie iMovie = buildMovie(artwork.getVideoData());
-
-            for (String prio : determinePriorities("yamj3.artwork.scanner.fanart.movie.priorities", registeredMovieArtworkScanner.keySet())) {
-                MovieArtworkScanner scanner = registeredMovieArtworkScanner.get(prio);
-                if (scanner == null) {
-                    LOG.warn(SCANNER_NOT_REG_MOVIE, prio);
-                } else {
-                    LOG.debug(USE_SCANNER_FOR, scanner.getScannerName(), artwork);
-                    fanarts = scanner.getFanarts(iMovie);
-                    if (CollectionUtils.isNotEmpty(fanarts)) {
-                        break;
-                    }
-                }
-            }
+            fanarts = this.scanMovieArtworkOnline(artwork, "yamj3.artwork.scanner.fanart.movie.priorities", ArtworkType.FANART);
         } else if (artwork.getSeason() != null || artwork.getSeries() != null) {
             // CASE: TV show fanart
             maxResults = this.configServiceWrapper.getIntProperty("yamj3.artwork.scanner.fanart.tvshow.maxResults", 5);
@@ -621,6 +608,54 @@ public class ArtworkScannerService implements IQueueProcessService {
         createLocatedArtworksOnline(artwork, photos, locatedArtworks);
     }
 
+    private List<ArtworkDTO> scanMovieArtworkOnline(Artwork artwork, String configKey, ArtworkType artworkType) {
+        final boolean concurrent = this.configServiceWrapper.getBooleanProperty("yamj3.artwork.scanner.movie.concurrent", false);
+        
+        // start the scans; asynchronous scanners run on their own, blocking
+        // scanners are executed by the scan pool or just in this thread
+        Map<String, Future<List<ArtworkDTO>>> futures = new LinkedHashMap<>();
+        try {
+            for (String prio : determinePriorities(configKey, registeredMovieArtworkScanner.keySet())) {
+                MovieArtworkScanner scanner = registeredMovieArtworkScanner.get(prio);
+                if (scanner == null) {
+                    LOG.warn(SCANNER_NOT_REG_MOVIE, prio);
+                } else {
+                    LOG.debug(USE_SCANNER_FOR, scanner.getScannerName(), artwork);
+                    final Executor executor = concurrent ? scanExecutor : null;
+                    final IMovie iMovie = buildMovie(artwork.getVideoData());
+                    Future<List<ArtworkDTO>> future;
+                    if (ArtworkType.POSTER == artworkType) {
+                        future = AsyncScannerTools.getPosters(scanner, iMovie, executor);
+                    } else {
+                        future = AsyncScannerTools.getFanarts(scanner, iMovie, executor);
+                    }
+                    
+                    if (!concurrent) {
+                        List<ArtworkDTO> dtos = AsyncScannerTools.getResult(future);
+                        if (CollectionUtils.isNotEmpty(dtos)) {
+                            return dtos;
+                        }
+                    } else {
+                        futures.put(prio, future);
+                    }
+                }
+            }
+    
+            // take the first result in order of priority
+            for (Future<List<ArtworkDTO>> future : futures.values()) {
+                List<ArtworkDTO> dtos = AsyncScannerTools.getResult(future);
+                if (CollectionUtils.isNotEmpty(dtos)) {
+                    return dtos;
+                }
+            }
+            return null;
+        } finally {
+            for (Future<List<ArtworkDTO>> future : futures.values()) {
+                future.cancel(true);
+            }
+        }
+    }
+
     private static void createLocatedArtworksOnline(Artwork artwork, List<ArtworkDTO> dtos, List<ArtworkLocated> locatedArtworks) {
         for (ArtworkDTO dto : dtos) {
             ArtworkLocated located = new ArtworkLocated();
@@ -24,7 +24,6 @@ package org.yamj.core.service.artwork;
 
 import static org.yamj.core.service.artwork.ArtworkStorageTools.SOURCE_UPLOAD;
 
-import java.io.File;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -105,9 +104,8 @@ public class ArtworkUploadService {
         }
         
         // store located artwork
-        String cacheDirectory = FileTools.createDirHash(cacheFilename);
         located.setCacheFilename(cacheFilename);
-        located.setCacheDirectory(StringUtils.removeEnd(cacheDirectory, File.separator + cacheFilename));
+        located.setCacheDirectory(FileTools.createCacheDir(cacheFilename));
         this.artworkStorageService.storeArtworkLocated(located);
         
         return ApiStatus.ok("Cached image as '" + cacheFilename + "'");
@@ -22,8 +22,6 @@
  */
 package org.yamj.core.service.attachment;
 
-import static org.yamj.plugin.api.Constants.LANGUAGE_EN;
-
 import java.io.*;
 import java.util.*;
 import javax.annotation.PostConstruct;
@@ -33,10 +31,10 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.Cache;
 import org.springframework.stereotype.Service;
-import org.yamj.common.tools.PropertyTools;
 import org.yamj.core.config.ConfigServiceWrapper;
 import org.yamj.core.database.model.Artwork;
 import org.yamj.core.database.model.StageFile;
+import org.yamj.core.service.attachment.MatroskaAttachmentReader.AttachedFile;
 import org.yamj.core.service.file.FileTools;
 import org.yamj.core.service.various.StagingService;
 import org.yamj.plugin.api.model.type.ArtworkType;
@@ -50,16 +48,6 @@ public class AttachmentScannerService {
 
     private static final Logger LOG = LoggerFactory.getLogger(AttachmentScannerService.class);
     
-    // mkvToolnix command line, depend on OS
-    private static final File MT_PATH = new File(PropertyTools.getProperty("mkvtoolnix.home", "./mkvToolnix/"));
-    private static final List<String> MT_INFO_EXE = new ArrayList<>();
-    private static final List<String> MT_EXTRACT_EXE = new ArrayList<>();
-    private static final String MT_INFO_FILENAME_WINDOWS = "mkvinfo.exe";
-    private static final String MT_INFO_FILENAME_LINUX = "mkvinfo";
-    private static final String MT_EXTRACT_FILENAME_WINDOWS = "mkvextract.exe";
-    private static final String MT_EXTRACT_FILENAME_LINUX = "mkvextract";
-    // flag to indicate if scanner is activated
-    private boolean isActivated = false;
     // valid MIME types
     private Set<String> validMimeTypesText;
     private Map<String, ImageType> validMimeTypesImage;
@@ -75,66 +63,18 @@ public class AttachmentScannerService {
     public void init() {
         LOG.debug("Initialize attachment scanner service");
 
-        boolean isWindows = System.getProperty("os.name").contains("Windows");
-        LOG.debug("MKV Toolnix Path : {}", MT_PATH);
-
-        File mkvInfoFile;
-        File mkvExtractFile;
-        if (isWindows) {
-            mkvInfoFile = new File(MT_PATH.getAbsolutePath() + File.separator + MT_INFO_FILENAME_WINDOWS);
-            mkvExtractFile = new File(MT_PATH.getAbsolutePath() + File.separator + MT_EXTRACT_FILENAME_WINDOWS);
-        } else {
-            mkvInfoFile = new File(MT_PATH.getAbsolutePath() + File.separator + MT_INFO_FILENAME_LINUX);
-            mkvExtractFile = new File(MT_PATH.getAbsolutePath() + File.separator + MT_EXTRACT_FILENAME_LINUX);
-        }
-        
-        if (!mkvInfoFile.canExecute()) {
-            LOG.info( "Couldn't find MKV toolnix executable tool 'mkvinfo'");
-            isActivated = false;
-        } else if (!mkvExtractFile.canExecute()) {
-            LOG.info( "Couldn't find MKV toolnix executable tool 'mkvextract'");
-            isActivated = false;
-        } else {
-            isActivated = true;
-            
-            // activate tools
-            if (isWindows) {
-                MT_INFO_EXE.clear();
-                MT_INFO_EXE.add("cmd.exe");
-                MT_INFO_EXE.add("/E:1900");
-                MT_INFO_EXE.add("/C");
-                MT_INFO_EXE.add(mkvInfoFile.getName());
-                MT_INFO_EXE.add("--ui-language");
-                MT_INFO_EXE.add(LANGUAGE_EN);
-                
-                MT_EXTRACT_EXE.clear();
-                MT_EXTRACT_EXE.add("cmd.exe");
-                MT_EXTRACT_EXE.add("/E:1900");
-                MT_EXTRACT_EXE.add("/C");
-                MT_EXTRACT_EXE.add(mkvExtractFile.getName());
-            } else {
-                MT_INFO_EXE.clear();
-                MT_INFO_EXE.add("./" + mkvInfoFile.getName());
-                MT_INFO_EXE.add("--ui-language");
-                MT_INFO_EXE.add("en_US");
-    
-                MT_EXTRACT_EXE.clear();
-                MT_EXTRACT_EXE.add("./" + mkvExtractFile.getName());
-            }
-            
-            // add valid mime types (text)
-            validMimeTypesText = new HashSet<>(3);
-            validMimeTypesText.add("text/xml");
-            validMimeTypesText.add("application/xml");
-            validMimeTypesText.add("text/html");
+        // add valid mime types (text)
+        validMimeTypesText = new HashSet<>(3);
+        validMimeTypesText.add("text/xml");
+        validMimeTypesText.add("application/xml");
+        validMimeTypesText.add("text/html");
 
-            // add valid mime types (image)
-            validMimeTypesImage = new HashMap<>(4);
-            validMimeTypesImage.put("image/jpeg", ImageType.JPG);
-            validMimeTypesImage.put("image/png", ImageType.PNG);
-            validMimeTypesImage.put("image/gif", ImageType.GIF);
-            validMimeTypesImage.put("image/x-ms-bmp", ImageType.BMP);
-        }
+        // add valid mime types (image)
+        validMimeTypesImage = new HashMap<>(4);
+        validMimeTypesImage.put("image/jpeg", ImageType.JPG);
+        validMimeTypesImage.put("image/png", ImageType.PNG);
+        validMimeTypesImage.put("image/gif", ImageType.GIF);
+        validMimeTypesImage.put("image/x-ms-bmp", ImageType.BMP);
     }
 
     /**
@@ -157,10 +97,6 @@ public class AttachmentScannerService {
      * @param movie
      */
     public List<Attachment> scan(Artwork artwork) {
-        if (!isActivated) {
-            return Collections.emptyList();
-        }
-
         if (artwork.getPerson() != null || artwork.getBoxedSet() != null) {
             // no attachments for persons or boxed sets
             return Collections.emptyList();
@@ -198,10 +134,11 @@ public class AttachmentScannerService {
     @SuppressWarnings("unchecked")
 	private List<Attachment> scanAttachments(StageFile stageFile) {
         if (!isFileScanable(stageFile)) {
-            Collections.emptyList();
+            return Collections.emptyList();
         }
         
-        final String cacheKey = Long.toString(stageFile.getId());
+        // the modification date invalidates the attachments of a replaced file
+        final String cacheKey = stageFile.getId() + "#" + (stageFile.getFileDate() == null ? 0 : stageFile.getFileDate().getTime());
         List<Attachment> attachments = attachmentCache.get(cacheKey, List.class);
         if (attachments != null) {
             // attachments stored so just return them
@@ -212,43 +149,17 @@ public class AttachmentScannerService {
         attachments = new ArrayList<>();
 
         LOG.debug("Scanning file for attachments {}",  stageFile.getFileName());
-        int attachmentId = 0;
         try {
-            // create the command line
-            List<String> commandMkvInfo = new ArrayList<>(MT_INFO_EXE);
-            commandMkvInfo.add(stageFile.getFullPath());
-
-            ProcessBuilder pb = new ProcessBuilder(commandMkvInfo);
-            pb.directory(MT_PATH);
-
-            Process p = pb.start();
-            BufferedReader input = new BufferedReader(new InputStreamReader(p.getInputStream()));
-
-            String line = FileTools.readLine(input);
-            while (line != null) {
-                if (line.contains("+ Attached")) {
-                    // increase the attachment id
-                    attachmentId++;
-                    // next line contains file name
-                    String fileNameLine = FileTools.readLine(input);
-                    // next line contains MIME type
-                    String mimeTypeLine = FileTools.readLine(input);
-
-                    Attachment attachment = createAttachment(attachmentId, fileNameLine, mimeTypeLine);
-                    if (attachment != null) {
-                        attachment.setStageFile(stageFile);
-                        attachments.add(attachment);
-                    }
+            for (AttachedFile attachedFile : MatroskaAttachmentReader.readAttachments(new File(stageFile.getFullPath()))) {
+                Attachment attachment = createAttachment(attachedFile.getAttachmentId(), attachedFile.getFileName(), attachedFile.getMimeType());
+                if (attachment != null) {
+                    attachment.setStageFile(stageFile);
+                    attachments.add(attachment);
                 }
-
-                line = FileTools.readLine(input);
             }
-
-            if (p.waitFor() != 0) {
-                LOG.error("Error during attachment retrieval - ErrorCode={}",  p.exitValue());
-            }
-        } catch (IOException | InterruptedException ex) {
-            LOG.error("Attachment scanner error", ex);
+        } catch (IOException | RuntimeException ex) {
+            // a malformed file must not break the scan of other files
+            LOG.error("Attachment scanner error for stage file {}", stageFile.getFullPath(), ex);
         }
         
         // put into cache
@@ -260,25 +171,16 @@ public class AttachmentScannerService {
      * Creates an attachment.
      *
      * @param id
-     * @param filename
-     * @param mimetype
+     * @param fileName
+     * @param mimeType
      * @return Attachment or null
      */
-    private Attachment createAttachment(int id, String filename, String mimetype) {
-        String fixedFileName = null;
-        if (filename.contains("File name:")) {
-            fixedFileName = filename.substring(filename.indexOf("File name:") + 10).trim();
-        }
-        String fixedMimeType = null;
-        if (mimetype.contains("Mime type:")) {
-            fixedMimeType = mimetype.substring(mimetype.indexOf("Mime type:") + 10).trim();
-        }
-
-        AttachmentContent content = determineContent(fixedFileName, fixedMimeType);
+    private Attachment createAttachment(int id, String fileName, String mimeType) {
+        AttachmentContent content = determineContent(fileName, mimeType);
 
         Attachment attachment = null;
         if (content == null) {
-            LOG.debug("Failed to dertermine attachment type for '{}' ({})", fixedFileName,  fixedMimeType);
+            LOG.debug("Failed to dertermine attachment type for '{}' ({})", fileName,  mimeType);
         } else {
             attachment = new Attachment();
             attachment.setType(AttachmentType.MATROSKA); // one and only type at the moment
@@ -370,43 +272,29 @@ public class AttachmentScannerService {
         return false;
     }
     
-    public boolean extractArtwort(File dst, StageFile stageFile, int attachmentId) {
+    /**
+     * Copies the content of an attachment to an output stream.
+     *
+     * @param stageFile the file containing the attachment
+     * @param attachmentId the ID of the attachment
+     * @param out the output stream
+     * @return true, if the attachment has been copied, else false
+     */
+    public boolean extractAttachment(StageFile stageFile, int attachmentId, OutputStream out) {
         if (!FileTools.isFileReadable(stageFile)) {
             return false;
         }
 
         LOG.trace("Extract attachement {} from stage file {}",  attachmentId, stageFile.getFullPath());
         
-        boolean stored = true;
         try {
-            // Create the command line
-            List<String> commandMedia = new ArrayList<>(MT_EXTRACT_EXE);
-            commandMedia.add("attachments");
-            commandMedia.add(stageFile.getFullPath());
-            commandMedia.add(attachmentId + ":" + dst.getAbsolutePath());
-
-            ProcessBuilder pb = new ProcessBuilder(commandMedia);
-            pb.directory(MT_PATH);
-            Process p = pb.start();
-
-            if (p.waitFor() != 0) {
-                LOG.error("Error during extraction - ErrorCode={}",  p.exitValue());
-                stored = false;
-            }
-        } catch (IOException | InterruptedException ex) {
-            LOG.error("Attachment extraction error", ex);
-            stored = false;
-        }
-
-        if (!stored) {
-            // delete destination file in error case
-            try {
-                dst.delete();
-            } catch (Exception e) { //NOSONAR
-                // ignore any error
+            if (MatroskaAttachmentReader.extractAttachment(new File(stageFile.getFullPath()), attachmentId, out)) {
+                return true;
             }
+            LOG.warn("Attachment {} not found in stage file {}", attachmentId, stageFile.getFullPath());
+        } catch (IOException | RuntimeException ex) {
+            LOG.error("Attachment extraction error for stage file {}", stageFile.getFullPath(), ex);
         }
-        
-        return stored;
+        return false;
     }
 }
@@ -0,0 +1,243 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.service.attachment;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.yamj.core.service.mediainfo.ProbeInput;
+
+/**
+ * Reads the attachments of a MATROSKA file.
+ *
+ * The attachments element is located through the seek head, so the clusters
+ * of the file are never read. The attachment IDs are numbered in the order of
+ * the attached files, the same way mkvextract numbers them.
+ */
+final class MatroskaAttachmentReader {
+
+    private static final long ID_EBML = 0x1A45DFA3L;
+    private static final long ID_SEGMENT = 0x18538067L;
+    private static final long ID_SEEK_HEAD = 0x114D9B74L;
+    private static final long ID_SEEK = 0x4DBBL;
+    private static final long ID_SEEK_ID = 0x53ABL;
+    private static final long ID_SEEK_POSITION = 0x53ACL;
+    private static final long ID_CLUSTER = 0x1F43B675L;
+    private static final long ID_ATTACHMENTS = 0x1941A469L;
+    private static final long ID_ATTACHED_FILE = 0x61A7L;
+    private static final long ID_FILE_NAME = 0x466EL;
+    private static final long ID_FILE_MIME_TYPE = 0x4660L;
+    private static final long ID_FILE_DATA = 0x465CL;
+
+    private final ProbeInput input;
+    private long segmentStart = -1;
+    private long attachmentsPosition = -1;
+    private long nextSeekHeadPosition = -1;
+
+    private MatroskaAttachmentReader(ProbeInput input) {
+        this.input = input;
+    }
+
+    /**
+     * Read the attachments of a MATROSKA file.
+     *
+     * @param file the MATROSKA file
+     * @return the attached files, may be empty
+     * @throws IOException
+     */
+    static List<AttachedFile> readAttachments(File file) throws IOException {
+        try (ProbeInput input = new ProbeInput(file)) {
+            return new MatroskaAttachmentReader(input).read();
+        }
+    }
+
+    /**
+     * Copy the data of an attachment to an output stream.
+     *
+     * @param file the MATROSKA file
+     * @param attachmentId the ID of the attachment
+     * @param out the output stream
+     * @return true if the attachment has been found and copied, else false
+     * @throws IOException
+     */
+    static boolean extractAttachment(File file, int attachmentId, OutputStream out) throws IOException {
+        try (ProbeInput input = new ProbeInput(file)) {
+            for (AttachedFile attachedFile : new MatroskaAttachmentReader(input).read()) {
+                if (attachedFile.getAttachmentId() == attachmentId && attachedFile.getDataPosition() >= 0) {
+                    input.seek(attachedFile.getDataPosition());
+                    input.transferTo(attachedFile.getDataSize(), out);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private List<AttachedFile> read() throws IOException {
+        if (input.readElementId() != ID_EBML) {
+            return new ArrayList<>(0);
+        }
+        input.skip(input.readElementSize(input.size()));
+        if (input.readElementId() != ID_SEGMENT) {
+            return new ArrayList<>(0);
+        }
+        final long segmentSize = input.readVint();
+        segmentStart = input.position();
+        final long segmentEnd = (segmentSize < 0) ? input.size() : Math.min(input.size(), segmentStart + segmentSize);
+
+        // walk through the top level elements in front of the first cluster
+        while (input.position() < segmentEnd && input.hasRemaining(2)) {
+            final long id = input.readElementId();
+            final long size = input.readVint();
+            if (id == ID_CLUSTER || size < 0) {
+                break;
+            }
+            final long end = input.position() + size;
+            if (id == ID_ATTACHMENTS) {
+                return readAttachedFiles(end);
+            } else if (id == ID_SEEK_HEAD) {
+                readSeekHead(end);
+            }
+            input.seek(end);
+        }
+
+        // a second seek head may be stored behind the clusters
+        if (attachmentsPosition < 0 && nextSeekHeadPosition >= 0) {
+            input.seek(nextSeekHeadPosition);
+            nextSeekHeadPosition = -1;
+            if (input.readElementId() == ID_SEEK_HEAD) {
+                final long size = input.readElementSize(input.size());
+                readSeekHead(input.position() + size);
+            }
+        }
+
+        if (attachmentsPosition >= 0) {
+            input.seek(attachmentsPosition);
+            if (input.readElementId() == ID_ATTACHMENTS) {
+                final long size = input.readElementSize(input.size());
+                return readAttachedFiles(input.position() + size);
+            }
+        }
+        return new ArrayList<>(0);
+    }
+
+    private void readSeekHead(long end) throws IOException {
+        while (input.position() < end) {
+            final long id = input.readElementId();
+            final long size = input.readElementSize(end);
+            final long seekEnd = input.position() + size;
+            if (id == ID_SEEK) {
+                long seekId = -1;
+                long seekPosition = -1;
+                while (input.position() < seekEnd) {
+                    final long childId = input.readElementId();
+                    final long childSize = input.readElementSize(seekEnd);
+                    if (childId == ID_SEEK_ID) {
+                        seekId = input.readElementUnsigned(childSize);
+                    } else if (childId == ID_SEEK_POSITION) {
+                        seekPosition = input.readElementUnsigned(childSize);
+                    } else {
+                        input.skip(childSize);
+                    }
+                }
+                if (seekPosition < 0 || seekPosition >= input.size() - segmentStart) {
+                    // position outside of the file
+                } else if (seekId == ID_ATTACHMENTS) {
+                    attachmentsPosition = segmentStart + seekPosition;
+                } else if (seekId == ID_SEEK_HEAD) {
+                    nextSeekHeadPosition = segmentStart + seekPosition;
+                }
+            }
+            input.seek(seekEnd);
+        }
+    }
+
+    private List<AttachedFile> readAttachedFiles(long end) throws IOException {
+        List<AttachedFile> attachedFiles = new ArrayList<>();
+        while (input.position() < end) {
+            final long id = input.readElementId();
+            final long size = input.readElementSize(end);
+            final long fileEnd = input.position() + size;
+            if (id == ID_ATTACHED_FILE) {
+                AttachedFile attachedFile = new AttachedFile(attachedFiles.size() + 1);
+                while (input.position() < fileEnd) {
+                    final long childId = input.readElementId();
+                    final long childSize = input.readElementSize(fileEnd);
+                    if (childId == ID_FILE_NAME) {
+                        attachedFile.fileName = input.readElementString(childSize, StandardCharsets.UTF_8);
+                    } else if (childId == ID_FILE_MIME_TYPE) {
+                        attachedFile.mimeType = input.readElementString(childSize, StandardCharsets.US_ASCII);
+                    } else if (childId == ID_FILE_DATA) {
+                        attachedFile.dataPosition = input.position();
+                        attachedFile.dataSize = childSize;
+                        input.skip(childSize);
+                    } else {
+                        input.skip(childSize);
+                    }
+                }
+                attachedFiles.add(attachedFile);
+            }
+            input.seek(fileEnd);
+        }
+        return attachedFiles;
+    }
+
+    /**
+     * File attached to a MATROSKA file.
+     */
+    static final class AttachedFile {
+
+        private final int attachmentId;
+        private String fileName;
+        private String mimeType;
+        private long dataPosition = -1;
+        private long dataSize = -1;
+
+        private AttachedFile(int attachmentId) {
+            this.attachmentId = attachmentId;
+        }
+
+        int getAttachmentId() {
+            return attachmentId;
+        }
+
+        String getFileName() {
+            return fileName;
+        }
+
+        String getMimeType() {
+            return mimeType;
+        }
+
+        long getDataPosition() {
+            return dataPosition;
+        }
+
+        long getDataSize() {
+            return dataSize;
+        }
+    }
+}
@@ -27,6 +27,8 @@ import java.io.*;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import javax.annotation.PostConstruct;
@@ -164,9 +166,21 @@ public class FileStorageService {
         
         LOG.debug("Store file {}; attachment {} in source file: {}", filename, attachmentId, stageFile.getFullPath());
 
-        // get destination file
+        // stream the attachment into the destination file
         File dst = getFile(type, filename);
-        return attachmentScannerService.extractArtwort(dst, stageFile, attachmentId);
+        boolean stored;
+        try (OutputStream outputStream = FileUtils.openOutputStream(dst)) {
+            stored = attachmentScannerService.extractAttachment(stageFile, attachmentId, outputStream);
+        } catch (IOException ex) {
+            LOG.error("Failed to store attachment {}: {}", filename, ex.getMessage());
+            stored = false;
+        }
+
+        if (!stored) {
+            // delete destination file in error case
+            FileUtils.deleteQuietly(dst);
+        }
+        return stored;
     }
 
     public boolean store(StorageType type, String filename, File sourceFile) {
@@ -190,8 +204,14 @@ public class FileStorageService {
                 ImageIO.write(bi, "png", outputFile);
             } else {
                 float jpegQuality = (float) quality / 100;
-                BufferedImage bufImage = new BufferedImage(bi.getWidth(), bi.getHeight(), BufferedImage.TYPE_INT_RGB);
-                bufImage.createGraphics().drawImage(bi, 0, 0, null, null);
+                BufferedImage bufImage;
+                if (bi.getColorModel().hasAlpha()) {
+                    // JPEG has no alpha channel
+                    bufImage = new BufferedImage(bi.getWidth(), bi.getHeight(), BufferedImage.TYPE_INT_RGB);
+                    bufImage.createGraphics().drawImage(bi, 0, 0, null, null);
+                } else {
+                    bufImage = bi;
+                }
 
                 writer = ImageIO.getImageWritersByFormatName("jpeg").next();
                 ImageWriteParam iwp = writer.getDefaultWriteParam();
@@ -357,6 +377,21 @@ public class FileStorageService {
         return hashFilename;
     }
 
+    /**
+     * List the names of the files in a cache directory.
+     *
+     * @param type
+     * @param cacheDir
+     * @return the file names; empty if the directory doesn't exist
+     */
+    public Set<String> listFiles(StorageType type, String cacheDir) {
+        final String[] names = new File(getStorageDir(type, cacheDir)).list();
+        if (names == null) {
+            return Collections.emptySet();
+        }
+        return new HashSet<>(Arrays.asList(names));
+    }
+
     public boolean existsFile(StorageType type, String cacheDir, String cacheFile) {
         try {
             final String filename = FilenameUtils.concat(cacheDir, cacheFile);
@@ -375,6 +410,44 @@ public class FileStorageService {
         return false;
     }
     
+    /**
+     * Move a cache file into the directory of the current storage layout.
+     *
+     * @param type
+     * @param cacheDir the current cache directory
+     * @param cacheFile the cache file name
+     * @return the new cache directory or null if the file has not been moved
+     */
+    public String migrateFile(StorageType type, String cacheDir, String cacheFile) {
+        if (StringUtils.isBlank(cacheFile)) {
+            return null;
+        }
+        final String newCacheDir = FileTools.createCacheDir(cacheFile);
+        if (newCacheDir.equals(cacheDir)) {
+            // already in current layout
+            return null;
+        }
+        
+        final File src = new File(getStorageDir(type, FilenameUtils.concat(cacheDir, cacheFile)));
+        final File dst = new File(getStorageDir(type, FilenameUtils.concat(newCacheDir, cacheFile)));
+        try {
+            if (!src.exists()) {
+                // may be moved before without storing the new directory
+                return dst.exists() ? newCacheDir : null;
+            }
+            if (dst.exists()) {
+                FileUtils.deleteQuietly(src);
+            } else {
+                FileUtils.moveFile(src, dst);
+            }
+            LOG.trace("Moved {} from {} to {}", cacheFile, cacheDir, newCacheDir);
+            return newCacheDir;
+        } catch (IOException ex) {
+            LOG.warn("Failed to move {} to {}: {}", src, dst, ex.getMessage());
+            return null;
+        }
+    }
+    
     public static void deleteStorageFiles(Set<String> filesToDelete) {
         if (filesToDelete.isEmpty()) {
             LOG.trace("No files to delete in storage");
@@ -32,11 +32,13 @@ import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.yamj.common.tools.PropertyTools;
 import org.yamj.core.database.model.StageDirectory;
 import org.yamj.core.database.model.StageFile;
 
@@ -44,6 +46,7 @@ public final class FileTools {
 
     private static final Logger LOG = LoggerFactory.getLogger(FileTools.class);
     private static final Lock MKDIRS_LOCK = new ReentrantLock();
+    private static final boolean HASHED_LAYOUT = "hashed".equalsIgnoreCase(PropertyTools.getProperty("yamj3.file.storage.layout", "name"));
 
     private FileTools() {
         throw new UnsupportedOperationException("Utility class cannot be instantiated");
@@ -196,26 +199,58 @@ public final class FileTools {
     /**
      * Create a directory hash from the filename
      *
+     * The layout of the storage is used; see createDirHash(String, boolean).
+     *
      * @param filename
      * @return
      */
     public static String createDirHash(final String filename) {
+        return createDirHash(filename, HASHED_LAYOUT);
+    }
+
+    /**
+     * Create a directory hash from the filename
+     *
+     * The name layout uses the first two letters of the filename, so x/xy/filename.
+     * The hashed layout uses two levels of the MD5 hash of the filename, so
+     * ab/cd/filename, which spreads the files evenly over 65536 directories.
+     *
+     * @param filename
+     * @param hashed true to use the hashed layout
+     * @return
+     */
+    public static String createDirHash(final String filename, boolean hashed) {
         // Skip if the filename is invalid OR has already been hashed
         if (StringUtils.isBlank(filename) || filename.contains(File.separator)) {
             return filename;
         }
 
-        // Remove all the non-word characters from the filename, replacing with an underscore
-        String cleanFilename = filename.replaceAll("[^\\p{L}\\p{N}]", "_").toLowerCase().trim();
-
         StringBuilder dirHash = new StringBuilder();
-        dirHash.append(cleanFilename.substring(0, 1)).append(File.separator);
-        dirHash.append(cleanFilename.substring(0, cleanFilename.length() > 1 ? 2 : 1)).append(File.separator);
+        if (hashed) {
+            final String hash = DigestUtils.md5Hex(filename);
+            dirHash.append(hash.substring(0, 2)).append(File.separator);
+            dirHash.append(hash.substring(2, 4)).append(File.separator);
+        } else {
+            // Remove all the non-word characters from the filename, replacing with an underscore
+            String cleanFilename = filename.replaceAll("[^\\p{L}\\p{N}]", "_").toLowerCase().trim();
+            dirHash.append(cleanFilename.substring(0, 1)).append(File.separator);
+            dirHash.append(cleanFilename.substring(0, cleanFilename.length() > 1 ? 2 : 1)).append(File.separator);
+        }
         dirHash.append(filename);
 
         return dirHash.toString();
     }
 
+    /**
+     * Create the cache directory of the filename in the layout of the storage
+     *
+     * @param filename
+     * @return the directory without the filename
+     */
+    public static String createCacheDir(final String filename) {
+        return StringUtils.removeEnd(createDirHash(filename), File.separator + filename);
+    }
+
     /**
      * Create a directory has from the filename of a file
      *
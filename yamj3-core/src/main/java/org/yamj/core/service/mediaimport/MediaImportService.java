@@ -108,8 +108,8 @@ public class MediaImportService {
     private String photoFolderName;
     
     @Transactional(readOnly = true)
-    public Long getNextStageFileId(final FileType... fileTypes) {
-        return this.stagingDao.getNextStageFileId(fileTypes);
+    public Map<Long, List<Long>> getNextStageFileIds(final int maxResults, final FileType... fileTypes) {
+        return this.stagingDao.getNextStageFileIds(maxResults, fileTypes);
     }
 
     @Transactional
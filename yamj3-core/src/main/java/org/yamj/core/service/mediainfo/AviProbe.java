@@ -0,0 +1,157 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.service.mediainfo;
+
+import static org.yamj.core.service.mediainfo.ProbeResult.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads the header list of an AVI file.
+ */
+final class AviProbe {
+
+    private final ProbeInput input;
+    private final ProbeResult result;
+    private long microSecPerFrame;
+    private long totalFrames;
+    private String streamType;
+    private double streamRate;
+
+    private AviProbe(ProbeInput input, ProbeResult result) {
+        this.input = input;
+        this.result = result;
+    }
+
+    static void probe(ProbeInput input, ProbeResult result) throws IOException {
+        new AviProbe(input, result).parse();
+    }
+
+    private void parse() throws IOException {
+        input.seek(0);
+        if (!"RIFF".equals(readFourCC())) {
+            return;
+        }
+        final long riffEnd = Math.min(input.size(), 8 + input.readUnsignedLE(4));
+        if (!"AVI ".equals(readFourCC())) {
+            return;
+        }
+        result.getGeneral().put(FORMAT, "AVI");
+
+        while (input.position() + 12 <= riffEnd) {
+            final long position = input.position();
+            final String id = readFourCC();
+            final long size = input.readUnsignedLE(4);
+            if ("LIST".equals(id) && "hdrl".equals(readFourCC())) {
+                parseList(position + 8 + size);
+                break;
+            }
+            if ("LIST".equals(id) || "idx1".equals(id)) {
+                // movie data list reached before the header list
+                return;
+            }
+            input.seek(position + 8 + size + (size & 1));
+        }
+
+        if (microSecPerFrame > 0 && totalFrames > 0) {
+            result.setDuration(totalFrames * microSecPerFrame / 1000d, input.size());
+        }
+    }
+
+    private void parseList(long end) throws IOException {
+        while (input.position() + 8 <= end) {
+            final long position = input.position();
+            final String id = readFourCC();
+            final long size = input.readUnsignedLE(4);
+            final long next = position + 8 + size + (size & 1);
+
+            if ("LIST".equals(id)) {
+                final String listType = readFourCC();
+                if ("strl".equals(listType)) {
+                    streamType = null;
+                    streamRate = 0;
+                }
+                if ("strl".equals(listType) || "odml".equals(listType)) {
+                    parseList(position + 8 + size);
+                }
+            } else if ("avih".equals(id)) {
+                microSecPerFrame = input.readUnsignedLE(4);
+                input.skip(12);
+                if (totalFrames == 0) {
+                    totalFrames = input.readUnsignedLE(4);
+                }
+            } else if ("dmlh".equals(id)) {
+                // the extended header counts the frames of all RIFF lists
+                long frames = input.readUnsignedLE(4);
+                if (frames > 0) {
+                    totalFrames = frames;
+                }
+            } else if ("strh".equals(id)) {
+                streamType = readFourCC();
+                input.skip(16);
+                final long scale = input.readUnsignedLE(4);
+                final long rate = input.readUnsignedLE(4);
+                if (scale > 0) {
+                    streamRate = (double) rate / scale;
+                }
+            } else if ("strf".equals(id)) {
+                parseStreamFormat();
+            }
+            input.seek(next);
+        }
+    }
+
+    private void parseStreamFormat() throws IOException {
+        if ("vids".equals(streamType)) {
+            Map<String, String> infos = result.addVideo();
+            input.skip(4);
+            final long width = input.readUnsignedLE(4);
+            final long height = Math.abs((int) input.readUnsignedLE(4));
+            input.skip(4);
+            final String compression = readFourCC().trim();
+            put(infos, CODEC_ID, compression);
+            put(infos, FORMAT, ProbeCodecs.videoFourCC(compression));
+            put(infos, WIDTH, width);
+            put(infos, HEIGHT, height);
+            putAspectRatio(infos, width, height);
+            putDecimal(infos, FRAME_RATE, streamRate);
+        } else if ("auds".equals(streamType)) {
+            Map<String, String> infos = result.addAudio();
+            final int formatTag = (int) input.readUnsignedLE(2);
+            final long channels = input.readUnsignedLE(2);
+            input.skip(4);
+            final long avgBytesPerSec = input.readUnsignedLE(4);
+            put(infos, CODEC_ID, Integer.toHexString(formatTag).toUpperCase(Locale.US));
+            put(infos, FORMAT, ProbeCodecs.audioFormatTag(formatTag));
+            put(infos, CHANNELS, channels);
+            put(infos, BIT_RATE, avgBytesPerSec * 8);
+        }
+    }
+
+    private String readFourCC() throws IOException {
+        return input.readString(4, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.service.mediainfo;
+
+/**
+ * Reader for bit fields of codec headers.
+ */
+final class BitReader {
+
+    private final byte[] data;
+    private int bitPosition;
+
+    BitReader(byte[] data, int offset) {
+        this.data = data;
+        this.bitPosition = offset * 8;
+    }
+
+    boolean hasBits(int bits) {
+        return bitPosition + bits <= data.length * 8;
+    }
+
+    void skipBits(int bits) {
+        bitPosition += bits;
+    }
+
+    int readBit() {
+        if (!hasBits(1)) {
+            throw new IllegalStateException("No more bits available");
+        }
+        int value = (data[bitPosition >> 3] >> (7 - (bitPosition & 7))) & 1;
+        bitPosition++;
+        return value;
+    }
+
+    boolean readFlag() {
+        return readBit() == 1;
+    }
+
+    long readBits(int bits) {
+        long value = 0;
+        for (int i = 0; i < bits; i++) {
+            value = (value << 1) | readBit();
+        }
+        return value;
+    }
+
+    /**
+     * Read an unsigned Exp-Golomb code.
+     */
+    int readUE() {
+        int leadingZeros = 0;
+        while (readBit() == 0) {
+            leadingZeros++;
+            if (leadingZeros > 31) {
+                throw new IllegalStateException("Invalid Exp-Golomb code");
+            }
+        }
+        return (int) ((1L << leadingZeros) - 1 + readBits(leadingZeros));
+    }
+
+    /**
+     * Read a signed Exp-Golomb code.
+     */
+    int readSE() {
+        int value = readUE();
+        return (value & 1) == 1 ? (value + 1) / 2 : -(value / 2);
+    }
+
+    /**
+     * Remove the emulation prevention bytes of a NAL unit.
+     *
+     * @param nal the NAL unit
+     * @param offset the start of the NAL unit
+     * @param length the length of the NAL unit
+     * @return the raw byte sequence payload
+     */
+    static byte[] unescapeNal(byte[] nal, int offset, int length) {
+        byte[] rbsp = new byte[length];
+        int size = 0;
+        int zeros = 0;
+        for (int i = offset; i < offset + length; i++) {
+            int value = nal[i] & 0xFF;
+            if (zeros >= 2 && value == 3) {
+                zeros = 0;
+                continue;
+            }
+            zeros = (value == 0) ? zeros + 1 : 0;
+            rbsp[size++] = (byte) value;
+        }
+        byte[] result = new byte[size];
+        System.arraycopy(rbsp, 0, result, 0, size);
+        return result;
+    }
+}
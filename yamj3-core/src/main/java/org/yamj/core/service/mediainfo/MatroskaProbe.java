@@ -0,0 +1,335 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.service.mediainfo;
+
+import static org.yamj.core.service.mediainfo.ProbeResult.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads the segment info and the track headers of a Matroska or WebM file.
+ *
+ * Only the elements in front of the first cluster are read; the seek head is
+ * used to locate the info and tracks elements if they are stored behind the clusters.
+ */
+final class MatroskaProbe {
+
+    static final long ID_EBML = 0x1A45DFA3L;
+    static final long ID_SEGMENT = 0x18538067L;
+    static final long ID_SEEK_HEAD = 0x114D9B74L;
+    static final long ID_CLUSTER = 0x1F43B675L;
+    private static final long ID_DOC_TYPE = 0x4282L;
+    private static final long ID_SEEK = 0x4DBBL;
+    private static final long ID_SEEK_ID = 0x53ABL;
+    private static final long ID_SEEK_POSITION = 0x53ACL;
+    private static final long ID_INFO = 0x1549A966L;
+    private static final long ID_TIMECODE_SCALE = 0x2AD7B1L;
+    private static final long ID_DURATION = 0x4489L;
+    private static final long ID_TRACKS = 0x1654AE6BL;
+    private static final long ID_TRACK_ENTRY = 0xAEL;
+    private static final long ID_TRACK_TYPE = 0x83L;
+    private static final long ID_CODEC_ID = 0x86L;
+    private static final long ID_CODEC_PRIVATE = 0x63A2L;
+    private static final long ID_LANGUAGE = 0x22B59CL;
+    private static final long ID_LANGUAGE_IETF = 0x22B59DL;
+    private static final long ID_FLAG_DEFAULT = 0x88L;
+    private static final long ID_FLAG_FORCED = 0x55AAL;
+    private static final long ID_DEFAULT_DURATION = 0x23E383L;
+    private static final long ID_VIDEO = 0xE0L;
+    private static final long ID_PIXEL_WIDTH = 0xB0L;
+    private static final long ID_PIXEL_HEIGHT = 0xBAL;
+    private static final long ID_DISPLAY_WIDTH = 0x54B0L;
+    private static final long ID_DISPLAY_HEIGHT = 0x54BAL;
+    private static final long ID_STEREO_MODE = 0x53B8L;
+    private static final long ID_AUDIO = 0xE1L;
+    private static final long ID_CHANNELS = 0x9FL;
+    private static final int TRACK_VIDEO = 1;
+    private static final int TRACK_AUDIO = 2;
+    private static final int TRACK_SUBTITLE = 0x11;
+    private static final int MAX_CODEC_PRIVATE = 1024 * 1024;
+
+    private final ProbeInput input;
+    private final ProbeResult result;
+    private final Map<Long, Long> seekPositions = new HashMap<>();
+    private long segmentStart;
+    private long segmentEnd;
+    private boolean infoRead = false;
+    private boolean tracksRead = false;
+
+    private MatroskaProbe(ProbeInput input, ProbeResult result) {
+        this.input = input;
+        this.result = result;
+    }
+
+    static void probe(ProbeInput input, ProbeResult result) throws IOException {
+        new MatroskaProbe(input, result).parse();
+    }
+
+    private void parse() throws IOException {
+        input.seek(0);
+        if (input.readElementId() != ID_EBML) {
+            return;
+        }
+        long size = input.readElementSize(input.size());
+        long end = input.position() + size;
+        String docType = "matroska";
+        while (input.position() < end) {
+            long id = input.readElementId();
+            long childSize = input.readElementSize(end);
+            if (id == ID_DOC_TYPE) {
+                docType = input.readElementString(childSize, StandardCharsets.US_ASCII);
+            } else {
+                input.skip(childSize);
+            }
+        }
+        input.seek(end);
+        result.getGeneral().put(FORMAT, "webm".equalsIgnoreCase(docType) ? "WebM" : "Matroska");
+
+        if (input.readElementId() != ID_SEGMENT) {
+            return;
+        }
+        size = input.readVint();
+        segmentStart = input.position();
+        segmentEnd = (size < 0) ? input.size() : Math.min(input.size(), segmentStart + size);
+
+        while (input.position() < segmentEnd && input.hasRemaining(2)) {
+            long id = input.readElementId();
+            long childSize = input.readVint();
+            if (id == ID_CLUSTER || childSize < 0) {
+                break;
+            }
+            long childEnd = input.position() + childSize;
+            parseTopLevel(id, childEnd);
+            if (infoRead && tracksRead) {
+                return;
+            }
+            input.seek(childEnd);
+        }
+
+        // info and tracks may have been written behind the clusters
+        lookupSeek(ID_INFO, !infoRead);
+        lookupSeek(ID_TRACKS, !tracksRead);
+    }
+
+    private void lookupSeek(long id, boolean required) throws IOException {
+        Long seekPosition = seekPositions.get(id);
+        if (!required || seekPosition == null || seekPosition < 0 || seekPosition >= input.size() - segmentStart) {
+            return;
+        }
+        input.seek(segmentStart + seekPosition);
+        if (input.readElementId() == id) {
+            long childSize = input.readElementSize(input.size());
+            parseTopLevel(id, input.position() + childSize);
+        }
+    }
+
+    private void parseTopLevel(long id, long end) throws IOException {
+        if (id == ID_SEEK_HEAD) {
+            parseSeekHead(end);
+        } else if (id == ID_INFO) {
+            parseInfo(end);
+            infoRead = true;
+        } else if (id == ID_TRACKS) {
+            while (input.position() < end) {
+                long childId = input.readElementId();
+                long childSize = input.readElementSize(end);
+                long childEnd = input.position() + childSize;
+                if (childId == ID_TRACK_ENTRY) {
+                    parseTrackEntry(childEnd);
+                }
+                input.seek(childEnd);
+            }
+            tracksRead = true;
+        }
+    }
+
+    private void parseSeekHead(long end) throws IOException {
+        while (input.position() < end) {
+            long id = input.readElementId();
+            long size = input.readElementSize(end);
+            long seekEnd = input.position() + size;
+            if (id == ID_SEEK) {
+                long seekId = -1;
+                long seekPosition = -1;
+                while (input.position() < seekEnd) {
+                    long childId = input.readElementId();
+                    long childSize = input.readElementSize(seekEnd);
+                    if (childId == ID_SEEK_ID) {
+                        seekId = input.readElementUnsigned(childSize);
+                    } else if (childId == ID_SEEK_POSITION) {
+                        seekPosition = input.readElementUnsigned(childSize);
+                    } else {
+                        input.skip(childSize);
+                    }
+                }
+                if (seekId > 0 && seekPosition >= 0 && !seekPositions.containsKey(seekId)) {
+                    seekPositions.put(seekId, seekPosition);
+                }
+            }
+            input.seek(seekEnd);
+        }
+    }
+
+    private void parseInfo(long end) throws IOException {
+        long timecodeScale = 1000000L;
+        double duration = -1;
+        while (input.position() < end) {
+            long id = input.readElementId();
+            long size = input.readElementSize(end);
+            if (id == ID_TIMECODE_SCALE) {
+                timecodeScale = input.readElementUnsigned(size);
+            } else if (id == ID_DURATION) {
+                duration = readFloat(size);
+            } else {
+                input.skip(size);
+            }
+        }
+        if (duration > 0) {
+            result.setDuration(duration * timecodeScale / 1000000d, input.size());
+        }
+    }
+
+    private void parseTrackEntry(long end) throws IOException {
+        int trackType = -1;
+        String codecId = null;
+        byte[] codecPrivate = null;
+        String language = "eng";
+        String languageIETF = null;
+        boolean flagDefault = true;
+        boolean flagForced = false;
+        long defaultDuration = -1;
+        Map<String, String> infos = new HashMap<>();
+
+        while (input.position() < end) {
+            long id = input.readElementId();
+            long size = input.readElementSize(end);
+            long childEnd = input.position() + size;
+            if (id == ID_TRACK_TYPE) {
+                trackType = (int) input.readElementUnsigned(size);
+            } else if (id == ID_CODEC_ID) {
+                codecId = input.readElementString(size, StandardCharsets.US_ASCII);
+            } else if (id == ID_CODEC_PRIVATE && size <= MAX_CODEC_PRIVATE) {
+                codecPrivate = input.readBytes((int) size);
+            } else if (id == ID_LANGUAGE) {
+                language = input.readElementString(size, StandardCharsets.US_ASCII);
+            } else if (id == ID_LANGUAGE_IETF) {
+                languageIETF = input.readElementString(size, StandardCharsets.US_ASCII);
+            } else if (id == ID_FLAG_DEFAULT) {
+                flagDefault = input.readElementUnsigned(size) != 0;
+            } else if (id == ID_FLAG_FORCED) {
+                flagForced = input.readElementUnsigned(size) != 0;
+            } else if (id == ID_DEFAULT_DURATION) {
+                defaultDuration = input.readElementUnsigned(size);
+            } else if (id == ID_VIDEO) {
+                parseVideo(childEnd, infos);
+            } else if (id == ID_AUDIO) {
+                parseAudio(childEnd, infos);
+            }
+            input.seek(childEnd);
+        }
+
+        final Map<String, String> target;
+        if (trackType == TRACK_VIDEO) {
+            target = result.addVideo();
+            if (defaultDuration > 0) {
+                putDecimal(target, FRAME_RATE, 1000000000d / defaultDuration);
+            }
+            if (ProbeCodecs.AVC.equals(ProbeCodecs.matroskaFormat(codecId))) {
+                put(target, FORMAT_PROFILE, ProbeCodecs.avcConfigProfile(codecPrivate));
+            }
+        } else if (trackType == TRACK_AUDIO) {
+            target = result.addAudio();
+        } else if (trackType == TRACK_SUBTITLE) {
+            target = result.addText();
+            target.put(DEFAULT, flagDefault ? "Yes" : "No");
+            target.put(FORCED, flagForced ? "Yes" : "No");
+        } else {
+            return;
+        }
+
+        target.putAll(infos);
+        put(target, CODEC_ID, codecId);
+        put(target, FORMAT, ProbeCodecs.matroskaFormat(codecId));
+        if (trackType != TRACK_VIDEO) {
+            putLanguage(target, languageIETF == null ? language : languageIETF);
+        }
+    }
+
+    private void parseVideo(long end, Map<String, String> infos) throws IOException {
+        long width = -1;
+        long height = -1;
+        long displayWidth = -1;
+        long displayHeight = -1;
+        while (input.position() < end) {
+            long id = input.readElementId();
+            long size = input.readElementSize(end);
+            if (id == ID_PIXEL_WIDTH) {
+                width = input.readElementUnsigned(size);
+            } else if (id == ID_PIXEL_HEIGHT) {
+                height = input.readElementUnsigned(size);
+            } else if (id == ID_DISPLAY_WIDTH) {
+                displayWidth = input.readElementUnsigned(size);
+            } else if (id == ID_DISPLAY_HEIGHT) {
+                displayHeight = input.readElementUnsigned(size);
+            } else if (id == ID_STEREO_MODE) {
+                if (input.readElementUnsigned(size) > 0) {
+                    infos.put(MULTIVIEW_COUNT, "2");
+                }
+            } else {
+                input.skip(size);
+            }
+        }
+        put(infos, WIDTH, width);
+        put(infos, HEIGHT, height);
+        if (displayWidth > 0 && displayHeight > 0) {
+            putAspectRatio(infos, displayWidth, displayHeight);
+        } else {
+            putAspectRatio(infos, width, height);
+        }
+    }
+
+    private void parseAudio(long end, Map<String, String> infos) throws IOException {
+        while (input.position() < end) {
+            long id = input.readElementId();
+            long size = input.readElementSize(end);
+            if (id == ID_CHANNELS) {
+                put(infos, CHANNELS, input.readElementUnsigned(size));
+            } else {
+                input.skip(size);
+            }
+        }
+    }
+
+    private double readFloat(long size) throws IOException {
+        if (size == 4) {
+            return Float.intBitsToFloat((int) input.readUnsigned(4));
+        } else if (size == 8) {
+            return Double.longBitsToDouble(input.readUnsigned(8));
+        }
+        input.skip(size);
+        return -1;
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.service.mediainfo;
+
+import java.io.*;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.yamj.common.tools.PropertyTools;
+
+/**
+ * Persistent store for the scanned media informations of video files.
+ *
+ * A video file is identified by its size and a digest of its first and last
+ * block, so an unchanged file is found again after it was touched, renamed
+ * or if it is part of more than one library.
+ *
+ * Entries which have not been used for the configured number of days are
+ * removed by the cleanup, which also removes the entries of deleted files.
+ */
+@Service("mediaInfoCache")
+public class MediaInfoCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MediaInfoCache.class);
+    private static final int VERSION = 1;
+    private static final int BLOCK_SIZE = 64 * 1024;
+    private static final boolean CACHE_ENABLED = PropertyTools.getBooleanProperty("mediainfo.cache.enabled", true);
+    private static final File CACHE_PATH = new File(PropertyTools.getProperty("mediainfo.cache.home", "./cache/mediainfo/"));
+    private static final int MAX_AGE_DAYS = PropertyTools.getIntProperty("mediainfo.cache.maxAgeDays", 180);
+    private static final long CLEANUP_INTERVAL = TimeUnit.DAYS.toMillis(1);
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    private final AtomicLong lastCleanup = new AtomicLong(0);
+
+    /**
+     * Get the cache key of a video file.
+     *
+     * @param file the video file
+     * @return the key or null if the file could not be read
+     */
+    public String getKey(File file) {
+        if (!CACHE_ENABLED) {
+            return null;
+        }
+
+        try (ProbeInput input = new ProbeInput(file)) {
+            final long size = input.size();
+            final int headSize = (int) Math.min(BLOCK_SIZE, size);
+            final int tailSize = (int) Math.min(BLOCK_SIZE, size - headSize);
+
+            MessageDigest digest = DigestUtils.getSha1Digest();
+            digest.update(input.readBytes(headSize));
+            input.seek(size - tailSize);
+            digest.update(input.readBytes(tailSize));
+            return Long.toHexString(size) + "-" + Hex.encodeHexString(digest.digest());
+        } catch (IOException ex) {
+            LOG.debug("Failed to create cache key for '{}': {}", file.getName(), ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Read the cached media informations.
+     *
+     * @param key the cache key
+     * @param infosGeneral the general section to fill
+     * @param infosVideo the video sections to fill
+     * @param infosAudio the audio sections to fill
+     * @param infosText the text sections to fill
+     * @return true if the media informations have been found in the cache, else false
+     */
+    public boolean read(String key, Map<String, String> infosGeneral, List<Map<String, String>> infosVideo,
+            List<Map<String, String>> infosAudio, List<Map<String, String>> infosText) {
+        if (key == null) {
+            return false;
+        }
+        final File cacheFile = getCacheFile(key);
+        if (!cacheFile.isFile()) {
+            return false;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            if (in.readUnsignedByte() != VERSION || !key.equals(in.readUTF())) {
+                return false;
+            }
+            readSection(in, infosGeneral);
+            readSections(in, infosVideo);
+            readSections(in, infosAudio);
+            readSections(in, infosText);
+        } catch (IOException ex) {
+            LOG.warn("Failed to read media info cache file '{}': {}", cacheFile.getName(), ex.getMessage());
+            infosGeneral.clear();
+            infosVideo.clear();
+            infosAudio.clear();
+            infosText.clear();
+            FileUtils.deleteQuietly(cacheFile);
+            return false;
+        }
+
+        if (!hasMediaInfos(infosGeneral, infosVideo)) {
+            // written before empty results were skipped
+            FileUtils.deleteQuietly(cacheFile);
+            return false;
+        }
+
+        // mark as used, so that the entry survives the cleanup
+        if (!cacheFile.setLastModified(System.currentTimeMillis())) {
+            LOG.trace("Failed to touch media info cache file '{}'", cacheFile.getName());
+        }
+        return true;
+    }
+
+    private static boolean hasMediaInfos(Map<String, String> infosGeneral, List<Map<String, String>> infosVideo) {
+        return !infosGeneral.isEmpty() || !infosVideo.isEmpty();
+    }
+
+    /**
+     * Remove the entries which have not been used for the configured number of days.
+     *
+     * The cleanup is done at most once a day, further calls return immediately.
+     */
+    public void cleanup() {
+        if (!CACHE_ENABLED || MAX_AGE_DAYS <= 0 || !CACHE_PATH.isDirectory()) {
+            return;
+        }
+
+        final long now = System.currentTimeMillis();
+        final long last = lastCleanup.get();
+        if (now - last < CLEANUP_INTERVAL || !lastCleanup.compareAndSet(last, now)) {
+            return;
+        }
+
+        final long expired = now - TimeUnit.DAYS.toMillis(MAX_AGE_DAYS);
+        int deleted = 0;
+        for (File file : FileUtils.listFiles(CACHE_PATH, null, true)) {
+            // temporary files are left by an interrupted write
+            final long limit = file.getName().endsWith(TEMP_EXTENSION) ? now - CLEANUP_INTERVAL : expired;
+            if (file.lastModified() < limit && FileUtils.deleteQuietly(file)) {
+                deleted++;
+            }
+        }
+        LOG.debug("Removed {} unused media info cache files", deleted);
+    }
+
+    /**
+     * Store the media informations in the cache.
+     * 
+     * Nothing is stored if neither a general nor a video section has been found.
+     *
+     * @param key the cache key
+     * @param infosGeneral the general section
+     * @param infosVideo the video sections
+     * @param infosAudio the audio sections
+     * @param infosText the text sections
+     */
+    public void write(String key, Map<String, String> infosGeneral, List<Map<String, String>> infosVideo,
+            List<Map<String, String>> infosAudio, List<Map<String, String>> infosText) {
+        if (key == null || !hasMediaInfos(infosGeneral, infosVideo)) {
+            return;
+        }
+        final File cacheFile = getCacheFile(key);
+        final File tempFile = new File(cacheFile.getPath() + TEMP_EXTENSION);
+
+        try {
+            FileUtils.forceMkdir(cacheFile.getParentFile());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                out.writeByte(VERSION);
+                out.writeUTF(key);
+                writeSection(out, infosGeneral);
+                writeSections(out, infosVideo);
+                writeSections(out, infosAudio);
+                writeSections(out, infosText);
+            }
+
+            FileUtils.deleteQuietly(cacheFile);
+            if (!tempFile.renameTo(cacheFile)) {
+                LOG.warn("Failed to store media info cache file '{}'", cacheFile.getName());
+            }
+        } catch (IOException ex) {
+            LOG.warn("Failed to write media info cache file '{}': {}", cacheFile.getName(), ex.getMessage());
+        } finally {
+            FileUtils.deleteQuietly(tempFile);
+        }
+    }
+
+    private static File getCacheFile(String key) {
+        // spread the files over sub directories named by the first digest characters
+        final String digest = key.substring(key.indexOf('-') + 1);
+        return new File(new File(CACHE_PATH, digest.substring(0, 2)), key + ".bin");
+    }
+
+    private static void readSections(DataInputStream in, List<Map<String, String>> sections) throws IOException {
+        final int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            Map<String, String> section = new HashMap<>();
+            readSection(in, section);
+            sections.add(section);
+        }
+    }
+
+    private static void readSection(DataInputStream in, Map<String, String> section) throws IOException {
+        final int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            section.put(in.readUTF(), in.readUTF());
+        }
+    }
+
+    private static void writeSections(DataOutputStream out, List<Map<String, String>> sections) throws IOException {
+        out.writeShort(sections.size());
+        for (Map<String, String> section : sections) {
+            writeSection(out, section);
+        }
+    }
+
+    private static void writeSection(DataOutputStream out, Map<String, String> section) throws IOException {
+        out.writeShort(section.size());
+        for (Entry<String, String> entry : section.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeUTF(entry.getValue());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.service.mediainfo;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Reads the container headers of common video files without starting the
+ * MediaInfo executable.
+ *
+ * The results are filled into the same sections and keys MediaInfo would print,
+ * so they can be processed like the MediaInfo output. If a container is not
+ * supported or the headers are incomplete nothing will be filled in.
+ */
+@Service("mediaInfoProbe")
+public class MediaInfoProbe {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MediaInfoProbe.class);
+    private static final int HEADER_SIZE = 200;
+
+    /**
+     * Probe the given file.
+     *
+     * @param file the video file
+     * @param infosGeneral the general section to fill
+     * @param infosVideo the video sections to fill
+     * @param infosAudio the audio sections to fill
+     * @param infosText the text sections to fill
+     * @return true if the file could be probed, else false
+     */
+    public boolean probe(File file, Map<String, String> infosGeneral, List<Map<String, String>> infosVideo,
+            List<Map<String, String>> infosAudio, List<Map<String, String>> infosText) {
+
+        final long start = System.currentTimeMillis();
+        ProbeResult result = new ProbeResult();
+        long bytesRead;
+
+        try (ProbeInput input = new ProbeInput(file)) {
+            byte[] header = input.readBytes((int) Math.min(HEADER_SIZE, input.size()));
+
+            if (startsWith(header, 0, 0x1A, 0x45, 0xDF, 0xA3)) {
+                MatroskaProbe.probe(input, result);
+            } else if (isMp4(header)) {
+                Mp4Probe.probe(input, result);
+            } else if (startsWith(header, 0, 'R', 'I', 'F', 'F') && startsWith(header, 8, 'A', 'V', 'I', ' ')) {
+                AviProbe.probe(input, result);
+            } else {
+                int packetSize = TransportStreamProbe.getPacketSize(header);
+                if (packetSize > 0) {
+                    TransportStreamProbe.probe(input, result, packetSize);
+                }
+            }
+            bytesRead = input.bytesRead();
+        } catch (IOException ex) {
+            LOG.debug("Failed to probe '{}': {}", file.getName(), ex.getMessage());
+            return false;
+        } catch (RuntimeException ex) {
+            // never let a malformed file break the scan; mediainfo will take over
+            LOG.debug("Failed to probe '{}'", file.getName(), ex);
+            return false;
+        }
+
+        if (!result.isComplete()) {
+            LOG.debug("Probing '{}' was not sufficient", file.getName());
+            return false;
+        }
+
+        infosGeneral.putAll(result.getGeneral());
+        infosVideo.addAll(result.getVideo());
+        infosAudio.addAll(result.getAudio());
+        infosText.addAll(result.getText());
+
+        LOG.debug("Probed '{}' in {} ms reading {} bytes", file.getName(), System.currentTimeMillis() - start, bytesRead);
+        return true;
+    }
+
+    private static boolean isMp4(byte[] header) {
+        return startsWith(header, 4, 'f', 't', 'y', 'p') || startsWith(header, 4, 'm', 'o', 'o', 'v')
+                || startsWith(header, 4, 'm', 'd', 'a', 't') || startsWith(header, 4, 'w', 'i', 'd', 'e')
+                || startsWith(header, 4, 'f', 'r', 'e', 'e');
+    }
+
+    private static boolean startsWith(byte[] header, int offset, int... magic) {
+        if (header.length < offset + magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((header[offset + i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
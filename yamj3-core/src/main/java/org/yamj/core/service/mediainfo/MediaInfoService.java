@@ -62,6 +62,7 @@ public class MediaInfoService implements IQueueProcessService {
 
     // media info settings
     private static final File MEDIAINFO_PATH = new File(PropertyTools.getProperty("mediainfo.home", "./mediaInfo/"));
+    private static final boolean PROBE_ENABLED = PropertyTools.getBooleanProperty("mediainfo.probe.enabled", true);
     private final List<String> execMediaInfo = new ArrayList<>();
     private boolean isMediaInfoRar = false;
     private boolean isActivated = true;
@@ -73,6 +74,10 @@ public class MediaInfoService implements IQueueProcessService {
     private AspectRatioTools aspectRatioTools;
     @Autowired
     private LocaleService localeService;
+    @Autowired
+    private MediaInfoProbe mediaInfoProbe;
+    @Autowired
+    private MediaInfoCache mediaInfoCache;
     
     @PostConstruct
     public void init() {
@@ -148,7 +153,14 @@ public class MediaInfoService implements IQueueProcessService {
 
         // check if stage file can be read by MediaInfo
         boolean scannable = FileTools.isFileScannable(stageFile);
-        if (scannable && !this.isActivated) {
+        final boolean localFile = scannable && StringUtils.isBlank(stageFile.getContent());
+        final String cacheKey = localFile ? mediaInfoCache.getKey(new File(stageFile.getFullPath())) : null;
+        if (localFile && (readCachedMediaFile(mediaFile, stageFile, cacheKey) || probeMediaFile(mediaFile, stageFile, cacheKey))) {
+            // media informations have been read without MediaInfo
+            mediaFile.setStatus(StatusType.DONE);
+            mediaStorageService.updateMediaFile(mediaFile);
+            return;
+        } else if (scannable && !this.isActivated) {
             LOG.debug("MediaInfo not activate for scanning video file '{}'", stageFile.getFullPath());
             mediaFile.setStatus(StatusType.INVALID);
             mediaStorageService.updateMediaFile(mediaFile);
@@ -172,6 +184,7 @@ public class MediaInfoService implements IQueueProcessService {
             List<Map<String, String>> infosText = new ArrayList<>();
 
             parseMediaInfo(stream, infosGeneral, infosVideo, infosAudio, infosText);
+            mediaInfoCache.write(cacheKey, infosGeneral, infosVideo, infosAudio, infosText);
 
             updateMediaFile(mediaFile, infosGeneral, infosVideo, infosAudio, infosText);
 
@@ -191,6 +204,41 @@ public class MediaInfoService implements IQueueProcessService {
         mediaStorageService.updateMediaFile(mediaFile);
     }
 
+    private boolean readCachedMediaFile(MediaFile mediaFile, StageFile stageFile, String cacheKey) {
+        Map<String, String> infosGeneral = new HashMap<>();
+        List<Map<String, String>> infosVideo = new ArrayList<>();
+        List<Map<String, String>> infosAudio = new ArrayList<>();
+        List<Map<String, String>> infosText = new ArrayList<>();
+
+        if (!mediaInfoCache.read(cacheKey, infosGeneral, infosVideo, infosAudio, infosText)) {
+            return false;
+        }
+
+        LOG.debug("Found cached media informations for {}", stageFile.getFullPath());
+        updateMediaFile(mediaFile, infosGeneral, infosVideo, infosAudio, infosText);
+        return true;
+    }
+
+    private boolean probeMediaFile(MediaFile mediaFile, StageFile stageFile, String cacheKey) {
+        if (!PROBE_ENABLED) {
+            return false;
+        }
+
+        Map<String, String> infosGeneral = new HashMap<>();
+        List<Map<String, String>> infosVideo = new ArrayList<>();
+        List<Map<String, String>> infosAudio = new ArrayList<>();
+        List<Map<String, String>> infosText = new ArrayList<>();
+
+        if (!mediaInfoProbe.probe(new File(stageFile.getFullPath()), infosGeneral, infosVideo, infosAudio, infosText)) {
+            return false;
+        }
+
+        LOG.debug("Probed media file {}", stageFile.getFullPath());
+        mediaInfoCache.write(cacheKey, infosGeneral, infosVideo, infosAudio, infosText);
+        updateMediaFile(mediaFile, infosGeneral, infosVideo, infosAudio, infosText);
+        return true;
+    }
+
     @Override
     public void processErrorOccurred(QueueDTO queueElement, Exception error) {
         if (isLockingError(error)) {
@@ -0,0 +1,355 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.service.mediainfo;
+
+import static org.yamj.core.service.mediainfo.ProbeResult.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads the movie header and the track headers of a MPEG-4 or QuickTime file.
+ *
+ * The top level boxes are skipped by their size, so the movie box is found
+ * without reading the media data even if it is stored at the end of the file.
+ */
+final class Mp4Probe {
+
+    private static final int HEADER_SIZE = 8;
+    private static final int VISUAL_ENTRY_SIZE = 78;
+    private static final int AUDIO_ENTRY_SIZE = 28;
+    private static final int MAX_CONFIG_SIZE = 64 * 1024;
+
+    private final ProbeInput input;
+    private final ProbeResult result;
+
+    private Mp4Probe(ProbeInput input, ProbeResult result) {
+        this.input = input;
+        this.result = result;
+    }
+
+    static void probe(ProbeInput input, ProbeResult result) throws IOException {
+        new Mp4Probe(input, result).parse();
+    }
+
+    private void parse() throws IOException {
+        result.getGeneral().put(FORMAT, "MPEG-4");
+
+        long position = 0;
+        while (position + HEADER_SIZE <= input.size()) {
+            input.seek(position);
+            long size = input.readUnsigned(4);
+            String type = readType();
+            long headerSize = HEADER_SIZE;
+            if (size == 1) {
+                size = input.readUnsigned(8);
+                headerSize += 8;
+            } else if (size == 0) {
+                size = input.size() - position;
+            }
+            if (size < headerSize) {
+                return;
+            }
+            if ("moov".equals(type)) {
+                parseMovie(position + size);
+                return;
+            }
+            position += size;
+        }
+    }
+
+    private void parseMovie(long end) throws IOException {
+        long position;
+        while ((position = input.position()) + HEADER_SIZE <= end) {
+            long size = input.readUnsigned(4);
+            String type = readType();
+            if (size < HEADER_SIZE) {
+                return;
+            }
+            if ("mvhd".equals(type)) {
+                parseMovieHeader();
+            } else if ("trak".equals(type)) {
+                parseTrack(position + size);
+            }
+            input.seek(position + size);
+        }
+    }
+
+    private void parseMovieHeader() throws IOException {
+        final int version = input.readByte();
+        input.skip(3);
+        final long timescale;
+        final long duration;
+        if (version == 1) {
+            input.skip(16);
+            timescale = input.readUnsigned(4);
+            duration = input.readUnsigned(8);
+        } else {
+            input.skip(8);
+            timescale = input.readUnsigned(4);
+            duration = input.readUnsigned(4);
+        }
+        if (timescale > 0) {
+            result.setDuration(duration * 1000d / timescale, input.size());
+        }
+    }
+
+    private void parseTrack(long end) throws IOException {
+        Track track = new Track();
+        walk(end, track);
+
+        final Map<String, String> infos;
+        if ("vide".equals(track.handler)) {
+            infos = result.addVideo();
+            if (track.sampleCount > 0 && track.sampleDelta > 0) {
+                putDecimal(infos, FRAME_RATE, (double) track.timescale * track.sampleCount / track.sampleDelta);
+            }
+            if (track.displayWidth > 0 && track.displayHeight > 0) {
+                putAspectRatio(infos, track.displayWidth, track.displayHeight);
+            }
+        } else if ("soun".equals(track.handler)) {
+            infos = result.addAudio();
+            putLanguage(infos, track.language);
+        } else if ("sbtl".equals(track.handler) || "subt".equals(track.handler) || "text".equals(track.handler)) {
+            infos = result.addText();
+            putLanguage(infos, track.language);
+            infos.put(DEFAULT, track.enabled ? "Yes" : "No");
+            infos.put(FORCED, "No");
+        } else {
+            return;
+        }
+        infos.putAll(track.infos);
+    }
+
+    private void walk(long end, Track track) throws IOException {
+        long position;
+        while ((position = input.position()) + HEADER_SIZE <= end) {
+            long size = input.readUnsigned(4);
+            String type = readType();
+            if (size < HEADER_SIZE || position + size > end) {
+                return;
+            }
+            switch (type) {
+                case "mdia":
+                case "minf":
+                case "stbl":
+                    walk(position + size, track);
+                    break;
+                case "tkhd":
+                    parseTrackHeader(track);
+                    break;
+                case "mdhd":
+                    parseMediaHeader(track);
+                    break;
+                case "hdlr":
+                    input.skip(8);
+                    track.handler = readType();
+                    break;
+                case "stsd":
+                    input.skip(8);
+                    parseSampleEntry(position + size, track);
+                    break;
+                case "stts":
+                    parseTimeToSample(track);
+                    break;
+                default:
+                    break;
+            }
+            input.seek(position + size);
+        }
+    }
+
+    private void parseTrackHeader(Track track) throws IOException {
+        final int version = input.readByte();
+        track.enabled = (input.readUnsigned(3) & 1) != 0;
+        input.skip(version == 1 ? 32 : 20);
+        input.skip(52);
+        track.displayWidth = input.readUnsigned(4) >> 16;
+        track.displayHeight = input.readUnsigned(4) >> 16;
+    }
+
+    private void parseMediaHeader(Track track) throws IOException {
+        final int version = input.readByte();
+        input.skip(3);
+        input.skip(version == 1 ? 16 : 8);
+        track.timescale = input.readUnsigned(4);
+        input.skip(version == 1 ? 8 : 4);
+        final int packed = (int) input.readUnsigned(2);
+        if (packed >= 0x400 && packed < 0x8000) {
+            // lower values are Macintosh language codes
+            char[] language = new char[3];
+            language[0] = (char) (((packed >> 10) & 0x1F) + 0x60);
+            language[1] = (char) (((packed >> 5) & 0x1F) + 0x60);
+            language[2] = (char) ((packed & 0x1F) + 0x60);
+            track.language = new String(language);
+        }
+    }
+
+    private void parseTimeToSample(Track track) throws IOException {
+        input.skip(4);
+        final long entries = input.readUnsigned(4);
+        for (long i = 0; i < entries; i++) {
+            long count = input.readUnsigned(4);
+            long delta = input.readUnsigned(4);
+            track.sampleCount += count;
+            track.sampleDelta += count * delta;
+        }
+    }
+
+    private void parseSampleEntry(long end, Track track) throws IOException {
+        final long position = input.position();
+        final long size = input.readUnsigned(4);
+        if (size < HEADER_SIZE || position + size > end) {
+            return;
+        }
+        final String type = readType();
+        put(track.infos, CODEC_ID, type);
+        put(track.infos, FORMAT, ProbeCodecs.sampleEntryFormat(type));
+
+        long childStart;
+        if ("vide".equals(track.handler)) {
+            input.skip(24);
+            put(track.infos, WIDTH, input.readUnsigned(2));
+            put(track.infos, HEIGHT, input.readUnsigned(2));
+            childStart = position + VISUAL_ENTRY_SIZE + 8;
+        } else if ("soun".equals(track.handler)) {
+            input.skip(8);
+            final int version = (int) input.readUnsigned(2);
+            input.skip(6);
+            put(track.infos, CHANNELS, input.readUnsigned(2));
+            childStart = position + AUDIO_ENTRY_SIZE + 8;
+            if (version == 1) {
+                childStart += 16;
+            } else if (version == 2) {
+                childStart += 36;
+            }
+        } else {
+            return;
+        }
+
+        input.seek(childStart);
+        long child;
+        while ((child = input.position()) + HEADER_SIZE <= position + size) {
+            long childSize = input.readUnsigned(4);
+            String childType = readType();
+            if (childSize < HEADER_SIZE || child + childSize > position + size) {
+                return;
+            }
+            int payload = (int) Math.min(childSize - HEADER_SIZE, MAX_CONFIG_SIZE);
+            switch (childType) {
+                case "avcC":
+                    put(track.infos, FORMAT_PROFILE, ProbeCodecs.avcConfigProfile(input.readBytes(payload)));
+                    break;
+                case "mvcC":
+                    track.infos.put(MULTIVIEW_COUNT, "2");
+                    break;
+                case "pasp":
+                    long hSpacing = input.readUnsigned(4);
+                    long vSpacing = input.readUnsigned(4);
+                    long width = Long.parseLong(track.infos.containsKey(WIDTH) ? track.infos.get(WIDTH) : "0");
+                    long height = Long.parseLong(track.infos.containsKey(HEIGHT) ? track.infos.get(HEIGHT) : "0");
+                    putAspectRatio(track.infos, width * hSpacing, height * vSpacing);
+                    break;
+                case "esds":
+                    parseElementaryStreamDescriptor(input.readBytes(payload), track.infos);
+                    break;
+                case "dac3":
+                    long dac3 = input.readUnsigned(3);
+                    put(track.infos, CHANNELS, ProbeCodecs.ac3ModeChannels((int) (dac3 >> 11), (int) (dac3 >> 10)));
+                    break;
+                case "dec3":
+                    input.skip(2);
+                    long dec3 = input.readUnsigned(3);
+                    put(track.infos, CHANNELS, ProbeCodecs.ac3ModeChannels((int) (dec3 >> 9), (int) (dec3 >> 8)));
+                    break;
+                default:
+                    break;
+            }
+            input.seek(child + childSize);
+        }
+    }
+
+    private static void parseElementaryStreamDescriptor(byte[] data, Map<String, String> infos) {
+        // skip version and flags
+        int offset = 4;
+        while (offset + 2 < data.length) {
+            final int tag = data[offset++] & 0xFF;
+            int length = 0;
+            for (int i = 0; i < 4 && offset < data.length; i++) {
+                int value = data[offset++] & 0xFF;
+                length = (length << 7) | (value & 0x7F);
+                if ((value & 0x80) == 0) {
+                    break;
+                }
+            }
+            if (tag == 0x03) {
+                // ES descriptor: ID, flags and optional fields
+                if (offset + 3 > data.length) {
+                    return;
+                }
+                final int flags = data[offset + 2] & 0xFF;
+                offset += 3;
+                if ((flags & 0x80) != 0) {
+                    offset += 2;
+                }
+                if ((flags & 0x40) != 0 && offset < data.length) {
+                    offset += 1 + (data[offset] & 0xFF);
+                }
+                if ((flags & 0x20) != 0) {
+                    offset += 2;
+                }
+            } else if (tag == 0x04) {
+                // decoder configuration
+                if (offset + 13 > data.length) {
+                    return;
+                }
+                put(infos, FORMAT, ProbeCodecs.objectTypeFormat(data[offset] & 0xFF));
+                final long avgBitrate = ((data[offset + 9] & 0xFFL) << 24) | ((data[offset + 10] & 0xFFL) << 16)
+                        | ((data[offset + 11] & 0xFFL) << 8) | (data[offset + 12] & 0xFFL);
+                put(infos, BIT_RATE, avgBitrate);
+                return;
+            } else {
+                offset += length;
+            }
+        }
+    }
+
+    private String readType() throws IOException {
+        return input.readString(4, StandardCharsets.ISO_8859_1);
+    }
+
+    private static final class Track {
+
+        private final Map<String, String> infos = new HashMap<>();
+        private String handler;
+        private String language;
+        private boolean enabled = true;
+        private long timescale;
+        private long displayWidth;
+        private long displayHeight;
+        private long sampleCount;
+        private long sampleDelta;
+    }
+}
@@ -0,0 +1,489 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.service.mediainfo;
+
+import static org.yamj.core.service.mediainfo.ProbeResult.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Codec names and parsers for the codec headers needed by the probes.
+ */
+final class ProbeCodecs {
+
+    private static final Map<String, String> MATROSKA_CODECS = new HashMap<>();
+    private static final Map<String, String> VIDEO_FOURCC = new HashMap<>();
+    private static final Map<Integer, String> AUDIO_FORMAT_TAGS = new HashMap<>();
+    private static final Map<String, String> SAMPLE_ENTRIES = new HashMap<>();
+    private static final int[][] AVC_SAR = {{0, 0}, {1, 1}, {12, 11}, {10, 11}, {16, 11}, {40, 33}, {24, 11}, {20, 11},
+        {32, 11}, {80, 33}, {18, 11}, {15, 11}, {64, 33}, {160, 99}, {4, 3}, {3, 2}, {2, 1}};
+    private static final double[] MPEG_FRAME_RATES = {0, 24000d / 1001, 24, 25, 30000d / 1001, 30, 50, 60000d / 1001, 60};
+    private static final int[] AC3_CHANNELS = {2, 1, 2, 3, 3, 4, 4, 5};
+    private static final int[] DTS_CHANNELS = {1, 2, 2, 2, 2, 3, 3, 4, 4, 5, 6, 6, 6, 7, 8, 8};
+    static final String AVC = "AVC";
+    static final String MPEG_VIDEO = "MPEG Video";
+
+    static {
+        MATROSKA_CODECS.put("V_MPEG4/ISO/AVC", AVC);
+        MATROSKA_CODECS.put("V_MPEGH/ISO/HEVC", "HEVC");
+        MATROSKA_CODECS.put("V_MPEG1", MPEG_VIDEO);
+        MATROSKA_CODECS.put("V_MPEG2", MPEG_VIDEO);
+        MATROSKA_CODECS.put("V_MPEG4/ISO/SP", "MPEG-4 Visual");
+        MATROSKA_CODECS.put("V_MPEG4/ISO/ASP", "MPEG-4 Visual");
+        MATROSKA_CODECS.put("V_MPEG4/ISO/AP", "MPEG-4 Visual");
+        MATROSKA_CODECS.put("V_VP8", "VP8");
+        MATROSKA_CODECS.put("V_VP9", "VP9");
+        MATROSKA_CODECS.put("V_AV1", "AV1");
+        MATROSKA_CODECS.put("V_THEORA", "Theora");
+        MATROSKA_CODECS.put("A_AC3", "AC-3");
+        MATROSKA_CODECS.put("A_EAC3", "E-AC-3");
+        MATROSKA_CODECS.put("A_DTS", "DTS");
+        MATROSKA_CODECS.put("A_TRUEHD", "MLP FBA");
+        MATROSKA_CODECS.put("A_MPEG/L2", "MPEG Audio");
+        MATROSKA_CODECS.put("A_MPEG/L3", "MPEG Audio");
+        MATROSKA_CODECS.put("A_FLAC", "FLAC");
+        MATROSKA_CODECS.put("A_VORBIS", "Vorbis");
+        MATROSKA_CODECS.put("A_OPUS", "Opus");
+        MATROSKA_CODECS.put("S_TEXT/UTF8", "UTF-8");
+        MATROSKA_CODECS.put("S_TEXT/ASS", "ASS");
+        MATROSKA_CODECS.put("S_TEXT/SSA", "ASS");
+        MATROSKA_CODECS.put("S_ASS", "ASS");
+        MATROSKA_CODECS.put("S_SSA", "ASS");
+        MATROSKA_CODECS.put("S_HDMV/PGS", "PGS");
+        MATROSKA_CODECS.put("S_VOBSUB", "VobSub");
+        MATROSKA_CODECS.put("S_TEXT/WEBVTT", "WebVTT");
+
+        for (String fourCC : new String[]{"XVID", "DIVX", "DX50", "FMP4", "MP4V", "3IV2"}) {
+            VIDEO_FOURCC.put(fourCC, "MPEG-4 Visual");
+        }
+        for (String fourCC : new String[]{"H264", "X264", "AVC1", "AVC3", "DAVC"}) {
+            VIDEO_FOURCC.put(fourCC, AVC);
+        }
+        for (String fourCC : new String[]{"HVC1", "HEV1", "HEVC", "H265"}) {
+            VIDEO_FOURCC.put(fourCC, "HEVC");
+        }
+        VIDEO_FOURCC.put("DIV3", "MS-MPEG4 v3");
+        VIDEO_FOURCC.put("WVC1", "VC-1");
+        VIDEO_FOURCC.put("WMV3", "VC-1");
+        VIDEO_FOURCC.put("MPG2", MPEG_VIDEO);
+        VIDEO_FOURCC.put("MJPG", "JPEG");
+
+        AUDIO_FORMAT_TAGS.put(0x0001, "PCM");
+        AUDIO_FORMAT_TAGS.put(0x0050, "MPEG Audio");
+        AUDIO_FORMAT_TAGS.put(0x0055, "MPEG Audio");
+        AUDIO_FORMAT_TAGS.put(0x00FF, "AAC");
+        AUDIO_FORMAT_TAGS.put(0x0161, "WMA");
+        AUDIO_FORMAT_TAGS.put(0x2000, "AC-3");
+        AUDIO_FORMAT_TAGS.put(0x2001, "DTS");
+        AUDIO_FORMAT_TAGS.put(0xF1AC, "FLAC");
+
+        SAMPLE_ENTRIES.put("avc1", AVC);
+        SAMPLE_ENTRIES.put("avc3", AVC);
+        SAMPLE_ENTRIES.put("hvc1", "HEVC");
+        SAMPLE_ENTRIES.put("hev1", "HEVC");
+        SAMPLE_ENTRIES.put("mp4v", "MPEG-4 Visual");
+        SAMPLE_ENTRIES.put("mp4a", "AAC");
+        SAMPLE_ENTRIES.put("ac-3", "AC-3");
+        SAMPLE_ENTRIES.put("ec-3", "E-AC-3");
+        SAMPLE_ENTRIES.put("dtsc", "DTS");
+        SAMPLE_ENTRIES.put("dtsh", "DTS");
+        SAMPLE_ENTRIES.put("dtsl", "DTS");
+        SAMPLE_ENTRIES.put("mlpa", "MLP FBA");
+        SAMPLE_ENTRIES.put("fLaC", "FLAC");
+        SAMPLE_ENTRIES.put("Opus", "Opus");
+        SAMPLE_ENTRIES.put(".mp3", "MPEG Audio");
+        SAMPLE_ENTRIES.put("lpcm", "PCM");
+        SAMPLE_ENTRIES.put("sowt", "PCM");
+        SAMPLE_ENTRIES.put("twos", "PCM");
+        SAMPLE_ENTRIES.put("tx3g", "Timed Text");
+    }
+
+    private ProbeCodecs() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    static String matroskaFormat(String codecId) {
+        String format = MATROSKA_CODECS.get(codecId);
+        if (format == null && codecId != null) {
+            if (codecId.startsWith("A_AAC")) {
+                format = "AAC";
+            } else if (codecId.startsWith("A_PCM")) {
+                format = "PCM";
+            }
+        }
+        return format;
+    }
+
+    static String videoFourCC(String fourCC) {
+        return fourCC == null ? null : VIDEO_FOURCC.get(fourCC.trim().toUpperCase());
+    }
+
+    static String sampleEntryFormat(String sampleEntry) {
+        return SAMPLE_ENTRIES.get(sampleEntry);
+    }
+
+    /**
+     * Get the format of a MPEG-4 object type indication.
+     *
+     * @param objectType the object type of the decoder configuration
+     * @return the format or null if unknown
+     */
+    static String objectTypeFormat(int objectType) {
+        switch (objectType) {
+            case 0x20:
+                return "MPEG-4 Visual";
+            case 0x21:
+                return AVC;
+            case 0x23:
+                return "HEVC";
+            case 0x40:
+            case 0x66:
+            case 0x67:
+            case 0x68:
+                return "AAC";
+            case 0x60:
+            case 0x61:
+            case 0x62:
+            case 0x63:
+            case 0x64:
+            case 0x65:
+            case 0x6A:
+                return MPEG_VIDEO;
+            case 0x69:
+            case 0x6B:
+                return "MPEG Audio";
+            case 0xA5:
+                return "AC-3";
+            case 0xA6:
+                return "E-AC-3";
+            case 0xA9:
+                return "DTS";
+            default:
+                return null;
+        }
+    }
+
+    static int ac3ModeChannels(int acmod, int lfeon) {
+        return AC3_CHANNELS[acmod & 7] + (lfeon & 1);
+    }
+
+    static String audioFormatTag(int formatTag) {
+        return AUDIO_FORMAT_TAGS.get(formatTag);
+    }
+
+    /**
+     * Get the profile of an AVC decoder configuration record.
+     *
+     * @param config the record
+     * @return the profile like MediaInfo prints it, e.g. "High@L4.1"
+     */
+    static String avcConfigProfile(byte[] config) {
+        if (config == null || config.length < 4 || config[0] != 1) {
+            return null;
+        }
+        return avcProfile(config[1] & 0xFF, config[3] & 0xFF);
+    }
+
+    static String avcProfile(int profileIdc, int levelIdc) {
+        final String profile;
+        switch (profileIdc) {
+            case 66:
+                profile = "Baseline";
+                break;
+            case 77:
+                profile = "Main";
+                break;
+            case 88:
+                profile = "Extended";
+                break;
+            case 100:
+                profile = "High";
+                break;
+            case 110:
+                profile = "High 10";
+                break;
+            case 122:
+                profile = "High 4:2:2";
+                break;
+            case 244:
+                profile = "High 4:4:4 Predictive";
+                break;
+            default:
+                return null;
+        }
+        if (levelIdc % 10 == 0) {
+            return profile + "@L" + (levelIdc / 10);
+        }
+        return profile + "@L" + (levelIdc / 10) + "." + (levelIdc % 10);
+    }
+
+    /**
+     * Parse an AVC sequence parameter set.
+     *
+     * @param nal the NAL unit of the SPS including the NAL header
+     * @param infos the video infos to fill
+     * @return true if the SPS could be parsed
+     */
+    static boolean parseAvcSps(byte[] nal, Map<String, String> infos) {
+        try {
+            BitReader bits = new BitReader(BitReader.unescapeNal(nal, 0, nal.length), 1);
+            final int profileIdc = (int) bits.readBits(8);
+            bits.skipBits(8);
+            final int levelIdc = (int) bits.readBits(8);
+            bits.readUE();
+
+            int chromaFormatIdc = 1;
+            boolean frameMbsOnly;
+            if (profileIdc == 100 || profileIdc == 110 || profileIdc == 122 || profileIdc == 244 || profileIdc == 44
+                    || profileIdc == 83 || profileIdc == 86 || profileIdc == 118 || profileIdc == 128 || profileIdc == 138
+                    || profileIdc == 139 || profileIdc == 134 || profileIdc == 135) {
+                chromaFormatIdc = bits.readUE();
+                if (chromaFormatIdc == 3) {
+                    bits.skipBits(1);
+                }
+                bits.readUE();
+                bits.readUE();
+                bits.skipBits(1);
+                if (bits.readFlag()) {
+                    for (int i = 0; i < (chromaFormatIdc == 3 ? 12 : 8); i++) {
+                        if (bits.readFlag()) {
+                            skipScalingList(bits, i < 6 ? 16 : 64);
+                        }
+                    }
+                }
+            }
+
+            bits.readUE();
+            final int picOrderCntType = bits.readUE();
+            if (picOrderCntType == 0) {
+                bits.readUE();
+            } else if (picOrderCntType == 1) {
+                bits.skipBits(1);
+                bits.readSE();
+                bits.readSE();
+                final int cycle = bits.readUE();
+                for (int i = 0; i < cycle; i++) {
+                    bits.readSE();
+                }
+            }
+            bits.readUE();
+            bits.skipBits(1);
+
+            final int widthInMbs = bits.readUE() + 1;
+            final int heightInMapUnits = bits.readUE() + 1;
+            frameMbsOnly = bits.readFlag();
+            if (!frameMbsOnly) {
+                bits.skipBits(1);
+            }
+            bits.skipBits(1);
+
+            int cropLeft = 0;
+            int cropRight = 0;
+            int cropTop = 0;
+            int cropBottom = 0;
+            if (bits.readFlag()) {
+                cropLeft = bits.readUE();
+                cropRight = bits.readUE();
+                cropTop = bits.readUE();
+                cropBottom = bits.readUE();
+            }
+
+            final int cropUnitX = (chromaFormatIdc == 1 || chromaFormatIdc == 2) ? 2 : 1;
+            final int cropUnitY = (chromaFormatIdc == 1 ? 2 : 1) * (frameMbsOnly ? 1 : 2);
+            final int width = widthInMbs * 16 - cropUnitX * (cropLeft + cropRight);
+            final int height = (frameMbsOnly ? 1 : 2) * heightInMapUnits * 16 - cropUnitY * (cropTop + cropBottom);
+
+            put(infos, WIDTH, width);
+            put(infos, HEIGHT, height);
+            put(infos, FORMAT_PROFILE, avcProfile(profileIdc, levelIdc));
+
+            int sarWidth = 1;
+            int sarHeight = 1;
+            if (bits.readFlag()) {
+                // VUI parameters
+                if (bits.readFlag()) {
+                    int aspectRatioIdc = (int) bits.readBits(8);
+                    if (aspectRatioIdc == 255) {
+                        sarWidth = (int) bits.readBits(16);
+                        sarHeight = (int) bits.readBits(16);
+                    } else if (aspectRatioIdc > 0 && aspectRatioIdc < AVC_SAR.length) {
+                        sarWidth = AVC_SAR[aspectRatioIdc][0];
+                        sarHeight = AVC_SAR[aspectRatioIdc][1];
+                    }
+                }
+                if (bits.readFlag()) {
+                    bits.skipBits(1);
+                }
+                if (bits.readFlag()) {
+                    bits.skipBits(4);
+                    if (bits.readFlag()) {
+                        bits.skipBits(24);
+                    }
+                }
+                if (bits.readFlag()) {
+                    bits.readUE();
+                    bits.readUE();
+                }
+                if (bits.readFlag()) {
+                    long unitsInTick = bits.readBits(32);
+                    long timeScale = bits.readBits(32);
+                    if (unitsInTick > 0) {
+                        putDecimal(infos, FRAME_RATE, timeScale / (2d * unitsInTick));
+                    }
+                }
+            }
+            if (sarWidth <= 0 || sarHeight <= 0) {
+                sarWidth = 1;
+                sarHeight = 1;
+            }
+            putAspectRatio(infos, (long) width * sarWidth, (long) height * sarHeight);
+            return true;
+        } catch (IllegalStateException ex) { //NOSONAR
+            return false;
+        }
+    }
+
+    private static void skipScalingList(BitReader bits, int size) {
+        int lastScale = 8;
+        int nextScale = 8;
+        for (int j = 0; j < size; j++) {
+            if (nextScale != 0) {
+                nextScale = (lastScale + bits.readSE() + 256) % 256;
+            }
+            lastScale = (nextScale == 0) ? lastScale : nextScale;
+        }
+    }
+
+    /**
+     * Parse a MPEG-1/2 video sequence header.
+     *
+     * @param data the data starting after the 0x000001B3 start code
+     * @param offset the offset of the header data
+     * @param infos the video infos to fill
+     * @return true if the header could be parsed
+     */
+    static boolean parseMpegSequenceHeader(byte[] data, int offset, Map<String, String> infos) {
+        if (data.length < offset + 8) {
+            return false;
+        }
+        final int width = ((data[offset] & 0xFF) << 4) | ((data[offset + 1] & 0xF0) >> 4);
+        final int height = ((data[offset + 1] & 0x0F) << 8) | (data[offset + 2] & 0xFF);
+        final int aspectCode = (data[offset + 3] & 0xF0) >> 4;
+        final int frameRateCode = data[offset + 3] & 0x0F;
+        final long bitRate = (((data[offset + 4] & 0xFFL) << 10) | ((data[offset + 5] & 0xFFL) << 2) | ((data[offset + 6] & 0xC0L) >> 6)) * 400;
+
+        put(infos, WIDTH, width);
+        put(infos, HEIGHT, height);
+        switch (aspectCode) {
+            case 2:
+                putDecimal(infos, DISPLAY_ASPECT_RATIO, 4d / 3);
+                break;
+            case 3:
+                putDecimal(infos, DISPLAY_ASPECT_RATIO, 16d / 9);
+                break;
+            case 4:
+                putDecimal(infos, DISPLAY_ASPECT_RATIO, 2.21d);
+                break;
+            default:
+                putAspectRatio(infos, width, height);
+                break;
+        }
+        if (frameRateCode > 0 && frameRateCode < MPEG_FRAME_RATES.length) {
+            putDecimal(infos, FRAME_RATE, MPEG_FRAME_RATES[frameRateCode]);
+        }
+        if (bitRate < 0x3FFFFL * 400) {
+            // 0x3FFFF means variable bit rate
+            put(infos, BIT_RATE, bitRate);
+        }
+        return width > 0 && height > 0;
+    }
+
+    /**
+     * Get the number of channels of an AC-3 or E-AC-3 sync frame.
+     *
+     * @param data the data starting with the sync word 0x0B77
+     * @param offset the offset of the sync word
+     * @return the number of channels or -1
+     */
+    static int ac3Channels(byte[] data, int offset) {
+        if (data.length < offset + 8 || (data[offset] & 0xFF) != 0x0B || (data[offset + 1] & 0xFF) != 0x77) {
+            return -1;
+        }
+        try {
+            BitReader bits = new BitReader(data, offset + 2);
+            final int bsid = (data[offset + 5] & 0xF8) >> 3;
+            int acmod;
+            if (bsid > 10) {
+                // E-AC-3: strmtyp, substreamid, frmsiz, fscod, numblkscod
+                bits.skipBits(2 + 3 + 11 + 2 + 2);
+                acmod = (int) bits.readBits(3);
+            } else {
+                // AC-3: crc1, fscod, frmsizecod, bsid, bsmod
+                bits.skipBits(16 + 2 + 6 + 5 + 3);
+                acmod = (int) bits.readBits(3);
+                if ((acmod & 1) != 0 && acmod != 1) {
+                    bits.skipBits(2);
+                }
+                if ((acmod & 4) != 0) {
+                    bits.skipBits(2);
+                }
+                if (acmod == 2) {
+                    bits.skipBits(2);
+                }
+            }
+            return ac3ModeChannels(acmod, bits.readBit());
+        } catch (IllegalStateException ex) { //NOSONAR
+            return -1;
+        }
+    }
+
+    /**
+     * Get the number of channels of a DTS core frame.
+     *
+     * @param data the data starting with the sync word 0x7FFE8001
+     * @param offset the offset of the sync word
+     * @return the number of channels or -1
+     */
+    static int dtsChannels(byte[] data, int offset) {
+        if (data.length < offset + 12 || (data[offset] & 0xFF) != 0x7F || (data[offset + 1] & 0xFF) != 0xFE
+                || (data[offset + 2] & 0xFF) != 0x80 || (data[offset + 3] & 0xFF) != 0x01) {
+            return -1;
+        }
+        try {
+            BitReader bits = new BitReader(data, offset + 4);
+            // FTYPE, SHORT, CPF, NBLKS, FSIZE
+            bits.skipBits(1 + 5 + 1 + 7 + 14);
+            final int amode = (int) bits.readBits(6);
+            // SFREQ, RATE, MIX, DYNF, TIMEF, AUXF, HDCD, EXT_AUDIO_ID, EXT_AUDIO, ASPF
+            bits.skipBits(4 + 5 + 1 + 1 + 1 + 1 + 1 + 3 + 1 + 1);
+            final int lff = (int) bits.readBits(2);
+            if (amode >= DTS_CHANNELS.length) {
+                return -1;
+            }
+            return DTS_CHANNELS[amode] + (lff > 0 ? 1 : 0);
+        } catch (IllegalStateException ex) { //NOSONAR
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.service.mediainfo;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Buffered random access reader for the header bytes of a media file.
+ *
+ * Only the requested regions of the file are read through the file channel,
+ * so skipping over the payload of a container costs no I/O.
+ */
+public final class ProbeInput implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_ELEMENT_STRING = 64 * 1024;
+    private final FileChannel channel;
+    private final long size;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private long bufferStart = 0;
+    private long position = 0;
+    private long bytesRead = 0;
+
+    public ProbeInput(File file) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.size = channel.size();
+        this.buffer.limit(0);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Get the number of bytes which have really been read from the file.
+     *
+     * @return the number of bytes
+     */
+    public long bytesRead() {
+        return bytesRead;
+    }
+
+    public void seek(long newPosition) {
+        this.position = newPosition;
+    }
+
+    public void skip(long bytes) {
+        this.position += bytes;
+    }
+
+    public boolean hasRemaining(long bytes) {
+        return position + bytes <= size;
+    }
+
+    public int readByte() throws IOException {
+        fill(1);
+        int value = buffer.get((int) (position - bufferStart)) & 0xFF;
+        position++;
+        return value;
+    }
+
+    /**
+     * Read an unsigned big-endian value.
+     *
+     * @param bytes the number of bytes, at most 8
+     * @return the value
+     * @throws IOException
+     */
+    public long readUnsigned(int bytes) throws IOException {
+        if (bytes < 0 || bytes > 8) {
+            throw new IOException("Invalid value size " + bytes + " at " + position);
+        }
+        long value = 0;
+        for (int i = 0; i < bytes; i++) {
+            value = (value << 8) | readByte();
+        }
+        return value;
+    }
+
+    /**
+     * Read an unsigned little-endian value.
+     *
+     * @param bytes the number of bytes, at most 8
+     * @return the value
+     * @throws IOException
+     */
+    public long readUnsignedLE(int bytes) throws IOException {
+        if (bytes < 0 || bytes > 8) {
+            throw new IOException("Invalid value size " + bytes + " at " + position);
+        }
+        long value = 0;
+        for (int i = 0; i < bytes; i++) {
+            value |= ((long) readByte()) << (8 * i);
+        }
+        return value;
+    }
+
+    public int readInt() throws IOException {
+        return (int) readUnsigned(4);
+    }
+
+    public void readFully(byte[] bytes, int offset, int length) throws IOException {
+        int done = 0;
+        while (done < length) {
+            int chunk = Math.min(length - done, BUFFER_SIZE);
+            fill(chunk);
+            buffer.position((int) (position - bufferStart));
+            buffer.get(bytes, offset + done, chunk);
+            position += chunk;
+            done += chunk;
+        }
+    }
+
+    public byte[] readBytes(int length) throws IOException {
+        if (length < 0) {
+            throw new IOException("Invalid length " + length + " at " + position);
+        }
+        if (position + length > size) {
+            // don't allocate the bytes if they don't exist
+            throw new EOFException("End of file reached at " + size);
+        }
+        byte[] bytes = new byte[length];
+        readFully(bytes, 0, length);
+        return bytes;
+    }
+
+    /**
+     * Read a string and remove trailing zero bytes.
+     *
+     * @param length
+     * @param charset
+     * @return
+     * @throws IOException
+     */
+    public String readString(int length, Charset charset) throws IOException {
+        byte[] bytes = readBytes(length);
+        int end = length;
+        while (end > 0 && bytes[end - 1] == 0) {
+            end--;
+        }
+        return new String(bytes, 0, end, charset);
+    }
+
+    /**
+     * Read an EBML element ID; the length marker stays part of the ID.
+     *
+     * @return the element ID
+     * @throws IOException
+     */
+    public long readElementId() throws IOException {
+        int first = readByte();
+        int length = Integer.numberOfLeadingZeros(first) - 23;
+        if (length < 1 || length > 4) {
+            throw new IOException("Invalid EBML element ID at " + (position - 1));
+        }
+        long value = first;
+        for (int i = 1; i < length; i++) {
+            value = (value << 8) | readByte();
+        }
+        return value;
+    }
+
+    /**
+     * Read an EBML variable size integer; the length marker is removed.
+     *
+     * @return the value or -1 if the size is unknown
+     * @throws IOException
+     */
+    public long readVint() throws IOException {
+        int first = readByte();
+        int length = Integer.numberOfLeadingZeros(first) - 23;
+        if (length < 1 || length > 8) {
+            throw new IOException("Invalid EBML size at " + (position - 1));
+        }
+        long value = first & (0xFF >> length);
+        boolean unknown = (value == (0xFF >> length));
+        for (int i = 1; i < length; i++) {
+            int next = readByte();
+            unknown = unknown && next == 0xFF;
+            value = (value << 8) | next;
+        }
+        return unknown ? -1 : value;
+    }
+
+    /**
+     * Read the size of an EBML element and check that the element fits
+     * into its parent element and into the file.
+     *
+     * @param end the end of the parent element
+     * @return the size
+     * @throws IOException if the size is unknown or the element is too large
+     */
+    public long readElementSize(long end) throws IOException {
+        final long start = position;
+        final long elementSize = readVint();
+        if (elementSize < 0 || elementSize > Math.min(end, size) - position) {
+            throw new IOException("Invalid EBML element size " + elementSize + " at " + start);
+        }
+        return elementSize;
+    }
+
+    /**
+     * Read an EBML unsigned integer element.
+     *
+     * @param elementSize the size of the element
+     * @return the value
+     * @throws IOException if the size exceeds 8 bytes
+     */
+    public long readElementUnsigned(long elementSize) throws IOException {
+        if (elementSize > 8) {
+            throw new IOException("Invalid EBML integer size " + elementSize + " at " + position);
+        }
+        return readUnsigned((int) elementSize);
+    }
+
+    /**
+     * Read an EBML string element.
+     *
+     * @param elementSize the size of the element
+     * @param charset the charset of the string
+     * @return the string
+     * @throws IOException if the size exceeds the maximal string size
+     */
+    public String readElementString(long elementSize, Charset charset) throws IOException {
+        if (elementSize > MAX_ELEMENT_STRING) {
+            throw new IOException("Invalid EBML string size " + elementSize + " at " + position);
+        }
+        return readString((int) elementSize, charset);
+    }
+
+    /**
+     * Copy bytes from the current position directly to an output stream.
+     *
+     * @param length the number of bytes to copy
+     * @param out the output stream
+     * @throws IOException
+     */
+    public void transferTo(long length, OutputStream out) throws IOException {
+        if (position + length > size) {
+            throw new EOFException("End of file reached at " + size);
+        }
+        WritableByteChannel target = Channels.newChannel(out);
+        long done = 0;
+        while (done < length) {
+            long transferred = channel.transferTo(position + done, length - done, target);
+            if (transferred <= 0) {
+                throw new EOFException("End of file reached at " + (position + done));
+            }
+            done += transferred;
+        }
+        bytesRead += length;
+        position += length;
+    }
+
+    private void fill(int bytes) throws IOException {
+        if (position >= bufferStart && position + bytes <= bufferStart + buffer.limit()) {
+            return;
+        }
+        if (position + bytes > size) {
+            throw new EOFException("End of file reached at " + position);
+        }
+
+        buffer.clear();
+        bufferStart = position;
+        while (buffer.position() < bytes) {
+            int read = channel.read(buffer, bufferStart + buffer.position());
+            if (read < 0) {
+                break;
+            }
+            bytesRead += read;
+        }
+        buffer.flip();
+        if (buffer.limit() < bytes) {
+            throw new EOFException("End of file reached at " + position);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.service.mediainfo;
+
+import java.util.*;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Result of an in-process probe, using the section and field names of the
+ * MediaInfo output so that it can be processed like the MediaInfo output.
+ */
+final class ProbeResult {
+
+    static final String FORMAT = "Format";
+    static final String FORMAT_PROFILE = "Format profile";
+    static final String CODEC_ID = "Codec ID";
+    static final String DURATION = "Duration";
+    static final String OVERALL_BIT_RATE = "Overall bit rate";
+    static final String BIT_RATE = "Bit rate";
+    static final String WIDTH = "Width";
+    static final String HEIGHT = "Height";
+    static final String FRAME_RATE = "Frame rate";
+    static final String DISPLAY_ASPECT_RATIO = "Display aspect ratio";
+    static final String MULTIVIEW_COUNT = "MultiView_Count";
+    static final String CHANNELS = "Channel(s)";
+    static final String LANGUAGE = "Language";
+    static final String DEFAULT = "Default";
+    static final String FORCED = "Forced";
+
+    private final Map<String, String> general = new HashMap<>();
+    private final List<Map<String, String>> video = new ArrayList<>();
+    private final List<Map<String, String>> audio = new ArrayList<>();
+    private final List<Map<String, String>> text = new ArrayList<>();
+
+    Map<String, String> getGeneral() {
+        return general;
+    }
+
+    List<Map<String, String>> getVideo() {
+        return video;
+    }
+
+    List<Map<String, String>> getAudio() {
+        return audio;
+    }
+
+    List<Map<String, String>> getText() {
+        return text;
+    }
+
+    Map<String, String> addVideo() {
+        return add(video);
+    }
+
+    Map<String, String> addAudio() {
+        return add(audio);
+    }
+
+    Map<String, String> addText() {
+        return add(text);
+    }
+
+    private static Map<String, String> add(List<Map<String, String>> section) {
+        Map<String, String> infos = new HashMap<>();
+        section.add(infos);
+        return infos;
+    }
+
+    /**
+     * Set the duration and the overall bit rate of the file.
+     *
+     * @param durationMillis the duration in milliseconds
+     * @param fileSize the size of the file in bytes
+     */
+    void setDuration(double durationMillis, long fileSize) {
+        if (durationMillis > 0) {
+            general.put(DURATION, Long.toString(Math.round(durationMillis)));
+            general.put(OVERALL_BIT_RATE, Long.toString(Math.round(fileSize * 8000d / durationMillis)));
+        }
+    }
+
+    /**
+     * Check if the probe delivered the values of the main video stream.
+     *
+     * @return true if the result is usable
+     */
+    boolean isComplete() {
+        if (video.isEmpty()) {
+            return false;
+        }
+        Map<String, String> mainVideo = video.get(0);
+        return mainVideo.containsKey(WIDTH) && mainVideo.containsKey(HEIGHT) && mainVideo.containsKey(FORMAT);
+    }
+
+    static void put(Map<String, String> infos, String key, String value) {
+        if (StringUtils.isNotBlank(value)) {
+            infos.put(key, value);
+        }
+    }
+
+    static void put(Map<String, String> infos, String key, long value) {
+        if (value > 0) {
+            infos.put(key, Long.toString(value));
+        }
+    }
+
+    static void putDecimal(Map<String, String> infos, String key, double value) {
+        if (value > 0 && !Double.isInfinite(value) && !Double.isNaN(value)) {
+            infos.put(key, String.format(Locale.US, "%.3f", value));
+        }
+    }
+
+    static void putLanguage(Map<String, String> infos, String language) {
+        if (StringUtils.isNotBlank(language) && !"und".equalsIgnoreCase(language.trim())) {
+            infos.put(LANGUAGE, language.trim());
+        }
+    }
+
+    static void putAspectRatio(Map<String, String> infos, long width, long height) {
+        if (width > 0 && height > 0) {
+            putDecimal(infos, DISPLAY_ASPECT_RATIO, (double) width / height);
+        }
+    }
+}
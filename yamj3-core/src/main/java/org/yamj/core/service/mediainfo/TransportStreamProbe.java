@@ -0,0 +1,511 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.service.mediainfo;
+
+import static org.yamj.core.service.mediainfo.ProbeResult.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Reads the program tables, the first elementary stream headers and the
+ * first and last program clock references of a MPEG transport stream.
+ *
+ * Blu-ray streams with 192 byte packets are supported as well.
+ */
+final class TransportStreamProbe {
+
+    private static final int SYNC_BYTE = 0x47;
+    private static final int TS_PACKET_SIZE = 188;
+    private static final int M2TS_PACKET_SIZE = 192;
+    private static final int HEAD_LIMIT = 8 * 1024 * 1024;
+    private static final int TAIL_LIMIT = 2 * 1024 * 1024;
+    private static final int PES_LIMIT = 64 * 1024;
+    private static final int PES_STEP = 4 * 1024;
+    private static final long PCR_WRAP = (1L << 33) * 300;
+    private static final int[] LPCM_CHANNELS = {0, 1, 0, 2, 3, 3, 4, 4, 5, 6, 7, 8};
+    private static final int[] AAC_CHANNELS = {0, 1, 2, 3, 4, 5, 6, 8};
+    private static final int VIDEO = 1;
+    private static final int AUDIO = 2;
+    private static final int TEXT = 3;
+
+    private final ProbeInput input;
+    private final ProbeResult result;
+    private final int packetSize;
+    private final byte[] packet;
+    private final Map<Integer, Stream> streams = new LinkedHashMap<>();
+    private int pmtPid = -1;
+    private int pcrPid = -1;
+    private boolean multiView = false;
+
+    private TransportStreamProbe(ProbeInput input, ProbeResult result, int packetSize) {
+        this.input = input;
+        this.result = result;
+        this.packetSize = packetSize;
+        this.packet = new byte[packetSize];
+    }
+
+    /**
+     * Get the packet size of a transport stream.
+     *
+     * @param header the first bytes of the file
+     * @return the packet size or -1 if the header is not a transport stream
+     */
+    static int getPacketSize(byte[] header) {
+        if (header.length > TS_PACKET_SIZE && (header[0] & 0xFF) == SYNC_BYTE && (header[TS_PACKET_SIZE] & 0xFF) == SYNC_BYTE) {
+            return TS_PACKET_SIZE;
+        }
+        if (header.length > M2TS_PACKET_SIZE + 4 && (header[4] & 0xFF) == SYNC_BYTE && (header[M2TS_PACKET_SIZE + 4] & 0xFF) == SYNC_BYTE) {
+            return M2TS_PACKET_SIZE;
+        }
+        return -1;
+    }
+
+    static void probe(ProbeInput input, ProbeResult result, int packetSize) throws IOException {
+        new TransportStreamProbe(input, result, packetSize).parse();
+    }
+
+    private void parse() throws IOException {
+        result.getGeneral().put(FORMAT, packetSize == M2TS_PACKET_SIZE ? "BDAV" : "MPEG-TS");
+
+        long firstPcr = -1;
+        input.seek(0);
+        final long headEnd = Math.min(input.size(), HEAD_LIMIT);
+        while (input.position() + packetSize <= headEnd) {
+            input.readFully(packet, 0, packetSize);
+            final int offset = packetSize - TS_PACKET_SIZE;
+            if ((packet[offset] & 0xFF) != SYNC_BYTE) {
+                return;
+            }
+            final int pid = getPid(offset);
+            if (firstPcr < 0 && pid == pcrPid) {
+                firstPcr = getPcr(offset);
+            }
+            handlePacket(offset, pid);
+            if (firstPcr >= 0 && isDone()) {
+                break;
+            }
+        }
+
+        for (Stream stream : streams.values()) {
+            stream.finish();
+            if (stream.kind == VIDEO) {
+                result.getVideo().add(stream.infos);
+            } else if (stream.kind == AUDIO) {
+                result.getAudio().add(stream.infos);
+            } else {
+                result.getText().add(stream.infos);
+            }
+        }
+        if (multiView && !result.getVideo().isEmpty()) {
+            result.getVideo().get(0).put(MULTIVIEW_COUNT, "2");
+        }
+
+        if (firstPcr >= 0) {
+            long lastPcr = findLastPcr();
+            if (lastPcr >= 0) {
+                if (lastPcr < firstPcr) {
+                    lastPcr += PCR_WRAP;
+                }
+                result.setDuration((lastPcr - firstPcr) / 27000d, input.size());
+            }
+        }
+    }
+
+    private boolean isDone() {
+        if (streams.isEmpty()) {
+            return false;
+        }
+        for (Stream stream : streams.values()) {
+            if (!stream.done) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long findLastPcr() throws IOException {
+        long start = Math.max(0, input.size() - TAIL_LIMIT);
+        start -= start % packetSize;
+        final int offset = packetSize - TS_PACKET_SIZE;
+
+        long lastPcr = -1;
+        input.seek(start);
+        while (input.position() + packetSize <= input.size()) {
+            input.readFully(packet, 0, packetSize);
+            if ((packet[offset] & 0xFF) != SYNC_BYTE) {
+                // the tail is not aligned to the packets
+                return -1;
+            }
+            if (getPid(offset) == pcrPid) {
+                long pcr = getPcr(offset);
+                if (pcr >= 0) {
+                    lastPcr = pcr;
+                }
+            }
+        }
+        return lastPcr;
+    }
+
+    private int getPid(int offset) {
+        return ((packet[offset + 1] & 0x1F) << 8) | (packet[offset + 2] & 0xFF);
+    }
+
+    private long getPcr(int offset) {
+        final int adaptation = (packet[offset + 3] & 0x30) >> 4;
+        if ((adaptation & 2) == 0 || (packet[offset + 4] & 0xFF) < 7 || (packet[offset + 5] & 0x10) == 0) {
+            return -1;
+        }
+        final int p = offset + 6;
+        final long base = ((packet[p] & 0xFFL) << 25) | ((packet[p + 1] & 0xFFL) << 17) | ((packet[p + 2] & 0xFFL) << 9)
+                | ((packet[p + 3] & 0xFFL) << 1) | ((packet[p + 4] & 0x80L) >> 7);
+        final long extension = ((packet[p + 4] & 0x01L) << 8) | (packet[p + 5] & 0xFFL);
+        return base * 300 + extension;
+    }
+
+    private void handlePacket(int offset, int pid) {
+        final boolean unitStart = (packet[offset + 1] & 0x40) != 0;
+        final int adaptation = (packet[offset + 3] & 0x30) >> 4;
+        if ((adaptation & 1) == 0) {
+            return;
+        }
+        int payload = offset + 4;
+        if ((adaptation & 2) != 0) {
+            payload += 1 + (packet[offset + 4] & 0xFF);
+        }
+        if (payload >= packet.length) {
+            return;
+        }
+
+        if (pid == 0 && unitStart && pmtPid < 0) {
+            parsePat(payload);
+        } else if (pid == pmtPid && unitStart && streams.isEmpty()) {
+            parsePmt(payload);
+        } else {
+            Stream stream = streams.get(pid);
+            if (stream != null && !stream.done) {
+                stream.append(packet, payload, packet.length - payload, unitStart);
+            }
+        }
+    }
+
+    private int getSectionStart(int payload) {
+        final int start = payload + 1 + (packet[payload] & 0xFF);
+        if (start + 3 > packet.length) {
+            return -1;
+        }
+        final int sectionLength = ((packet[start + 1] & 0x0F) << 8) | (packet[start + 2] & 0xFF);
+        return (start + 3 + sectionLength <= packet.length) ? start : -1;
+    }
+
+    private void parsePat(int payload) {
+        final int start = getSectionStart(payload);
+        if (start < 0 || packet[start] != 0x00) {
+            return;
+        }
+        final int end = start + 3 + (((packet[start + 1] & 0x0F) << 8) | (packet[start + 2] & 0xFF)) - 4;
+        for (int i = start + 8; i + 4 <= end; i += 4) {
+            final int program = ((packet[i] & 0xFF) << 8) | (packet[i + 1] & 0xFF);
+            if (program != 0) {
+                pmtPid = ((packet[i + 2] & 0x1F) << 8) | (packet[i + 3] & 0xFF);
+                return;
+            }
+        }
+    }
+
+    private void parsePmt(int payload) {
+        final int start = getSectionStart(payload);
+        if (start < 0 || packet[start] != 0x02) {
+            return;
+        }
+        final int end = start + 3 + (((packet[start + 1] & 0x0F) << 8) | (packet[start + 2] & 0xFF)) - 4;
+        pcrPid = ((packet[start + 8] & 0x1F) << 8) | (packet[start + 9] & 0xFF);
+        final int programInfoLength = ((packet[start + 10] & 0x0F) << 8) | (packet[start + 11] & 0xFF);
+
+        int i = start + 12 + programInfoLength;
+        while (i + 5 <= end) {
+            final int streamType = packet[i] & 0xFF;
+            final int pid = ((packet[i + 1] & 0x1F) << 8) | (packet[i + 2] & 0xFF);
+            final int infoLength = ((packet[i + 3] & 0x0F) << 8) | (packet[i + 4] & 0xFF);
+            addStream(streamType, pid, i + 5, Math.min(end, i + 5 + infoLength));
+            i += 5 + infoLength;
+        }
+    }
+
+    private void addStream(int streamType, int pid, int descriptorStart, int descriptorEnd) {
+        String language = null;
+        String descriptorFormat = null;
+        boolean dvbSubtitle = false;
+        for (int d = descriptorStart; d + 2 <= descriptorEnd; d += 2 + (packet[d + 1] & 0xFF)) {
+            final int tag = packet[d] & 0xFF;
+            final int length = packet[d + 1] & 0xFF;
+            if (d + 2 + length > descriptorEnd) {
+                break;
+            }
+            if ((tag == 0x0A || tag == 0x59) && length >= 3) {
+                language = new String(packet, d + 2, 3, StandardCharsets.ISO_8859_1);
+                dvbSubtitle = dvbSubtitle || (tag == 0x59);
+            } else if (tag == 0x6A) {
+                descriptorFormat = "AC-3";
+            } else if (tag == 0x7A) {
+                descriptorFormat = "E-AC-3";
+            } else if (tag == 0x7B) {
+                descriptorFormat = "DTS";
+            } else if (tag == 0x05 && length >= 4) {
+                String registration = new String(packet, d + 2, 4, StandardCharsets.ISO_8859_1);
+                if ("AC-3".equals(registration)) {
+                    descriptorFormat = "AC-3";
+                } else if (registration.startsWith("DTS")) {
+                    descriptorFormat = "DTS";
+                }
+            }
+        }
+
+        final int kind;
+        final String format;
+        switch (streamType) {
+            case 0x01:
+            case 0x02:
+                kind = VIDEO;
+                format = ProbeCodecs.MPEG_VIDEO;
+                break;
+            case 0x10:
+                kind = VIDEO;
+                format = "MPEG-4 Visual";
+                break;
+            case 0x1B:
+                kind = VIDEO;
+                format = ProbeCodecs.AVC;
+                break;
+            case 0x24:
+                kind = VIDEO;
+                format = "HEVC";
+                break;
+            case 0xEA:
+                kind = VIDEO;
+                format = "VC-1";
+                break;
+            case 0x20:
+                // MVC dependent view of a 3D stream
+                multiView = true;
+                return;
+            case 0x03:
+            case 0x04:
+                kind = AUDIO;
+                format = "MPEG Audio";
+                break;
+            case 0x0F:
+            case 0x11:
+                kind = AUDIO;
+                format = "AAC";
+                break;
+            case 0x80:
+                kind = AUDIO;
+                format = "PCM";
+                break;
+            case 0x81:
+                kind = AUDIO;
+                format = "AC-3";
+                break;
+            case 0x84:
+            case 0x87:
+            case 0xA1:
+                kind = AUDIO;
+                format = "E-AC-3";
+                break;
+            case 0x82:
+            case 0x85:
+            case 0x86:
+            case 0xA2:
+                kind = AUDIO;
+                format = "DTS";
+                break;
+            case 0x83:
+                kind = AUDIO;
+                format = "MLP FBA";
+                break;
+            case 0x90:
+                kind = TEXT;
+                format = "PGS";
+                break;
+            case 0x06:
+                if (descriptorFormat != null) {
+                    kind = AUDIO;
+                    format = descriptorFormat;
+                } else if (dvbSubtitle) {
+                    kind = TEXT;
+                    format = "DVB Subtitle";
+                } else {
+                    return;
+                }
+                break;
+            default:
+                return;
+        }
+
+        Stream stream = new Stream(kind, format);
+        stream.infos.put(FORMAT, format);
+        stream.infos.put(CODEC_ID, Integer.toString(streamType));
+        if (kind != VIDEO) {
+            putLanguage(stream.infos, language);
+        }
+        // only the headers of these streams are parsed
+        stream.done = (kind == TEXT) || "MLP FBA".equals(format)
+                || (kind == VIDEO && !ProbeCodecs.AVC.equals(format) && !ProbeCodecs.MPEG_VIDEO.equals(format));
+        streams.put(pid, stream);
+    }
+
+    private static int indexOf(byte[] data, int length, int from, int... pattern) {
+        outer:
+        for (int i = from; i + pattern.length <= length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if ((data[i + j] & 0xFF) != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static final class Stream {
+
+        private final int kind;
+        private final String format;
+        private final Map<String, String> infos = new HashMap<>();
+        private final byte[] data = new byte[PES_LIMIT];
+        private int length = 0;
+        private boolean started = false;
+        private boolean done = false;
+
+        Stream(int kind, String format) {
+            this.kind = kind;
+            this.format = format;
+        }
+
+        void append(byte[] packet, int offset, int count, boolean unitStart) {
+            int from = offset;
+            int size = count;
+            if (unitStart) {
+                if (started) {
+                    // the previous PES packet is complete
+                    done = parse();
+                    if (done) {
+                        return;
+                    }
+                }
+                // skip the PES header
+                if (size < 9 || packet[from] != 0 || packet[from + 1] != 0 || packet[from + 2] != 1) {
+                    return;
+                }
+                final int headerLength = 9 + (packet[from + 8] & 0xFF);
+                from += headerLength;
+                size -= headerLength;
+                started = true;
+                length = 0;
+            }
+            if (!started || size <= 0) {
+                return;
+            }
+
+            final int copy = Math.min(size, data.length - length);
+            System.arraycopy(packet, from, data, length, copy);
+            final int before = length;
+            length += copy;
+            if (length == data.length || (before / PES_STEP) != (length / PES_STEP)) {
+                done = parse() || length == data.length;
+            }
+        }
+
+        void finish() {
+            if (started && !done) {
+                done = parse();
+            }
+        }
+
+        private boolean parse() {
+            switch (format) {
+                case ProbeCodecs.AVC:
+                    return parseAvc();
+                case ProbeCodecs.MPEG_VIDEO:
+                    int sequence = indexOf(data, length, 0, 0x00, 0x00, 0x01, 0xB3);
+                    return sequence >= 0 && ProbeCodecs.parseMpegSequenceHeader(Arrays.copyOf(data, length), sequence + 4, infos);
+                case "AC-3":
+                case "E-AC-3":
+                    int ac3 = indexOf(data, length, 0, 0x0B, 0x77);
+                    return ac3 >= 0 && putChannels(ProbeCodecs.ac3Channels(Arrays.copyOf(data, length), ac3));
+                case "DTS":
+                    int dts = indexOf(data, length, 0, 0x7F, 0xFE, 0x80, 0x01);
+                    return dts >= 0 && putChannels(ProbeCodecs.dtsChannels(Arrays.copyOf(data, length), dts));
+                case "PCM":
+                    // Blu-ray LPCM header: size, channel assignment and sampling frequency
+                    int assignment = length >= 4 ? (data[2] & 0xF0) >> 4 : 0;
+                    return assignment < LPCM_CHANNELS.length && putChannels(LPCM_CHANNELS[assignment]);
+                case "AAC":
+                    int adts = findFrameSync(0xF6, 0xF0);
+                    return adts >= 0 && putChannels(AAC_CHANNELS[((data[adts + 2] & 0x01) << 2) | ((data[adts + 3] & 0xC0) >> 6)]);
+                case "MPEG Audio":
+                    int sync = findFrameSync(0xE0, 0xE0);
+                    return sync >= 0 && putChannels(((data[sync + 3] & 0xC0) >> 6) == 3 ? 1 : 2);
+                default:
+                    return true;
+            }
+        }
+
+        private int findFrameSync(int mask, int value) {
+            for (int i = 0; i + 4 <= length; i++) {
+                if ((data[i] & 0xFF) == 0xFF && (data[i + 1] & mask) == value) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private boolean parseAvc() {
+            int start = indexOf(data, length, 0, 0x00, 0x00, 0x01);
+            while (start >= 0) {
+                final int nal = start + 3;
+                final int next = indexOf(data, length, nal, 0x00, 0x00, 0x01);
+                if (nal < length && (data[nal] & 0x1F) == 7) {
+                    if (next < 0 && length < data.length) {
+                        // SPS not complete yet
+                        return false;
+                    }
+                    final int end = (next < 0) ? length : next;
+                    return ProbeCodecs.parseAvcSps(Arrays.copyOfRange(data, nal, end), infos);
+                }
+                start = next;
+            }
+            return false;
+        }
+
+        private boolean putChannels(int channels) {
+            if (channels <= 0) {
+                return false;
+            }
+            infos.put(CHANNELS, Integer.toString(channels));
+            return true;
+        }
+    }
+}
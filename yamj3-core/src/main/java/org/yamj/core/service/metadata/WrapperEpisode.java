@@ -23,6 +23,7 @@
 package org.yamj.core.service.metadata;
 
 import java.util.Date;
+import java.util.Map;
 import org.apache.commons.lang3.StringUtils;
 import org.yamj.core.config.LocaleService;
 import org.yamj.core.database.model.VideoData;
@@ -61,6 +62,10 @@ public class WrapperEpisode implements IEpisode {
         return videoData.getSourceDbId(source);
     }
 
+    public Map<String, String> getIds() {
+        return videoData.getIdMap();
+    }
+
     @Override
     public void addId(String source, String id) {
         if (getScannerName().equalsIgnoreCase(source)) { 
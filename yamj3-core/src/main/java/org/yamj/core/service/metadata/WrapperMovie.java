@@ -56,6 +56,10 @@ public class WrapperMovie implements IMovie {
         return videoData.getSourceDbId(source);
     }
 
+    public Map<String, String> getIds() {
+        return videoData.getIdMap();
+    }
+
     @Override
     public void addId(String source, String id) {
         if (scannerName.equalsIgnoreCase(source)) { 
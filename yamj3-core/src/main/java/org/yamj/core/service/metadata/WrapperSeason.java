@@ -25,6 +25,7 @@ package org.yamj.core.service.metadata;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import org.apache.commons.lang3.StringUtils;
 import org.yamj.core.config.LocaleService;
 import org.yamj.core.database.model.Season;
@@ -64,6 +65,10 @@ public class WrapperSeason implements ISeason {
         return season.getSourceDbId(source);
     }
 
+    public Map<String, String> getIds() {
+        return season.getIdMap();
+    }
+
     @Override
     public void addId(String source, String id) {
         if (getScannerName().equalsIgnoreCase(source)) { 
@@ -61,6 +61,10 @@ public class WrapperSeries implements ISeries {
         return series.getSourceDbId(source);
     }
 
+    public Map<String, String> getIds() {
+        return series.getIdMap();
+    }
+
     @Override
     public void addId(String source, String id) {
         if (scannerName.equalsIgnoreCase(source)) { 
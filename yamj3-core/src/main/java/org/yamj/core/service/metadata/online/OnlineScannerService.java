@@ -23,6 +23,11 @@
 package org.yamj.core.service.metadata.online;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -60,6 +65,7 @@ public class OnlineScannerService implements PluginMetadataService {
     private final HashMap<String, PluginSeriesScanner> registeredSeriesScanner = new HashMap<>();
     private final HashMap<String, PluginPersonScanner> registeredPersonScanner = new HashMap<>();
     private final HashMap<String, PluginFilmographyScanner> registeredFilmographyScanner = new HashMap<>();
+    private final ExecutorService scanExecutor = Executors.newFixedThreadPool(Math.max(1, PropertyTools.getIntProperty("yamj3.sourcedb.scanner.parallel.maxThreads", 8)));
 
     @Autowired
     private ConfigServiceWrapper configServiceWrapper;
@@ -94,10 +100,25 @@ public class OnlineScannerService implements PluginMetadataService {
         }
     }
     
+    @PreDestroy
+    public void destroy() {
+        scanExecutor.shutdownNow();
+    }
+    
     private boolean throwTempUnavailableError() {
         return configServiceWrapper.getBooleanProperty("yamj3.error.throwTempUnavailableError", true);
     }
 
+    private long getScanTimeout() {
+        return 1000L * configServiceWrapper.getIntProperty("yamj3.sourcedb.scanner.parallel.timeout", 60);
+    }
+
+    private static void cancelScans(Map<String, RecordedScan> recordedScans) {
+        for (RecordedScan recordedScan : recordedScans.values()) {
+            recordedScan.cancel();
+        }
+    }
+
     /**
      * Scan a movie.
      * 
@@ -115,53 +136,76 @@ public class OnlineScannerService implements PluginMetadataService {
         final boolean useAlternate = this.configServiceWrapper.getBooleanProperty("yamj3.sourcedb.scanner.movie.alternate.always", false);
         final WrapperMovie wrapper = new WrapperMovie(videoData, localeService, identifierService);
         ScanResult scanResult = null;
+
+        // start concurrent scans of all sources if requested
+        final long timeout = this.getScanTimeout();
+        final Map<String, RecordedScan> recordedScans;
+        if (this.configServiceWrapper.getBooleanProperty("yamj3.sourcedb.scanner.movie.parallel", false)) {
+            recordedScans = this.startMovieScans(videoData, wrapper, throwTempError);
+        } else {
+            recordedScans = Collections.emptyMap();
+        }
                         
-        for (String scanner : MOVIE_SCANNER) {
-            // holds the inner scan result
-            ScanResult innerResult = ScanResult.NO_RESULT;
+        try {
+            for (String scanner : MOVIE_SCANNER) {
+                // holds the inner scan result
+                ScanResult innerResult = ScanResult.NO_RESULT;
             
-            PluginMovieScanner movieScanner = registeredMovieScanner.get(scanner);
-            if (movieScanner == null) {
-                LOG.warn("Movie scanner {} not registered", scanner);
-            } else {
-                // scan video data
-                try {
-                    if (videoData.isSkippedScan(movieScanner.getScannerName())) {
-                        LOG.info("Movie scan skipped for '{}' using {}", videoData.getTitle(), movieScanner.getScannerName());
-                        innerResult = ScanResult.SKIPPED;
-                    } else {
-                        LOG.info("Scanning movie data for '{}' using {}", videoData.getTitle(), movieScanner.getScannerName());
-                        innerResult = movieScanner.scanMovie(wrapper, throwTempError);
-                    }
-                } catch (TemporaryUnavailableException ex) {
-                    // check retry
-                    if (scanResult == null && videoData.getRetries() < configServiceWrapper.getIntProperty("yamj3.error.maxRetries.movie", 0)) {
-                        LOG.info(TEMP_UNAVAILABLE_ERROR, movieScanner.getScannerName(), videoData.getIdentifier());
-                        innerResult = ScanResult.RETRY;
-                    } else {
-                        LOG.error("Temporary scanning error for movie '{}' with {} scanner", videoData.getIdentifier(), movieScanner.getScannerName());
+                PluginMovieScanner movieScanner = registeredMovieScanner.get(scanner);
+                if (movieScanner == null) {
+                    LOG.warn("Movie scanner {} not registered", scanner);
+                } else {
+                    // scan video data
+                    try {
+                        if (videoData.isSkippedScan(movieScanner.getScannerName())) {
+                            LOG.info("Movie scan skipped for '{}' using {}", videoData.getTitle(), movieScanner.getScannerName());
+                            innerResult = ScanResult.SKIPPED;
+                        } else {
+                            LOG.info("Scanning movie data for '{}' using {}", videoData.getTitle(), movieScanner.getScannerName());
+                            RecordedScan recordedScan = recordedScans.get(scanner);
+                            if (recordedScan == null) {
+                                innerResult = movieScanner.scanMovie(wrapper, throwTempError);
+                            } else {
+                                wrapper.setScanner(movieScanner.getMovieScanner());
+                                innerResult = recordedScan.await(timeout);
+                                if (ScanResult.NO_RESULT.equals(innerResult)) {
+                                    LOG.error("Can't find {} informations for movie '{}'", movieScanner.getScannerName(), videoData.getTitle());
+                                }
+                            }
+                        }
+                    } catch (TemporaryUnavailableException ex) {
+                        // check retry
+                        if (scanResult == null && videoData.getRetries() < configServiceWrapper.getIntProperty("yamj3.error.maxRetries.movie", 0)) {
+                            LOG.info(TEMP_UNAVAILABLE_ERROR, movieScanner.getScannerName(), videoData.getIdentifier());
+                            innerResult = ScanResult.RETRY;
+                        } else {
+                            LOG.error("Temporary scanning error for movie '{}' with {} scanner", videoData.getIdentifier(), movieScanner.getScannerName());
+                            LOG.warn(SCANNING_ERROR, ex);
+                        }
+                    } catch (Exception ex) {
+                        LOG.error("Failed scanning movie '{}' with {} scanner", videoData.getIdentifier(), movieScanner.getScannerName());
                         LOG.warn(SCANNING_ERROR, ex);
                     }
-                } catch (Exception ex) {
-                    LOG.error("Failed scanning movie '{}' with {} scanner", videoData.getIdentifier(), movieScanner.getScannerName());
-                    LOG.warn(SCANNING_ERROR, ex);
                 }
-            }
 
-            if (ScanResult.OK.equals(innerResult)) {
-                // scanned OK
-                scanResult = ScanResult.OK;
-                // no alternate scanning then break the loop
-                if (!useAlternate) {
-                    break;
+                if (ScanResult.OK.equals(innerResult)) {
+                    // scanned OK
+                    scanResult = ScanResult.OK;
+                    // no alternate scanning then break the loop
+                    if (!useAlternate) {
+                        break;
+                    }
+                } else if (ScanResult.SKIPPED.equals(innerResult)) {
+                    // change nothing if scan skipped and force next scan
+                } else {
+                    // just set scan result to inner result if no scan result before
+                    scanResult = scanResult == null ? innerResult : scanResult;
                 }
-            } else if (ScanResult.SKIPPED.equals(innerResult)) {
-                // change nothing if scan skipped and force next scan
-            } else {
-                // just set scan result to inner result if no scan result before
-                scanResult = scanResult == null ? innerResult : scanResult;
-            }
-        }       
+            }       
+        } finally {
+            // never leave running scans behind, even if the loop fails
+            cancelScans(recordedScans);
+        }
         
         // evaluate scan result
         if (ScanResult.OK.equals(scanResult)) {
@@ -203,51 +247,74 @@ public class OnlineScannerService implements PluginMetadataService {
         final WrapperSeries wrapper = new WrapperSeries(series, localeService, identifierService);
         ScanResult scanResult = null;
 
-       for (String scanner : SERIES_SCANNER) {
-            // holds the inner scan result
-            ScanResult innerResult = ScanResult.NO_RESULT;
+        // start concurrent scans of all sources if requested
+        final long timeout = this.getScanTimeout();
+        final Map<String, RecordedScan> recordedScans;
+        if (this.configServiceWrapper.getBooleanProperty("yamj3.sourcedb.scanner.series.parallel", false)) {
+            recordedScans = this.startSeriesScans(series, wrapper, throwTempError);
+        } else {
+            recordedScans = Collections.emptyMap();
+        }
+
+        try {
+            for (String scanner : SERIES_SCANNER) {
+                // holds the inner scan result
+                ScanResult innerResult = ScanResult.NO_RESULT;
             
-            PluginSeriesScanner seriesScanner = registeredSeriesScanner.get(scanner);
-            if (seriesScanner == null) {
-                LOG.warn("Series scanner {} not registered", scanner);
-            } else {
-                // scan series
-                try {
-                    if (series.isSkippedScan(seriesScanner.getScannerName())) {
-                        LOG.info("Series scan skipped for '{}' using {}", series.getTitle(), seriesScanner.getScannerName());
-                        innerResult = ScanResult.SKIPPED;
-                    } else {
-                        LOG.info("Scanning series data for '{}' using {}", series.getTitle(), seriesScanner.getScannerName());
-                        innerResult = seriesScanner.scanSeries(wrapper, throwTempError);
-                    }
-                } catch (TemporaryUnavailableException ex) {
-                    // check retry
-                    if (scanResult == null && series.getRetries() < configServiceWrapper.getIntProperty("yamj3.error.maxRetries.tvshow", 0)) {
-                        LOG.info(TEMP_UNAVAILABLE_ERROR, seriesScanner.getScannerName(), series.getIdentifier());
-                        innerResult = ScanResult.RETRY;
-                    } else {
-                        LOG.error("Temporary scanning error for series '{}' with {} scanner", series.getIdentifier(), seriesScanner.getScannerName());
-                        LOG.warn(SCANNING_ERROR, ex);
+                PluginSeriesScanner seriesScanner = registeredSeriesScanner.get(scanner);
+                if (seriesScanner == null) {
+                    LOG.warn("Series scanner {} not registered", scanner);
+                } else {
+                    // scan series
+                    try {
+                        if (series.isSkippedScan(seriesScanner.getScannerName())) {
+                            LOG.info("Series scan skipped for '{}' using {}", series.getTitle(), seriesScanner.getScannerName());
+                            innerResult = ScanResult.SKIPPED;
+                        } else {
+                            LOG.info("Scanning series data for '{}' using {}", series.getTitle(), seriesScanner.getScannerName());
+                            RecordedScan recordedScan = recordedScans.get(scanner);
+                            if (recordedScan == null) {
+                                innerResult = seriesScanner.scanSeries(wrapper, throwTempError);
+                            } else {
+                                wrapper.setScanner(seriesScanner.getSeriesScanner());
+                                innerResult = recordedScan.await(timeout);
+                                if (ScanResult.NO_RESULT.equals(innerResult)) {
+                                    LOG.error("Can't find {} informations for series '{}'", seriesScanner.getScannerName(), series.getTitle());
+                                }
+                            }
+                        }
+                    } catch (TemporaryUnavailableException ex) {
+                        // check retry
+                        if (scanResult == null && series.getRetries() < configServiceWrapper.getIntProperty("yamj3.error.maxRetries.tvshow", 0)) {
+                            LOG.info(TEMP_UNAVAILABLE_ERROR, seriesScanner.getScannerName(), series.getIdentifier());
+                            innerResult = ScanResult.RETRY;
+                        } else {
+                            LOG.error("Temporary scanning error for series '{}' with {} scanner", series.getIdentifier(), seriesScanner.getScannerName());
+                            LOG.warn(SCANNING_ERROR, ex);
+                        }
+                    } catch (Exception error) {
+                        LOG.error("Failed scanning series '{}' with {} scanner", series.getIdentifier(), seriesScanner.getScannerName());
+                        LOG.warn(SCANNING_ERROR, error);
                     }
-                } catch (Exception error) {
-                    LOG.error("Failed scanning series '{}' with {} scanner", series.getIdentifier(), seriesScanner.getScannerName());
-                    LOG.warn(SCANNING_ERROR, error);
                 }
-            }
             
-            if (ScanResult.OK.equals(innerResult)) {
-                // scanned OK
-                scanResult = ScanResult.OK;
-                // no alternate scanning then break the loop
-                if (!useAlternate) {
-                    break;
+                if (ScanResult.OK.equals(innerResult)) {
+                    // scanned OK
+                    scanResult = ScanResult.OK;
+                    // no alternate scanning then break the loop
+                    if (!useAlternate) {
+                        break;
+                    }
+                } else if (ScanResult.SKIPPED.equals(innerResult)) {
+                    // change nothing if scan skipped and force next scan
+                } else {
+                    // just set scan result to inner result if no scan result before
+                    scanResult = scanResult == null ? innerResult : scanResult;
                 }
-            } else if (ScanResult.SKIPPED.equals(innerResult)) {
-                // change nothing if scan skipped and force next scan
-            } else {
-                // just set scan result to inner result if no scan result before
-                scanResult = scanResult == null ? innerResult : scanResult;
             }
+        } finally {
+            // never leave running scans behind, even if the loop fails
+            cancelScans(recordedScans);
         }
 
         // evaluate scan result
@@ -272,6 +339,60 @@ public class OnlineScannerService implements PluginMetadataService {
         }
     }
     
+    private Map<String, RecordedScan> startMovieScans(VideoData videoData, WrapperMovie wrapper, final boolean throwTempError) {
+        Map<String, RecordedScan> recordedScans = new HashMap<>();
+        try {
+            for (String scanner : MOVIE_SCANNER) {
+                final PluginMovieScanner movieScanner = registeredMovieScanner.get(scanner);
+                if (movieScanner != null && !videoData.isSkippedScan(movieScanner.getScannerName())) {
+                    final RecordedScan recordedScan = new RecordedScan(movieScanner.getScannerName());
+                    final IMovie movie = recordedScan.record(wrapper);
+                    recordedScan.start(scanExecutor, new Callable<Future<Boolean>>() {
+                        @Override
+                        public Future<Boolean> call() throws Exception {
+                            // a blocking scanner runs in this task, an asynchronous one on its own
+                            return movieScanner.startScan(movie, throwTempError, null);
+                        }
+                    });
+                    recordedScans.put(scanner, recordedScan);
+                }
+            }
+        } catch (RuntimeException ex) {
+            // a scan which could not be started must not leave the others running
+            cancelScans(recordedScans);
+            throw ex;
+        }
+        return recordedScans;
+    }
+
+    private Map<String, RecordedScan> startSeriesScans(Series series, WrapperSeries wrapper, final boolean throwTempError) {
+        Map<String, RecordedScan> recordedScans = new HashMap<>();
+        try {
+            for (String scanner : SERIES_SCANNER) {
+                final PluginSeriesScanner seriesScanner = registeredSeriesScanner.get(scanner);
+                if (seriesScanner != null && !series.isSkippedScan(seriesScanner.getScannerName())) {
+                    final RecordedScan recordedScan = new RecordedScan(seriesScanner.getScannerName());
+                    // the snapshot of the done states depends on the actual scanner
+                    wrapper.setScanner(seriesScanner.getSeriesScanner());
+                    final ISeries proxy = recordedScan.record(wrapper);
+                    recordedScan.start(scanExecutor, new Callable<Future<Boolean>>() {
+                        @Override
+                        public Future<Boolean> call() throws Exception {
+                            // a blocking scanner runs in this task, an asynchronous one on its own
+                            return seriesScanner.startScan(proxy, throwTempError, null);
+                        }
+                    });
+                    recordedScans.put(scanner, recordedScan);
+                }
+            }
+        } catch (RuntimeException ex) {
+            // a scan which could not be started must not leave the others running
+            cancelScans(recordedScans);
+            throw ex;
+        }
+        return recordedScans;
+    }
+
     private static void skipSeries(Series series) {
         series.setRetries(0);
         series.setStatus(StatusType.DONE);
@@ -22,12 +22,16 @@
  */
 package org.yamj.core.service.metadata.online;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.yamj.core.service.metadata.WrapperMovie;
 import org.yamj.plugin.api.metadata.MovieScanner;
 import org.yamj.plugin.api.metadata.NfoScanner;
+import org.yamj.plugin.api.model.IMovie;
 import org.yamj.plugin.api.model.IdMap;
+import org.yamj.plugin.api.tools.AsyncScannerTools;
 
 public class PluginMovieScanner implements NfoScanner {
 
@@ -51,16 +55,37 @@ public class PluginMovieScanner implements NfoScanner {
         // set actual scanner
         wrapper.setScanner(movieScanner);
 
+        final Future<Boolean> future = startScan(wrapper, throwTempError, null);
+        if (future == null) {
+            return ScanResult.MISSING_ID;
+        }
+        return getScanResult(AsyncScannerTools.getResult(future), wrapper);
+    }
+
+    /**
+     * Start the scan of the movie without setting the actual scanner.
+     * 
+     * Used for concurrent scanning where the movie is a recording
+     * proxy that is replayed to the wrapper later on. A blocking scanner
+     * runs on the given executor or in the calling thread if no executor
+     * is given; an asynchronous scanner runs on its own.
+     * 
+     * @return the future of the scan or null if no valid id is available
+     */
+    Future<Boolean> startScan(IMovie movie, boolean throwTempError, Executor executor) {
         // get the movie id
-        String movieId = movieScanner.getMovieId(wrapper, throwTempError);
+        String movieId = movieScanner.getMovieId(movie, throwTempError);
         if (!movieScanner.isValidMovieId(movieId)) {
-            LOG.debug("{} id not available '{}'", getScannerName(), wrapper.getTitle());
-            return ScanResult.MISSING_ID;
+            LOG.debug("{} id not available '{}'", getScannerName(), movie.getTitle());
+            return null;
         }
         
-        final boolean scanned = movieScanner.scanMovie(wrapper, throwTempError);
-        if (!scanned) {
-            LOG.error("Can't find {} informations for movie '{}'", getScannerName(), wrapper.getTitle());
+        return AsyncScannerTools.scanMovie(movieScanner, movie, throwTempError, executor);
+    }
+
+    ScanResult getScanResult(Boolean scanned, IMovie movie) {
+        if (!Boolean.TRUE.equals(scanned)) {
+            LOG.error("Can't find {} informations for movie '{}'", getScannerName(), movie.getTitle());
             return ScanResult.NO_RESULT;
         }
         
@@ -27,6 +27,7 @@ import org.slf4j.LoggerFactory;
 import org.yamj.core.service.metadata.WrapperPerson;
 import org.yamj.plugin.api.metadata.MetadataScanner;
 import org.yamj.plugin.api.metadata.PersonScanner;
+import org.yamj.plugin.api.tools.AsyncScannerTools;
 
 public class PluginPersonScanner implements MetadataScanner {
 
@@ -57,7 +58,8 @@ public class PluginPersonScanner implements MetadataScanner {
             return ScanResult.MISSING_ID;
         }
 
-        final boolean scanned = personScanner.scanPerson(wrapper, throwTempError);
+        // person sources are scanned one after the other, so wait for the result
+        final boolean scanned = Boolean.TRUE.equals(AsyncScannerTools.getResult(AsyncScannerTools.scanPerson(personScanner, wrapper, throwTempError, null)));
         if (!scanned) {
             LOG.error("Can't find {} informations for person '{}'", getScannerName(), wrapper.getName());
             return ScanResult.NO_RESULT;
@@ -22,12 +22,16 @@
  */
 package org.yamj.core.service.metadata.online;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.yamj.core.service.metadata.WrapperSeries;
 import org.yamj.plugin.api.metadata.NfoScanner;
 import org.yamj.plugin.api.metadata.SeriesScanner;
+import org.yamj.plugin.api.model.ISeries;
 import org.yamj.plugin.api.model.IdMap;
+import org.yamj.plugin.api.tools.AsyncScannerTools;
 
 public class PluginSeriesScanner implements NfoScanner {
 
@@ -51,22 +55,43 @@ public class PluginSeriesScanner implements NfoScanner {
         // set actual scanner
         wrapper.setScanner(seriesScanner);
 
+        final Future<Boolean> future = startScan(wrapper, throwTempError, null);
+        if (future == null) {
+            return ScanResult.MISSING_ID;
+        }
+        return getScanResult(AsyncScannerTools.getResult(future), wrapper);
+    }
+
+    /**
+     * Start the scan of the series without setting the actual scanner.
+     * 
+     * Used for concurrent scanning where the series is a recording
+     * proxy that is replayed to the wrapper later on. A blocking scanner
+     * runs on the given executor or in the calling thread if no executor
+     * is given; an asynchronous scanner runs on its own.
+     * 
+     * @return the future of the scan or null if no valid id is available
+     */
+    Future<Boolean> startScan(ISeries series, boolean throwTempError, Executor executor) {
         // get the series id
-        String seriesId = seriesScanner.getSeriesId(wrapper, throwTempError);
+        String seriesId = seriesScanner.getSeriesId(series, throwTempError);
         if (!seriesScanner.isValidSeriesId(seriesId)) {
-            LOG.debug("{} id not available '{}'", getScannerName(), wrapper.getTitle());
-            return ScanResult.MISSING_ID;
+            LOG.debug("{} id not available '{}'", getScannerName(), series.getTitle());
+            return null;
         }
         
-        final boolean scanned = seriesScanner.scanSeries(wrapper, throwTempError);
-        if (!scanned) {
-            LOG.error("Can't find {} informations for series '{}'", getScannerName(), wrapper.getTitle());
+        return AsyncScannerTools.scanSeries(seriesScanner, series, throwTempError, executor);
+    }
+
+    ScanResult getScanResult(Boolean scanned, ISeries series) {
+        if (!Boolean.TRUE.equals(scanned)) {
+            LOG.error("Can't find {} informations for series '{}'", getScannerName(), series.getTitle());
             return ScanResult.NO_RESULT;
         }
         
         return ScanResult.OK;
     }
-
+    
     @Override
     public boolean scanNFO(String nfoContent, IdMap idMap) {
         try {
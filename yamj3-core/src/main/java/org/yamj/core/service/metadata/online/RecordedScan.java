@@ -0,0 +1,322 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.service.metadata.online;
+
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.apache.commons.lang3.StringUtils;
+import org.yamj.core.service.metadata.WrapperEpisode;
+import org.yamj.core.service.metadata.WrapperMovie;
+import org.yamj.core.service.metadata.WrapperSeason;
+import org.yamj.core.service.metadata.WrapperSeries;
+import org.yamj.plugin.api.model.*;
+import org.yamj.plugin.api.model.mock.EpisodeMock;
+import org.yamj.plugin.api.model.mock.MovieMock;
+import org.yamj.plugin.api.model.mock.SeasonMock;
+import org.yamj.plugin.api.model.mock.SeriesMock;
+
+/**
+ * Scan of a single online source which runs concurrently to the scans
+ * of other sources.
+ * 
+ * The scanner works on recording proxies of a snapshot which is taken
+ * from the wrapper before the scan is started, so the scanner never
+ * touches the wrapper or the entities behind it. The scanner sees its
+ * own modifications on the snapshot, and all modifications are recorded
+ * and replayed to the wrapper by the thread which merges the scan
+ * results. So the modifications are applied in the priority order of
+ * the sources, just like a sequential scan does.
+ */
+final class RecordedScan {
+
+    private static final Set<Class<?>> MODEL_TYPES = new HashSet<Class<?>>(Arrays.asList(
+                    IMovie.class, ISeries.class, ISeason.class, IEpisode.class));
+    private static final String GET_ID = "getId";
+    private static final String ADD_ID = "addId";
+    
+    private final String scannerName;
+    private final List<Invocation> invocations = new ArrayList<>();
+    /** the real object of each snapshot object */
+    private final Map<Object, Object> targets = new IdentityHashMap<>();
+    /** the recording proxy of each snapshot object */
+    private final Map<Object, Object> proxies = new IdentityHashMap<>();
+    private volatile long started = 0;
+    private Future<Future<Boolean>> startFuture;
+    private Future<Boolean> scanFuture;
+
+    RecordedScan(String scannerName) {
+        this.scannerName = scannerName;
+    }
+
+    /**
+     * Take a snapshot of the movie and create a recording proxy for it.
+     * 
+     * Must be called by the thread which owns the wrapper.
+     */
+    IMovie record(WrapperMovie wrapper) {
+        MovieMock movie = new MovieMock(wrapper.getIds());
+        movie.setTitle(wrapper.getTitle());
+        movie.setOriginalTitle(wrapper.getOriginalTitle());
+        movie.setYear(wrapper.getYear());
+        targets.put(movie, wrapper);
+        return proxy(movie, IMovie.class);
+    }
+
+    /**
+     * Take a snapshot of the series with its seasons and episodes
+     * and create a recording proxy for it.
+     * 
+     * Must be called by the thread which owns the wrapper; the
+     * actual scanner of the wrapper must be set, because the done
+     * state of seasons and episodes depends on it.
+     */
+    ISeries record(WrapperSeries wrapper) {
+        SeriesMock series = new SeriesMock(wrapper.getIds());
+        series.setTitle(wrapper.getTitle());
+        series.setOriginalTitle(wrapper.getOriginalTitle());
+        series.setStartYear(wrapper.getStartYear());
+        series.setEndYear(wrapper.getEndYear());
+        targets.put(series, wrapper);
+        
+        for (ISeason wrapperSeason : wrapper.getSeasons()) {
+            SeasonMock season = new SeasonMock(wrapperSeason.getNumber(), ((WrapperSeason) wrapperSeason).getIds());
+            season.setTitle(wrapperSeason.getTitle());
+            season.setOriginalTitle(wrapperSeason.getOriginalTitle());
+            season.setYear(wrapperSeason.getYear());
+            if (wrapperSeason.isDone()) {
+                season.setDone();
+            }
+            season.setSeries(series);
+            series.addSeason(season);
+            targets.put(season, wrapperSeason);
+            
+            for (IEpisode wrapperEpisode : wrapperSeason.getEpisodes()) {
+                EpisodeMock episode = new EpisodeMock(wrapperEpisode.getNumber(), ((WrapperEpisode) wrapperEpisode).getIds());
+                episode.setTitle(wrapperEpisode.getTitle());
+                episode.setOriginalTitle(wrapperEpisode.getOriginalTitle());
+                if (wrapperEpisode.isDone()) {
+                    episode.setDone();
+                }
+                episode.setSeason(season);
+                season.addEpisode(episode);
+                targets.put(episode, wrapperEpisode);
+            }
+        }
+        return proxy(series, ISeries.class);
+    }
+
+    /**
+     * Start the scan.
+     * 
+     * The starter runs on the executor; it returns the future of the
+     * actual scan, or null if the source has no valid id.
+     */
+    void start(ExecutorService executor, final Callable<Future<Boolean>> starter) {
+        this.startFuture = executor.submit(new Callable<Future<Boolean>>() {
+            @Override
+            public Future<Boolean> call() throws Exception {
+                started = System.currentTimeMillis();
+                return starter.call();
+            }
+        });
+    }
+    
+    /**
+     * Wait for the scan result and replay the recorded modifications.
+     * 
+     * The timeout counts from the start of this scan, so time spent
+     * waiting for a free thread or for other sources doesn't count.
+     * 
+     * @param timeout the timeout in milliseconds
+     * @return the scan result
+     * @throws Exception the exception thrown by the scanner or a TimeoutException
+     */
+    ScanResult await(long timeout) throws Exception {
+        final long awaitStart = System.currentTimeMillis();
+        boolean done = false;
+        try {
+            scanFuture = get(startFuture, awaitStart, timeout);
+            if (scanFuture == null) {
+                done = true;
+                return ScanResult.MISSING_ID;
+            }
+            final Boolean scanned = get(scanFuture, awaitStart, timeout);
+            done = true;
+            return Boolean.TRUE.equals(scanned) ? ScanResult.OK : ScanResult.NO_RESULT;
+        } catch (ExecutionException ex) {
+            done = true;
+            if (ex.getCause() instanceof Exception) {
+                throw (Exception) ex.getCause();
+            }
+            throw ex;
+        } finally {
+            if (done) {
+                // same modifications as a sequential scan would have left behind
+                replay();
+            } else {
+                cancel();
+            }
+        }
+    }
+
+    private <T> T get(Future<T> future, long awaitStart, long timeout) throws InterruptedException, ExecutionException, TimeoutException {
+        while (true) {
+            try {
+                return future.get(Math.max(0, getDeadline(awaitStart, timeout) - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException ex) {
+                // the scan may have started meanwhile, which moves the deadline
+                if (getDeadline(awaitStart, timeout) <= System.currentTimeMillis()) {
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    private long getDeadline(long awaitStart, long timeout) {
+        final long start = started;
+        return (start == 0 ? awaitStart : start) + timeout;
+    }
+
+    void cancel() {
+        if (startFuture != null) {
+            startFuture.cancel(true);
+        }
+        if (scanFuture != null) {
+            scanFuture.cancel(true);
+        }
+    }
+
+    private void replay() throws Exception {
+        final List<Invocation> recorded;
+        synchronized (this) {
+            recorded = new ArrayList<>(invocations);
+        }
+        for (Invocation invocation : recorded) {
+            invoke(targets.get(invocation.snapshot), invocation.method, invocation.args);
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Exception {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            if (ex.getCause() instanceof Exception) {
+                throw (Exception) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    private <T> T proxy(Object snapshot, Class<T> type) {
+        Object proxy = proxies.get(snapshot);
+        if (proxy == null) {
+            proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new RecordingHandler(snapshot));
+            proxies.put(snapshot, proxy);
+        }
+        return type.cast(proxy);
+    }
+
+    private Object wrap(Object result, Method method) {
+        final Class<?> returnType = method.getReturnType();
+        if (result == null) {
+            // the snapshot has no empty collections
+            return Collection.class.isAssignableFrom(returnType) ? Collections.emptyList() : null;
+        }
+        
+        if (MODEL_TYPES.contains(returnType)) {
+            return proxy(result, returnType);
+        }
+        
+        if (Collection.class.isAssignableFrom(returnType) && method.getGenericReturnType() instanceof ParameterizedType) {
+            final Type elementType = ((ParameterizedType) method.getGenericReturnType()).getActualTypeArguments()[0];
+            if (MODEL_TYPES.contains(elementType)) {
+                final Class<?> elementClass = (Class<?>) elementType;
+                List<Object> elements = new ArrayList<>();
+                for (Object element : (Collection<?>) result) {
+                    elements.add(proxy(element, elementClass));
+                }
+                return elements;
+            }
+        }
+        
+        return result;
+    }
+
+    private static final class Invocation {
+
+        private final Object snapshot;
+        private final Method method;
+        private final Object[] args;
+
+        public Invocation(Object snapshot, Method method, Object[] args) {
+            this.snapshot = snapshot;
+            this.method = method;
+            this.args = args;
+        }
+    }
+    
+    private final class RecordingHandler implements InvocationHandler {
+
+        private final Object snapshot;
+
+        public RecordingHandler(Object snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            final String name = method.getName();
+            
+            if (method.getDeclaringClass() == Object.class) {
+                if ("equals".equals(name)) {
+                    return proxy == args[0];
+                }
+                if ("hashCode".equals(name)) {
+                    return System.identityHashCode(proxy);
+                }
+                return RecordedScan.invoke(snapshot, method, args);
+            }
+
+            // an asynchronous scanner may call from more than one thread
+            synchronized (RecordedScan.this) {
+                if (!Void.TYPE.equals(method.getReturnType())) {
+                    return wrap(RecordedScan.invoke(snapshot, method, args), method);
+                }
+                
+                if (ADD_ID.equals(name)) {
+                    // the wrapper keeps ids of other sources
+                    final String source = (String) args[0];
+                    final String actualId = (String) RecordedScan.invoke(snapshot, method.getDeclaringClass().getMethod(GET_ID, String.class), new Object[]{source});
+                    if (scannerName.equalsIgnoreCase(source) || StringUtils.isBlank(actualId)) {
+                        RecordedScan.invoke(snapshot, method, args);
+                    }
+                } else {
+                    RecordedScan.invoke(snapshot, method, args);
+                }
+                invocations.add(new Invocation(snapshot, method, args));
+                return null;
+            }
+        }
+    }
+}
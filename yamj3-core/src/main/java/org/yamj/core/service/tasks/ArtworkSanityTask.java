@@ -22,21 +22,37 @@
  */
 package org.yamj.core.service.tasks;
 
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
 import javax.annotation.PostConstruct;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.yamj.core.config.ConfigService;
+import org.yamj.core.database.model.dto.ArtworkCacheDTO;
 import org.yamj.core.database.service.ArtworkStorageService;
 import org.yamj.core.scheduling.ArtworkProcessScheduler;
+import org.yamj.core.service.artwork.ArtworkStorageTools;
+import org.yamj.core.service.file.FileStorageService;
+import org.yamj.core.service.file.StorageType;
 
 /**
  * Task for checking artwork sanity.
+ * 
+ * Each cache directory is listed once and the cache files of the database
+ * are checked against the listings by several threads. Missing files are
+ * marked for update in one batch at the end.
  */
 @Component
 public class ArtworkSanityTask implements ITask {
 
     private static final Logger LOG = LoggerFactory.getLogger(ArtworkSanityTask.class);
+    private static final int PAGE_SIZE = 500;
 
     @Autowired
     private ExecutionTaskService executionTaskService;
@@ -44,6 +60,10 @@ public class ArtworkSanityTask implements ITask {
     private ArtworkStorageService artworkStorageService;
     @Autowired
     private ArtworkProcessScheduler artworkProcessScheduler;
+    @Autowired
+    private FileStorageService fileStorageService;
+    @Autowired
+    private ConfigService configService;
     
     @Override
     public String getTaskName() {
@@ -60,14 +80,97 @@ public class ArtworkSanityTask implements ITask {
         LOG.debug("Execute artwork sanity task");
         final long startTime = System.currentTimeMillis();
 
-        long lastId = -1;
-        do {
-            lastId = this.artworkStorageService.checkArtworkSanity(lastId);
-        } while (lastId > 0);
+        final ConcurrentMap<String, Set<String>> listings = new ConcurrentHashMap<>();
+        final Set<Long> missingLocated = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+        final Set<Long> missingGenerated = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+
+        final int maxThreads = Math.max(1, configService.getIntProperty("yamj3.task.artworksanity.maxThreads", 4));
+        final ExecutorService executor = Executors.newFixedThreadPool(maxThreads);
+        try {
+            long lastId = -1;
+            List<ArtworkCacheDTO> page;
+            do {
+                page = this.artworkStorageService.getArtworkCacheFiles(lastId, PAGE_SIZE);
+                if (!page.isEmpty()) {
+                    lastId = page.get(page.size() - 1).getId();
+                    executor.execute(new SanityCheck(page, listings, missingLocated, missingGenerated));
+                }
+            } while (page.size() == PAGE_SIZE);
+        } finally {
+            executor.shutdown();
+        }
+        
+        // run until all checks have finished
+        while (!executor.isTerminated()) {
+            try {
+                executor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ignore) {
+                // interrupt in sleep can be ignored
+            }
+        }
+
+        LOG.debug("Artwork sanity listed {} directories; {} located and {} generated images are missing",
+                        listings.size(), missingLocated.size(), missingGenerated.size());
+        this.artworkStorageService.updateArtworkCacheMissing(missingLocated, missingGenerated);
 
         // trigger artwork processing in any case
         this.artworkProcessScheduler.trigger();
 
         LOG.debug("Finished artwork sanity task after {} ms", System.currentTimeMillis()-startTime);
     }
+
+    private final class SanityCheck implements Runnable {
+
+        private final List<ArtworkCacheDTO> page;
+        private final ConcurrentMap<String, Set<String>> listings;
+        private final Set<Long> missingLocated;
+        private final Set<Long> missingGenerated;
+
+        public SanityCheck(List<ArtworkCacheDTO> page, ConcurrentMap<String, Set<String>> listings, Set<Long> missingLocated, Set<Long> missingGenerated) {
+            this.page = page;
+            this.listings = listings;
+            this.missingLocated = missingLocated;
+            this.missingGenerated = missingGenerated;
+        }
+
+        @Override
+        public void run() {
+            for (ArtworkCacheDTO located : page) {
+                final StorageType storageType = ArtworkStorageTools.getStorageType(located.getArtworkType());
+                
+                // if original file does not exists, then also all generated artwork can be deleted
+                if (!existsFile(storageType, located)) {
+                    LOG.trace("Mark located artwork {} for UPDATE due missing original image", located.getId());
+                    missingLocated.add(located.getId());
+                    continue;
+                }
+                
+                // check if one of the generated images is missing
+                for (ArtworkCacheDTO generated : located.getGenerated()) {
+                    if (!existsFile(storageType, generated)) {
+                        LOG.trace("Mark generated artwork {} for UPDATE due missing generated image", generated.getId());
+                        missingGenerated.add(generated.getId());
+                    }
+                }
+            }
+        }
+
+        private boolean existsFile(StorageType storageType, ArtworkCacheDTO dto) {
+            if (StringUtils.isBlank(dto.getCacheDirectory()) || StringUtils.isBlank(dto.getCacheFilename())) {
+                return false;
+            }
+            
+            final String key = storageType.name() + File.pathSeparator + dto.getCacheDirectory();
+            Set<String> files = listings.get(key);
+            if (files == null) {
+                // list each directory only once; a concurrent listing of the same directory is dropped
+                files = fileStorageService.listFiles(storageType, dto.getCacheDirectory());
+                Set<String> previous = listings.putIfAbsent(key, files);
+                if (previous != null) {
+                    files = previous;
+                }
+            }
+            return files.contains(dto.getCacheFilename());
+        }
+    }
 }
@@ -22,10 +22,8 @@
  */
 package org.yamj.core.service.trailer;
 
-import java.io.File;
 import java.net.URL;
 import java.util.HashMap;
-import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -121,8 +119,7 @@ public class TrailerProcessorService implements IQueueProcessService {
         }
 
         // set values in located artwork
-        String cacheDirectory = FileTools.createDirHash(cacheFilename);
-        trailer.setCacheDirectory(StringUtils.removeEnd(cacheDirectory, File.separator + cacheFilename));
+        trailer.setCacheDirectory(FileTools.createCacheDir(cacheFilename));
         trailer.setCacheFilename(cacheFilename);
         trailer.setStatus(StatusType.DONE);
         trailerStorageService.updateTrailer(trailer);
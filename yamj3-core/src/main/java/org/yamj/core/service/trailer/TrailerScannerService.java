@@ -28,11 +28,16 @@ import static org.yamj.common.type.StatusType.DONE;
 import static org.yamj.common.type.StatusType.NEW;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.PreDestroy;
 import org.apache.commons.collections.CollectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.yamj.common.tools.PropertyTools;
 import org.yamj.core.config.ConfigService;
 import org.yamj.core.config.LocaleService;
 import org.yamj.core.database.model.Series;
@@ -44,6 +49,11 @@ import org.yamj.core.scheduling.IQueueProcessService;
 import org.yamj.core.service.metadata.WrapperMovie;
 import org.yamj.core.service.metadata.WrapperSeries;
 import org.yamj.core.service.various.IdentifierService;
+import org.yamj.plugin.api.model.IMovie;
+import org.yamj.plugin.api.model.ISeries;
+import org.yamj.plugin.api.model.mock.MovieMock;
+import org.yamj.plugin.api.model.mock.SeriesMock;
+import org.yamj.plugin.api.tools.AsyncScannerTools;
 import org.yamj.plugin.api.trailer.*;
 
 @Service("trailerScannerService")
@@ -53,6 +63,7 @@ public class TrailerScannerService implements IQueueProcessService {
     
     private final HashMap<String, MovieTrailerScanner> registeredMovieTrailerScanner = new HashMap<>();
     private final HashMap<String, SeriesTrailerScanner> registeredSeriesTrailerScanner = new HashMap<>();
+    private final ExecutorService scanExecutor = Executors.newFixedThreadPool(Math.max(1, PropertyTools.getIntProperty("yamj3.trailer.scanner.maxThreads", 2)));
     
     @Autowired
     private ConfigService configService;
@@ -63,6 +74,11 @@ public class TrailerScannerService implements IQueueProcessService {
     @Autowired
     private TrailerStorageService trailerStorageService;
 
+    @PreDestroy
+    public void destroy() {
+        scanExecutor.shutdownNow();
+    }
+
     public void registerTrailerScanner(TrailerScanner trailersScanner) {
         if (trailersScanner instanceof MovieTrailerScanner) {
             LOG.trace("Registered movie trailer scanner: {}", trailersScanner.getScannerName().toLowerCase());
@@ -140,21 +156,7 @@ public class TrailerScannerService implements IQueueProcessService {
         }
 
         LOG.trace("Scan online for trailer of movie {}-'{}'", videoData.getId(), videoData.getTitle());
-        final WrapperMovie wrapper = new WrapperMovie(videoData, localeService, identifierService);
-
-        List<TrailerDTO> trailerDTOs = null;
-        for (String prio : this.configService.getPropertyAsList("yamj3.trailer.scanner.movie.priorities", "youtube")) {
-            MovieTrailerScanner scanner = registeredMovieTrailerScanner.get(prio);
-            if (scanner == null) {
-                LOG.warn("Movie trailer scanner {} not registerd", prio);
-            } else {
-                LOG.debug("Scanning movie trailers for '{}' using {}", videoData.getTitle(), scanner.getScannerName());
-                trailerDTOs = scanner.scanForTrailer(wrapper.setScanner(scanner));
-                if (CollectionUtils.isNotEmpty(trailerDTOs)) {
-                    break;
-                }
-            }
-        }
+        List<TrailerDTO> trailerDTOs = scanMovieTrailerOnline(videoData);
 
         if (trailerDTOs == null || trailerDTOs.isEmpty()) {
             LOG.info("No trailers found for movie {}-'{}'", videoData.getId(), videoData.getTitle());
@@ -202,21 +204,7 @@ public class TrailerScannerService implements IQueueProcessService {
         }
 
         LOG.trace("Scan online for trailer of series {}-'{}'", series.getId(), series.getTitle());
-        final WrapperSeries wrapper = new WrapperSeries(series, localeService, identifierService);
-        
-        List<TrailerDTO> trailerDTOs = Collections.emptyList();
-        for (String prio : this.configService.getPropertyAsList("yamj3.trailer.scanner.series.priorities", "youtube")) {
-            SeriesTrailerScanner scanner = registeredSeriesTrailerScanner.get(prio);
-            if (scanner == null) {
-                LOG.warn("Series trailer scanner {} not registerd", prio);
-            } else {
-                LOG.debug("Scanning series trailers for '{}' using {}", series.getTitle(), scanner.getScannerName());
-                trailerDTOs = scanner.scanForTrailer(wrapper.setScanner(scanner));
-                if (CollectionUtils.isNotEmpty(trailerDTOs)) {
-                    break;
-                }
-            }
-        }
+        List<TrailerDTO> trailerDTOs = scanSeriesTrailerOnline(series);
 
         if (trailerDTOs == null || trailerDTOs.isEmpty()) {
             LOG.info("No trailers found for series {}-'{}'", series.getId(), series.getTitle());
@@ -244,5 +232,100 @@ public class TrailerScannerService implements IQueueProcessService {
             trailers.add(trailer);
         }
     }
-}
 
+    private List<TrailerDTO> scanMovieTrailerOnline(VideoData videoData) {
+        final boolean concurrent = this.configService.getBooleanProperty("yamj3.trailer.scanner.concurrent", false);
+        final WrapperMovie wrapper = new WrapperMovie(videoData, localeService, identifierService);
+
+        // start the scans; asynchronous scanners run on their own, blocking
+        // scanners are executed by the scan pool or just in this thread
+        Map<String, Future<List<TrailerDTO>>> futures = new LinkedHashMap<>();
+        try {
+            for (String prio : this.configService.getPropertyAsList("yamj3.trailer.scanner.movie.priorities", "youtube")) {
+                MovieTrailerScanner scanner = registeredMovieTrailerScanner.get(prio);
+                if (scanner == null) {
+                    LOG.warn("Movie trailer scanner {} not registerd", prio);
+                } else {
+                    LOG.debug("Scanning movie trailers for '{}' using {}", videoData.getTitle(), scanner.getScannerName());
+                    if (concurrent) {
+                        // concurrent scanners get a copy, so the entity is just read by this thread
+                        futures.put(prio, AsyncScannerTools.scanForTrailer(scanner, buildMovie(videoData), scanExecutor));
+                    } else {
+                        List<TrailerDTO> trailerDTOs = AsyncScannerTools.getResult(AsyncScannerTools.scanForTrailer(scanner, wrapper.setScanner(scanner), null));
+                        if (CollectionUtils.isNotEmpty(trailerDTOs)) {
+                            return trailerDTOs;
+                        }
+                    }
+                }
+            }
+            return getFirstResult(futures.values());
+        } finally {
+            for (Future<List<TrailerDTO>> future : futures.values()) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private List<TrailerDTO> scanSeriesTrailerOnline(Series series) {
+        final boolean concurrent = this.configService.getBooleanProperty("yamj3.trailer.scanner.concurrent", false);
+        final WrapperSeries wrapper = new WrapperSeries(series, localeService, identifierService);
+
+        // start the scans; asynchronous scanners run on their own, blocking
+        // scanners are executed by the scan pool or just in this thread
+        Map<String, Future<List<TrailerDTO>>> futures = new LinkedHashMap<>();
+        try {
+            for (String prio : this.configService.getPropertyAsList("yamj3.trailer.scanner.series.priorities", "youtube")) {
+                SeriesTrailerScanner scanner = registeredSeriesTrailerScanner.get(prio);
+                if (scanner == null) {
+                    LOG.warn("Series trailer scanner {} not registerd", prio);
+                } else {
+                    LOG.debug("Scanning series trailers for '{}' using {}", series.getTitle(), scanner.getScannerName());
+                    if (concurrent) {
+                        // concurrent scanners get a copy, so the entity is just read by this thread
+                        futures.put(prio, AsyncScannerTools.scanForTrailer(scanner, buildSeries(series), scanExecutor));
+                    } else {
+                        List<TrailerDTO> trailerDTOs = AsyncScannerTools.getResult(AsyncScannerTools.scanForTrailer(scanner, wrapper.setScanner(scanner), null));
+                        if (CollectionUtils.isNotEmpty(trailerDTOs)) {
+                            return trailerDTOs;
+                        }
+                    }
+                }
+            }
+            return getFirstResult(futures.values());
+        } finally {
+            for (Future<List<TrailerDTO>> future : futures.values()) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Take the first result in order of priority.
+     */
+    private static List<TrailerDTO> getFirstResult(Collection<Future<List<TrailerDTO>>> futures) {
+        for (Future<List<TrailerDTO>> future : futures) {
+            List<TrailerDTO> trailerDTOs = AsyncScannerTools.getResult(future);
+            if (CollectionUtils.isNotEmpty(trailerDTOs)) {
+                return trailerDTOs;
+            }
+        }
+        return null;
+    }
+
+    private static IMovie buildMovie(VideoData videoData) {
+        MovieMock mock = new MovieMock(videoData.getIdMap());
+        mock.setTitle(videoData.getTitle());
+        mock.setOriginalTitle(videoData.getTitleOriginal());
+        mock.setYear(videoData.getPublicationYear());
+        return mock;
+    }
+
+    private static ISeries buildSeries(Series series) {
+        SeriesMock mock = new SeriesMock(series.getIdMap());
+        mock.setTitle(series.getTitle());
+        mock.setOriginalTitle(series.getTitleOriginal());
+        mock.setStartYear(series.getStartYear());
+        mock.setEndYear(series.getEndYear());
+        return mock;
+    }
+}
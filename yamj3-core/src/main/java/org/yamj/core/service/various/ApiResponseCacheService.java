@@ -0,0 +1,130 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.service.various;
+
+import static org.yamj.core.CachingNames.API_RESPONSES;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.Cache.ValueWrapper;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.yamj.core.hibernate.DataChangeListener;
+
+/**
+ * Cache for the responses of the JSON API.
+ * 
+ * Each library change increases the version, so all responses cached before
+ * the change are not used anymore and expire by time to live. Every committed
+ * database change counts as library change, whoever has written the data.
+ */
+@Service("apiResponseCacheService")
+public class ApiResponseCacheService implements DataChangeListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ApiResponseCacheService.class);
+    
+    private final AtomicLong version = new AtomicLong(0);
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    /**
+     * Mark the library as changed.
+     */
+    public void libraryChanged() {
+        LOG.trace("Library changed; API response cache version {}", version.incrementAndGet());
+    }
+
+    @Override
+    public void dataChanged() {
+        libraryChanged();
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+    
+    /**
+     * Get the cached response.
+     *
+     * @param key the normalized request
+     * @return the cached response or null if not cached in the current version
+     */
+    public CachedResponse getResponse(String key) {
+        final Cache cache = cacheManager.getCache(API_RESPONSES);
+        ValueWrapper wrapper = (cache == null ? null : cache.get(key));
+        if (wrapper == null || wrapper.get() == null) {
+            return null;
+        }
+        
+        CachedResponse response = (CachedResponse) wrapper.get();
+        return response.getVersion() == getVersion() ? response : null;
+    }
+    
+    /**
+     * Store a response in the cache.
+     *
+     * @param key the normalized request
+     * @param response the response
+     */
+    public void putResponse(String key, CachedResponse response) {
+        final Cache cache = cacheManager.getCache(API_RESPONSES);
+        if (cache != null) {
+            cache.put(key, response);
+        }
+    }
+    
+    public static final class CachedResponse {
+
+        private final long version;
+        private final String contentType;
+        private final String eTag;
+        private final byte[] data;
+
+        public CachedResponse(long version, String contentType, String eTag, byte[] data) {
+            this.version = version;
+            this.contentType = contentType;
+            this.eTag = eTag;
+            this.data = data;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+    }
+}
@@ -35,6 +35,7 @@ import org.yamj.core.database.model.dto.DeletionDTO;
 import org.yamj.core.database.service.CommonStorageService;
 import org.yamj.core.scheduling.ArtworkScanScheduler;
 import org.yamj.core.service.file.FileStorageService;
+import org.yamj.core.service.mediainfo.MediaInfoCache;
 
 /**
  * Task for checking if video, series or person is older than x days and marks
@@ -52,6 +53,10 @@ public class DeletionService {
     private ConfigService configService;
     @Autowired
     private ArtworkScanScheduler artworkScanScheduler;
+    @Autowired
+    private ApiResponseCacheService apiResponseCacheService;
+    @Autowired
+    private MediaInfoCache mediaInfoCache;
     
     public void executeAllDeletions() {
         if (DELETION_LOCK.tryLock()) {
@@ -59,6 +64,7 @@ public class DeletionService {
                 this.doExecuteAllDeletions();
             } finally {
                 DELETION_LOCK.unlock();
+                apiResponseCacheService.libraryChanged();
             }
         }
     }
@@ -200,5 +206,8 @@ public class DeletionService {
 
         // delete storage files
         FileStorageService.deleteStorageFiles(filesToDelete);
+        
+        // remove cached media informations of deleted or long unused video files
+        this.mediaInfoCache.cleanup();
     }
 }
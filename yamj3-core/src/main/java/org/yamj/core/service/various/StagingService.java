@@ -46,6 +46,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.yamj.common.dto.ImportBatchDTO;
 import org.yamj.common.dto.ImportDTO;
 import org.yamj.common.dto.StageDirectoryDTO;
 import org.yamj.common.dto.StageFileDTO;
@@ -59,6 +60,8 @@ import org.yamj.core.database.model.StageDirectory;
 import org.yamj.core.database.model.StageFile;
 import org.yamj.core.database.model.VideoData;
 import org.yamj.core.database.model.type.FileType;
+import org.yamj.core.scheduling.WorkDispatcher;
+import org.yamj.core.scheduling.WorkType;
 import org.yamj.core.service.file.FileTools;
 import org.yamj.core.service.mediaimport.FilenameScanner;
 
@@ -75,6 +78,8 @@ public class StagingService {
     private FilenameScanner filenameScanner;
     @Autowired
     private ConfigService configService;
+    @Autowired
+    private WorkDispatcher workDispatcher;
 
     @Value("${yamj3.folder.name.watched:null}")
     private String watchedFolderName;
@@ -83,30 +88,51 @@ public class StagingService {
 
     @Transactional
     public Library storeLibrary(ImportDTO libraryDTO) {
+        return storeLibrary(libraryDTO.getClient(), libraryDTO.getPlayerPath(), libraryDTO.getBaseDirectory());
+    }
+
+    /**
+     * Store all stage directories of the batch in one transaction.
+     * 
+     * The library is resolved only once for the whole batch.
+     * 
+     * @param importBatch
+     * @return the library
+     */
+    @Transactional
+    public Library storeStageDirectories(ImportBatchDTO importBatch) {
+        Library library = storeLibrary(importBatch.getClient(), importBatch.getPlayerPath(), importBatch.getBaseDirectory());
+        for (StageDirectoryDTO stageDirectoryDTO : importBatch.getStageDirectories()) {
+            storeStageDirectory(stageDirectoryDTO, library);
+        }
+        return library;
+    }
+
+    private Library storeLibrary(String client, String playerPath, String baseDirectory) {
 		// get the library from the storage db , return null if not exists		
-        Library library = stagingDao.getLibrary(libraryDTO.getClient(), libraryDTO.getBaseDirectory());
+        Library library = stagingDao.getLibrary(client, baseDirectory);
 		// in don't know why but the path is transformed beetween the filescanner and the stagingService  so check for / or \ to fetch the right library
-		Library library2 = stagingDao.getLibrary(libraryDTO.getClient(), StringUtils.replace(libraryDTO.getBaseDirectory(), "\\", "/"));
+		Library library2 = stagingDao.getLibrary(client, StringUtils.replace(baseDirectory, "\\", "/"));
 
         if (library == null) {
 			if (library2 == null) {
 				library = new Library();
-				library.setClient(libraryDTO.getClient());
-				library.setPlayerPath(libraryDTO.getPlayerPath());
-				library.setBaseDirectory(FilenameUtils.normalizeNoEndSeparator(libraryDTO.getBaseDirectory(), true));
+				library.setClient(client);
+				library.setPlayerPath(playerPath);
+				library.setBaseDirectory(FilenameUtils.normalizeNoEndSeparator(baseDirectory, true));
 				library.setLastScanned(new Date());
 				stagingDao.saveEntity(library);
 				return library;
 			}
 			
 			LOG.trace("StagingService storeLibrary  library2 : " + library2);
-			library2.setBaseDirectory(FilenameUtils.normalizeNoEndSeparator(libraryDTO.getBaseDirectory(), true));
+			library2.setBaseDirectory(FilenameUtils.normalizeNoEndSeparator(baseDirectory, true));
 			library2.setLastScanned(new Date());
 			stagingDao.updateEntity(library2);
 			return library2;
         }
 		LOG.trace("StagingService storeLibrary  library : " + library);
-        library.setBaseDirectory(FilenameUtils.normalizeNoEndSeparator(libraryDTO.getBaseDirectory(), true));
+        library.setBaseDirectory(FilenameUtils.normalizeNoEndSeparator(baseDirectory, true));
         library.setLastScanned(new Date());
         stagingDao.updateEntity(library);
         return library;
@@ -114,6 +140,9 @@ public class StagingService {
 
     @Transactional
     public void storeStageDirectory(StageDirectoryDTO stageDirectoryDTO, Library library) {
+        final long startTime = System.currentTimeMillis();
+        boolean newDirectory = false;
+        
         // normalize the directory path
         String normalized = FilenameUtils.normalizeNoEndSeparator(stageDirectoryDTO.getPath(), true);
         StageDirectory stageDirectory = stagingDao.getStageDirectory(normalized, library);
@@ -139,6 +168,7 @@ public class StagingService {
 
             LOG.debug("New directory: {}", stageDirectory.getDirectoryPath());
             stagingDao.saveEntity(stageDirectory);
+            newDirectory = true;
         } else {
             Date newDate = getDateWithoutMilliseconds(stageDirectoryDTO.getDate());
             if (newDate.compareTo(stageDirectory.getDirectoryDate()) != 0) {
@@ -149,6 +179,19 @@ public class StagingService {
             }
         }
 
+        // load all existing stage files of the directory at once
+        final Map<String, StageFile> stageFiles = new HashMap<>();
+        final Map<String, StageFile> stageFilesIgnoreCase = new HashMap<>();
+        if (!newDirectory) {
+            for (StageFile stageFile : stagingDao.getStageFiles(stageDirectory)) {
+                final String key = getStageFileKey(stageFile.getBaseName(), stageFile.getExtension());
+                stageFiles.put(key, stageFile);
+                stageFilesIgnoreCase.put(key.toLowerCase(), stageFile);
+            }
+        }
+        
+        int newFiles = 0;
+        int updatedFiles = 0;
         for (StageFileDTO stageFileDTO : stageDirectoryDTO.getStageFiles()) {
             String baseName = FilenameUtils.getBaseName(stageFileDTO.getFileName());
             String extension = FilenameUtils.getExtension(stageFileDTO.getFileName());
@@ -159,7 +202,13 @@ public class StagingService {
                 continue;
             }
 
-            StageFile stageFile = stagingDao.getStageFile(baseName, extension, stageDirectory);
+            final String key = getStageFileKey(baseName, extension);
+            StageFile stageFile = stageFiles.get(key);
+            if (stageFile == null && stageFilesIgnoreCase.containsKey(key.toLowerCase())) {
+                // let the database decide about case sensitivity
+                stageFile = stagingDao.getStageFile(baseName, extension, stageDirectory);
+            }
+            
             if (stageFile == null) {
                 // create new stage file entry
                 stageFile = new StageFile();
@@ -185,6 +234,9 @@ public class StagingService {
 
                 LOG.debug("New {} file: {}", stageFile.getFileType().name().toLowerCase(), stageFile.getFullPath());
                 stagingDao.saveEntity(stageFile);
+                stageFiles.put(key, stageFile);
+                stageFilesIgnoreCase.put(key.toLowerCase(), stageFile);
+                newFiles++;
             } else {
                 Date newDate = getDateWithoutMilliseconds(stageFileDTO.getFileDate());
                 if ((newDate.compareTo(stageFile.getFileDate()) != 0) || (stageFile.getFileSize() != stageFileDTO.getFileSize())) {
@@ -204,9 +256,21 @@ public class StagingService {
 
                     LOG.debug("Updated {} file: {}", stageFile.getFileType().name().toLowerCase(), stageFile.getFullPath());
                     stagingDao.updateEntity(stageFile);
+                    updatedFiles++;
                 }
             }
         }
+
+        if (newFiles > 0 || updatedFiles > 0) {
+            // wake up the import after commit
+            workDispatcher.signal(WorkType.IMPORT);
+        }
+        
+        LOG.debug("Stored directory {} with {} new and {} updated files in {} ms", stageDirectory.getDirectoryPath(), newFiles, updatedFiles, System.currentTimeMillis()-startTime);
+    }
+
+    private static String getStageFileKey(String baseName, String extension) {
+        return baseName + "." + extension;
     }
 
     private static void setChangeableValues(StageFile stageFile, StageFileDTO stageFileDTO) {
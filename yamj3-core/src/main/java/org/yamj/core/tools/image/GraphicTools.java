@@ -49,25 +49,63 @@ public final class GraphicTools {
         try (InputStream in = new URL(url).openStream();
              ImageInputStream iis = ImageIO.createImageInputStream(in))
          {
+            return getDimension(iis);
+        }
+    }
+
+    /**
+     * Get the dimension of an image file by reading the image header only.
+     *
+     * @param fileImage
+     * @return the dimension; width and height are 0 if no image reader was found
+     * @throws IOException
+     */
+    public static Dimension getDimension(File fileImage) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(fileImage)) {
+            return getDimension(iis);
+        }
+    }
 
-            final Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
-            if (readers.hasNext()) {
-                ImageReader reader = readers.next();
+    private static Dimension getDimension(ImageInputStream iis) throws IOException {
+        if (iis == null) {
+            return new Dimension();
+        }
+        final Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+        if (readers.hasNext()) {
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true);
+                return new Dimension(reader.getWidth(0), reader.getHeight(0));
+            } finally {
                 try {
-                    reader.setInput(iis, true);
-                    return new Dimension(reader.getWidth(0), reader.getHeight(0));
-                } finally {
-                    try {
-                        reader.dispose();
-                    } catch (Exception ignore) { //NOSONAR
-                        // ignore any error on dispose
-                    }
+                    reader.dispose();
+                } catch (Exception ignore) { //NOSONAR
+                    // ignore any error on dispose
                 }
             }
         }
         return new Dimension();
     }
 
+    /**
+     * Get the source subsampling for decoding an image which will be scaled to the target size.
+     *
+     * The decoded image keeps at least the double target size, so the final
+     * scaling step still has enough pixels for a smooth result.
+     *
+     * @param sourceWidth
+     * @param sourceHeight
+     * @param targetWidth
+     * @param targetHeight
+     * @return the subsampling, 1 means no subsampling
+     */
+    public static int getSubsampling(int sourceWidth, int sourceHeight, int targetWidth, int targetHeight) {
+        if (sourceWidth <= 0 || sourceHeight <= 0 || targetWidth <= 0 || targetHeight <= 0) {
+            return 1;
+        }
+        return Math.max(1, Math.min(sourceWidth / (2 * targetWidth), sourceHeight / (2 * targetHeight)));
+    }
+
     /**
      * Load a JPG image from a file
      *
@@ -77,11 +115,24 @@ public final class GraphicTools {
      * @throws ImageReadException
      */
     public static BufferedImage loadJPEGImage(File fileImage) throws IOException, ImageReadException { //NOSONAR
+        return loadJPEGImage(fileImage, 1);
+    }
+
+    /**
+     * Load a JPG image from a file and let the decoder skip pixels.
+     *
+     * @param fileImage
+     * @param subsampling only every n-th pixel of rows and columns is decoded
+     * @return
+     * @throws IOException
+     * @throws ImageReadException
+     */
+    public static BufferedImage loadJPEGImage(File fileImage, int subsampling) throws IOException, ImageReadException { //NOSONAR
         if (!fileImage.exists()) {
             throw new FileNotFoundException("Image file '" + fileImage.getName() + "' does not exist");
         }
         JpegReader jr = new JpegReader();
-        BufferedImage bi = jr.readImage(fileImage);
+        BufferedImage bi = jr.readImage(fileImage, subsampling);
         if (bi == null) {
             // null means: the image is invalid and couldn't be loaded
             throw new ImageReadException("Image file '" + fileImage.getName() + "' is invalid");
@@ -118,6 +169,19 @@ public final class GraphicTools {
      * @return
      */
     public static BufferedImage scaleToSize(int nMaxWidth, int nMaxHeight, BufferedImage imgSrc) {
+        return scaleToSize(nMaxWidth, nMaxHeight, imgSrc, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    /**
+     * Scale the image to the given width and place it at the bottom of the given height
+     *
+     * @param nMaxWidth
+     * @param nMaxHeight
+     * @param imgSrc
+     * @param imageType the type of the created image, e.g. TYPE_INT_RGB for JPEG output
+     * @return
+     */
+    public static BufferedImage scaleToSize(int nMaxWidth, int nMaxHeight, BufferedImage imgSrc, int imageType) {
         /* determine thumbnail size from WIDTH and HEIGHT */
         int imageWidth = imgSrc.getWidth(null);
         int imageHeight = imgSrc.getHeight(null);
@@ -133,28 +197,26 @@ public final class GraphicTools {
             y = nMaxHeight - tempHeight;
         }
 
-        Image temp1 = imgSrc.getScaledInstance(tempWidth, tempHeight, Image.SCALE_SMOOTH);
-        BufferedImage bi = new BufferedImage(nMaxWidth, nMaxHeight, BufferedImage.TYPE_INT_ARGB);
-        bi.createGraphics().drawImage(temp1, 0, y, null);
+        BufferedImage bi = new BufferedImage(nMaxWidth, nMaxHeight, imageType);
+        drawScaled(bi, imgSrc, 0, y, tempWidth, tempHeight);
         return bi;
     }
 
     public static BufferedImage scaleToSizeStretch(int nMaxWidth, int nMaxHeight, BufferedImage imgSrc) {
-        /* determine thumbnail size from WIDTH and HEIGHT */
-
-        int tempWidth;
-        int tempHeight;
-
-        tempWidth = nMaxWidth;
-        tempHeight = nMaxHeight;
+        return scaleToSizeStretch(nMaxWidth, nMaxHeight, imgSrc, BufferedImage.TYPE_INT_ARGB);
+    }
 
-        Image temp1 = imgSrc.getScaledInstance(tempWidth, tempHeight, Image.SCALE_SMOOTH);
-        BufferedImage bi = new BufferedImage(nMaxWidth, nMaxHeight, BufferedImage.TYPE_INT_ARGB);
-        bi.createGraphics().drawImage(temp1, 0, 0, null);
+    public static BufferedImage scaleToSizeStretch(int nMaxWidth, int nMaxHeight, BufferedImage imgSrc, int imageType) {
+        BufferedImage bi = new BufferedImage(nMaxWidth, nMaxHeight, imageType);
+        drawScaled(bi, imgSrc, 0, 0, nMaxWidth, nMaxHeight);
         return bi;
     }
 
     public static BufferedImage scaleToSizeBestFit(int nMaxWidth, BufferedImage imgSrc) {
+        return scaleToSizeBestFit(nMaxWidth, imgSrc, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    public static BufferedImage scaleToSizeBestFit(int nMaxWidth, BufferedImage imgSrc, int imageType) {
         // determine thumbnail size from WIDTH and HEIGHT
         int imageWidth = imgSrc.getWidth(null);
         int imageHeight = imgSrc.getHeight(null);
@@ -165,13 +227,16 @@ public final class GraphicTools {
         tempWidth = nMaxWidth;
         tempHeight = (int) (((double) imageHeight * (double) nMaxWidth) / imageWidth);
 
-        Image temp1 = imgSrc.getScaledInstance(tempWidth, tempHeight, Image.SCALE_SMOOTH);
-        BufferedImage bi = new BufferedImage(tempWidth, tempHeight, BufferedImage.TYPE_INT_ARGB);
-        bi.createGraphics().drawImage(temp1, 0, 0, null);
+        BufferedImage bi = new BufferedImage(tempWidth, tempHeight, imageType);
+        drawScaled(bi, imgSrc, 0, 0, tempWidth, tempHeight);
         return bi;
     }
 
     public static BufferedImage scaleToSizeNormalized(int nMaxWidth, int nMaxHeight, BufferedImage imgSrc) {
+        return scaleToSizeNormalized(nMaxWidth, nMaxHeight, imgSrc, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    public static BufferedImage scaleToSizeNormalized(int nMaxWidth, int nMaxHeight, BufferedImage imgSrc, int imageType) {
         // determine thumbnail size from WIDTH and HEIGHT
         int imageWidth = imgSrc.getWidth(null);
         int imageHeight = imgSrc.getHeight(null);
@@ -190,12 +255,62 @@ public final class GraphicTools {
             tempHeight = nMaxHeight;
         }
 
-        Image temp1 = imgSrc.getScaledInstance(tempWidth, tempHeight, Image.SCALE_SMOOTH);
-        BufferedImage bi = new BufferedImage(tempWidth, tempHeight, BufferedImage.TYPE_INT_ARGB);
-        bi.createGraphics().drawImage(temp1, 0, 0, null);
+        BufferedImage bi = new BufferedImage(tempWidth, tempHeight, imageType);
+        drawScaled(bi, imgSrc, 0, 0, tempWidth, tempHeight);
         return cropToSize(nMaxWidth, nMaxHeight, bi);
     }
 
+    /**
+     * Reduce the image by halving its size as long as it keeps the minimum size.
+     *
+     * Large reductions are done in steps, because a single bilinear step would
+     * skip source pixels. The reduced image can be reused to scale to several
+     * smaller sizes.
+     *
+     * @param imgSrc
+     * @param minWidth
+     * @param minHeight
+     * @return the reduced image or the source image if no reduction is possible
+     */
+    public static BufferedImage reduceToSize(BufferedImage imgSrc, int minWidth, int minHeight) {
+        BufferedImage current = imgSrc;
+        int currentWidth = imgSrc.getWidth();
+        int currentHeight = imgSrc.getHeight();
+        final int stepType = imgSrc.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        while (currentWidth / 2 >= minWidth && currentHeight / 2 >= minHeight) {
+            currentWidth /= 2;
+            currentHeight /= 2;
+            BufferedImage step = new BufferedImage(currentWidth, currentHeight, stepType);
+            Graphics2D g = step.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            g.dispose();
+            current = step;
+        }
+        return current;
+    }
+
+    /**
+     * Draw the scaled source image into the target image.
+     *
+     * @param target
+     * @param imgSrc
+     * @param x
+     * @param y
+     * @param width
+     * @param height
+     */
+    private static void drawScaled(BufferedImage target, BufferedImage imgSrc, int x, int y, int width, int height) {
+        BufferedImage reduced = reduceToSize(imgSrc, width, height);
+
+        Graphics2D g = target.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.drawImage(reduced, x, y, width, height, null);
+        g.dispose();
+    }
+
     public static BufferedImage cropToSize(int nMaxWidth, int nMaxHeight, BufferedImage imgSrc) {
         int nHeight = imgSrc.getHeight();
         int nWidth = imgSrc.getWidth();
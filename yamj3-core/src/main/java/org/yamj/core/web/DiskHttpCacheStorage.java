@@ -0,0 +1,298 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.web;
+
+import java.io.*;
+import java.util.*;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.cache.HttpCacheEntry;
+import org.apache.http.client.cache.HttpCacheEntrySerializer;
+import org.apache.http.client.cache.HttpCacheStorage;
+import org.apache.http.client.cache.HttpCacheUpdateCallback;
+import org.apache.http.impl.client.cache.DefaultHttpCacheEntrySerializer;
+import org.apache.http.message.BasicHeader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * HTTP cache storage which keeps one file per cache entry on disk.
+ * 
+ * The storage survives restarts and is bounded by size; the least recently
+ * used entries are evicted first. Only responses of URLs matching a configured
+ * host group are stored; they are kept fresh for the given time, regardless of
+ * the cache headers sent by the server. Images are never stored, because the
+ * artwork is stored by the artwork processing anyway.
+ */
+public class DiskHttpCacheStorage implements HttpCacheStorage {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DiskHttpCacheStorage.class);
+    private static final String FILE_EXTENSION = ".entry";
+    private static final String TEMP_EXTENSION = ".tmp";
+    private static final int METRICS_LOG_INTERVAL = 500;
+    
+    private final File cacheDir;
+    private final long maxSize;
+    private final Map<Pattern, Integer> ttlGroups = new LinkedHashMap<>();
+    private final HttpCacheEntrySerializer serializer = new DefaultHttpCacheEntrySerializer();
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalSize = 0;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Create a new disk storage.
+     * 
+     * @param cacheDir the directory to store the entries in
+     * @param maxSize the maximum size of all entries in bytes
+     */
+    public DiskHttpCacheStorage(File cacheDir, long maxSize) {
+        this.cacheDir = cacheDir;
+        this.maxSize = maxSize;
+        this.loadIndex();
+    }
+
+    /**
+     * Add a host group with a fixed time to live.
+     * 
+     * @param regex the regular expression matching the URL
+     * @param ttlSeconds the time to live in seconds
+     */
+    public void addTtlGroup(String regex, int ttlSeconds) {
+        ttlGroups.put(Pattern.compile(regex), ttlSeconds);
+    }
+
+    private void loadIndex() {
+        if (!cacheDir.exists() && !cacheDir.mkdirs()) {
+            LOG.warn("Failed to create HTTP cache directory '{}'", cacheDir);
+            return;
+        }
+        
+        // remove temporary files left by an interrupted write
+        for (File tempFile : FileUtils.listFiles(cacheDir, new String[]{TEMP_EXTENSION.substring(1)}, true)) {
+            FileUtils.deleteQuietly(tempFile);
+        }
+        
+        // least recently used files first
+        List<File> files = new ArrayList<>(FileUtils.listFiles(cacheDir, new String[]{FILE_EXTENSION.substring(1)}, true));
+        Collections.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File file1, File file2) {
+                return Long.compare(file1.lastModified(), file2.lastModified());
+            }
+        });
+        
+        synchronized (index) {
+            for (File file : files) {
+                final long length = file.length();
+                index.put(file.getName().substring(0, file.getName().length() - FILE_EXTENSION.length()), length);
+                totalSize += length;
+            }
+            evict();
+        }
+        LOG.info("HTTP cache in '{}' holds {} entries with {} KB", cacheDir, files.size(), totalSize / 1024);
+    }
+
+    @Override
+    public void putEntry(String key, HttpCacheEntry entry) throws IOException {
+        final Integer ttl = getTtl(key);
+        if (ttl == null || isImage(entry)) {
+            LOG.trace("HTTP cache entry not stored: {}", key);
+            return;
+        }
+        
+        final String hash = DigestUtils.md5Hex(key);
+        final File file = getFile(hash);
+        FileUtils.forceMkdir(file.getParentFile());
+        
+        // write to temporary file, so that readers never see partial entries
+        final File tempFile = File.createTempFile(hash, TEMP_EXTENSION, file.getParentFile());
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+            serializer.writeTo(applyTtl(ttl.intValue(), entry), out);
+        } catch (IOException ex) {
+            FileUtils.deleteQuietly(tempFile);
+            throw ex;
+        }
+        
+        synchronized (index) {
+            FileUtils.deleteQuietly(file);
+            if (!tempFile.renameTo(file)) {
+                FileUtils.deleteQuietly(tempFile);
+                throw new IOException("Failed to store HTTP cache entry " + file);
+            }
+            
+            Long oldLength = index.put(hash, file.length());
+            totalSize += file.length() - (oldLength == null ? 0 : oldLength.longValue());
+            evict();
+        }
+    }
+
+    @Override
+    public HttpCacheEntry getEntry(String key) throws IOException {
+        final String hash = DigestUtils.md5Hex(key);
+        final File file = getFile(hash);
+        
+        boolean known;
+        synchronized (index) {
+            // also marks the entry as recently used
+            known = index.get(hash) != null;
+        }
+
+        HttpCacheEntry entry = null;
+        if (known) {
+            try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+                entry = serializer.readFrom(in);
+                file.setLastModified(System.currentTimeMillis());
+            } catch (FileNotFoundException ex) {
+                // evicted meanwhile
+                LOG.trace("HTTP cache entry evicted: {}", file);
+            } catch (IOException ex) {
+                LOG.debug("Failed to read HTTP cache entry '{}': {}", file, ex.getMessage());
+                this.removeEntry(key);
+            }
+        }
+        
+        if (entry == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        if ((hits.get() + misses.get()) % METRICS_LOG_INTERVAL == 0) {
+            logMetrics();
+        }
+        return entry;
+    }
+
+    @Override
+    public void removeEntry(String key) throws IOException {
+        final String hash = DigestUtils.md5Hex(key);
+        synchronized (index) {
+            Long length = index.remove(hash);
+            if (length != null) {
+                totalSize -= length.longValue();
+            }
+            FileUtils.deleteQuietly(getFile(hash));
+        }
+    }
+
+    @Override
+    public void updateEntry(String key, HttpCacheUpdateCallback callback) throws IOException {
+        // read, update and write atomically
+        synchronized (index) {
+            final HttpCacheEntry existing = this.getEntry(key);
+            final HttpCacheEntry updated = callback.update(existing);
+            if (updated == null) {
+                this.removeEntry(key);
+            } else {
+                this.putEntry(key, updated);
+            }
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public void logMetrics() {
+        synchronized (index) {
+            LOG.debug("HTTP cache: {} hits, {} misses, {} evictions, {} entries with {} KB",
+                            hits.get(), misses.get(), evictions.get(), index.size(), totalSize / 1024);
+        }
+    }
+
+    private File getFile(String hash) {
+        return new File(new File(cacheDir, hash.substring(0, 2)), hash + FILE_EXTENSION);
+    }
+
+    /**
+     * Evict least recently used entries; must be called with the index lock held.
+     */
+    private void evict() {
+        Iterator<Entry<String, Long>> iter = index.entrySet().iterator();
+        while (totalSize > maxSize && iter.hasNext()) {
+            Entry<String, Long> eldest = iter.next();
+            totalSize -= eldest.getValue().longValue();
+            FileUtils.deleteQuietly(getFile(eldest.getKey()));
+            iter.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Get the time to live of the host group the URL belongs to.
+     * 
+     * @return the time to live in seconds or null if the URL belongs to no host group
+     */
+    private Integer getTtl(String key) {
+        for (Entry<Pattern, Integer> group : ttlGroups.entrySet()) {
+            if (group.getKey().matcher(key).matches()) {
+                return group.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static boolean isImage(HttpCacheEntry entry) {
+        final Header contentType = entry.getFirstHeader(HttpHeaders.CONTENT_TYPE);
+        return contentType != null && StringUtils.startsWithIgnoreCase(contentType.getValue(), "image/");
+    }
+
+    /**
+     * Replace the freshness headers of the response with the fixed
+     * time to live of the host group.
+     */
+    private static HttpCacheEntry applyTtl(int ttl, HttpCacheEntry entry) {
+        if (ttl <= 0) {
+            return entry;
+        }
+        
+        List<Header> headers = new ArrayList<>();
+        for (Header header : entry.getAllHeaders()) {
+            if (!HttpHeaders.CACHE_CONTROL.equalsIgnoreCase(header.getName())
+                && !HttpHeaders.EXPIRES.equalsIgnoreCase(header.getName())
+                && !HttpHeaders.PRAGMA.equalsIgnoreCase(header.getName()))
+            {
+                headers.add(header);
+            }
+        }
+        headers.add(new BasicHeader(HttpHeaders.CACHE_CONTROL, "max-age=" + ttl));
+        
+        return new HttpCacheEntry(entry.getRequestDate(), entry.getResponseDate(), entry.getStatusLine(),
+                        headers.toArray(new Header[headers.size()]), entry.getResource(), entry.getVariantMap(), entry.getRequestMethod());
+    }
+}
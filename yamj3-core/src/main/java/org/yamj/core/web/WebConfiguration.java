@@ -22,8 +22,11 @@
  */
 package org.yamj.core.web;
 
+import java.io.File;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpHost;
 import org.apache.http.auth.AuthScope;
@@ -86,6 +89,21 @@ public class WebConfiguration  {
     @Value("${yamj3.http.maxDownloadSlots:null}")
     private String maxDownloadSlots;
 
+    @Value("${yamj3.http.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${yamj3.file.storage.resources:./resources/}")
+    private String storageResourceDir;
+
+    @Value("${yamj3.http.cache.maxSize:100}")
+    private int cacheMaxSize;
+
+    @Value("${yamj3.http.cache.maxObjectSize:1024}")
+    private int cacheMaxObjectSize;
+
+    @Value("${yamj3.http.cache.ttl:null}")
+    private String cacheTtl;
+
     @Value("${trakttv.client.id:'unknown'}")
     private String traktTvClientId;
     
@@ -122,14 +140,21 @@ public class WebConfiguration  {
         connManager.setMaxTotal(connectionsMaxTotal);
         connManager.setDefaultMaxPerRoute(connectionsMaxPerRoute);
         
-        CacheConfig cacheConfig = CacheConfig.custom()
-                        .setMaxCacheEntries(1000)
-                        .setMaxObjectSize(8192)
-                        .build();
+        HttpClientBuilder builder;
+        if (cacheEnabled) {
+            CacheConfig cacheConfig = CacheConfig.custom()
+                            .setMaxObjectSize(cacheMaxObjectSize * 1024L)
+                            .setSharedCache(false)
+                            .build();
+            
+            builder = CachingHttpClientBuilder.create()
+                            .setCacheConfig(cacheConfig)
+                            .setHttpCacheStorage(createHttpCacheStorage());
+        } else {
+            builder = HttpClientBuilder.create();
+        }
         
-        HttpClientBuilder builder = CachingHttpClientBuilder.create()
-                .setCacheConfig(cacheConfig)
-                .setConnectionManager(connManager)
+        builder.setConnectionManager(connManager)
                 .setProxy(proxy)
                 .setDefaultCredentialsProvider(credentialsProvider)
                 .setDefaultRequestConfig(RequestConfig.custom()
@@ -171,6 +196,32 @@ public class WebConfiguration  {
         return wrapper;
     }
 
+    private DiskHttpCacheStorage createHttpCacheStorage() {
+        final File cacheDir = new File(FilenameUtils.concat(storageResourceDir, "httpcache"));
+        LOG.debug("Using HTTP cache in '{}' with max size of {} MB", cacheDir, cacheMaxSize);
+        
+        DiskHttpCacheStorage storage = new DiskHttpCacheStorage(cacheDir, cacheMaxSize * 1024L * 1024L);
+        
+        if (StringUtils.isNotBlank(cacheTtl)) {
+            LOG.debug("Using HTTP cache TTLs: {}", cacheTtl);
+
+            Pattern pattern = Pattern.compile(",?\\s*([^=]+)=(\\d+)");
+            Matcher matcher = pattern.matcher(cacheTtl);
+            while (matcher.find()) {
+                String group = matcher.group(1);
+                try {
+                    final int hours = Integer.parseInt(matcher.group(2));
+                    storage.addTtlGroup(group, hours * 3600);
+                    LOG.trace("Added HTTP cache TTL '{}' with {} hours", group, hours);
+                } catch (NumberFormatException | PatternSyntaxException error) {
+                    LOG.debug("Rule '{}' is no valid regexp, ignored", group);
+                }
+            }
+        }
+        
+        return storage;
+    }
+
     @Bean
     public TraktTvApi traktTvApi() {
         LOG.trace("Initialize TraktTvApi");
@@ -0,0 +1,163 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.web.servlet.filter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.yamj.common.tools.PropertyTools;
+import org.yamj.core.service.various.ApiResponseCacheService;
+import org.yamj.core.service.various.ApiResponseCacheService.CachedResponse;
+
+/**
+ * Caches the responses of the index, video and person API.
+ * 
+ * Requests which change the library and committed database changes increase the
+ * version of the cache. Each response gets an ETag, so unchanged responses are
+ * answered with 304.
+ * 
+ * The filter must be mapped before the JSONP callback filter: the cached data
+ * then contains the callback and a 304 is sent without any body.
+ */
+@Component("apiResponseCacheFilter")
+public class ApiResponseCacheFilter implements Filter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ApiResponseCacheFilter.class);
+    private static final boolean CACHE_ENABLED = PropertyTools.getBooleanProperty("yamj3.api.responseCache.enabled", true);
+    private static final int MAX_CACHED_SIZE = 512 * 1024;
+    private static final Pattern CACHEABLE = Pattern.compile(
+                    "^/api/(index/(video|person|count)|video/([^/]+/\\d+|seriesinfo|episodes|years/list|decades/list)|person/(\\d+|movie|series|season|episode))(\\.json)?$");
+    private static final Pattern CHANGING = Pattern.compile(
+                    "/(add|delete|update|store|ignore|rescan|watched|unwatched|enableonlinescan|disableonlinescan|updateexternalid|removeexternalid|duplicate|regenerate|download)(/|\\.|$)");
+    private static final String METHOD_GET = "GET";
+    
+    @Autowired
+    private ApiResponseCacheService apiResponseCacheService;
+    
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        // empty interface implementation
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+        
+        final String path = httpRequest.getRequestURI().substring(httpRequest.getContextPath().length());
+        final boolean get = METHOD_GET.equals(httpRequest.getMethod());
+        
+        if (!CACHE_ENABLED || !get || !CACHEABLE.matcher(path).matches()) {
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                if ((!get && !"HEAD".equals(httpRequest.getMethod())) || CHANGING.matcher(path).find()) {
+                    apiResponseCacheService.libraryChanged();
+                }
+            }
+            return;
+        }
+        
+        final String key = buildKey(path, httpRequest);
+        CachedResponse cached = apiResponseCacheService.getResponse(key);
+        if (cached == null) {
+            // the version before the execution; a concurrent change makes the response invalid
+            final long version = apiResponseCacheService.getVersion();
+            
+            GenericResponseWrapper wrapper = new GenericResponseWrapper(httpResponse);
+            chain.doFilter(request, wrapper);
+
+            final byte[] data = wrapper.getData();
+            if (wrapper.getStatus() != HttpServletResponse.SC_OK) {
+                if (data.length > 0 && !httpResponse.isCommitted()) {
+                    httpResponse.getOutputStream().write(data);
+                }
+                return;
+            }
+            
+            cached = new CachedResponse(version, wrapper.getContentType(), "\"" + DigestUtils.md5Hex(data) + "\"", data);
+            if (data.length <= MAX_CACHED_SIZE) {
+                apiResponseCacheService.putResponse(key, cached);
+            }
+        } else {
+            LOG.trace("API response cache hit: {}", key);
+        }
+        
+        // clients must revalidate the response with the ETag
+        httpResponse.setHeader("ETag", cached.getETag());
+        httpResponse.setHeader("Cache-Control", "no-cache");
+        
+        if (matchesETag(httpRequest.getHeader("If-None-Match"), cached.getETag())) {
+            httpResponse.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        
+        if (cached.getContentType() != null) {
+            httpResponse.setContentType(cached.getContentType());
+        }
+        httpResponse.getOutputStream().write(cached.getData());
+    }
+
+    @Override
+    public void destroy() {
+        // empty interface implementation
+    }
+
+    private static String buildKey(String path, HttpServletRequest request) {
+        // parameters are sorted, so the order in the request doesn't matter
+        Map<String, String[]> params = new TreeMap<>(request.getParameterMap());
+        // the cache buster doesn't change the response; the JSONP callback does,
+        // because this filter runs outside of the JSONP callback filter
+        params.remove("_");
+        
+        StringBuilder sb = new StringBuilder(path);
+        for (Map.Entry<String, String[]> entry : params.entrySet()) {
+            sb.append(sb.length() == path.length() ? '?' : '&');
+            sb.append(entry.getKey()).append('=').append(StringUtils.join(entry.getValue(), ','));
+        }
+        return sb.toString();
+    }
+    
+    private static boolean matchesETag(String ifNoneMatch, String eTag) {
+        if (StringUtils.isBlank(ifNoneMatch)) {
+            return false;
+        }
+        for (String tag : StringUtils.split(ifNoneMatch, ',')) {
+            String trimmed = StringUtils.removeStart(tag.trim(), "W/");
+            if ("*".equals(trimmed) || eTag.equals(trimmed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
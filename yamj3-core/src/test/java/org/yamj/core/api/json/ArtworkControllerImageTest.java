@@ -0,0 +1,98 @@
+package org.yamj.core.api.json;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.yamj.core.YamjConfiguration;
+import org.yamj.core.service.artwork.ArtworkProcessorService;
+import org.yamj.core.service.artwork.ImageDTO;
+
+public class ArtworkControllerImageTest {
+
+    private static final String IMAGE_URL = "/api/artwork/get/poster/1";
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private byte[] content;
+    private MockMvc mockMvc;
+
+    @Before
+    public void setUp() throws Exception {
+        content = new byte[100];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        final File file = folder.newFile("poster.jpg");
+        FileUtils.writeByteArrayToFile(file, content);
+
+        ArtworkController controller = new ArtworkController();
+        ReflectionTestUtils.setField(controller, "artworkLocatedProcessorService", new ArtworkProcessorService() {
+            @Override
+            public ImageDTO getImage(Long id, String profileName) {
+                ImageDTO image = new ImageDTO();
+                image.setResource(file.getAbsolutePath());
+                image.setMediaType(MediaType.IMAGE_JPEG);
+                return image;
+            }
+        });
+
+        // use the same converters as the web application
+        List<HttpMessageConverter<?>> converters = new ArrayList<>();
+        new YamjConfiguration().configureMessageConverters(converters);
+
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setMessageConverters(converters.toArray(new HttpMessageConverter<?>[converters.size()]))
+                .build();
+    }
+
+    @Test
+    public void testFullImage() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get(IMAGE_URL).accept(MediaType.IMAGE_JPEG))
+                .andReturn().getResponse();
+        
+        assertEquals(200, response.getStatus());
+        assertNotNull(response.getHeader(HttpHeaders.ETAG));
+        assertArrayEquals(content, response.getContentAsByteArray());
+    }
+
+    @Test
+    public void testNotModified() throws Exception {
+        String eTag = mockMvc.perform(get(IMAGE_URL).accept(MediaType.IMAGE_JPEG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        
+        MockHttpServletResponse response = mockMvc.perform(get(IMAGE_URL).accept(MediaType.IMAGE_JPEG).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andReturn().getResponse();
+        
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    public void testRange() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get(IMAGE_URL).accept(MediaType.IMAGE_JPEG).header(HttpHeaders.RANGE, "bytes=10-19"))
+                .andReturn().getResponse();
+        
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 10-19/100", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals(Arrays.copyOfRange(content, 10, 20), response.getContentAsByteArray());
+    }
+}
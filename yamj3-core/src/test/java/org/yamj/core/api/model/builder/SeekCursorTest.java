@@ -0,0 +1,151 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.api.model.builder;
+
+import static org.junit.Assert.*;
+import static org.yamj.common.type.MetaDataType.MOVIE;
+import static org.yamj.common.type.MetaDataType.SERIES;
+
+import java.util.Map;
+import org.junit.Test;
+import org.yamj.core.api.model.dto.ApiVideoDTO;
+import org.yamj.core.api.options.OptionsIndexVideo;
+
+public class SeekCursorTest {
+
+    private static IndexParams params(String cursor, String sortBy, String sortDir) {
+        OptionsIndexVideo options = new OptionsIndexVideo();
+        options.setCursor(cursor);
+        options.setSortby(sortBy);
+        options.setSortdir(sortDir);
+        return new IndexParams(options);
+    }
+
+    private static ApiVideoDTO video(String videoType, long id, String title) {
+        ApiVideoDTO video = new ApiVideoDTO();
+        video.setVideoType(videoType);
+        video.setId(Long.valueOf(id));
+        video.setTitle(title);
+        video.setSortTitle(title);
+        video.setOriginalTitle(title);
+        return video;
+    }
+
+    /**
+     * Encode the cursor for the video, decode it again and get the seek parameters.
+     */
+    private static Map<String, Object> roundTrip(ApiVideoDTO video, String sortBy, String sortDir) {
+        final String token = SeekCursor.start(sortBy, sortDir).encodeNext(video);
+        final IndexParams params = params(token, sortBy, sortDir);
+        assertFalse(params.isInvalidCursor());
+        
+        SeekCursor seekCursor = params.getSeekCursor();
+        assertNotNull(seekCursor);
+        assertFalse(seekCursor.isFirstPage());
+        seekCursor.getSeekPredicate(video.getVideoType(), "vd", params);
+        
+        SqlScalars sqlScalars = new SqlScalars();
+        params.addScalarParameters(sqlScalars);
+        return sqlScalars.getParameters();
+    }
+
+    private static void assertTitleRoundTrip(String title, String expected) {
+        for (String sortBy : new String[]{"title", "sortTitle", "originalTitle"}) {
+            for (String sortDir : new String[]{"ASC", "DESC"}) {
+                Map<String, Object> parameters = roundTrip(video("MOVIE", 42, title), sortBy, sortDir);
+                assertEquals(sortBy + " " + sortDir, expected, parameters.get("seekValue"));
+                assertEquals(Long.valueOf(42), parameters.get("seekId"));
+            }
+        }
+    }
+
+    @Test
+    public void titleWithSeparators() {
+        assertTitleRoundTrip("Alpha|Beta", "Alpha|Beta");
+        assertTitleRoundTrip("|leading|and|trailing|", "|leading|and|trailing|");
+    }
+
+    @Test
+    public void nonAsciiTitle() {
+        assertTitleRoundTrip("Amélie", "Amélie");
+        assertTitleRoundTrip("東京物語", "東京物語");
+        assertTitleRoundTrip("Ünïcödé | Ærø", "Ünïcödé | Ærø");
+    }
+
+    @Test
+    public void rawTitle() {
+        // the title is encoded as it is, like the seek expression compares it
+        assertTitleRoundTrip("  padded title  ", "  padded title  ");
+        assertTitleRoundTrip("", "");
+        assertTitleRoundTrip(null, "");
+    }
+
+    @Test
+    public void numericRoundTrip() {
+        ApiVideoDTO video = video("SERIES", 7, "Series");
+        video.setVideoYear(Integer.valueOf(1999));
+        Map<String, Object> parameters = roundTrip(video, "videoYear", "DESC");
+        assertEquals(Long.valueOf(1999), parameters.get("seekValue"));
+        assertEquals(Long.valueOf(7), parameters.get("seekId"));
+
+        parameters = roundTrip(video, "id", "ASC");
+        assertEquals(Long.valueOf(7), parameters.get("seekValue"));
+    }
+
+    @Test
+    public void seekPredicateOfOtherType() {
+        final String token = SeekCursor.start("title", "ASC").encodeNext(video("MOVIE", 42, "Title"));
+        final IndexParams params = params(token, "title", "ASC");
+        // series are sorted after movies, so the same title is included
+        assertEquals(" AND COALESCE(ser.title,'')>=:seekValue", params.getSeekCursor().getSeekPredicate(SERIES, "ser", params));
+        assertEquals(" AND (COALESCE(vd.title,'')>:seekValue OR (COALESCE(vd.title,'')=:seekValue AND vd.id>:seekId))",
+                        params.getSeekCursor().getSeekPredicate(MOVIE, "vd", params));
+    }
+
+    @Test
+    public void firstPage() {
+        IndexParams params = params(SeekCursor.FIRST_PAGE, "title", "ASC");
+        assertFalse(params.isInvalidCursor());
+        assertTrue(params.getSeekCursor().isFirstPage());
+        assertEquals("", params.getSeekCursor().getSeekPredicate(MOVIE, "vd", params));
+    }
+
+    @Test
+    public void noCursor() {
+        IndexParams params = params(null, "title", "ASC");
+        assertFalse(params.isInvalidCursor());
+        assertNull(params.getSeekCursor());
+    }
+
+    @Test
+    public void invalidCursor() {
+        final String token = SeekCursor.start("title", "ASC").encodeNext(video("MOVIE", 42, "Title"));
+        // other sort field or direction than encoded
+        assertTrue(params(token, "sortTitle", "ASC").isInvalidCursor());
+        assertTrue(params(token, "title", "DESC").isInvalidCursor());
+        // unsupported sort field
+        assertTrue(params(SeekCursor.FIRST_PAGE, "rating", "ASC").isInvalidCursor());
+        // garbage
+        assertTrue(params("not a cursor", "title", "ASC").isInvalidCursor());
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.database.service;
+
+import static org.junit.Assert.*;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.yamj.core.AbstractTest;
+import org.yamj.core.database.dao.CommonDao;
+import org.yamj.core.database.model.*;
+import org.yamj.core.database.model.award.Award;
+
+public class LookupDictionaryServiceTest extends AbstractTest {
+
+    @Autowired
+    private LookupDictionaryService lookupDictionaryService;
+    @Autowired
+    private CommonDao commonDao;
+    @Autowired
+    private SessionFactory sessionFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Statistics statistics;
+
+    @Before
+    public void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        statistics = sessionFactory.getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @Test
+    public void lookupWithoutStatements() {
+        transactionTemplate.execute(new TransactionCallback<Void>() {
+            @Override
+            public Void doInTransaction(TransactionStatus status) {
+                lookupDictionaryService.putGenre(commonDao.saveGenre("Lookup Genre", null));
+                lookupDictionaryService.putStudio(commonDao.saveStudio("Lookup Studio"));
+                lookupDictionaryService.putCountry(commonDao.saveCountry("LU"));
+                lookupDictionaryService.putCertification(commonDao.saveCertification("LU", "16"));
+                lookupDictionaryService.putAward(commonDao.saveAward("Lookup Event", "Lookup Category", "lookup"));
+                return null;
+            }
+        });
+
+        // the first lookup of each id may hit the database
+        lookupAll();
+        
+        statistics.clear();
+        for (int i = 0; i < 3; i++) {
+            lookupAll();
+        }
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    private void lookupAll() {
+        transactionTemplate.execute(new TransactionCallback<Void>() {
+            @Override
+            public Void doInTransaction(TransactionStatus status) {
+                Genre genre = lookupDictionaryService.getGenre("lookup genre");
+                assertNotNull(genre);
+                assertEquals("Lookup Genre", genre.getName());
+                Studio studio = lookupDictionaryService.getStudio("LOOKUP STUDIO");
+                assertNotNull(studio);
+                assertEquals("Lookup Studio", studio.getName());
+                Country country = lookupDictionaryService.getCountry("LU");
+                assertNotNull(country);
+                Certification certification = lookupDictionaryService.getCertification("LU", "16");
+                assertNotNull(certification);
+                Award award = lookupDictionaryService.getAward("Lookup Event", "Lookup Category", "lookup");
+                assertNotNull(award);
+                return null;
+            }
+        });
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.service.attachment;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.yamj.core.service.attachment.MatroskaAttachmentReader.AttachedFile;
+
+public class MatroskaAttachmentReaderTest {
+
+    private static final byte[] COVER = "cover data".getBytes(StandardCharsets.US_ASCII);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readAndExtract() throws IOException {
+        File file = write("attached.mkv", matroska(bytes(0x46, 0x6E, 0x89), "cover.jpg".getBytes(StandardCharsets.UTF_8)));
+
+        List<AttachedFile> attachedFiles = MatroskaAttachmentReader.readAttachments(file);
+        assertEquals(1, attachedFiles.size());
+        assertEquals("cover.jpg", attachedFiles.get(0).getFileName());
+        assertEquals("image/jpeg", attachedFiles.get(0).getMimeType());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(MatroskaAttachmentReader.extractAttachment(file, 1, out));
+        assertArrayEquals(COVER, out.toByteArray());
+        assertFalse(MatroskaAttachmentReader.extractAttachment(file, 2, new ByteArrayOutputStream()));
+    }
+
+    @Test
+    public void oversizedFileName() throws IOException {
+        // file name sizes of 2 GB and of a negative int value
+        assertInvalid(bytes(0x46, 0x6E, 0x01, 0x00, 0x00, 0x00, 0x7F, 0xFF, 0xFF, 0xF0));
+        assertInvalid(bytes(0x46, 0x6E, 0x01, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xF0));
+    }
+
+    private void assertInvalid(byte[] fileNameHeader) throws IOException {
+        File file = write("invalid.mkv", matroska(fileNameHeader, "cover.jpg".getBytes(StandardCharsets.UTF_8)));
+        try {
+            MatroskaAttachmentReader.readAttachments(file);
+            fail("Invalid element size not detected");
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+
+    private File write(String name, byte[] data) throws IOException {
+        File file = new File(folder.getRoot(), name);
+        FileUtils.writeByteArrayToFile(file, data);
+        return file;
+    }
+
+    private static byte[] matroska(byte[] fileNameHeader, byte[] fileName) {
+        byte[] attachedFile = concat(fileNameHeader, fileName,
+                bytes(0x46, 0x60, 0x8A), "image/jpeg".getBytes(StandardCharsets.US_ASCII),
+                bytes(0x46, 0x5C, 0x80 | COVER.length), COVER);
+        byte[] attachments = concat(bytes(0x61, 0xA7, 0x80 | attachedFile.length), attachedFile);
+        byte[] segment = concat(bytes(0x19, 0x41, 0xA4, 0x69, 0x80 | attachments.length), attachments);
+        return concat(bytes(0x1A, 0x45, 0xDF, 0xA3, 0x80), bytes(0x18, 0x53, 0x80, 0x67, 0x80 | segment.length), segment);
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.write(part, 0, part.length);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] result = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = (byte) values[i];
+        }
+        return result;
+    }
+}
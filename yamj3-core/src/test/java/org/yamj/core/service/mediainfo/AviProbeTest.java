@@ -0,0 +1,93 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.service.mediainfo;
+
+import static org.junit.Assert.*;
+import static org.yamj.core.service.mediainfo.ProbeSamples.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AviProbeTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ProbeResult probe(byte[] data) throws IOException {
+        File file = write(folder.getRoot(), "sample.avi", data);
+        ProbeResult result = new ProbeResult();
+        try (ProbeInput input = new ProbeInput(file)) {
+            AviProbe.probe(input, result);
+        }
+        return result;
+    }
+
+    @Test
+    public void probeStreams() throws IOException {
+        final byte[] data = avi();
+        ProbeResult result = probe(data);
+
+        assertTrue(result.isComplete());
+        assertEquals("AVI", result.getGeneral().get("Format"));
+        assertEquals("5000", result.getGeneral().get("Duration"));
+        assertEquals(Long.toString(Math.round(data.length * 8000d / DURATION_MILLIS)), result.getGeneral().get("Overall bit rate"));
+
+        assertEquals(1, result.getVideo().size());
+        Map<String, String> video = result.getVideo().get(0);
+        assertEquals("MPEG-4 Visual", video.get("Format"));
+        assertEquals("XVID", video.get("Codec ID"));
+        assertEquals("640", video.get("Width"));
+        assertEquals("480", video.get("Height"));
+        assertEquals("25.000", video.get("Frame rate"));
+        assertEquals("1.333", video.get("Display aspect ratio"));
+
+        assertEquals(1, result.getAudio().size());
+        Map<String, String> audio = result.getAudio().get(0);
+        assertEquals("AC-3", audio.get("Format"));
+        assertEquals("2000", audio.get("Codec ID"));
+        assertEquals("6", audio.get("Channel(s)"));
+        assertEquals("448000", audio.get("Bit rate"));
+
+        assertTrue(result.getText().isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedHeaders() throws IOException {
+        final byte[] data = avi();
+        probe(Arrays.copyOf(data, data.length - 10));
+    }
+
+    @Test
+    public void missingHeaders() throws IOException {
+        final byte[] corrupt = avi();
+        // the header list is no header list anymore
+        System.arraycopy(ascii("movi"), 0, corrupt, 20, 4);
+        ProbeResult result = probe(corrupt);
+        assertFalse(result.isComplete());
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.service.mediainfo;
+
+import static org.junit.Assert.*;
+import static org.yamj.core.service.mediainfo.ProbeSamples.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MatroskaProbeTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ProbeResult probe(byte[] data) throws IOException {
+        File file = write(folder.getRoot(), "sample.mkv", data);
+        ProbeResult result = new ProbeResult();
+        try (ProbeInput input = new ProbeInput(file)) {
+            MatroskaProbe.probe(input, result);
+        }
+        return result;
+    }
+
+    @Test
+    public void probeTracks() throws IOException {
+        final byte[] data = matroska();
+        ProbeResult result = probe(data);
+
+        assertTrue(result.isComplete());
+        assertEquals("Matroska", result.getGeneral().get("Format"));
+        assertEquals("5000", result.getGeneral().get("Duration"));
+        assertEquals(Long.toString(Math.round(data.length * 8000d / DURATION_MILLIS)), result.getGeneral().get("Overall bit rate"));
+
+        assertEquals(1, result.getVideo().size());
+        Map<String, String> video = result.getVideo().get(0);
+        assertEquals("AVC", video.get("Format"));
+        assertEquals("V_MPEG4/ISO/AVC", video.get("Codec ID"));
+        assertEquals("High@L4.1", video.get("Format profile"));
+        assertEquals("1920", video.get("Width"));
+        assertEquals("1080", video.get("Height"));
+        assertEquals("23.976", video.get("Frame rate"));
+        assertEquals("1.778", video.get("Display aspect ratio"));
+
+        assertEquals(1, result.getAudio().size());
+        Map<String, String> audio = result.getAudio().get(0);
+        assertEquals("AC-3", audio.get("Format"));
+        assertEquals("A_AC3", audio.get("Codec ID"));
+        assertEquals("6", audio.get("Channel(s)"));
+        assertEquals("ger", audio.get("Language"));
+
+        assertEquals(1, result.getText().size());
+        Map<String, String> text = result.getText().get(0);
+        assertEquals("UTF-8", text.get("Format"));
+        assertEquals("eng", text.get("Language"));
+        assertEquals("No", text.get("Default"));
+        assertEquals("Yes", text.get("Forced"));
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedTracks() throws IOException {
+        final byte[] data = matroska();
+        probe(Arrays.copyOf(data, data.length - 10));
+    }
+
+    @Test(expected = IOException.class)
+    public void invalidElementId() throws IOException {
+        final byte[] corrupt = matroska();
+        // zero is no valid length marker of an element ID
+        corrupt[indexOfSegment(corrupt)] = 0;
+        probe(corrupt);
+    }
+
+    private static int indexOfSegment(byte[] data) {
+        for (int i = 4; i + 4 <= data.length; i++) {
+            if ((data[i] & 0xFF) == 0x18 && (data[i + 1] & 0xFF) == 0x53 && (data[i + 2] & 0xFF) == 0x80 && (data[i + 3] & 0xFF) == 0x67) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("No segment found");
+    }
+}
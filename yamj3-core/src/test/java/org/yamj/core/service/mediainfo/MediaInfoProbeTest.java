@@ -0,0 +1,168 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.service.mediainfo;
+
+import static org.junit.Assert.*;
+import static org.yamj.core.service.mediainfo.ProbeSamples.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MediaInfoProbeTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final MediaInfoProbe mediaInfoProbe = new MediaInfoProbe();
+    private final Map<String, String> infosGeneral = new HashMap<>();
+    private final List<Map<String, String>> infosVideo = new ArrayList<>();
+    private final List<Map<String, String>> infosAudio = new ArrayList<>();
+    private final List<Map<String, String>> infosText = new ArrayList<>();
+
+    private boolean probe(String name, byte[] data) throws IOException {
+        File file = write(folder.getRoot(), name, data);
+        infosGeneral.clear();
+        infosVideo.clear();
+        infosAudio.clear();
+        infosText.clear();
+        
+        final boolean probed = mediaInfoProbe.probe(file, infosGeneral, infosVideo, infosAudio, infosText);
+        if (!probed) {
+            // nothing may be filled in if the probe fails
+            assertTrue(infosGeneral.isEmpty());
+            assertTrue(infosVideo.isEmpty());
+            assertTrue(infosAudio.isEmpty());
+            assertTrue(infosText.isEmpty());
+        }
+        return probed;
+    }
+
+    private void assertSections(String format, int textCount) {
+        // the keys which are evaluated for the media file
+        assertEquals(format, infosGeneral.get("Format"));
+        assertEquals("5000", infosGeneral.get("Duration"));
+        assertNotNull(infosGeneral.get("Overall bit rate"));
+        
+        assertEquals(1, infosVideo.size());
+        assertNotNull(infosVideo.get(0).get("Codec ID"));
+        assertNotNull(infosVideo.get(0).get("Format"));
+        assertNotNull(infosVideo.get(0).get("Width"));
+        assertNotNull(infosVideo.get(0).get("Height"));
+        assertNotNull(infosVideo.get(0).get("Frame rate"));
+        assertNotNull(infosVideo.get(0).get("Display aspect ratio"));
+        
+        assertEquals(1, infosAudio.size());
+        assertNotNull(infosAudio.get(0).get("Format"));
+        assertNotNull(infosAudio.get(0).get("Channel(s)"));
+        
+        assertEquals(textCount, infosText.size());
+        for (Map<String, String> text : infosText) {
+            assertNotNull(text.get("Format"));
+            assertEquals("eng", text.get("Language"));
+        }
+    }
+
+    @Test
+    public void probeMatroska() throws IOException {
+        assertTrue(probe("sample.mkv", matroska()));
+        assertSections("Matroska", 1);
+        assertEquals("No", infosText.get(0).get("Default"));
+        assertEquals("Yes", infosText.get(0).get("Forced"));
+    }
+
+    @Test
+    public void probeMp4() throws IOException {
+        assertTrue(probe("sample.mp4", mp4()));
+        assertSections("MPEG-4", 1);
+        assertEquals("No", infosText.get(0).get("Default"));
+        assertEquals("No", infosText.get(0).get("Forced"));
+    }
+
+    @Test
+    public void probeAvi() throws IOException {
+        assertTrue(probe("sample.avi", avi()));
+        assertSections("AVI", 0);
+    }
+
+    @Test
+    public void probeTransportStream() throws IOException {
+        assertTrue(probe("sample.ts", transportStream()));
+        assertSections("MPEG-TS", 1);
+    }
+
+    @Test
+    public void truncatedFiles() throws IOException {
+        assertTruncated("sample.mkv", matroska());
+        assertTruncated("sample.mp4", mp4());
+        assertTruncated("sample.avi", avi());
+    }
+
+    private void assertTruncated(String name, byte[] data) throws IOException {
+        for (int length = 0; length < data.length; length++) {
+            assertFalse(name + " truncated to " + length + " bytes", probe(name, Arrays.copyOf(data, length)));
+        }
+    }
+
+    @Test
+    public void truncatedTransportStream() throws IOException {
+        final byte[] data = transportStream();
+        // first packet only and program tables only
+        assertFalse(probe("sample.ts", Arrays.copyOf(data, 150)));
+        assertFalse(probe("sample.ts", Arrays.copyOf(data, 2 * 188)));
+    }
+
+    @Test
+    public void corruptFiles() throws IOException {
+        // valid magic followed by garbage
+        byte[] garbage = new byte[1000];
+        new Random(42).nextBytes(garbage);
+        
+        byte[] matroska = garbage.clone();
+        System.arraycopy(matroska(), 0, matroska, 0, 4);
+        assertFalse(probe("corrupt.mkv", matroska));
+
+        byte[] mp4 = garbage.clone();
+        System.arraycopy(ascii("ftyp"), 0, mp4, 4, 4);
+        assertFalse(probe("corrupt.mp4", mp4));
+
+        byte[] avi = garbage.clone();
+        System.arraycopy(avi(), 0, avi, 0, 12);
+        assertFalse(probe("corrupt.avi", avi));
+
+        // EBML header with a DocType size beyond the file
+        assertFalse(probe("oversized.mkv", crafted(0x01, 0x00, 0x00, 0x00, 0x7F, 0xFF, 0xFF, 0xF0)));
+        assertFalse(probe("negative.mkv", crafted(0x01, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xF0)));
+
+        assertFalse(probe("corrupt.bin", garbage));
+        assertFalse(probe("empty.bin", new byte[0]));
+    }
+
+    private static byte[] crafted(int... docTypeSize) {
+        // 24 bytes: EBML id, header size, DocType id, DocType size and 9 bytes of data
+        return concat(bytes(0x1A, 0x45, 0xDF, 0xA3, 0x93, 0x42, 0x82), bytes(docTypeSize), new byte[9]);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.service.mediainfo;
+
+import static org.junit.Assert.*;
+import static org.yamj.core.service.mediainfo.ProbeSamples.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class Mp4ProbeTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ProbeResult probe(byte[] data) throws IOException {
+        File file = write(folder.getRoot(), "sample.mp4", data);
+        ProbeResult result = new ProbeResult();
+        try (ProbeInput input = new ProbeInput(file)) {
+            Mp4Probe.probe(input, result);
+        }
+        return result;
+    }
+
+    @Test
+    public void probeTracks() throws IOException {
+        final byte[] data = mp4();
+        ProbeResult result = probe(data);
+
+        assertTrue(result.isComplete());
+        assertEquals("MPEG-4", result.getGeneral().get("Format"));
+        assertEquals("5000", result.getGeneral().get("Duration"));
+        assertEquals(Long.toString(Math.round(data.length * 8000d / DURATION_MILLIS)), result.getGeneral().get("Overall bit rate"));
+
+        assertEquals(1, result.getVideo().size());
+        Map<String, String> video = result.getVideo().get(0);
+        assertEquals("AVC", video.get("Format"));
+        assertEquals("avc1", video.get("Codec ID"));
+        assertEquals("High@L4.1", video.get("Format profile"));
+        assertEquals("1920", video.get("Width"));
+        assertEquals("1080", video.get("Height"));
+        assertEquals("23.976", video.get("Frame rate"));
+        assertEquals("1.778", video.get("Display aspect ratio"));
+
+        assertEquals(1, result.getAudio().size());
+        Map<String, String> audio = result.getAudio().get(0);
+        assertEquals("AAC", audio.get("Format"));
+        assertEquals("mp4a", audio.get("Codec ID"));
+        assertEquals("2", audio.get("Channel(s)"));
+        assertEquals("128000", audio.get("Bit rate"));
+        assertEquals("ger", audio.get("Language"));
+
+        assertEquals(1, result.getText().size());
+        Map<String, String> text = result.getText().get(0);
+        assertEquals("Timed Text", text.get("Format"));
+        assertEquals("tx3g", text.get("Codec ID"));
+        assertEquals("eng", text.get("Language"));
+        assertEquals("No", text.get("Default"));
+        assertEquals("No", text.get("Forced"));
+    }
+
+    @Test
+    public void missingMovieBox() throws IOException {
+        // cut inside the media data in front of the movie box
+        ProbeResult result = probe(Arrays.copyOf(mp4(), 500));
+        assertFalse(result.isComplete());
+    }
+
+    @Test
+    public void invalidBoxSize() throws IOException {
+        final byte[] corrupt = mp4();
+        // the size of the media data box is less than its header
+        final int sizeOffset = indexOf(corrupt, "mdat") - 4;
+        System.arraycopy(be(4, 4), 0, corrupt, sizeOffset, 4);
+        ProbeResult result = probe(corrupt);
+        assertFalse(result.isComplete());
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedMovieBox() throws IOException {
+        final byte[] data = mp4();
+        probe(Arrays.copyOf(data, data.length - 10));
+    }
+
+    private static int indexOf(byte[] data, String type) {
+        final byte[] pattern = ascii(type);
+        for (int i = 0; i + pattern.length <= data.length; i++) {
+            if (Arrays.equals(pattern, Arrays.copyOfRange(data, i, i + pattern.length))) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("No box " + type + " found");
+    }
+}
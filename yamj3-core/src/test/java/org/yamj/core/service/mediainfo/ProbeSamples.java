@@ -0,0 +1,364 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.service.mediainfo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Builds minimal media files for the probe tests.
+ *
+ * Each sample holds a video stream of five seconds, one audio stream and,
+ * where the container supports it, one subtitle stream. The Matroska, MPEG-4
+ * and AVI samples end with their last header, so each truncation of them
+ * leaves the headers incomplete.
+ */
+final class ProbeSamples {
+
+    static final long DURATION_MILLIS = 5000;
+    private static final int TS_PACKET_SIZE = 188;
+
+    private ProbeSamples() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    static File write(File directory, String name, byte[] data) throws IOException {
+        File file = new File(directory, name);
+        FileUtils.writeByteArrayToFile(file, data);
+        return file;
+    }
+
+    /**
+     * Concatenate byte arrays.
+     */
+    static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.write(part, 0, part.length);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Get the unsigned big-endian representation of a value.
+     */
+    static byte[] be(long value, int bytes) {
+        byte[] result = new byte[bytes];
+        for (int i = 0; i < bytes; i++) {
+            result[i] = (byte) (value >> (8 * (bytes - 1 - i)));
+        }
+        return result;
+    }
+
+    /**
+     * Get the unsigned little-endian representation of a value.
+     */
+    static byte[] le(long value, int bytes) {
+        byte[] result = new byte[bytes];
+        for (int i = 0; i < bytes; i++) {
+            result[i] = (byte) (value >> (8 * i));
+        }
+        return result;
+    }
+
+    static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    static byte[] bytes(int... values) {
+        byte[] result = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = (byte) values[i];
+        }
+        return result;
+    }
+
+    // MATROSKA
+
+    private static byte[] ebml(long id, byte[]... payload) {
+        final byte[] data = concat(payload);
+        final int idLength = (id > 0xFFFFFFL) ? 4 : (id > 0xFFFFL) ? 3 : (id > 0xFFL) ? 2 : 1;
+        final byte[] size;
+        if (data.length < 0x7F) {
+            size = bytes(0x80 | data.length);
+        } else {
+            size = be(0x10000000L | data.length, 4);
+        }
+        return concat(be(id, idLength), size, data);
+    }
+
+    private static byte[] ebmlUnsigned(long id, long value, int bytes) {
+        return ebml(id, be(value, bytes));
+    }
+
+    static byte[] matroska() {
+        byte[] header = ebml(0x1A45DFA3L, ebmlUnsigned(0x4286L, 1, 1), ebml(0x4282L, ascii("matroska")));
+        byte[] info = ebml(0x1549A966L,
+                ebmlUnsigned(0x2AD7B1L, 1000000L, 3),
+                ebml(0x4489L, be(Double.doubleToLongBits(DURATION_MILLIS), 8)));
+        byte[] video = ebml(0xAEL,
+                ebmlUnsigned(0xD7L, 1, 1),
+                ebmlUnsigned(0x83L, 1, 1),
+                ebml(0x86L, ascii("V_MPEG4/ISO/AVC")),
+                ebml(0x63A2L, bytes(1, 100, 0, 41, 0xFF)),
+                ebmlUnsigned(0x23E383L, 41708333L, 4),
+                ebml(0xE0L, ebmlUnsigned(0xB0L, 1920, 2), ebmlUnsigned(0xBAL, 1080, 2)));
+        byte[] audio = ebml(0xAEL,
+                ebmlUnsigned(0xD7L, 2, 1),
+                ebmlUnsigned(0x83L, 2, 1),
+                ebml(0x86L, ascii("A_AC3")),
+                ebml(0x22B59CL, ascii("ger")),
+                ebml(0xE1L, ebmlUnsigned(0x9FL, 6, 1)));
+        byte[] text = ebml(0xAEL,
+                ebmlUnsigned(0xD7L, 3, 1),
+                ebmlUnsigned(0x83L, 0x11, 1),
+                ebml(0x86L, ascii("S_TEXT/UTF8")),
+                ebmlUnsigned(0x88L, 0, 1),
+                ebmlUnsigned(0x55AAL, 1, 1));
+        byte[] tracks = ebml(0x1654AE6BL, video, audio, text);
+        return concat(header, ebml(0x18538067L, info, tracks));
+    }
+
+    // MPEG-4
+
+    private static byte[] box(String type, byte[]... payload) {
+        final byte[] data = concat(payload);
+        return concat(be(data.length + 8, 4), ascii(type), data);
+    }
+
+    private static byte[] fullBox(String type, int flags, byte[]... payload) {
+        return box(type, be(flags, 4), concat(payload));
+    }
+
+    private static byte[] trackHeader(int flags, int displayWidth, int displayHeight) {
+        return fullBox("tkhd", flags, new byte[20], new byte[52], be(displayWidth << 16, 4), be(displayHeight << 16, 4));
+    }
+
+    private static byte[] mediaHeader(long timescale, String language) {
+        final int packed = ((language.charAt(0) - 0x60) << 10) | ((language.charAt(1) - 0x60) << 5) | (language.charAt(2) - 0x60);
+        return fullBox("mdhd", 0, new byte[8], be(timescale, 4), be(0, 4), be(packed, 2), be(0, 2));
+    }
+
+    private static byte[] handler(String handlerType) {
+        return fullBox("hdlr", 0, be(0, 4), ascii(handlerType), new byte[12], new byte[1]);
+    }
+
+    private static byte[] track(byte[] trackHeader, byte[] mediaHeader, byte[] handler, byte[]... sampleTable) {
+        return box("trak", trackHeader, box("mdia", mediaHeader, handler, box("minf", box("stbl", sampleTable))));
+    }
+
+    static byte[] mp4() {
+        byte[] ftyp = box("ftyp", ascii("isom"), be(0, 4), ascii("isomavc1"));
+        byte[] mdat = box("mdat", new byte[1000]);
+        byte[] mvhd = fullBox("mvhd", 0, new byte[8], be(1000, 4), be(DURATION_MILLIS, 4), new byte[80]);
+
+        byte[] avc1 = box("avc1", new byte[24], be(1920, 2), be(1080, 2), new byte[50],
+                box("avcC", bytes(1, 100, 0, 41, 0xFF)));
+        byte[] video = track(trackHeader(1, 1920, 1080), mediaHeader(24000, "und"), handler("vide"),
+                fullBox("stsd", 0, be(1, 4), avc1),
+                fullBox("stts", 0, be(1, 4), be(120, 4), be(1001, 4)));
+
+        byte[] esds = fullBox("esds", 0,
+                bytes(0x03, 19, 0, 1, 0),
+                bytes(0x04, 13, 0x40, 0x15, 0, 0, 0), be(192000, 4), be(128000, 4));
+        byte[] mp4a = box("mp4a", new byte[8], be(0, 2), new byte[6], be(2, 2), new byte[10], esds);
+        byte[] audio = track(trackHeader(1, 0, 0), mediaHeader(48000, "ger"), handler("soun"),
+                fullBox("stsd", 0, be(1, 4), mp4a));
+
+        byte[] tx3g = box("tx3g", new byte[30]);
+        byte[] text = track(trackHeader(0, 0, 0), mediaHeader(1000, "eng"), handler("sbtl"),
+                fullBox("stsd", 0, be(1, 4), tx3g));
+
+        return concat(ftyp, mdat, box("moov", mvhd, video, text, audio));
+    }
+
+    // AVI
+
+    private static byte[] chunk(String id, byte[]... payload) {
+        final byte[] data = concat(payload);
+        final byte[] padding = new byte[data.length & 1];
+        return concat(ascii(id), le(data.length, 4), data, padding);
+    }
+
+    private static byte[] list(String type, byte[]... payload) {
+        return chunk("LIST", ascii(type), concat(payload));
+    }
+
+    static byte[] avi() {
+        // the main header counts the frames of the first RIFF list only
+        byte[] avih = chunk("avih", le(40000, 4), le(0, 4), le(0, 4), le(0, 4), le(100, 4), new byte[36]);
+        byte[] videoStream = list("strl",
+                chunk("strh", ascii("vids"), ascii("XVID"), new byte[12], le(1, 4), le(25, 4), new byte[28]),
+                chunk("strf", le(40, 4), le(640, 4), le(480, 4), le(1, 2), le(24, 2), ascii("XVID"), new byte[20]));
+        byte[] audioStream = list("strl",
+                chunk("strh", ascii("auds"), new byte[4], new byte[12], le(1, 4), le(48000, 4), new byte[28]),
+                chunk("strf", le(0x2000, 2), le(6, 2), le(48000, 4), le(56000, 4), le(1792, 2), le(0, 2), le(0, 2)));
+        // the movie data is left out, so each truncation cuts into the headers
+        byte[] extendedHeader = list("odml", chunk("dmlh", le(125, 4)));
+        return chunk("RIFF", ascii("AVI "), list("hdrl", avih, videoStream, audioStream, extendedHeader));
+    }
+
+    // TRANSPORT STREAM
+
+    private static byte[] packet(int pid, boolean unitStart, byte[] adaptation, byte[] payload) {
+        final int control = (adaptation == null ? 0 : 2) | (payload == null ? 0 : 1);
+        byte[] data = concat(bytes(0x47, (unitStart ? 0x40 : 0) | (pid >> 8), pid & 0xFF, 0x10 * control),
+                adaptation == null ? new byte[0] : concat(bytes(adaptation.length), adaptation),
+                payload == null ? new byte[0] : payload);
+        if (data.length > TS_PACKET_SIZE) {
+            throw new IllegalArgumentException("Packet too large");
+        }
+        byte[] result = Arrays.copyOf(data, TS_PACKET_SIZE);
+        if (payload == null) {
+            // stuff the adaptation field
+            Arrays.fill(result, data.length, TS_PACKET_SIZE, (byte) 0xFF);
+            result[4] = (byte) (TS_PACKET_SIZE - 5);
+        }
+        return result;
+    }
+
+    private static byte[] pcr(long base) {
+        return bytes(0x10, (int) (base >> 25), (int) (base >> 17), (int) (base >> 9), (int) (base >> 1),
+                (int) (((base & 1) << 7) | 0x7E), 0);
+    }
+
+    private static byte[] section(int tableId, byte[]... payload) {
+        final byte[] data = concat(payload);
+        final int length = data.length + 4;
+        // pointer field, table header, payload and CRC which is not checked
+        return concat(bytes(0, tableId, 0xB0 | (length >> 8), length & 0xFF), data, new byte[4]);
+    }
+
+    private static byte[] pes(int streamId, byte[]... payload) {
+        return concat(bytes(0, 0, 1, streamId, 0, 0, 0x80, 0, 0), concat(payload));
+    }
+
+    static byte[] transportStream() {
+        byte[] pat = section(0x00, be(1, 2), bytes(0xC1, 0, 0), be(1, 2), be(0xE100, 2));
+        byte[] pmt = section(0x02, be(1, 2), bytes(0xC1, 0, 0), be(0xE101, 2), be(0xF000, 2),
+                bytes(0x1B), be(0xE101, 2), be(0xF000, 2),
+                bytes(0x81), be(0xE102, 2), be(0xF006, 2), bytes(0x0A, 4), ascii("ger"), bytes(0),
+                bytes(0x90), be(0xE103, 2), be(0xF006, 2), bytes(0x0A, 4), ascii("eng"), bytes(0));
+        byte[] video = pes(0xE0, bytes(0, 0, 1, 0x09, 0xF0), bytes(0, 0, 1), avcSps(), bytes(0, 0, 1, 0x68, 0xCE, 0x38, 0x80));
+        byte[] audio = pes(0xBD, bytes(0x0B, 0x77, 0, 0, 0x1E, 0x40, 0xE1, 0, 0, 0, 0, 0));
+        return concat(
+                packet(0x000, true, null, pat),
+                packet(0x100, true, null, pmt),
+                packet(0x101, true, pcr(0), video),
+                packet(0x102, true, null, audio),
+                packet(0x101, false, pcr(DURATION_MILLIS * 90), null));
+    }
+
+    /**
+     * Get the SPS NAL unit of a 1920x1080 High@L4 stream with 23.976 frames per second.
+     */
+    static byte[] avcSps() {
+        BitWriter bits = new BitWriter();
+        bits.write(0x67, 8);
+        bits.write(100, 8);
+        bits.write(0, 8);
+        bits.write(40, 8);
+        bits.writeUE(0);
+        // chroma format, bit depths, lossless and scaling matrix
+        bits.writeUE(1);
+        bits.writeUE(0);
+        bits.writeUE(0);
+        bits.write(0, 2);
+        // frame numbers and picture order count
+        bits.writeUE(0);
+        bits.writeUE(0);
+        bits.writeUE(0);
+        bits.writeUE(4);
+        bits.write(0, 1);
+        // 120x68 macro blocks, frame only, direct 8x8 and 8 rows cropped at the bottom
+        bits.writeUE(119);
+        bits.writeUE(67);
+        bits.write(1, 1);
+        bits.write(1, 1);
+        bits.write(1, 1);
+        bits.writeUE(0);
+        bits.writeUE(0);
+        bits.writeUE(0);
+        bits.writeUE(4);
+        // VUI with square pixels and timing
+        bits.write(1, 1);
+        bits.write(1, 1);
+        bits.write(1, 8);
+        bits.write(0, 3);
+        bits.write(1, 1);
+        bits.write(1001, 32);
+        bits.write(48000, 32);
+        bits.write(1, 1);
+        return escapeNal(bits.toByteArray());
+    }
+
+    private static byte[] escapeNal(byte[] rbsp) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int zeros = 0;
+        for (byte value : rbsp) {
+            if (zeros >= 2 && (value & 0xFF) <= 3) {
+                out.write(3);
+                zeros = 0;
+            }
+            out.write(value);
+            zeros = (value == 0) ? zeros + 1 : 0;
+        }
+        return out.toByteArray();
+    }
+
+    private static final class BitWriter {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private int current;
+        private int count;
+
+        void write(long value, int bits) {
+            for (int i = bits - 1; i >= 0; i--) {
+                current = (current << 1) | (int) ((value >> i) & 1);
+                if (++count == 8) {
+                    out.write(current);
+                    current = 0;
+                    count = 0;
+                }
+            }
+        }
+
+        void writeUE(int value) {
+            final long code = value + 1L;
+            final int length = 64 - Long.numberOfLeadingZeros(code);
+            write(0, length - 1);
+            write(code, length);
+        }
+
+        byte[] toByteArray() {
+            if (count > 0) {
+                write(0, 8 - count);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.service.mediainfo;
+
+import static org.junit.Assert.*;
+import static org.yamj.core.service.mediainfo.ProbeSamples.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TransportStreamProbeTest {
+
+    private static final int PACKET_SIZE = 188;
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ProbeResult probe(byte[] data) throws IOException {
+        File file = write(folder.getRoot(), "sample.ts", data);
+        ProbeResult result = new ProbeResult();
+        try (ProbeInput input = new ProbeInput(file)) {
+            TransportStreamProbe.probe(input, result, PACKET_SIZE);
+        }
+        return result;
+    }
+
+    @Test
+    public void packetSize() {
+        final byte[] data = transportStream();
+        assertEquals(PACKET_SIZE, TransportStreamProbe.getPacketSize(Arrays.copyOf(data, 200)));
+        assertEquals(-1, TransportStreamProbe.getPacketSize(Arrays.copyOf(data, 100)));
+        assertEquals(-1, TransportStreamProbe.getPacketSize(Arrays.copyOfRange(data, 1, 201)));
+    }
+
+    @Test
+    public void probeStreams() throws IOException {
+        final byte[] data = transportStream();
+        ProbeResult result = probe(data);
+
+        assertTrue(result.isComplete());
+        assertEquals("MPEG-TS", result.getGeneral().get("Format"));
+        assertEquals("5000", result.getGeneral().get("Duration"));
+        assertEquals(Long.toString(Math.round(data.length * 8000d / DURATION_MILLIS)), result.getGeneral().get("Overall bit rate"));
+
+        assertEquals(1, result.getVideo().size());
+        Map<String, String> video = result.getVideo().get(0);
+        assertEquals("AVC", video.get("Format"));
+        assertEquals("27", video.get("Codec ID"));
+        assertEquals("High@L4", video.get("Format profile"));
+        assertEquals("1920", video.get("Width"));
+        assertEquals("1080", video.get("Height"));
+        assertEquals("23.976", video.get("Frame rate"));
+        assertEquals("1.778", video.get("Display aspect ratio"));
+
+        assertEquals(1, result.getAudio().size());
+        Map<String, String> audio = result.getAudio().get(0);
+        assertEquals("AC-3", audio.get("Format"));
+        assertEquals("6", audio.get("Channel(s)"));
+        assertEquals("ger", audio.get("Language"));
+
+        assertEquals(1, result.getText().size());
+        Map<String, String> text = result.getText().get(0);
+        assertEquals("PGS", text.get("Format"));
+        assertEquals("eng", text.get("Language"));
+    }
+
+    @Test
+    public void missingVideoPacket() throws IOException {
+        // only the program tables are left
+        ProbeResult result = probe(Arrays.copyOf(transportStream(), 2 * PACKET_SIZE));
+        assertFalse(result.isComplete());
+        assertNull(result.getGeneral().get("Duration"));
+    }
+
+    @Test
+    public void lostSync() throws IOException {
+        final byte[] corrupt = transportStream();
+        // the sync byte of the packet with the program map table
+        corrupt[PACKET_SIZE] = 0;
+        ProbeResult result = probe(corrupt);
+        assertFalse(result.isComplete());
+    }
+}
@@ -0,0 +1,334 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.service.metadata.online;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.concurrent.*;
+import org.junit.After;
+import org.junit.Test;
+import org.yamj.common.type.StatusType;
+import org.yamj.core.database.model.Season;
+import org.yamj.core.database.model.Series;
+import org.yamj.core.database.model.VideoData;
+import org.yamj.core.service.metadata.WrapperMovie;
+import org.yamj.core.service.metadata.WrapperSeries;
+import org.yamj.plugin.api.metadata.MovieScanner;
+import org.yamj.plugin.api.metadata.SeriesScanner;
+import org.yamj.plugin.api.model.*;
+
+public class RecordedScanTest {
+
+    private static final String SOURCE = "tvdb";
+    private static final String OTHER_SOURCE = "tmdb";
+    
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private abstract static class TestMovieScanner implements MovieScanner {
+
+        @Override
+        public String getScannerName() {
+            return SOURCE;
+        }
+
+        @Override
+        public boolean scanNFO(String nfoContent, IdMap idMap) {
+            return false;
+        }
+
+        @Override
+        public boolean isValidMovieId(String movieId) {
+            return movieId != null;
+        }
+
+        @Override
+        public String getMovieId(IMovie movie, boolean throwTempError) {
+            return movie.getId(SOURCE);
+        }
+    }
+
+    private abstract static class TestSeriesScanner implements SeriesScanner {
+
+        @Override
+        public String getScannerName() {
+            return SOURCE;
+        }
+
+        @Override
+        public boolean scanNFO(String nfoContent, IdMap idMap) {
+            return false;
+        }
+
+        @Override
+        public boolean isValidSeriesId(String seriesId) {
+            return seriesId != null;
+        }
+
+        @Override
+        public String getSeriesId(ISeries series, boolean throwTempError) {
+            return series.getId(SOURCE);
+        }
+    }
+
+    private static VideoData createMovie() {
+        VideoData videoData = new VideoData("movie");
+        videoData.setSourceDbId(SOURCE, "1");
+        videoData.setSourceDbId(OTHER_SOURCE, "2");
+        return videoData;
+    }
+
+    private void start(RecordedScan recordedScan, MovieScanner scanner, IMovie movie) {
+        start(recordedScan, executor, scanner, movie);
+    }
+
+    private static void start(RecordedScan recordedScan, ExecutorService executor, final MovieScanner scanner, final IMovie movie) {
+        recordedScan.start(executor, new Callable<Future<Boolean>>() {
+            @Override
+            public Future<Boolean> call() throws Exception {
+                return new PluginMovieScanner(scanner).startScan(movie, false, null);
+            }
+        });
+    }
+
+    @Test
+    public void testReplayAfterScan() throws Exception {
+        final VideoData videoData = createMovie();
+        final WrapperMovie wrapper = new WrapperMovie(videoData, null, null);
+        final CountDownLatch scanned = new CountDownLatch(1);
+        final CountDownLatch awaited = new CountDownLatch(1);
+        
+        RecordedScan recordedScan = new RecordedScan(SOURCE);
+        final IMovie movie = recordedScan.record(wrapper);
+        start(recordedScan, new TestMovieScanner() {
+            @Override
+            public boolean scanMovie(IMovie movie, boolean throwTempError) {
+                movie.setPlot("plot");
+                movie.setTitle("title");
+                // the scanner sees its own modifications
+                assertEquals("title", movie.getTitle());
+                // ids of other sources are kept
+                movie.addId(OTHER_SOURCE, "3");
+                assertEquals("2", movie.getId(OTHER_SOURCE));
+                scanned.countDown();
+                try {
+                    awaited.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        }, movie);
+
+        // nothing is applied to the entity while the scan is running
+        assertTrue(scanned.await(5, TimeUnit.SECONDS));
+        assertNull(videoData.getPlot());
+        assertNull(videoData.getTitle());
+        awaited.countDown();
+
+        wrapper.setScanner(new TestMovieScanner() {
+            @Override
+            public boolean scanMovie(IMovie movie, boolean throwTempError) {
+                return false;
+            }
+        });
+        assertEquals(ScanResult.OK, recordedScan.await(5000));
+        assertEquals("plot", videoData.getPlot());
+        assertEquals("title", videoData.getTitle());
+        assertEquals("2", videoData.getSourceDbId(OTHER_SOURCE));
+    }
+
+    @Test
+    public void testMissingId() throws Exception {
+        final VideoData videoData = new VideoData("movie");
+        final WrapperMovie wrapper = new WrapperMovie(videoData, null, null);
+        
+        RecordedScan recordedScan = new RecordedScan(SOURCE);
+        start(recordedScan, new TestMovieScanner() {
+            @Override
+            public boolean scanMovie(IMovie movie, boolean throwTempError) {
+                fail("Scan without id");
+                return false;
+            }
+        }, recordedScan.record(wrapper));
+        
+        assertEquals(ScanResult.MISSING_ID, recordedScan.await(5000));
+    }
+
+    @Test
+    public void testNoResult() throws Exception {
+        final WrapperMovie wrapper = new WrapperMovie(createMovie(), null, null);
+        
+        RecordedScan recordedScan = new RecordedScan(SOURCE);
+        start(recordedScan, new TestMovieScanner() {
+            @Override
+            public boolean scanMovie(IMovie movie, boolean throwTempError) {
+                return false;
+            }
+        }, recordedScan.record(wrapper));
+        
+        assertEquals(ScanResult.NO_RESULT, recordedScan.await(5000));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testScannerException() throws Exception {
+        final WrapperMovie wrapper = new WrapperMovie(createMovie(), null, null);
+        
+        RecordedScan recordedScan = new RecordedScan(SOURCE);
+        start(recordedScan, new TestMovieScanner() {
+            @Override
+            public boolean scanMovie(IMovie movie, boolean throwTempError) {
+                throw new IllegalStateException("scan failed");
+            }
+        }, recordedScan.record(wrapper));
+        
+        recordedScan.await(5000);
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        final VideoData videoData = createMovie();
+        final WrapperMovie wrapper = new WrapperMovie(videoData, null, null);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        
+        RecordedScan recordedScan = new RecordedScan(SOURCE);
+        start(recordedScan, new TestMovieScanner() {
+            @Override
+            public boolean scanMovie(IMovie movie, boolean throwTempError) {
+                movie.setPlot("plot");
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException ex) {
+                    interrupted.countDown();
+                }
+                return true;
+            }
+        }, recordedScan.record(wrapper));
+        
+        try {
+            recordedScan.await(100);
+            fail("Scan should time out");
+        } catch (TimeoutException ex) {
+            // expected
+        }
+        // the scan is cancelled and nothing is applied
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertNull(videoData.getPlot());
+    }
+
+    @Test
+    public void testTimeoutPerSource() throws Exception {
+        final ExecutorService single = Executors.newSingleThreadExecutor();
+        try {
+            RecordedScan slowScan = new RecordedScan(SOURCE);
+            start(slowScan, single, new TestMovieScanner() {
+                @Override
+                public boolean scanMovie(IMovie movie, boolean throwTempError) {
+                    try {
+                        Thread.sleep(300);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return false;
+                }
+            }, slowScan.record(new WrapperMovie(createMovie(), null, null)));
+            
+            // queued behind the slow source
+            RecordedScan fastScan = new RecordedScan(SOURCE);
+            start(fastScan, single, new TestMovieScanner() {
+                @Override
+                public boolean scanMovie(IMovie movie, boolean throwTempError) {
+                    return true;
+                }
+            }, fastScan.record(new WrapperMovie(createMovie(), null, null)));
+            
+            // the time spent for the slow source doesn't count for the fast source
+            assertEquals(ScanResult.NO_RESULT, slowScan.await(5000));
+            assertEquals(ScanResult.OK, fastScan.await(200));
+        } finally {
+            single.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSeriesSnapshot() throws Exception {
+        final Series series = new Series("series");
+        series.setSourceDbId(SOURCE, "1");
+        final Season season = new Season("season");
+        season.setSeason(1);
+        season.setSeries(series);
+        series.getSeasons().add(season);
+        final VideoData doneEpisode = new VideoData("episode1");
+        doneEpisode.setEpisode(1);
+        doneEpisode.setSeason(season);
+        doneEpisode.setSourceDbId(SOURCE, "11");
+        doneEpisode.setStatus(StatusType.DONE);
+        season.getVideoDatas().add(doneEpisode);
+        final VideoData newEpisode = new VideoData("episode2");
+        newEpisode.setEpisode(2);
+        newEpisode.setSeason(season);
+        season.getVideoDatas().add(newEpisode);
+        
+        final TestSeriesScanner scanner = new TestSeriesScanner() {
+            @Override
+            public boolean scanSeries(ISeries series, boolean throwTempError) {
+                for (ISeason season : series.getSeasons()) {
+                    assertSame(series, season.getSeries());
+                    for (IEpisode episode : season.getEpisodes()) {
+                        assertSame(season, episode.getSeason());
+                        if (!episode.isDone()) {
+                            episode.addId(SOURCE, "1" + episode.getNumber());
+                            episode.setPlot("plot" + episode.getNumber());
+                            episode.setDone();
+                        }
+                    }
+                }
+                return true;
+            }
+        };
+        
+        final WrapperSeries wrapper = new WrapperSeries(series, null, null);
+        wrapper.setScanner(scanner);
+        RecordedScan recordedScan = new RecordedScan(SOURCE);
+        final ISeries proxy = recordedScan.record(wrapper);
+        recordedScan.start(executor, new Callable<Future<Boolean>>() {
+            @Override
+            public Future<Boolean> call() throws Exception {
+                return new PluginSeriesScanner(scanner).startScan(proxy, false, null);
+            }
+        });
+        
+        assertEquals(ScanResult.OK, recordedScan.await(5000));
+        assertNull(doneEpisode.getPlot());
+        assertEquals(StatusType.DONE, doneEpisode.getStatus());
+        assertEquals("plot2", newEpisode.getPlot());
+        assertEquals("12", newEpisode.getSourceDbId(SOURCE));
+        assertEquals(StatusType.TEMP_DONE, newEpisode.getStatus());
+        assertEquals(Collections.singleton(season), series.getSeasons());
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.core.web;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+import org.apache.commons.io.FileUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.cache.HttpCacheEntry;
+import org.apache.http.impl.client.cache.HeapResource;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.message.BasicStatusLine;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DiskHttpCacheStorageTest {
+
+    private static final String URL_A = "http://api.example.org/a";
+    private static final String URL_B = "http://api.example.org/b";
+    private static final String URL_C = "http://api.example.org/c";
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static HttpCacheEntry createEntry(String contentType, Header... extraHeaders) {
+        Header[] headers = new Header[extraHeaders.length + 1];
+        headers[0] = new BasicHeader(HttpHeaders.CONTENT_TYPE, contentType);
+        System.arraycopy(extraHeaders, 0, headers, 1, extraHeaders.length);
+        
+        final Date now = new Date();
+        return new HttpCacheEntry(now, now, new BasicStatusLine(HttpVersion.HTTP_1_1, 200, "OK"), headers,
+                        new HeapResource(new byte[1000]));
+    }
+
+    private static DiskHttpCacheStorage createStorage(File cacheDir, long maxSize) {
+        DiskHttpCacheStorage storage = new DiskHttpCacheStorage(cacheDir, maxSize);
+        storage.addTtlGroup(".*example.org.*", 3600);
+        return storage;
+    }
+
+    private static long entrySize(File cacheDir) {
+        long size = 0;
+        for (File file : FileUtils.listFiles(cacheDir, new String[]{"entry"}, true)) {
+            size += file.length();
+        }
+        return size;
+    }
+    
+    @Test
+    public void testEvictLeastRecentlyUsed() throws IOException {
+        // determine the size of one entry
+        File sizeDir = folder.newFolder("size");
+        createStorage(sizeDir, Long.MAX_VALUE).putEntry(URL_A, createEntry("application/json"));
+        final long entrySize = entrySize(sizeDir);
+        assertTrue(entrySize > 0);
+        
+        // room for two entries
+        DiskHttpCacheStorage storage = createStorage(folder.newFolder("cache"), 2 * entrySize + entrySize / 2);
+        storage.putEntry(URL_A, createEntry("application/json"));
+        storage.putEntry(URL_B, createEntry("application/json"));
+        // A is now more recently used than B
+        assertNotNull(storage.getEntry(URL_A));
+        storage.putEntry(URL_C, createEntry("application/json"));
+        
+        assertEquals(1, storage.getEvictions());
+        assertNull(storage.getEntry(URL_B));
+        assertNotNull(storage.getEntry(URL_A));
+        assertNotNull(storage.getEntry(URL_C));
+    }
+
+    @Test
+    public void testTtlRewriting() throws IOException {
+        DiskHttpCacheStorage storage = createStorage(folder.newFolder("cache"), Long.MAX_VALUE);
+        storage.putEntry(URL_A, createEntry("application/json",
+                        new BasicHeader(HttpHeaders.CACHE_CONTROL, "no-cache"),
+                        new BasicHeader(HttpHeaders.EXPIRES, "0"),
+                        new BasicHeader(HttpHeaders.PRAGMA, "no-cache")));
+        
+        HttpCacheEntry entry = storage.getEntry(URL_A);
+        assertNotNull(entry);
+        assertEquals(1, entry.getHeaders(HttpHeaders.CACHE_CONTROL).length);
+        assertEquals("max-age=3600", entry.getFirstHeader(HttpHeaders.CACHE_CONTROL).getValue());
+        assertNull(entry.getFirstHeader(HttpHeaders.EXPIRES));
+        assertNull(entry.getFirstHeader(HttpHeaders.PRAGMA));
+        assertEquals("application/json", entry.getFirstHeader(HttpHeaders.CONTENT_TYPE).getValue());
+    }
+
+    @Test
+    public void testOnlyMetadataStored() throws IOException {
+        DiskHttpCacheStorage storage = createStorage(folder.newFolder("cache"), Long.MAX_VALUE);
+        storage.putEntry("http://images.other.org/poster.jpg", createEntry("application/json"));
+        storage.putEntry(URL_A, createEntry("image/jpeg"));
+        
+        assertNull(storage.getEntry("http://images.other.org/poster.jpg"));
+        assertNull(storage.getEntry(URL_A));
+    }
+
+    @Test
+    public void testRebuildIndexAfterRestart() throws IOException {
+        File cacheDir = folder.newFolder("cache");
+        DiskHttpCacheStorage storage = createStorage(cacheDir, Long.MAX_VALUE);
+        storage.putEntry(URL_A, createEntry("application/json"));
+        storage.putEntry(URL_B, createEntry("application/json"));
+        
+        // temporary file of an interrupted write
+        File tempFile = new File(new File(cacheDir, "00"), "00.tmp");
+        FileUtils.writeByteArrayToFile(tempFile, new byte[10]);
+        
+        DiskHttpCacheStorage restarted = createStorage(cacheDir, Long.MAX_VALUE);
+        assertNotNull(restarted.getEntry(URL_A));
+        assertNotNull(restarted.getEntry(URL_B));
+        assertNull(restarted.getEntry(URL_C));
+        assertFalse(tempFile.exists());
+        
+        // removed entries are gone after the next restart
+        restarted.removeEntry(URL_A);
+        assertNull(createStorage(cacheDir, Long.MAX_VALUE).getEntry(URL_A));
+    }
+}
@@ -23,23 +23,30 @@
 package org.yamj.filescanner;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 import javax.annotation.Resource;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.concurrent.ConcurrentUtils;
@@ -70,6 +77,7 @@ import org.yamj.filescanner.model.Library;
 import org.yamj.filescanner.model.LibraryCollection;
 import org.yamj.filescanner.model.StatType;
 import org.yamj.filescanner.model.TimeType;
+import org.yamj.filescanner.service.ScanStateIndex;
 import org.yamj.filescanner.service.SendToCore;
 import org.yamj.filescanner.service.SystemInfoCore;
 import org.yamj.filescanner.tools.DirectoryEnding;
@@ -90,6 +98,7 @@ public class ScannerManagementImpl implements ScannerManagement {
      */
     private static final Logger LOG = LoggerFactory.getLogger(ScannerManagementImpl.class);
     private static final int RETRY_MAX = PropertyTools.getIntProperty("filescanner.send.retry", 5);
+    private static final int SEND_BATCH_SIZE = Math.max(1, PropertyTools.getIntProperty("filescanner.send.batchsize", 500));
     private final AtomicInteger runningCount = new AtomicInteger(0);
     private final AtomicInteger retryCount = new AtomicInteger(0);
 	private final AtomicInteger retryWait = new AtomicInteger(0);
@@ -102,6 +111,8 @@ public class ScannerManagementImpl implements ScannerManagement {
     private SystemInfoCore pingCore;
     @Autowired
     private GitHubService githubService;
+    @Autowired
+    private ScanStateIndex scanStateIndex;
     // ImportDTO constants
     private static final String DEFAULT_CLIENT = PropertyTools.getProperty("filescanner.default.client", "FileScanner");
     private static final String DEFAULT_PLAYER_PATH = PropertyTools.getProperty("filescanner.default.playerpath", "");
@@ -114,6 +125,11 @@ public class ScannerManagementImpl implements ScannerManagement {
     private static final List<Pattern> DIR_IGNORE_FILES;
     // YAMJ Information
     private static final YamjInfo YAMJ_INFO = new YamjInfo(YamjInfoBuild.FILESCANNER);
+    // Number of threads to scan the directories of a library with
+    private static final int DEFAULT_PARALLELISM = Math.max(1, PropertyTools.getIntProperty("filescanner.scan.parallelism", 4));
+    // Quiet period and maximum delay in milliseconds to coalesce watched events
+    private static final long WATCH_DEBOUNCE = PropertyTools.getLongProperty("filescanner.watch.debounce", 20000);
+    private static final long WATCH_MAX_DELAY = PropertyTools.getLongProperty("filescanner.watch.maxdelay", 120000);
     // Number of seconds to wait between checks
     private static final int WAIT_10_SECONDS = 10;
     // Length of the * line
@@ -202,6 +218,7 @@ public class ScannerManagementImpl implements ScannerManagement {
         String directoryProperty = parser.getParsedOptionValue("d");
         boolean watchEnabled = parseWatchStatus(parser.getParsedOptionValue("w"));
         String libraryFilename = parser.getParsedOptionValue("l");
+        scanStateIndex.setFullResync(Boolean.parseBoolean(parser.getParsedOptionValue("r")));
 		
 		LOG.info("watchEnabled :{}", watchEnabled);
 		
@@ -234,6 +251,12 @@ public class ScannerManagementImpl implements ScannerManagement {
             library.getStatistics().setTime(TimeType.END);
             library.setScanningComplete(true);
             LOG.info("Scanning completed.");
+
+            if (library.getDirectoryStatus().isEmpty()) {
+                // nothing has been changed, so there is nothing to wait for
+                LOG.info("No changed directories to send for {}", library.getImportDTO().getBaseDirectory());
+                library.setSendingComplete(true);
+            }
         }
 
         // Wait for the libraries to be sent
@@ -270,6 +293,8 @@ public class ScannerManagementImpl implements ScannerManagement {
         } while (!allDone);
 		// exit loop, reset de wait count to 0
 		retryWait.getAndSet(0);
+        // remember what has been sent
+        scanStateIndex.save();
 		
         if (LOG.isInfoEnabled()) {
             LOG.info(StringUtils.repeat("*", DIVIDER_LINE_LENGTH));
@@ -284,62 +309,53 @@ public class ScannerManagementImpl implements ScannerManagement {
         // when watched is asked loop to the specified directory until the watcher detect something   
 		// set status = ExitType.LOOP not SUCCESS to loop,
 		// if SUCCESS is setted filescanner shutdown     
-		// when the watcher detect a change now the following sequence is performed 
-		// stop watching (reset keys and break watcher)
-		// rescan the library
+		// when the watcher detects changes the following sequence is performed
+		// collect the changed directories until the changes calm down
+		// rescan only the changed directories
 		// send the new scanning to the core (one time)
-		// restart the watcher
-		
-        do  {
-            Watcher wd;
-            try {
-                wd = new Watcher();
-            } catch (UnsatisfiedLinkError ule) { //NOSONAR
-                LOG.warn("Watching is not possible on this system; therefore watch service will not be used");
-                wd = null;
-            }
+		// continue watching
 
-            if (wd != null) {
-                boolean directoriesToWatch = false;
-                for (Library library : libraryCollection.getLibraries()) {
-                    dirToWatch = library.getImportDTO().getBaseDirectory();
-                    if (library.isWatch()) {
-                        LOG.info("Watching directory '{}' for changes...", dirToWatch);
-                        wd.addDirectory(dirToWatch);
-                        directoriesToWatch = true;
-                    } else {
-                        LOG.info("Watching skipped for directory '{}'", dirToWatch);
-                    }
-                }
+        Watcher wd;
+        try {
+            wd = new Watcher();
+            wd.setDebounce(WATCH_DEBOUNCE, WATCH_MAX_DELAY);
+        } catch (UnsatisfiedLinkError ule) { //NOSONAR
+            LOG.warn("Watching is not possible on this system; therefore watch service will not be used");
+            wd = null;
+        }
 
-                if (directoriesToWatch) {
-                	LOG.trace("ScannerManagementImpl start wd.processEvents() with  '{}' ", dirToWatch);
-					status = ExitType.LOOP;
-                    wd.processEvents();
-					 for (Library library : libraryCollection.getLibraries()) {
-								library.getStatistics().setTime(TimeType.START);
-								status = scan(library);
-								library.getStatistics().setTime(TimeType.END);
-								library.setScanningComplete(true);
-								LOG.info("Scanning completed.");
-								library.setSendingComplete(false);
-								status = ExitType.LOOP;
-								sendLibrariesOneTime ();
-							}
-                    LOG.info("Watching directory '{}' completed", directoryProperty);
+        boolean directoriesToWatch = false;
+        if (wd != null) {
+            for (Library library : libraryCollection.getLibraries()) {
+                dirToWatch = library.getImportDTO().getBaseDirectory();
+                if (library.isWatch()) {
+                    LOG.info("Watching directory '{}' for changes...", dirToWatch);
+                    wd.addDirectory(dirToWatch);
+                    directoriesToWatch = true;
                 } else {
-                    LOG.info("No directories marked for watching");
+                    LOG.info("Watching skipped for directory '{}'", dirToWatch);
                 }
             }
+        }
 
-            if (status.equals(ExitType.LOOP))  {
-				LOG.info("do watch with status {}", status);
-				continue;
-			}
-            
-            LOG.info("Exiting watch with status {}", status);
-			break;
-        } while (watchEnabled);
+        if (directoriesToWatch) {
+            do {
+                LOG.trace("ScannerManagementImpl start wd.processEvents() with  '{}' ", dirToWatch);
+                Map<String, Boolean> changedDirectories = wd.processEvents();
+                if (changedDirectories.isEmpty()) {
+                    LOG.info("Nothing to watch anymore");
+                    break;
+                }
+
+                status = ExitType.LOOP;
+                rescan(changedDirectories);
+                scanStateIndex.save();
+                LOG.info("Watching directory '{}' completed", directoryProperty);
+                LOG.info("do watch with status {}", status);
+            } while (watchEnabled);
+        } else if (wd != null) {
+            LOG.info("No directories marked for watching");
+        }
         
 		if (!watchEnabled) {
 			LOG.info("Watching not enabled.");
@@ -353,6 +369,9 @@ public class ScannerManagementImpl implements ScannerManagement {
     /**
      * Start scanning a library.
      *
+     * The directories are walked in parallel with a fork-join pool, using the
+     * parallelism of the library or the default parallelism.
+     *
      * @param library
      * @return
      */
@@ -368,52 +387,235 @@ public class ScannerManagementImpl implements ScannerManagement {
             return ExitType.NO_DIRECTORY;
         }
 
-        scanDir(library, baseDirectory);
+        final ForkJoinPool pool = new ForkJoinPool(getParallelism(library));
+        try {
+            final Path basePath = baseDirectory.getAbsoluteFile().toPath();
+            final BasicFileAttributes attrs = Files.readAttributes(basePath, BasicFileAttributes.class);
+            scanStateIndex.startScan(basePath.toString(), true);
+            pool.invoke(new DirectoryScanTask(library, basePath, attrs.lastModifiedTime().toMillis()));
+        } catch (IOException ex) {
+            LOG.info("Failed to read directory '{}'", baseDirectory.getAbsolutePath());
+            LOG.trace("IO error", ex);
+            status = ExitType.NO_DIRECTORY;
+        } finally {
+            pool.shutdown();
+        }
 
         library.getStatistics().setTime(TimeType.SCANNING_END);
         return status;
     }
 
+    private static int getParallelism(Library library) {
+        return library.getParallelism() > 0 ? library.getParallelism() : DEFAULT_PARALLELISM;
+    }
+
     /**
-     * Scan a directory (and recursively any other directories contained
+     * Rescan the changed directories and send them to the core.
+     *
+     * Only the changed directories are scanned; sub directories are only
+     * scanned if the directory is flagged for a recursive scan.
+     *
+     * @param changedDirectories the directories mapped to the recursive flag
+     */
+    private void rescan(Map<String, Boolean> changedDirectories) {
+        Map<Library, ForkJoinPool> pools = new HashMap<>();
+        try {
+            for (Map.Entry<String, Boolean> entry : changedDirectories.entrySet()) {
+                Library library = findLibrary(entry.getKey());
+                if (library == null) {
+                    LOG.debug("No watched library found for '{}'", entry.getKey());
+                    continue;
+                }
+
+                ForkJoinPool pool = pools.get(library);
+                if (pool == null) {
+                    library.getStatistics().setTime(TimeType.START);
+                    library.setScanningComplete(false);
+                    pool = new ForkJoinPool(getParallelism(library));
+                    pools.put(library, pool);
+                }
+
+                rescanDirectory(library, new File(entry.getKey()), entry.getValue().booleanValue(), pool);
+            }
+        } finally {
+            for (Map.Entry<Library, ForkJoinPool> entry : pools.entrySet()) {
+                entry.getValue().shutdown();
+                Library library = entry.getKey();
+                library.getStatistics().setTime(TimeType.END);
+                library.setScanningComplete(true);
+                library.setSendingComplete(false);
+            }
+        }
+        LOG.info("Rescanning of {} libraries completed.", pools.size());
+
+        if (!pools.isEmpty()) {
+            sendLibrariesOneTime();
+        }
+    }
+
+    /**
+     * Rescan a single directory of a library.
      *
      * @param library
-     * @param parentDto
      * @param directory
+     * @param recursive
+     * @param pool
      */
-    private StageDirectoryDTO scanDir(Library library, File directory) {
-        LOG.info("Scanning directory '{}'", library.getRelativeDir(directory));
-        
-        if (DIR_EXCLUSIONS.containsKey(directory.getName().toLowerCase())) {
-            LOG.info("Skipping directory '{}' as its in the exclusion list.", directory.getAbsolutePath());
-            return null;
+    private void rescanDirectory(Library library, File directory, boolean recursive, ForkJoinPool pool) {
+        // a change inside a BluRay or DVD folder is a change of its parent directory
+        File scanDirectory = directory;
+        boolean scanRecursive = recursive;
+        for (File dir = directory; dir != null && isInLibrary(library, dir); dir = dir.getParentFile()) {
+            if (DirectoryEnding.check(dir) != DirectoryType.STANDARD && dir.getParentFile() != null) {
+                scanDirectory = dir.getParentFile();
+                scanRecursive = false;
+            }
         }
-        
+
+        if (isExcluded(library, scanDirectory)) {
+            LOG.info("Skipping directory '{}' as a parent directory is excluded", scanDirectory);
+            return;
+        }
+
+        // a removed directory is not seen again, so it will be dropped from the scan state
+        scanStateIndex.startScan(scanDirectory.getAbsolutePath(), scanRecursive);
+
         try {
-            if (FileUtils.directoryContains(directory, new File(directory, FILE_MJBIGNORE))) {
-                LOG.debug("Exclusion file '{}' found, skipping scanning of directory {}.", FILE_MJBIGNORE, directory.getName());
-                return null;
+            final Path path = scanDirectory.getAbsoluteFile().toPath();
+            final BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            if (!attrs.isDirectory()) {
+                return;
+            }
+
+            LOG.info("Rescanning directory '{}'{}", library.getRelativeDir(scanDirectory), scanRecursive ? " with sub directories" : "");
+            if (scanRecursive) {
+                pool.invoke(new DirectoryScanTask(library, path, attrs.lastModifiedTime().toMillis()));
+            } else if (scanDir(library, path, attrs.lastModifiedTime().toMillis()) == null) {
+                LOG.info("Not adding directory '{}', no files found or all excluded", scanDirectory);
             }
         } catch (IOException ex) {
-            LOG.trace("Failed to seach for '{}' in the directory {}", FILE_MJBIGNORE, directory.getName());
-            LOG.trace("IO error", ex);
+            // directory has been removed in the meantime
+            LOG.debug("Failed to read directory '{}': {}", scanDirectory, ex.getMessage());
+        }
+    }
+
+    /**
+     * Find the watched library of the directory.
+     *
+     * @param directory
+     * @return the library with the longest matching base directory, or null
+     */
+    private Library findLibrary(String directory) {
+        Library found = null;
+        int foundLength = -1;
+        for (Library library : libraryCollection.getLibraries()) {
+            final String baseDirectory = library.getImportDTO().getBaseDirectory();
+            if (library.isWatch() && isInLibrary(library, new File(directory)) && baseDirectory.length() > foundLength) {
+                found = library;
+                foundLength = baseDirectory.length();
+            }
         }
+        return found;
+    }
 
+    private static boolean isInLibrary(Library library, File directory) {
+        final String baseDirectory = new File(library.getImportDTO().getBaseDirectory()).getAbsolutePath();
+        final String path = directory.getAbsolutePath();
+        return path.equals(baseDirectory)
+                || (path.startsWith(baseDirectory) && path.charAt(baseDirectory.length()) == File.separatorChar);
+    }
 
-        File[] listedFiles = directory.listFiles();
-        if (listedFiles == null || listedFiles.length == 0) {
-            return null;
+    /**
+     * Check if one of the parent directories up to the library base directory
+     * is excluded, either by its name or by an exclusion file.
+     *
+     * @param library
+     * @param directory
+     * @return
+     */
+    private static boolean isExcluded(Library library, File directory) {
+        for (File dir = directory.getParentFile(); dir != null && isInLibrary(library, dir); dir = dir.getParentFile()) {
+            if (DIR_EXCLUSIONS.containsKey(dir.getName().toLowerCase())) {
+                return true;
+            }
+            for (Map.Entry<String, List<String>> entry : DIR_EXCLUSIONS.entrySet()) {
+                if (CollectionUtils.isEmpty(entry.getValue()) && new File(dir, entry.getKey()).isFile()) {
+                    return true;
+                }
+            }
         }
+        return false;
+    }
+
+    /**
+     * Scans a directory and forks the scanning of its sub directories.
+     */
+    private final class DirectoryScanTask extends RecursiveAction {
+
+        private static final long serialVersionUID = -1684562834413208563L;
+        private final transient Library library;
+        private final transient Path directory;
+        private final long directoryDate;
+
+        DirectoryScanTask(Library library, Path directory, long directoryDate) {
+            this.library = library;
+            this.directory = directory;
+            this.directoryDate = directoryDate;
+        }
+
+        @Override
+        protected void compute() {
+            List<DirectoryScanTask> subTasks = scanDir(library, directory, directoryDate);
+            if (subTasks == null) {
+                LOG.info("Not adding directory '{}', no files found or all excluded", directory);
+            } else if (!subTasks.isEmpty()) {
+                invokeAll(subTasks);
+            }
+        }
+    }
+
+    /**
+     * Scan a directory.
+     *
+     * The attributes of each entry are read only once.
+     *
+     * @param library
+     * @param directory
+     * @param directoryDate
+     * @return the tasks to scan the sub directories or null if the directory has been skipped
+     */
+    private List<DirectoryScanTask> scanDir(Library library, Path directory, long directoryDate) {
+        final String directoryName = directory.getFileName() == null ? directory.toString() : directory.getFileName().toString();
+        LOG.info("Scanning directory '{}'", library.getRelativeDir(directory.toString()));
         
-        // divide into directors and files
-        final List<File> directories = new ArrayList<File>();
-        final List<File> files = new ArrayList<File>();
-        for (File file : listedFiles) {
-        	if (file.isFile()) {
-        		files.add(file);
-        	} else if (file.isDirectory()) {
-        		directories.add(file);
-        	}
+        if (DIR_EXCLUSIONS.containsKey(directoryName.toLowerCase())) {
+            LOG.info("Skipping directory '{}' as its in the exclusion list.", directory);
+            return null;
+        }
+
+        // divide into directories and files
+        final Map<Path, BasicFileAttributes> directories = new LinkedHashMap<>();
+        final Map<Path, BasicFileAttributes> files = new LinkedHashMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path entry : stream) {
+                final BasicFileAttributes attrs;
+                try {
+                    attrs = Files.readAttributes(entry, BasicFileAttributes.class);
+                } catch (IOException ex) {
+                    LOG.trace("Failed to read attributes of '{}'", entry, ex);
+                    continue;
+                }
+                
+                if (attrs.isRegularFile()) {
+                    files.put(entry, attrs);
+                } else if (attrs.isDirectory()) {
+                    directories.put(entry, attrs);
+                }
+            }
+        } catch (IOException | DirectoryIteratorException ex) {
+            LOG.trace("Failed to read directory '{}'", directory);
+            LOG.trace("IO error", ex);
+            return null;
         }
         
         if (directories.isEmpty() && files.isEmpty()) {
@@ -423,23 +625,22 @@ public class ScannerManagementImpl implements ScannerManagement {
 
         // create new stage directory
         StageDirectoryDTO stageDir = new StageDirectoryDTO();
-        stageDir.setPath(directory.getAbsolutePath());
-        stageDir.setDate(directory.lastModified());
-
-        library.getStatistics().increment(StatType.DIRECTORY);
+        stageDir.setPath(directory.toString());
+        stageDir.setDate(directoryDate);
 
         /*
          * We need to scan the directory and look for any of the exclusion filenames.
+         * A "{@value #FILE_MJBIGNORE}" file excludes the whole directory.
          *
          * We then build a list of those excluded extensions, so that when we scan the filename list we can exclude the unwanted files.
          */
         List<String> exclusions = new ArrayList<>();
-        for (File file : files) {
-            final String lcFilename = file.getName().toLowerCase();
+        for (Path file : files.keySet()) {
+            final String lcFilename = file.getFileName().toString().toLowerCase();
             if (DIR_EXCLUSIONS.containsKey(lcFilename)) {
                 if (CollectionUtils.isEmpty(DIR_EXCLUSIONS.get(lcFilename))) {
                     // Because the value is null or empty we exclude the whole directory, so quit now.
-                    LOG.debug("Exclusion file '{}' found, skipping scanning of directory {}.", lcFilename, file.getParent());
+                    LOG.debug("Exclusion file '{}' found, skipping scanning of directory {}.", lcFilename, directoryName);
                     // All files to be excluded, so quit
                     return null;
                 }
@@ -451,16 +652,18 @@ public class ScannerManagementImpl implements ScannerManagement {
             }
         }
 
+        library.getStatistics().increment(StatType.DIRECTORY);
+
         // Create a precompiled Matcher for use later (Doesn't matter what the values are)
         Matcher matcher = Pattern.compile(FILE_MJBIGNORE).matcher(FILE_MJBIGNORE);
 
-
         // Scan the directory properly
-        for (File file : files) {
+        for (Map.Entry<Path, BasicFileAttributes> file : files.entrySet()) {
             boolean excluded = false;
-            String lcFilename = file.getName().toLowerCase();
+            final String filename = file.getKey().getFileName().toString();
+            final String lcFilename = filename.toLowerCase();
             if (exclusions.contains(FilenameUtils.getExtension(lcFilename)) || DIR_EXCLUSIONS.containsKey(lcFilename)) {
-                LOG.debug("File name '{}' excluded because it's listed in the exlusion list for this directory", file.getName());
+                LOG.debug("File name '{}' excluded because it's listed in the exlusion list for this directory", filename);
                 continue;
             }
 
@@ -469,26 +672,25 @@ public class ScannerManagementImpl implements ScannerManagement {
                 matcher.reset(lcFilename).usePattern(pattern);
                 if (matcher.matches()) {
                     // Found the file pattern, so skip the file
-                    LOG.debug("File name '{}' excluded because it matches exlusion pattern '{}'", file.getName(), pattern.pattern());
+                    LOG.debug("File name '{}' excluded because it matches exlusion pattern '{}'", filename, pattern.pattern());
                     excluded = true;
                     break;
                 }
             }
 
             if (!excluded) {
-                stageDir.addStageFile(scanFile(file));
+                stageDir.addStageFile(scanFile(filename, file.getValue()));
                 library.getStatistics().increment(StatType.FILE);
             }
         }
 
         // check if a sub directory is BluRay or DVD folder
         DirectoryType containsType = DirectoryType.STANDARD;
-        Iterator<File> iter =  directories.iterator();
+        Iterator<Path> iter = directories.keySet().iterator();
         while (iter.hasNext()) {
-        	File scanDir = iter.next();
-            DirectoryType dirType = DirectoryEnding.check(scanDir);
+            DirectoryType dirType = DirectoryEnding.check(iter.next().getFileName().toString());
             if (dirType != DirectoryType.STANDARD) {
-                LOG.info("Directory '{}' contains {}", directory.getAbsolutePath(), dirType);
+                LOG.info("Directory '{}' contains {}", directory, dirType);
                 containsType = dirType;
                 // remove directory
                 iter.remove();
@@ -498,36 +700,44 @@ public class ScannerManagementImpl implements ScannerManagement {
         if (containsType != DirectoryType.STANDARD) {
             // create dummy stage file to determine BluRay,HD-DVD or DVD
             StageFileDTO stageFile = new StageFileDTO();
-            stageFile.setFileName(directory.getName() + "." + containsType.name().toLowerCase());
-            stageFile.setFileDate(directory.lastModified());
+            stageFile.setFileName(directoryName + "." + containsType.name().toLowerCase());
+            stageFile.setFileDate(directoryDate);
             stageFile.setFileSize(0);
             stageDir.addStageFile(stageFile);
         }
         
-        // queue directory
-        library.addDirectory(stageDir);
-        queueForSending(library, stageDir);
+        if (scanStateIndex.isChanged(stageDir)) {
+            // queue directory; the parent is always queued before its sub directories
+            synchronized (library) {
+                library.addDirectory(stageDir);
+                queueForSending(library, stageDir);
+            }
+        } else {
+            LOG.debug("Directory '{}' has not been changed since last sending", library.getRelativeDir(directory.toString()));
+            library.getStatistics().increment(StatType.UNCHANGED);
+        }
 
         // Now scan all other directories
-        for (File scanDir : directories) {
-            if (scanDir(library, scanDir) == null) {
-                LOG.info("Not adding directory '{}', no files found or all excluded", scanDir.getAbsolutePath());
-            }
+        List<DirectoryScanTask> subTasks = new ArrayList<>(directories.size());
+        for (Map.Entry<Path, BasicFileAttributes> entry : directories.entrySet()) {
+            subTasks.add(new DirectoryScanTask(library, entry.getKey(), entry.getValue().lastModifiedTime().toMillis()));
         }
-        
-        return stageDir;
+        return subTasks;
     }
 
     /**
      * Scan an individual file
      *
-     * @param library
-     * @param parentDto
-     * @param file
+     * @param filename
+     * @param attrs
      */
-    private static StageFileDTO scanFile(File file) {
-        LOG.info("Scanning file '{}'", file.getName());
-        return new StageFileDTO(file);
+    private static StageFileDTO scanFile(String filename, BasicFileAttributes attrs) {
+        LOG.info("Scanning file '{}'", filename);
+        StageFileDTO stageFile = new StageFileDTO();
+        stageFile.setFileName(filename);
+        stageFile.setFileSize(attrs.size());
+        stageFile.setFileDate(attrs.lastModifiedTime().toMillis());
+        return stageFile;
     }
 
     /**
@@ -607,10 +817,11 @@ public class ScannerManagementImpl implements ScannerManagement {
                     library.isScanningComplete() ? "finished" : "not finished");
 
             try {
+                final List<StageDirectoryDTO> batch = new ArrayList<>(SEND_BATCH_SIZE);
                 for (Map.Entry<String, Future<StatusType>> entry : library.getDirectoryStatus().entrySet()) {
                     LOG.info("    {}: {}", entry.getKey(), entry.getValue().isDone() ? entry.getValue().get() : "Being processed");
 
-                    if (checkStatus(library, entry.getValue(), entry.getKey())) {
+                    if (checkStatus(library, entry.getValue(), entry.getKey(), batch)) {
                         if (retryCount.get() > 0) {
                             LOG.debug("Successfully sent file to server, resetting retry count to 0 from {}.", retryCount.getAndSet(0));
                         } else {
@@ -625,6 +836,13 @@ public class ScannerManagementImpl implements ScannerManagement {
                     }
                 }
 
+                // Send the remaining directories
+                if (!sendBatch(library, batch)) {
+                    library.setSendingComplete(false);
+                    LOG.warn("Failed to send a file, this was failed attempt #{}. Waiting until next run...", retryCount.incrementAndGet());
+                    return;
+                }
+
                 // Don't stop sending until the scanning is completed and there are no running tasks
                 if (library.isScanningComplete() && runningCount.get() <= 0) {
                     // When we reach this point we should have completed the library sending
@@ -641,7 +859,7 @@ public class ScannerManagementImpl implements ScannerManagement {
             }
         }
     }
-  private boolean checkStatus(Library library, Future<StatusType> statusType, String directory) throws InterruptedException, ExecutionException {
+  private boolean checkStatus(Library library, Future<StatusType> statusType, String directory, List<StageDirectoryDTO> batch) throws InterruptedException, ExecutionException {
         boolean sendStatus;
 
         
@@ -650,13 +868,13 @@ public class ScannerManagementImpl implements ScannerManagement {
             
             if (processingStatus == StatusType.NEW) {
                 LOG.info("    Sending '{}' to core for processing.", directory);
-                sendStatus = sendToCore(library, directory);
+                sendStatus = sendToCore(library, directory, batch);
             } else if (processingStatus == StatusType.UPDATED) {
                 LOG.info("    Sending updated '{}' to core for processing.", directory);
-                sendStatus = sendToCore(library, directory);
+                sendStatus = sendToCore(library, directory, batch);
             } else if (processingStatus == StatusType.ERROR) {
                 LOG.info("    Resending '{}' to core for processing (was in error status).", directory);
-                sendStatus = sendToCore(library, directory);
+                sendStatus = sendToCore(library, directory, batch);
             } else if (processingStatus == StatusType.DONE) {
                 LOG.info("    Completed: '{}'", directory);
                 sendStatus = true;
@@ -671,17 +889,18 @@ public class ScannerManagementImpl implements ScannerManagement {
         }
         return sendStatus;
     }
-   /**
-     * Send the directory to the core.
+    /**
+     * Add the directory to the batch for sending to the core.
      *
-     * Will get the StageDirectoryDTO from the library for sending.
+     * Will get the StageDirectoryDTO from the library for sending. The batch
+     * is sent as soon as it is full.
      *
      * @param library
      * @param sendDir
+     * @param batch
      */
-    private boolean sendToCore(Library library, String sendDir) {
+    private boolean sendToCore(Library library, String sendDir, List<StageDirectoryDTO> batch) {
         StageDirectoryDTO stageDto = library.getDirectory(sendDir);
-        boolean sentOk = false;
 
         if (stageDto == null) {
             LOG.warn("StageDirectoryDTO for '{}' is null!", sendDir);
@@ -690,22 +909,49 @@ public class ScannerManagementImpl implements ScannerManagement {
             return true;
         }
 
-        LOG.info("Sending #{}: {}", runningCount.incrementAndGet(), sendDir);
+        batch.add(stageDto);
+        if (batch.size() < SEND_BATCH_SIZE) {
+            return true;
+        }
+        return sendBatch(library, batch);
+    }
+
+    /**
+     * Send a batch of directories to the core with one request.
+     *
+     * @param library
+     * @param batch the directories to send, will be cleared
+     */
+    private boolean sendBatch(Library library, List<StageDirectoryDTO> batch) {
+        if (batch.isEmpty()) {
+            return true;
+        }
+
+        final List<StageDirectoryDTO> stageDirs = new ArrayList<>(batch);
+        batch.clear();
+        boolean sentOk = false;
+
+        LOG.info("Sending #{}: {} directories", runningCount.addAndGet(stageDirs.size()), stageDirs.size());
 
         ApplicationContext appContext = ApplicationContextProvider.getApplicationContext();
         SendToCore stc = (SendToCore) appContext.getBean("sendToCore");
-        stc.setImportDto(library.getImportDTO(stageDto));
+        stc.setImportBatch(library.getImportBatchDTO(stageDirs));
         stc.setCounter(runningCount);
         FutureTask<StatusType> task = new FutureTask<>(stc);
 
         try {
             yamjExecutor.submit(task);
-            library.addDirectoryStatus(stageDto.getPath(), task);
+            for (StageDirectoryDTO stageDto : stageDirs) {
+                library.addDirectoryStatus(stageDto.getPath(), task);
+            }
             sentOk = true;
         } catch (TaskRejectedException ex) {
-            LOG.warn("Send queue full. '{}' will be sent later.", stageDto.getPath());
+            LOG.warn("Send queue full. {} directories will be sent later.", stageDirs.size());
             LOG.trace("Exception: ", ex);
-            library.addDirectoryStatus(stageDto.getPath(), ConcurrentUtils.constantFuture(StatusType.NEW));
+            runningCount.addAndGet(-stageDirs.size());
+            for (StageDirectoryDTO stageDto : stageDirs) {
+                library.addDirectoryStatus(stageDto.getPath(), ConcurrentUtils.constantFuture(StatusType.NEW));
+            }
         }
         
         return sentOk;
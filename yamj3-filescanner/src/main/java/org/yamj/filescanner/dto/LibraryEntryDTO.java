@@ -45,6 +45,7 @@ public class LibraryEntryDTO implements Serializable {
     private String exclude;
     private boolean scrape;
     private boolean watch;
+    private int parallelism;
 
     /**
      * Construct an empty library file
@@ -57,6 +58,7 @@ public class LibraryEntryDTO implements Serializable {
         this.exclude = "";
         this.scrape = true;
         this.watch = true;
+        this.parallelism = 0;
     }
 
     //<editor-fold defaultstate="collapsed" desc="Getter and Setter Methods">
@@ -193,6 +195,24 @@ public class LibraryEntryDTO implements Serializable {
     public void setWatch(boolean watch) {
         this.watch = watch;
     }
+
+    /**
+     * Get the number of threads to scan the library with
+     *
+     * @return the parallelism or 0 to use the default
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Set the number of threads to scan the library with
+     *
+     * @param parallelism
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
     //</editor-fold>
 
     @Override
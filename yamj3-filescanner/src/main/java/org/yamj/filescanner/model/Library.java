@@ -26,11 +26,13 @@ import java.io.File;
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.concurrent.ConcurrentUtils;
+import org.yamj.common.dto.ImportBatchDTO;
 import org.yamj.common.dto.ImportDTO;
 import org.yamj.common.dto.StageDirectoryDTO;
 import org.yamj.common.type.StatusType;
@@ -48,6 +50,7 @@ public class Library implements Serializable {
 	private static final Logger LOG = LoggerFactory.getLogger(Library.class);
 
     private boolean watch;
+    private int parallelism;
     private String description;
     private Statistics statistics;
     private Map<String, StageDirectoryDTO> directories;
@@ -61,6 +64,7 @@ public class Library implements Serializable {
      */
     public Library() {
         this.watch = false;
+        this.parallelism = 0;
         this.description = "";
         this.statistics = new Statistics();
         this.directories = new HashMap<>(1);
@@ -88,6 +92,24 @@ public class Library implements Serializable {
         this.watch = watch;
     }
 
+    /**
+     * Get the number of threads to scan the library with
+     *
+     * @return the parallelism or 0 to use the default
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Set the number of threads to scan the library with
+     *
+     * @param parallelism
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
     /**
      * Get the library statistics
      *
@@ -202,6 +224,21 @@ public class Library implements Serializable {
         return newImportDto;
     }
 
+    /**
+     * Creates an ImportBatchDTO for the given StageDirectoryDTOs
+     *
+     * @param stageDirs
+     * @return
+     */
+    public ImportBatchDTO getImportBatchDTO(List<StageDirectoryDTO> stageDirs) {
+        ImportBatchDTO importBatch = new ImportBatchDTO();
+        importBatch.setBaseDirectory(importDTO.getBaseDirectory());
+        importBatch.setClient(importDTO.getClient());
+        importBatch.setPlayerPath(importDTO.getPlayerPath());
+        importBatch.setStageDirectories(stageDirs);
+        return importBatch;
+    }
+
     /**
      * Get the collection of statuses
      *
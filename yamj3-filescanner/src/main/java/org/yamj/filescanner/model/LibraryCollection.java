@@ -169,6 +169,7 @@ public class LibraryCollection implements Serializable {
             le.setPlayerpath(libraryEntry.getImportDTO().getPlayerPath());
             le.setScrape(true);
             le.setWatch(libraryEntry.isWatch());
+            le.setParallelism(libraryEntry.getParallelism());
             lib.addLibrary(le);
         }
 
@@ -198,6 +199,7 @@ public class LibraryCollection implements Serializable {
         // Set up the remaining library settings
         library.setImportDTO(importDto);
         library.setWatch(libraryEntryDto.isWatch());
+        library.setParallelism(libraryEntryDto.getParallelism());
         library.setDescription(libraryEntryDto.getDescription());
         add(library);
     }
@@ -26,6 +26,7 @@ public enum StatType {
 
     FILE,
     DIRECTORY,
+    UNCHANGED,
     BLURAY,
     DVD;
 }
@@ -22,6 +22,8 @@
  */
 package org.yamj.filescanner.service;
 import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
@@ -53,6 +55,7 @@ public class LibrarySendScheduler {
 
     private static final Logger LOG = LoggerFactory.getLogger(LibrarySendScheduler.class);
     private static final int RETRY_MAX = PropertyTools.getIntProperty("filescanner.send.retry", 5);
+    private static final int SEND_BATCH_SIZE = Math.max(1, PropertyTools.getIntProperty("filescanner.send.batchsize", 500));
 	private static long WAIT_TIME = PropertyTools.getLongProperty("filescanner.wait.time", 600000);
     private final AtomicInteger runningCount = new AtomicInteger(0);
     private final AtomicInteger retryCount = new AtomicInteger(0);
@@ -106,10 +109,11 @@ public class LibrarySendScheduler {
                     library.isScanningComplete() ? "finished" : "not finished");
 
             try {
+                final List<StageDirectoryDTO> batch = new ArrayList<>(SEND_BATCH_SIZE);
                 for (Map.Entry<String, Future<StatusType>> entry : library.getDirectoryStatus().entrySet()) {
                     LOG.info("    {}: {}", entry.getKey(), entry.getValue().isDone() ? entry.getValue().get() : "Being processed");
 
-                    if (checkStatus(library, entry.getValue(), entry.getKey())) {
+                    if (checkStatus(library, entry.getValue(), entry.getKey(), batch)) {
                         if (retryCount.get() > 0) {
                             LOG.debug("Successfully sent file to server, resetting retry count to 0 from {}.", retryCount.getAndSet(0));
                         } else {
@@ -124,6 +128,13 @@ public class LibrarySendScheduler {
                     }
                 }
 
+                // Send the remaining directories
+                if (!sendBatch(library, batch)) {
+                    library.setSendingComplete(false);
+                    LOG.warn("Failed to send a file, this was failed attempt #{}. Waiting until next run...", retryCount.incrementAndGet());
+                    return;
+                }
+
                 // Don't stop sending until the scanning is completed and there are no running tasks
                 if (library.isScanningComplete() && runningCount.get() <= 0) {
                     // When we reach this point we should have completed the library sending
@@ -141,7 +152,7 @@ public class LibrarySendScheduler {
         }
     }
 
-    private boolean checkStatus(Library library, Future<StatusType> statusType, String directory) throws InterruptedException, ExecutionException {
+    private boolean checkStatus(Library library, Future<StatusType> statusType, String directory, List<StageDirectoryDTO> batch) throws InterruptedException, ExecutionException {
         boolean sendStatus;
 
         
@@ -150,13 +161,13 @@ public class LibrarySendScheduler {
             
             if (processingStatus == StatusType.NEW) {
                 LOG.info("    Sending '{}' to core for processing.", directory);
-                sendStatus = sendToCore(library, directory);
+                sendStatus = sendToCore(library, directory, batch);
             } else if (processingStatus == StatusType.UPDATED) {
                 LOG.info("    Sending updated '{}' to core for processing.", directory);
-                sendStatus = sendToCore(library, directory);
+                sendStatus = sendToCore(library, directory, batch);
             } else if (processingStatus == StatusType.ERROR) {
                 LOG.info("    Resending '{}' to core for processing (was in error status).", directory);
-                sendStatus = sendToCore(library, directory);
+                sendStatus = sendToCore(library, directory, batch);
             } else if (processingStatus == StatusType.DONE) {
                 LOG.info("    Completed: '{}'", directory);
                 sendStatus = true;
@@ -173,16 +184,17 @@ public class LibrarySendScheduler {
     }
 
     /**
-     * Send the directory to the core.
+     * Add the directory to the batch for sending to the core.
      *
-     * Will get the StageDirectoryDTO from the library for sending.
+     * Will get the StageDirectoryDTO from the library for sending. The batch
+     * is sent as soon as it is full.
      *
      * @param library
      * @param sendDir
+     * @param batch
      */
-    private boolean sendToCore(Library library, String sendDir) {
+    private boolean sendToCore(Library library, String sendDir, List<StageDirectoryDTO> batch) {
         StageDirectoryDTO stageDto = library.getDirectory(sendDir);
-        boolean sentOk = false;
 
         if (stageDto == null) {
             LOG.warn("StageDirectoryDTO for '{}' is null!", sendDir);
@@ -191,22 +203,49 @@ public class LibrarySendScheduler {
             return true;
         }
 
-        LOG.info("Sending #{}: {}", runningCount.incrementAndGet(), sendDir);
+        batch.add(stageDto);
+        if (batch.size() < SEND_BATCH_SIZE) {
+            return true;
+        }
+        return sendBatch(library, batch);
+    }
+
+    /**
+     * Send a batch of directories to the core with one request.
+     *
+     * @param library
+     * @param batch the directories to send, will be cleared
+     */
+    private boolean sendBatch(Library library, List<StageDirectoryDTO> batch) {
+        if (batch.isEmpty()) {
+            return true;
+        }
+
+        final List<StageDirectoryDTO> stageDirs = new ArrayList<>(batch);
+        batch.clear();
+        boolean sentOk = false;
+
+        LOG.info("Sending #{}: {} directories", runningCount.addAndGet(stageDirs.size()), stageDirs.size());
 
         ApplicationContext appContext = ApplicationContextProvider.getApplicationContext();
         SendToCore stc = (SendToCore) appContext.getBean("sendToCore");
-        stc.setImportDto(library.getImportDTO(stageDto));
+        stc.setImportBatch(library.getImportBatchDTO(stageDirs));
         stc.setCounter(runningCount);
         FutureTask<StatusType> task = new FutureTask<>(stc);
 
         try {
             yamjExecutor.submit(task);
-            library.addDirectoryStatus(stageDto.getPath(), task);
+            for (StageDirectoryDTO stageDto : stageDirs) {
+                library.addDirectoryStatus(stageDto.getPath(), task);
+            }
             sentOk = true;
         } catch (TaskRejectedException ex) {
-            LOG.warn("Send queue full. '{}' will be sent later.", stageDto.getPath());
-            LOG.trace("LibrarySendScheduler sendToCore Exception: ", ex);
-            library.addDirectoryStatus(stageDto.getPath(), ConcurrentUtils.constantFuture(StatusType.NEW));
+            LOG.warn("Send queue full. {} directories will be sent later.", stageDirs.size());
+            LOG.trace("LibrarySendScheduler sendBatch Exception: ", ex);
+            runningCount.addAndGet(-stageDirs.size());
+            for (StageDirectoryDTO stageDto : stageDirs) {
+                library.addDirectoryStatus(stageDto.getPath(), ConcurrentUtils.constantFuture(StatusType.NEW));
+            }
         }
         
         return sentOk;
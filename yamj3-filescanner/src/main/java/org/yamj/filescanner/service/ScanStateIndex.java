@@ -0,0 +1,265 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.filescanner.service;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.yamj.common.dto.StageDirectoryDTO;
+import org.yamj.common.dto.StageFileDTO;
+import org.yamj.common.tools.PropertyTools;
+
+/**
+ * Persistent index of the directories which have been sent to the core.
+ *
+ * For each directory path a fingerprint of the directory date and the name,
+ * size and date of the contained files is stored. The fingerprint is just
+ * committed when the directory has been sent successfully, so a rescan only
+ * needs to send the directories which have been changed since then.
+ */
+@Service("scanStateIndex")
+public class ScanStateIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ScanStateIndex.class);
+    private static final int FILE_VERSION = 1;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final boolean ENABLED = PropertyTools.getBooleanProperty("filescanner.scanstate.enabled", true);
+    private static final String INDEX_FILE = PropertyTools.getProperty("filescanner.scanstate.file", "scanstate/filescanner.idx");
+
+    // fingerprints of the directories sent to the core
+    private final Map<String, Long> committed = new HashMap<>();
+    // fingerprints of the scanned directories waiting to be sent
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+    // directories seen during the actual run
+    private final Set<String> seen = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private volatile boolean fullResync = false;
+
+    @PostConstruct
+    public void init() {
+        if (ENABLED) {
+            load();
+        } else {
+            LOG.info("Scan state index is disabled; all directories will be sent to the core");
+        }
+    }
+
+    @PreDestroy
+    public void cleanUp() {
+        save();
+    }
+
+    /**
+     * Send all directories to the core regardless of the stored scan state.
+     *
+     * @param fullResync
+     */
+    public void setFullResync(boolean fullResync) {
+        this.fullResync = fullResync;
+        if (fullResync) {
+            LOG.info("Full resync requested; all directories will be sent to the core");
+        }
+    }
+
+    /**
+     * Start the scan of a directory.
+     *
+     * The directory and, for a recursive scan, its sub directories are
+     * forgotten as seen, so that the directories which have been deleted
+     * are removed from the index when it is saved.
+     *
+     * @param directory the absolute path of the directory
+     * @param recursive true if the sub directories are scanned too
+     */
+    public void startScan(String directory, boolean recursive) {
+        final String prefix = directory + File.separator;
+        Iterator<String> iter = seen.iterator();
+        while (iter.hasNext()) {
+            final String path = iter.next();
+            if (path.equals(directory) || (recursive && path.startsWith(prefix))) {
+                iter.remove();
+            }
+        }
+    }
+
+    /**
+     * Check if the directory has been changed since it has been sent to the core.
+     *
+     * @param stageDir
+     * @return true if the directory must be sent to the core
+     */
+    public boolean isChanged(StageDirectoryDTO stageDir) {
+        final String path = stageDir.getPath();
+        final long fingerprint = fingerprint(stageDir);
+        seen.add(path);
+
+        if (ENABLED && !fullResync) {
+            synchronized (committed) {
+                Long stored = committed.get(path);
+                if (stored != null && stored.longValue() == fingerprint) {
+                    return false;
+                }
+            }
+        }
+
+        pending.put(path, fingerprint);
+        return true;
+    }
+
+    /**
+     * Commit the scan state of the directory after it has been sent to the core.
+     *
+     * @param path
+     */
+    public void markSent(String path) {
+        final Long fingerprint = pending.remove(path);
+        if (fingerprint != null) {
+            synchronized (committed) {
+                committed.put(path, fingerprint);
+            }
+        }
+    }
+
+    private void load() {
+        final File indexFile = new File(INDEX_FILE);
+        if (!indexFile.isFile()) {
+            LOG.info("No scan state index found at '{}'; all directories will be sent to the core", indexFile.getAbsolutePath());
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(indexFile))))) {
+            if (in.readInt() != FILE_VERSION) {
+                LOG.info("Scan state index '{}' has an old version and will be rebuilt", indexFile.getAbsolutePath());
+                return;
+            }
+
+            final int count = in.readInt();
+            synchronized (committed) {
+                for (int i = 0; i < count; i++) {
+                    committed.put(in.readUTF(), in.readLong());
+                }
+            }
+            LOG.info("Loaded scan state of {} directories from '{}'", count, indexFile.getAbsolutePath());
+        } catch (IOException ex) {
+            LOG.warn("Failed to read scan state index '{}', error: {}", indexFile.getAbsolutePath(), ex.getMessage());
+            LOG.trace("IO error", ex);
+            synchronized (committed) {
+                committed.clear();
+            }
+        }
+    }
+
+    /**
+     * Store the committed scan state.
+     *
+     * Directories which have not been seen in the actual run are removed.
+     */
+    public void save() {
+        if (!ENABLED) {
+            return;
+        }
+
+        final File indexFile = new File(INDEX_FILE).getAbsoluteFile();
+        final File tempFile = new File(indexFile.getPath() + ".tmp");
+        if (indexFile.getParentFile() != null && !indexFile.getParentFile().exists() && !indexFile.getParentFile().mkdirs()) {
+            LOG.warn("Failed to create directory for scan state index '{}'", indexFile.getAbsolutePath());
+            return;
+        }
+
+        synchronized (committed) {
+            if (!seen.isEmpty()) {
+                committed.keySet().retainAll(seen);
+            }
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(tempFile))))) {
+                out.writeInt(FILE_VERSION);
+                out.writeInt(committed.size());
+                for (Map.Entry<String, Long> entry : committed.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(entry.getValue());
+                }
+            } catch (IOException ex) {
+                LOG.warn("Failed to write scan state index '{}', error: {}", tempFile.getAbsolutePath(), ex.getMessage());
+                LOG.trace("IO error", ex);
+                return;
+            }
+
+            if (indexFile.exists() && !indexFile.delete()) {
+                LOG.warn("Failed to replace scan state index '{}'", indexFile.getAbsolutePath());
+            } else if (!tempFile.renameTo(indexFile)) {
+                LOG.warn("Failed to rename scan state index '{}'", tempFile.getAbsolutePath());
+            } else {
+                LOG.debug("Saved scan state of {} directories to '{}'", committed.size(), indexFile.getAbsolutePath());
+            }
+        }
+    }
+
+    /**
+     * Calculate the 64-bit FNV-1a hash over the directory and its files.
+     *
+     * @param stageDir
+     * @return the fingerprint
+     */
+    static long fingerprint(StageDirectoryDTO stageDir) {
+        final List<StageFileDTO> stageFiles = new ArrayList<>(stageDir.getStageFiles());
+        Collections.sort(stageFiles, new Comparator<StageFileDTO>() {
+            @Override
+            public int compare(StageFileDTO o1, StageFileDTO o2) {
+                return String.valueOf(o1.getFileName()).compareTo(String.valueOf(o2.getFileName()));
+            }
+        });
+
+        long hash = hash(FNV_OFFSET, stageDir.getDate());
+        for (StageFileDTO stageFile : stageFiles) {
+            hash = hash(hash, String.valueOf(stageFile.getFileName()));
+            hash = hash(hash, stageFile.getFileSize());
+            hash = hash(hash, stageFile.getFileDate());
+        }
+        return hash;
+    }
+
+    private static long hash(long hash, long value) {
+        long result = hash;
+        for (int i = 0; i < 8; i++) {
+            result ^= (value >>> (i * 8)) & 0xff;
+            result *= FNV_PRIME;
+        }
+        return result;
+    }
+
+    private static long hash(long hash, String value) {
+        long result = hash;
+        for (int i = 0; i < value.length(); i++) {
+            result ^= value.charAt(i);
+            result *= FNV_PRIME;
+        }
+        return result;
+    }
+}
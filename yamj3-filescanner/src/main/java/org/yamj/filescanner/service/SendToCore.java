@@ -22,7 +22,9 @@
  */
 package org.yamj.filescanner.service;
 
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,24 +34,20 @@ import org.springframework.context.annotation.Scope;
 import org.springframework.remoting.RemoteAccessException;
 import org.springframework.remoting.RemoteConnectFailureException;
 import org.springframework.stereotype.Service;
-import org.yamj.common.dto.ImportDTO;
+import org.yamj.common.dto.ImportBatchDTO;
+import org.yamj.common.dto.StageDirectoryDTO;
 import org.yamj.common.remote.service.FileImportService;
 import org.yamj.common.type.StatusType;
 import org.yamj.filescanner.model.Library;
 import org.yamj.filescanner.model.LibraryCollection;
 import org.yamj.filescanner.model.TimeType;
-import java.util.concurrent.Future;
-import java.util.concurrent.FutureTask;
-import org.yamj.common.type.StatusType;
-import java.util.Map;
-import java.util.concurrent.ExecutionException;
 
 @Service
 @Scope(BeanDefinition.SCOPE_PROTOTYPE)
 public class SendToCore implements Callable<StatusType> {
 
     private static final Logger LOG = LoggerFactory.getLogger(SendToCore.class);
-    private ImportDTO importDto;
+    private ImportBatchDTO importBatch;
     private AtomicInteger runningCount;
 	private int current_runningCount = 0;
     @Autowired
@@ -57,17 +55,19 @@ public class SendToCore implements Callable<StatusType> {
 	
 	@Autowired
     private LibraryCollection libraryCollection;
+    @Autowired
+    private ScanStateIndex scanStateIndex;
 	
     public SendToCore() {
         // empty initialization
     }
 
-    public SendToCore(ImportDTO importDto) {
-        this.importDto = importDto;
+    public SendToCore(ImportBatchDTO importBatch) {
+        this.importBatch = importBatch;
     }
 
-    public void setImportDto(ImportDTO importDto) {
-        this.importDto = importDto;
+    public void setImportBatch(ImportBatchDTO importBatch) {
+        this.importBatch = importBatch;
     }
 
     public void setCounter(AtomicInteger runningCount) {
@@ -77,13 +77,16 @@ public class SendToCore implements Callable<StatusType> {
     @Override
     public StatusType call() {
         StatusType status;
-        String displayPath = importDto.getStageDirectory().getPath();	
+        final int size = importBatch.getStageDirectories().size();
+        String displayPath = importBatch.getStageDirectories().get(0).getPath();	
 		
         try {
-            LOG.debug("Sending: {}", displayPath);
-            fileImportService.importScanned(importDto);
-			current_runningCount = runningCount.decrementAndGet();
-        //    LOG.debug("{}: Successfully queued", displayPath);
+            LOG.debug("Sending {} directories starting with: {}", size, displayPath);
+            fileImportService.importScannedBatch(importBatch);
+			current_runningCount = runningCount.addAndGet(-size);
+            for (StageDirectoryDTO stageDir : importBatch.getStageDirectories()) {
+                scanStateIndex.markSent(stageDir.getPath());
+            }
             status = StatusType.DONE;
         } catch (RemoteConnectFailureException ex) {
             LOG.error("{}: Failed to connect to the core server: {}", displayPath, ex.getMessage());
@@ -96,16 +99,14 @@ public class SendToCore implements Callable<StatusType> {
         }
 		
         // Whether or not the message was sent, quit
-        LOG.info("{}: Exiting with status {}, remaining threads: {}", displayPath, status, current_runningCount);
+        LOG.info("{} (+{} more): Exiting with status {}, remaining directories: {}", displayPath, size - 1, status, current_runningCount);
 		if (current_runningCount == 0)
 		{
 			for (Library library : libraryCollection.getLibraries()) 
 				{
 					for (Map.Entry<String, Future<StatusType>> entry : library.getDirectoryStatus().entrySet()) 
 						{
-						//	LOG.info("    {}: {}", entry.getKey(), entry.getValue().isDone() ? entry.getValue().get() : "Being processed");
 							String displayCurrentLib = entry.getKey();
-						//	LOG.debug ("sendToCore displayCurrentLib: {} , displayPath: {}", displayCurrentLib, displayPath);
 							if (displayCurrentLib.equals(displayPath)) 
 							{
 								LOG.info ("Sending Complete");
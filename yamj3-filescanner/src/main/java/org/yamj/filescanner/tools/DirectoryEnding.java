@@ -66,8 +66,18 @@ public final class DirectoryEnding {
      * @return
      */
     public static DirectoryType check(File directory) {
-        if (DIR_ENDINGS.containsKey(directory.getName())) {
-            return DIR_ENDINGS.get(directory.getName());
+        return check(directory.getName());
+    }
+
+    /**
+     * Return the DirectoryType of the directory name
+     *
+     * @param directoryName
+     * @return
+     */
+    public static DirectoryType check(String directoryName) {
+        if (DIR_ENDINGS.containsKey(directoryName)) {
+            return DIR_ENDINGS.get(directoryName);
         }
         return DirectoryType.STANDARD;
     }
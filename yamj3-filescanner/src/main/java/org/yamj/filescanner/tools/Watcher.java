@@ -26,19 +26,16 @@ import static name.pachler.nio.file.StandardWatchEventKind.ENTRY_CREATE;
 import static name.pachler.nio.file.StandardWatchEventKind.ENTRY_DELETE;
 import static name.pachler.nio.file.StandardWatchEventKind.ENTRY_MODIFY;
 import static name.pachler.nio.file.ext.ExtendedWatchEventModifier.FILE_TREE;
-import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import name.pachler.nio.file.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import java.util.concurrent.Callable;
-import org.springframework.remoting.RemoteAccessException;
-import org.springframework.remoting.RemoteConnectFailureException;
-import org.springframework.stereotype.Service;
-import java.util.concurrent.ExecutionException;
 
 public class Watcher {
 
@@ -48,8 +45,12 @@ public class Watcher {
     private boolean trace = false;
     @SuppressWarnings("rawtypes")
     private static final WatchEvent.Kind[] STANDARD_EVENTS = {ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE};
-    // keep watching the directories
-    private boolean watchEnabled = true;
+    // true if the whole file tree can be watched with one key
+    private boolean fileTree = true;
+    // quiet period to wait for further events
+    private long debounceMillis = 20000;
+    // maximum time to collect events of a burst
+    private long maxDelayMillis = 120000;
 	
     /**
      * Creates a WatchService
@@ -85,6 +86,18 @@ public class Watcher {
         return (WatchEvent<T>) event;
     }
 
+    /**
+     * Set the quiet period to wait for further events before the changes are
+     * reported and the maximum time to collect the events of a burst.
+     *
+     * @param debounceMillis
+     * @param maxDelayMillis
+     */
+    public void setDebounce(long debounceMillis, long maxDelayMillis) {
+        this.debounceMillis = debounceMillis;
+        this.maxDelayMillis = Math.max(debounceMillis, maxDelayMillis);
+    }
+
     /**
      * Add directory to the watch list
      *
@@ -106,7 +119,10 @@ public class Watcher {
     }
 
     /**
-     * Register the given directory with the WatchService
+     * Register the given directory with the WatchService.
+     *
+     * If watching of a whole file tree is not supported by the system, the
+     * directory and all its sub directories are registered one by one.
      *
      * @param dir
      */
@@ -114,8 +130,18 @@ public class Watcher {
         WatchKey key = null;
 		
         try {
-            key = dir.register(watcherService, STANDARD_EVENTS, FILE_TREE);
+            if (fileTree) {
+                key = dir.register(watcherService, STANDARD_EVENTS, FILE_TREE);
+            } else {
+                key = dir.register(watcherService, STANDARD_EVENTS);
+            }
         } catch (UnsupportedOperationException ex) {
+            if (fileTree) {
+                LOG.info("File tree watching not supported, registering sub directories: {}", ex.getMessage());
+                fileTree = false;
+                registerTree(dir);
+                return;
+            }
             LOG.warn("File watching not supported: {}", ex.getMessage());
             LOG.trace("Exception:", ex);
         } catch (IOException ex) {
@@ -136,84 +162,122 @@ public class Watcher {
     }
 
     /**
-     * Process all events for keys queued to the watcher
+     * Register the given directory and all its sub directories.
+     *
+     * @param dir
      */
-    public void processEvents() {
-        while (watchEnabled) {
-
-            // wait for key to be signaled
-			 WatchKey key;
-			// just info
-			startWatching();
-            try {
-				key = watcherService.take();
-			//	LOG.debug("Watcher start take() key and sleep 20s: " + key);
-			// delay action for 20 seconds to let more time to change 
-				TimeUnit.MILLISECONDS.sleep(20000);
-            } catch (InterruptedException ex) {
-				LOG.debug("ProcessEvents watchEnabled InterruptedException: {}", ex);
-                continue;
-            } catch (ClosedWatchServiceException ex) {
-                LOG.info("Watch service closed, terminating.");
-                LOG.trace("Watcher ProcessEvents Exception:", ex);
-                watchEnabled = false;
-                break;
-            }
+    private void registerTree(Path dir) {
+        register(dir);
 
-            Path dir = keys.get(key);
-			LOG.debug("Watcher : " + dir);
-            if (dir == null) {
-                LOG.warn("WatchKey not recognized!!");
-                continue;
-            }
-			
-            for (WatchEvent<?> event : key.pollEvents()) {
-                @SuppressWarnings("rawtypes")
-                WatchEvent.Kind kind = event.kind();
-
-                // TBD - provide example of how OVERFLOW event is handled
-                if (kind == StandardWatchEventKind.OVERFLOW) {
-                    LOG.info("Too many watched events!");
-                    continue;
+        File[] subDirs = new File(dir.toString()).listFiles();
+        if (subDirs != null) {
+            for (File subDir : subDirs) {
+                if (subDir.isDirectory()) {
+                    registerTree(Paths.get(subDir.getAbsolutePath()));
                 }
+            }
+        }
+    }
 
-                // Context for directory entry event is the file name of entry
-                WatchEvent<Path> ev = cast(event);
-                Path name = ev.context();
-                Path child = dir.resolve(name);
+    /**
+     * Wait for changes in the watched directories.
+     *
+     * A burst of events is coalesced: after the first event the watcher waits
+     * until no further event arrives within the debounce period, but not
+     * longer than the maximum delay.
+     *
+     * @return the changed directories mapped to true if the directory has to be
+     * scanned recursively; empty if the watching has been terminated
+     */
+    public Map<String, Boolean> processEvents() {
+        Map<String, Boolean> changed = new LinkedHashMap<>();
+        if (keys.isEmpty()) {
+            LOG.debug("Watcher has no directories to watch");
+            return changed;
+        }
+
+        try {
+            WatchKey key = watcherService.take();
+            final long deadline = System.currentTimeMillis() + maxDelayMillis;
+            while (key != null) {
+                processKey(key, changed);
 
-                // print out event
-                LOG.info("{}: {} ", event.kind().name(), child); // runningCount.incrementAndGet());
-				
-            }
-			
-            // reset key and remove from set if directory no longer accessible
-			boolean valid = key.reset();
-			LOG.debug("Watcher reset key.");
-            if (!valid) {
-               keys.remove(key);
-
-                // all directories are inaccessible
                 if (keys.isEmpty()) {
-					LOG.debug("Watcher keys.isEmpty()");
-                   break;
+                    // all directories are inaccessible
+                    LOG.debug("Watcher keys.isEmpty()");
+                    break;
                 }
+
+                final long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    LOG.debug("Maximum delay of {}ms reached, stop collecting events", maxDelayMillis);
+                    break;
+                }
+                key = watcherService.poll(Math.min(debounceMillis, remaining), TimeUnit.MILLISECONDS);
             }
-			// now stop watcher to exit loop and treat what is modified
-			 stopWatching();
+        } catch (InterruptedException ex) { //NOSONAR
+            LOG.debug("ProcessEvents InterruptedException: {}", ex.getMessage());
+        } catch (ClosedWatchServiceException ex) {
+            LOG.info("Watch service closed, terminating.");
+            LOG.trace("Watcher ProcessEvents Exception:", ex);
+            keys.clear();
         }
-    }
 
-    public void stopWatching() {
-        setWatching(false);
+        LOG.info("Watcher detected {} changed directories", changed.size());
+        return changed;
     }
 
-    public void startWatching() {
-        setWatching(true);
-    }
+    /**
+     * Collect the changed directories of the events of the key.
+     *
+     * @param key
+     * @param changed
+     */
+    private void processKey(WatchKey key, Map<String, Boolean> changed) {
+        Path dir = keys.get(key);
+        LOG.debug("Watcher : {}", dir);
+        if (dir == null) {
+            LOG.warn("WatchKey not recognized!!");
+            key.reset();
+            return;
+        }
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            @SuppressWarnings("rawtypes")
+            WatchEvent.Kind kind = event.kind();
 
-    public void setWatching(boolean watchFlag) {
-        LOG.info("{} the watch process", watchFlag ? "Enabling" : "Disabling");
-        this.watchEnabled = watchFlag;
+            if (kind == StandardWatchEventKind.OVERFLOW) {
+                // events are lost, so scan the whole directory
+                LOG.info("Too many watched events for {}", dir);
+                changed.put(new File(dir.toString()).getAbsolutePath(), Boolean.TRUE);
+                continue;
+            }
+
+            // Context for directory entry event is the file name of entry
+            WatchEvent<Path> ev = cast(event);
+            Path name = ev.context();
+            File child = new File(dir.resolve(name).toString());
+
+            // print out event
+            LOG.info("{}: {} ", event.kind().name(), child);
+
+            if (kind == ENTRY_CREATE && child.isDirectory()) {
+                // a new directory must be scanned completely
+                changed.put(child.getAbsolutePath(), Boolean.TRUE);
+                if (!fileTree) {
+                    registerTree(Paths.get(child.getAbsolutePath()));
+                }
+            } else if (child.getParentFile() != null) {
+                String parent = child.getParentFile().getAbsolutePath();
+                if (!changed.containsKey(parent)) {
+                    changed.put(parent, Boolean.FALSE);
+                }
+            }
+        }
+
+        // reset key and remove from set if directory no longer accessible
+        if (!key.reset()) {
+            keys.remove(key);
+        }
     }
 }
@@ -0,0 +1,109 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.filescanner.service;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.yamj.common.dto.StageDirectoryDTO;
+import org.yamj.common.dto.StageFileDTO;
+
+public class ScanStateIndexTest {
+
+    private ScanStateIndex scanStateIndex;
+
+    @Before
+    public void setUp() {
+        // no init(), so the stored index is not loaded
+        scanStateIndex = new ScanStateIndex();
+    }
+
+    @Test
+    public void unsentDirectoryIsChanged() {
+        assertTrue(scanStateIndex.isChanged(directory("/movies/a", 1000L, "a.mkv", 200L)));
+        // not sent yet, so still changed
+        assertTrue(scanStateIndex.isChanged(directory("/movies/a", 1000L, "a.mkv", 200L)));
+    }
+
+    @Test
+    public void sentDirectoryIsUnchanged() {
+        assertTrue(scanStateIndex.isChanged(directory("/movies/a", 1000L, "a.mkv", 200L)));
+        scanStateIndex.markSent("/movies/a");
+
+        assertFalse(scanStateIndex.isChanged(directory("/movies/a", 1000L, "a.mkv", 200L)));
+        // another directory is independent
+        assertTrue(scanStateIndex.isChanged(directory("/movies/b", 1000L, "a.mkv", 200L)));
+    }
+
+    @Test
+    public void modifiedDirectoryIsChanged() {
+        assertTrue(scanStateIndex.isChanged(directory("/movies/a", 1000L, "a.mkv", 200L)));
+        scanStateIndex.markSent("/movies/a");
+
+        assertTrue(scanStateIndex.isChanged(directory("/movies/a", 2000L, "a.mkv", 200L)));
+        assertTrue(scanStateIndex.isChanged(directory("/movies/a", 1000L, "a.mkv", 300L)));
+        assertTrue(scanStateIndex.isChanged(directory("/movies/a", 1000L, "b.mkv", 200L)));
+
+        StageDirectoryDTO added = directory("/movies/a", 1000L, "a.mkv", 200L);
+        added.addStageFile(file("a.srt", 10L));
+        assertTrue(scanStateIndex.isChanged(added));
+    }
+
+    @Test
+    public void fileOrderIsIrrelevant() {
+        StageDirectoryDTO first = directory("/movies/a", 1000L, "a.mkv", 200L);
+        first.addStageFile(file("a.srt", 10L));
+        assertTrue(scanStateIndex.isChanged(first));
+        scanStateIndex.markSent("/movies/a");
+
+        StageDirectoryDTO second = directory("/movies/a", 1000L, "a.srt", 10L);
+        second.addStageFile(file("a.mkv", 200L));
+        assertFalse(scanStateIndex.isChanged(second));
+    }
+
+    @Test
+    public void fullResync() {
+        assertTrue(scanStateIndex.isChanged(directory("/movies/a", 1000L, "a.mkv", 200L)));
+        scanStateIndex.markSent("/movies/a");
+
+        scanStateIndex.setFullResync(true);
+        assertTrue(scanStateIndex.isChanged(directory("/movies/a", 1000L, "a.mkv", 200L)));
+    }
+
+    private static StageDirectoryDTO directory(String path, long date, String fileName, long fileSize) {
+        StageDirectoryDTO stageDir = new StageDirectoryDTO();
+        stageDir.setPath(path);
+        stageDir.setDate(date);
+        stageDir.addStageFile(file(fileName, fileSize));
+        return stageDir;
+    }
+
+    private static StageFileDTO file(String fileName, long fileSize) {
+        StageFileDTO stageFile = new StageFileDTO();
+        stageFile.setFileName(fileName);
+        stageFile.setFileSize(fileSize);
+        stageFile.setFileDate(500L);
+        return stageFile;
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.plugin.api.tools;
+
+import java.util.List;
+import java.util.concurrent.*;
+import org.yamj.plugin.api.PluginExtensionException;
+import org.yamj.plugin.api.artwork.ArtworkDTO;
+import org.yamj.plugin.api.artwork.AsyncMovieArtworkScanner;
+import org.yamj.plugin.api.artwork.MovieArtworkScanner;
+import org.yamj.plugin.api.metadata.*;
+import org.yamj.plugin.api.model.IMovie;
+import org.yamj.plugin.api.model.IPerson;
+import org.yamj.plugin.api.model.ISeries;
+import org.yamj.plugin.api.trailer.*;
+
+/**
+ * Adapters to call any scanner through the asynchronous scanner contract.
+ * 
+ * Asynchronous scanners are called directly. Blocking scanners are wrapped
+ * into a task which runs on the given executor; if no executor is given
+ * then the task runs in the calling thread.
+ */
+public final class AsyncScannerTools {
+
+    private AsyncScannerTools() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    public static Future<Boolean> scanMovie(final MovieScanner scanner, final IMovie movie, final boolean throwTempError, Executor executor) {
+        if (scanner instanceof AsyncMovieScanner) {
+            return ((AsyncMovieScanner) scanner).scanMovieAsync(movie, throwTempError);
+        }
+        return execute(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return scanner.scanMovie(movie, throwTempError);
+            }
+        }, executor);
+    }
+
+    public static Future<Boolean> scanSeries(final SeriesScanner scanner, final ISeries series, final boolean throwTempError, Executor executor) {
+        if (scanner instanceof AsyncSeriesScanner) {
+            return ((AsyncSeriesScanner) scanner).scanSeriesAsync(series, throwTempError);
+        }
+        return execute(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return scanner.scanSeries(series, throwTempError);
+            }
+        }, executor);
+    }
+
+    public static Future<Boolean> scanPerson(final PersonScanner scanner, final IPerson person, final boolean throwTempError, Executor executor) {
+        if (scanner instanceof AsyncPersonScanner) {
+            return ((AsyncPersonScanner) scanner).scanPersonAsync(person, throwTempError);
+        }
+        return execute(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return scanner.scanPerson(person, throwTempError);
+            }
+        }, executor);
+    }
+
+    public static Future<List<ArtworkDTO>> getPosters(final MovieArtworkScanner scanner, final IMovie movie, Executor executor) {
+        if (scanner instanceof AsyncMovieArtworkScanner) {
+            return ((AsyncMovieArtworkScanner) scanner).getPostersAsync(movie);
+        }
+        return execute(new Callable<List<ArtworkDTO>>() {
+            @Override
+            public List<ArtworkDTO> call() {
+                return scanner.getPosters(movie);
+            }
+        }, executor);
+    }
+
+    public static Future<List<ArtworkDTO>> getFanarts(final MovieArtworkScanner scanner, final IMovie movie, Executor executor) {
+        if (scanner instanceof AsyncMovieArtworkScanner) {
+            return ((AsyncMovieArtworkScanner) scanner).getFanartsAsync(movie);
+        }
+        return execute(new Callable<List<ArtworkDTO>>() {
+            @Override
+            public List<ArtworkDTO> call() {
+                return scanner.getFanarts(movie);
+            }
+        }, executor);
+    }
+
+    public static Future<List<TrailerDTO>> scanForTrailer(final MovieTrailerScanner scanner, final IMovie movie, Executor executor) {
+        if (scanner instanceof AsyncMovieTrailerScanner) {
+            return ((AsyncMovieTrailerScanner) scanner).scanForTrailerAsync(movie);
+        }
+        return execute(new Callable<List<TrailerDTO>>() {
+            @Override
+            public List<TrailerDTO> call() {
+                return scanner.scanForTrailer(movie);
+            }
+        }, executor);
+    }
+
+    public static Future<List<TrailerDTO>> scanForTrailer(final SeriesTrailerScanner scanner, final ISeries series, Executor executor) {
+        if (scanner instanceof AsyncSeriesTrailerScanner) {
+            return ((AsyncSeriesTrailerScanner) scanner).scanForTrailerAsync(series);
+        }
+        return execute(new Callable<List<TrailerDTO>>() {
+            @Override
+            public List<TrailerDTO> call() {
+                return scanner.scanForTrailer(series);
+            }
+        }, executor);
+    }
+
+    private static <T> Future<T> execute(Callable<T> callable, Executor executor) {
+        FutureTask<T> task = new FutureTask<>(callable);
+        if (executor == null) {
+            task.run();
+        } else {
+            executor.execute(task);
+        }
+        return task;
+    }
+
+    /**
+     * Wait for the result of a scan.
+     * 
+     * Runtime exceptions thrown by the scanner, like a
+     * TemporaryUnavailableException, are thrown as they are.
+     * 
+     * @param future the future of the scan
+     * @return the scan result
+     */
+    public static <T> T getResult(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new PluginExtensionException("Interrupted while waiting for scan result", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new PluginExtensionException("Scan failed", ex.getCause());
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ *      Copyright (c) 2004-2015 YAMJ Members
+ *      https://github.com/organizations/YAMJ/teams
+ *
+ *      This file is part of the Yet Another Media Jukebox (YAMJ).
+ *
+ *      YAMJ is free software: you can redistribute it and/or modify
+ *      it under the terms of the GNU General Public License as published by
+ *      the Free Software Foundation, either version 3 of the License, or
+ *      any later version.
+ *
+ *      YAMJ is distributed in the hope that it will be useful,
+ *      but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *      GNU General Public License for more details.
+ *
+ *      You should have received a copy of the GNU General Public License
+ *      along with YAMJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *      Web: https://github.com/YAMJ/yamj-v3
+ *
+ */
+package org.yamj.plugin.api.tools;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import org.junit.After;
+import org.junit.Test;
+import org.yamj.plugin.api.PluginExtensionException;
+import org.yamj.plugin.api.metadata.AsyncMovieScanner;
+import org.yamj.plugin.api.metadata.MovieScanner;
+import org.yamj.plugin.api.model.IMovie;
+import org.yamj.plugin.api.model.IdMap;
+import org.yamj.plugin.api.model.mock.MovieMock;
+import org.yamj.plugin.api.model.type.ContainerType;
+import org.yamj.plugin.api.trailer.AsyncMovieTrailerScanner;
+import org.yamj.plugin.api.trailer.MovieTrailerScanner;
+import org.yamj.plugin.api.trailer.TrailerDTO;
+import org.yamj.plugin.api.web.TemporaryUnavailableException;
+
+public class AsyncScannerToolsTest {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final IMovie movie = new MovieMock();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static class BlockingMovieScanner implements MovieScanner {
+
+        private volatile Thread scanThread;
+        
+        @Override
+        public String getScannerName() {
+            return "blocking";
+        }
+
+        @Override
+        public boolean scanNFO(String nfoContent, IdMap idMap) {
+            return false;
+        }
+
+        @Override
+        public boolean isValidMovieId(String movieId) {
+            return true;
+        }
+
+        @Override
+        public String getMovieId(IMovie movie, boolean throwTempError) {
+            return "1";
+        }
+
+        @Override
+        public boolean scanMovie(IMovie movie, boolean throwTempError) {
+            scanThread = Thread.currentThread();
+            movie.setTitle("scanned");
+            return true;
+        }
+    }
+
+    private static final class AsyncTestScanner extends BlockingMovieScanner implements AsyncMovieScanner {
+
+        private final Future<Boolean> future;
+
+        public AsyncTestScanner(Future<Boolean> future) {
+            this.future = future;
+        }
+
+        @Override
+        public boolean scanMovie(IMovie movie, boolean throwTempError) {
+            fail("Blocking scan of asynchronous scanner");
+            return false;
+        }
+
+        @Override
+        public Future<Boolean> scanMovieAsync(IMovie movie, boolean throwTempError) {
+            return future;
+        }
+    }
+
+    private static class BlockingTrailerScanner implements MovieTrailerScanner {
+
+        private volatile Thread scanThread;
+
+        @Override
+        public String getScannerName() {
+            return "blocking";
+        }
+
+        @Override
+        public List<TrailerDTO> scanForTrailer(IMovie movie) {
+            scanThread = Thread.currentThread();
+            return Collections.singletonList(new TrailerDTO("blocking", ContainerType.MP4, "http://trailer"));
+        }
+    }
+
+    private static final class AsyncTrailerScanner extends BlockingTrailerScanner implements AsyncMovieTrailerScanner {
+
+        private final Future<List<TrailerDTO>> future;
+
+        public AsyncTrailerScanner(Future<List<TrailerDTO>> future) {
+            this.future = future;
+        }
+
+        @Override
+        public List<TrailerDTO> scanForTrailer(IMovie movie) {
+            fail("Blocking scan of asynchronous trailer scanner");
+            return null;
+        }
+
+        @Override
+        public Future<List<TrailerDTO>> scanForTrailerAsync(IMovie movie) {
+            return future;
+        }
+    }
+
+    private static Future<Boolean> failedFuture(final Exception cause) {
+        FutureTask<Boolean> task = new FutureTask<>(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                throw cause;
+            }
+        });
+        task.run();
+        return task;
+    }
+
+    @Test
+    public void asyncScannerIsCalledDirectly() {
+        final FutureTask<Boolean> future = new FutureTask<>(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return Boolean.TRUE;
+            }
+        });
+        
+        assertSame(future, AsyncScannerTools.scanMovie(new AsyncTestScanner(future), movie, false, executor));
+    }
+
+    @Test
+    public void blockingScannerRunsInline() {
+        BlockingMovieScanner scanner = new BlockingMovieScanner();
+        Future<Boolean> future = AsyncScannerTools.scanMovie(scanner, movie, false, null);
+        
+        assertTrue(future.isDone());
+        assertSame(Thread.currentThread(), scanner.scanThread);
+        assertEquals(Boolean.TRUE, AsyncScannerTools.getResult(future));
+        assertEquals("scanned", movie.getTitle());
+    }
+
+    @Test
+    public void blockingScannerRunsOnExecutor() {
+        BlockingMovieScanner scanner = new BlockingMovieScanner();
+        Future<Boolean> future = AsyncScannerTools.scanMovie(scanner, movie, false, executor);
+        
+        assertEquals(Boolean.TRUE, AsyncScannerTools.getResult(future));
+        assertNotNull(scanner.scanThread);
+        assertNotSame(Thread.currentThread(), scanner.scanThread);
+    }
+
+    @Test
+    public void asyncTrailerScannerIsCalledDirectly() {
+        final FutureTask<List<TrailerDTO>> future = new FutureTask<>(new Callable<List<TrailerDTO>>() {
+            @Override
+            public List<TrailerDTO> call() {
+                return Collections.emptyList();
+            }
+        });
+
+        assertSame(future, AsyncScannerTools.scanForTrailer(new AsyncTrailerScanner(future), movie, executor));
+    }
+
+    @Test
+    public void blockingTrailerScannerRunsOnExecutor() {
+        BlockingTrailerScanner scanner = new BlockingTrailerScanner();
+        List<TrailerDTO> trailers = AsyncScannerTools.getResult(AsyncScannerTools.scanForTrailer(scanner, movie, executor));
+
+        assertEquals(1, trailers.size());
+        assertEquals("http://trailer", trailers.get(0).getUrl());
+        assertNotNull(scanner.scanThread);
+        assertNotSame(Thread.currentThread(), scanner.scanThread);
+    }
+
+    @Test(expected = TemporaryUnavailableException.class)
+    public void runtimeExceptionIsRethrown() {
+        AsyncScannerTools.getResult(failedFuture(new TemporaryUnavailableException("unavailable")));
+    }
+
+    @Test
+    public void checkedExceptionIsWrapped() {
+        final IOException cause = new IOException("failed");
+        try {
+            AsyncScannerTools.getResult(failedFuture(cause));
+            fail("Exception expected");
+        } catch (PluginExtensionException ex) {
+            assertSame(cause, ex.getCause());
+        }
+    }
+}